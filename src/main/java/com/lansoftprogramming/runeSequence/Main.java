@@ -4,12 +4,19 @@ import com.formdev.flatlaf.FlatDarkLaf;
 import com.lansoftprogramming.runeSequence.application.*;
 import com.lansoftprogramming.runeSequence.core.detection.DetectionEngine;
 import com.lansoftprogramming.runeSequence.core.detection.TemplateDetector;
+import com.lansoftprogramming.runeSequence.core.metrics.DiagnosticRecorder;
+import com.lansoftprogramming.runeSequence.core.metrics.LogDirectory;
+import com.lansoftprogramming.runeSequence.core.metrics.MetricsRegistry;
+import com.lansoftprogramming.runeSequence.core.metrics.MetricsSnapshotWriter;
+import com.lansoftprogramming.runeSequence.core.metrics.jfr.FlightRecordingController;
+import com.lansoftprogramming.runeSequence.core.sequence.model.AbilityRegistry;
 import com.lansoftprogramming.runeSequence.core.sequence.model.SequenceDefinition;
+import com.lansoftprogramming.runeSequence.core.sequence.parser.RotationDslCodec;
 import com.lansoftprogramming.runeSequence.core.sequence.runtime.TooltipSchedule;
 import com.lansoftprogramming.runeSequence.infrastructure.capture.ScreenCapture;
-import com.lansoftprogramming.runeSequence.infrastructure.config.AbilitySettingsOverridesMapper;
 import com.lansoftprogramming.runeSequence.infrastructure.config.AppSettings;
 import com.lansoftprogramming.runeSequence.infrastructure.config.ConfigManager;
+import com.lansoftprogramming.runeSequence.infrastructure.config.PresetLibrary;
 import com.lansoftprogramming.runeSequence.infrastructure.config.RotationConfig;
 import com.lansoftprogramming.runeSequence.infrastructure.hotkey.HotkeyBindingSource;
 import com.lansoftprogramming.runeSequence.infrastructure.hotkey.HotkeyEvent;
@@ -23,10 +30,13 @@ import com.lansoftprogramming.runeSequence.ui.overlay.toast.ToastManager;
 import com.lansoftprogramming.runeSequence.ui.presetManager.PresetManagerAction;
 import com.lansoftprogramming.runeSequence.ui.regionSelector.RegionSelectorAction;
 import com.lansoftprogramming.runeSequence.ui.settings.debug.IconDetectionDebugService;
+import com.lansoftprogramming.runeSequence.ui.shared.EdtLagProbe;
 import com.lansoftprogramming.runeSequence.ui.shared.window.WindowPlacementSupport;
+import com.lansoftprogramming.runeSequence.ui.taskbar.DumpDiagnosticsAction;
 import com.lansoftprogramming.runeSequence.ui.taskbar.PrimeAbilityCacheAction;
 import com.lansoftprogramming.runeSequence.ui.taskbar.SettingsAction;
 import com.lansoftprogramming.runeSequence.ui.taskbar.Taskbar;
+import org.bytedeco.javacpp.Pointer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,14 +45,17 @@ import java.awt.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 public class Main {
 	private static final String APP_NAME = "RuneSequence";
+	private static final long METRICS_SNAPSHOT_INTERVAL_SECONDS = 30L;
 	private static volatile Logger logger;
 
 	private static Logger logger() {
@@ -57,6 +70,7 @@ public class Main {
 
 	private static ConfigManager configManager;
 	private static TemplateCache templateCache;
+	private static ConfigReloader configReloader;
 	private static Window toastHostWindow;
 	private static Taskbar taskbar;
 	private static ScreenCapture screenCapture;
@@ -64,6 +78,9 @@ public class Main {
 	private static MouseTooltipOverlay mouseTooltipOverlay;
 	private static DetectionEngine detectionEngine;
 	private static HotkeyManager hotkeyManager;
+	private static MetricsSnapshotWriter metricsSnapshotWriter;
+	private static EdtLagProbe edtLagProbe;
+	private static FlightRecordingController flightRecordingController;
 	private static final Object shutdownLock = new Object();
 	private static boolean shutdownInitiated = false;
 
@@ -75,12 +92,14 @@ public class Main {
 		logger.info("Config dir: {}", bootstrap.configDir);
 		logger.info("Logs dir: {}", bootstrap.logsDir);
 		logger.info("JavaCPP cache dir: {}", bootstrap.javacppCacheDir);
+		startMetrics(bootstrap);
 
 		try {
 			// 1. Load Configurations
 			populateSettings();
 			// 2. Load Image Templates
 			populateTemplateCache();
+			startFlightRecordingControl(bootstrap);
 
 			// 3. Initialize core components
 			screenCapture = new ScreenCapture(configManager.getSettings());
@@ -121,21 +140,21 @@ public class Main {
 			Map<String, RotationConfig.PresetData> presets = rotationConfig != null && rotationConfig.getPresets() != null
 					? rotationConfig.getPresets()
 					: Map.of();
+			// Decode the templates the user is likely to start with while the presets compile.
+			preloadRecentTemplates(presets, templateDetector);
 
 			// Parse all presets from the config file and build tooltip schedules
 			TooltipScheduleBuilder scheduleBuilder = new TooltipScheduleBuilder(
 					configManager.getAbilities().getAbilities().keySet()
 			);
-			AbilitySettingsOverridesMapper overridesMapper = new AbilitySettingsOverridesMapper();
-			Map<String, TooltipScheduleBuilder.BuildResult> buildResults = presets.entrySet().stream()
-					.collect(Collectors.toMap(
-							Map.Entry::getKey,
-							entry -> scheduleBuilder.build(
-									entry.getValue().getExpression(),
-									overridesMapper.toDomain(entry.getValue().getAbilitySettings()),
-									overridesMapper.toDomainPerAbility(entry.getValue().getAbilitySettings())
-							)
-					));
+			PresetCompiler presetCompiler = new PresetCompiler(
+					scheduleBuilder,
+					PresetCompiler.abilityConfigVersion(configManager.getAbilities().getAbilities().keySet()),
+					configManager.getConfigDir().resolve("compiled_presets.bin")
+			);
+			presetCompiler.loadCache();
+			Map<String, TooltipScheduleBuilder.BuildResult> buildResults = presetCompiler.compileAll(presets);
+			presetCompiler.saveCache();
 
 			Map<String, SequenceDefinition> namedSequences = buildResults.entrySet().stream()
 					.filter(entry -> entry.getValue().definition() != null)
@@ -183,15 +202,30 @@ public class Main {
 						return settings != null
 								&& settings.getUi() != null
 								&& settings.getUi().isMouseTooltipStepTickDebugEnabled();
+					},
+					() -> {
+						AppSettings settings = configManager.getSettings();
+						return settings == null
+								|| settings.getDetection() == null
+								|| settings.getDetection().isAdaptiveCapture();
+					},
+					() -> {
+						AppSettings settings = configManager.getSettings();
+						return settings == null
+								|| settings.getDetection() == null
+								|| settings.getDetection().isTickAlignedSampling();
 					}
 			);
 				SequenceRunService sequenceRunService = new SequenceRunService(
 						sequenceController,
 						sequenceManager,
 						detectionEngine,
-						scheduleBuilder
+						presetCompiler
 				);
 
+				configReloader = new ConfigReloader(configManager, presetCompiler, sequenceManager, templateCache, templateDetector);
+				configReloader.start();
+
 				IconDetectionDebugService iconDetectionDebugService = new IconDetectionDebugService(
 						detectionEngine,
 						screenCapture,
@@ -205,13 +239,16 @@ public class Main {
 			Map<HotkeyEvent, List<KeyChord>> initialHotkeys = bindingSource.loadBindings(configManager.getSettings().getHotkeys());
 			AtomicReference<Map<HotkeyEvent, List<KeyChord>>> lastHotkeys = new AtomicReference<>(initialHotkeys);
 			hotkeyManager = new HotkeyManager(initialHotkeys);
+			hotkeyManager.refreshAbilityBindings(bindingSource.loadAbilityBindings(configManager.getSettings().getHotkeys()));
 			hotkeyManager.initialize();
 			hotkeyManager.addListener(sequenceRunService);
+			hotkeyManager.addAbilityKeyListener(sequenceManager::onAbilityKeyPressed);
 			configManager.addSettingsSaveListener(settings -> {
 				if (hotkeyManager == null) {
 					return;
 				}
 				AppSettings.HotkeySettings hotkeys = settings != null ? settings.getHotkeys() : null;
+				hotkeyManager.refreshAbilityBindings(bindingSource.loadAbilityBindings(hotkeys));
 				Map<HotkeyEvent, List<KeyChord>> nextBindings = bindingSource.loadBindings(hotkeys);
 				Map<HotkeyEvent, List<KeyChord>> previous = lastHotkeys.get();
 				if (nextBindings.equals(previous)) {
@@ -237,6 +274,7 @@ public class Main {
 				taskbar.addMenuItem("Preset Manager", presetManagerAction);
 				taskbar.addMenuItem("Select Region", new RegionSelectorAction(configManager));
 				taskbar.addMenuItem("Prime Ability Cache", new PrimeAbilityCacheAction(detectionEngine));
+				taskbar.addMenuItem("Dump Diagnostics", new DumpDiagnosticsAction(DiagnosticRecorder.shared()));
 				taskbar.addMenuItem("Settings", new SettingsAction(configManager, iconDetectionDebugService));
 				taskbar.addSeparator();
 
@@ -296,7 +334,7 @@ public class Main {
 		Path baseConfig = resolveAppDataPath();
 		Path defaultConfigDir = baseConfig.resolve(APP_NAME);
 		Path configDir = resolvePathOverride("runeSequence.config.dir", defaultConfigDir);
-		Path logsDir = resolvePathOverride("runeSequence.log.dir", configDir.resolve("logs"));
+		Path logsDir = resolvePathOverride(LogDirectory.PROPERTY, configDir.resolve("logs"));
 
 		String explicitCacheDir = System.getProperty("org.bytedeco.javacpp.cachedir");
 		String envCacheDir = System.getenv("JAVACPP_CACHE");
@@ -312,7 +350,7 @@ public class Main {
 		}
 
 		setIfAbsent("runeSequence.config.dir", configDir.toString());
-		setIfAbsent("runeSequence.log.dir", logsDir.toString());
+		setIfAbsent(LogDirectory.PROPERTY, logsDir.toString());
 
 		try {
 			Files.createDirectories(configDir);
@@ -325,6 +363,41 @@ public class Main {
 		return new BootstrapPaths(configDir, logsDir, javacppCacheDir);
 	}
 
+	/**
+	 * Process-level gauges, JMX export, periodic JSON snapshots in the logs dir and the EDT lag probe.
+	 */
+	private static void startMetrics(BootstrapPaths bootstrap) {
+		try {
+			MetricsRegistry registry = MetricsRegistry.shared();
+			registry.gauge("native.javacppBytes", Pointer::totalBytes);
+			registry.gauge("native.physicalBytes", Pointer::physicalBytes);
+			registry.gauge("jvm.heapUsedBytes", () -> {
+				Runtime runtime = Runtime.getRuntime();
+				return runtime.totalMemory() - runtime.freeMemory();
+			});
+			registry.enableJmx();
+			metricsSnapshotWriter = new MetricsSnapshotWriter(registry, bootstrap.logsDir);
+			metricsSnapshotWriter.start(METRICS_SNAPSHOT_INTERVAL_SECONDS);
+			edtLagProbe = new EdtLagProbe(registry);
+			edtLagProbe.start();
+		} catch (Exception e) {
+			logger().warn("Metrics export unavailable", e);
+		}
+	}
+
+	/**
+	 * Keep the bounded JFR recording in sync with the debug setting.
+	 */
+	private static void startFlightRecordingControl(BootstrapPaths bootstrap) {
+		flightRecordingController = new FlightRecordingController(bootstrap.logsDir);
+		flightRecordingController.setEnabled(isFlightRecordingEnabled(configManager.getSettings()));
+		configManager.addSettingsSaveListener(settings -> flightRecordingController.setEnabled(isFlightRecordingEnabled(settings)));
+	}
+
+	private static boolean isFlightRecordingEnabled(AppSettings settings) {
+		return settings != null && settings.getUi() != null && settings.getUi().isFlightRecordingEnabled();
+	}
+
 	private static void setIfAbsent(String key, String value) {
 		if (key == null || key.isBlank() || value == null) {
 			return;
@@ -372,6 +445,43 @@ public class Main {
 	private record BootstrapPaths(Path configDir, Path logsDir, Path javacppCacheDir) {
 	}
 
+	/**
+	 * Hand the ability keys of the selected and recently played rotations to the template loader. Reads the preset
+	 * index where there is one, so no preset body is loaded for this.
+	 */
+	private static void preloadRecentTemplates(Map<String, RotationConfig.PresetData> presets, TemplateDetector templateDetector) {
+		AppSettings settings = configManager.getSettings();
+		AppSettings.RotationSettings rotation = settings != null ? settings.getRotation() : null;
+		if (rotation == null) {
+			return;
+		}
+		Set<String> rotationIds = new LinkedHashSet<>();
+		if (rotation.getSelectedId() != null) {
+			rotationIds.add(rotation.getSelectedId());
+		}
+		if (rotation.getRecentIds() != null) {
+			rotationIds.addAll(rotation.getRecentIds());
+		}
+		Set<String> abilityKeys = new LinkedHashSet<>();
+		for (String id : rotationIds) {
+			if (id == null) {
+				continue;
+			}
+			if (presets instanceof PresetLibrary library) {
+				abilityKeys.addAll(library.abilityKeysOf(id));
+			} else {
+				RotationConfig.PresetData preset = presets.get(id);
+				if (preset != null) {
+					abilityKeys.addAll(RotationDslCodec.collectAbilityKeysInExpression(preset.getExpression()));
+				}
+			}
+		}
+		if (!abilityKeys.isEmpty()) {
+			logger().debug("Preloading templates of {} rotation(s)", rotationIds.size());
+			templateDetector.preloadTemplates(abilityKeys);
+		}
+	}
+
 	private static NotificationService createNotificationService() {
 		try {
 			Rectangle bounds = GraphicsEnvironment.getLocalGraphicsEnvironment().getMaximumWindowBounds();
@@ -414,6 +524,14 @@ public class Main {
 		}
 
 		templateCache = new TemplateCache(iconFolder);
+
+		// Dense ability indexes for every known key before the detection/runtime layers size their arrays.
+		AbilityRegistry registry = AbilityRegistry.shared();
+		if (configManager.getAbilities() != null && configManager.getAbilities().getAbilities() != null) {
+			registry.registerAbilities(configManager.getAbilities().getAbilities().keySet());
+		}
+		registry.registerAbilities(templateCache.getTemplateNames());
+		logger.info("Ability registry seeded with {} abilities", registry.abilityCount());
 	}
 
 	public static void populateSettings() {
@@ -454,6 +572,12 @@ public class Main {
 		} catch (Exception e) {
 			logger.debug("Failed to flush window placement state during shutdown.", e);
 		}
+		if (configReloader != null) {
+			configReloader.shutdown();
+		}
+		if (configManager != null) {
+			configManager.shutdown();
+		}
 		if (taskbar != null) {
 			taskbar.dispose();
 		}
@@ -475,6 +599,15 @@ public class Main {
 		if (templateCache != null) {
 			templateCache.shutdown();
 		}
+		if (edtLagProbe != null) {
+			edtLagProbe.shutdown();
+		}
+		if (metricsSnapshotWriter != null) {
+			metricsSnapshotWriter.shutdown();
+		}
+		if (flightRecordingController != null) {
+			flightRecordingController.setEnabled(false);
+		}
 		if (toastHostWindow != null) {
 			toastHostWindow.dispose();
 			toastHostWindow = null;
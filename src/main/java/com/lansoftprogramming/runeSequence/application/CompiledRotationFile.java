@@ -0,0 +1,608 @@
+package com.lansoftprogramming.runeSequence.application;
+
+import com.lansoftprogramming.runeSequence.application.TooltipScheduleBuilder.BuildResult;
+import com.lansoftprogramming.runeSequence.core.sequence.model.*;
+import com.lansoftprogramming.runeSequence.core.sequence.runtime.SequenceTooltip;
+import com.lansoftprogramming.runeSequence.core.sequence.runtime.TooltipSchedule;
+
+import java.io.*;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Versioned binary form of compiled presets ({@link BuildResult}s), kept next to {@code rotations.json} and read
+ * through a memory mapping: opening the file only checks the header, and each preset is decoded on its own lookup.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ * header    magic, format version, string count, entry count
+ * strings   (count + 1) offsets, then UTF-8 bytes: every ability id, label, modifier and tooltip text, interned
+ * index     per entry: 32-byte key digest, payload offset, payload length; sorted by digest
+ * payloads  per entry: definition, step, term and alternative tables, modifiers, override records, tooltips
+ * </pre>
+ * A payload flattens the AST: a definition is a range of steps, a step a range of terms, a term a range of
+ * alternatives, and a group alternative refers to another definition (definition 0 is the root). References are
+ * table indexes, so decoding one preset never reads another. Only successful builds are written.
+ * <p>
+ * Reads are thread-safe. {@link #close()} unmaps the file; later reads fail.
+ */
+final class CompiledRotationFile implements Closeable {
+	static final int MAGIC = 0x52534352; // "RSCR"
+	static final int FORMAT_VERSION = 2;
+
+	private static final int HEADER_BYTES = 16;
+	private static final int KEY_BYTES = 32;
+	private static final int INDEX_ENTRY_BYTES = KEY_BYTES + 8;
+	private static final int RANGE_BYTES = 8;
+	private static final int ALTERNATIVE_BYTES = 24;
+	private static final int OVERRIDE_BYTES = 25;
+	private static final int TOOLTIP_BYTES = 16;
+	private static final int NONE = -1;
+
+	private static final int HAS_LEVEL = 1;
+	private static final int HAS_TRIGGERS_GCD = 1 << 1;
+	private static final int TRIGGERS_GCD = 1 << 2;
+	private static final int HAS_CAST_DURATION = 1 << 3;
+	private static final int HAS_COOLDOWN = 1 << 4;
+	private static final int HAS_DETECTION_THRESHOLD = 1 << 5;
+
+	private final Arena arena;
+	private final ByteBuffer buffer;
+	private final int stringCount;
+	private final int stringData;
+	private final int entryCount;
+	private final int index;
+	private final AtomicReferenceArray<String> strings;
+
+	private CompiledRotationFile(Arena arena, ByteBuffer buffer) throws IOException {
+		this.arena = arena;
+		this.buffer = buffer;
+		this.stringCount = buffer.getInt(8);
+		this.entryCount = buffer.getInt(12);
+		if (stringCount < 0 || entryCount < 0) {
+			throw new IOException("Corrupt compiled rotation header");
+		}
+		long dataStart = HEADER_BYTES + 4L * (stringCount + 1L);
+		if (dataStart > buffer.limit()) {
+			throw new IOException("Corrupt compiled rotation string table");
+		}
+		this.stringData = (int) dataStart;
+		long indexStart = dataStart + buffer.getInt(HEADER_BYTES + 4 * stringCount);
+		if (indexStart < dataStart || indexStart + (long) entryCount * INDEX_ENTRY_BYTES > buffer.limit()) {
+			throw new IOException("Corrupt compiled rotation index");
+		}
+		this.index = (int) indexStart;
+		this.strings = new AtomicReferenceArray<>(stringCount);
+	}
+
+	/**
+	 * Map {@code file} for reading.
+	 *
+	 * @return the opened file, or {@code null} when it is not a compiled rotation file of this format version
+	 * @throws IOException when the file cannot be read or its structure is corrupt
+	 */
+	static CompiledRotationFile open(Path file) throws IOException {
+		Arena arena = Arena.ofShared();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("Compiled rotation file too large: " + size + " bytes");
+			}
+			if (size < HEADER_BYTES) {
+				arena.close();
+				return null;
+			}
+			MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, size, arena);
+			ByteBuffer buffer = segment.asByteBuffer();
+			if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+				arena.close();
+				return null;
+			}
+			return new CompiledRotationFile(arena, buffer);
+		} catch (IOException | RuntimeException e) {
+			arena.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Write {@code entries} (cache key to successful build) to {@code file}, replacing it.
+	 *
+	 * @throws IllegalArgumentException if a key is not a hex SHA-256 digest or a build has no definition
+	 */
+	static void write(Path file, Map<String, BuildResult> entries) throws IOException {
+		HexFormat hex = HexFormat.of();
+		StringTable stringTable = new StringTable();
+		// Hex digests sort like their bytes, so the index is ordered for binary search.
+		SortedMap<String, byte[]> payloads = new TreeMap<>();
+		for (Map.Entry<String, BuildResult> entry : entries.entrySet()) {
+			BuildResult result = entry.getValue();
+			if (result == null || result.definition() == null) {
+				throw new IllegalArgumentException("Only successful builds can be written.");
+			}
+			if (hex.parseHex(entry.getKey()).length != KEY_BYTES) {
+				throw new IllegalArgumentException("Not a SHA-256 key: " + entry.getKey());
+			}
+			payloads.put(entry.getKey(), new PayloadWriter(stringTable).encode(result));
+		}
+
+		byte[][] encodedStrings = new byte[stringTable.values.size()][];
+		int stringBytes = 0;
+		for (int i = 0; i < encodedStrings.length; i++) {
+			encodedStrings[i] = stringTable.values.get(i).getBytes(StandardCharsets.UTF_8);
+			stringBytes += encodedStrings[i].length;
+		}
+		long payloadStart = HEADER_BYTES + 4L * (encodedStrings.length + 1) + stringBytes
+				+ (long) payloads.size() * INDEX_ENTRY_BYTES;
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(encodedStrings.length);
+			out.writeInt(payloads.size());
+			int stringOffset = 0;
+			for (byte[] value : encodedStrings) {
+				out.writeInt(stringOffset);
+				stringOffset += value.length;
+			}
+			out.writeInt(stringOffset);
+			for (byte[] value : encodedStrings) {
+				out.write(value);
+			}
+			long payloadOffset = payloadStart;
+			for (Map.Entry<String, byte[]> entry : payloads.entrySet()) {
+				if (payloadOffset + entry.getValue().length > Integer.MAX_VALUE) {
+					throw new IOException("Compiled rotation file would exceed 2 GiB");
+				}
+				out.write(hex.parseHex(entry.getKey()));
+				out.writeInt((int) payloadOffset);
+				out.writeInt(entry.getValue().length);
+				payloadOffset += entry.getValue().length;
+			}
+			for (byte[] payload : payloads.values()) {
+				out.write(payload);
+			}
+		}
+	}
+
+	/**
+	 * Keys of every entry in the file.
+	 */
+	Set<String> keys() {
+		HexFormat hex = HexFormat.of();
+		Set<String> keys = new HashSet<>(entryCount * 2);
+		byte[] digest = new byte[KEY_BYTES];
+		for (int slot = 0; slot < entryCount; slot++) {
+			buffer.get(index + slot * INDEX_ENTRY_BYTES, digest);
+			keys.add(hex.formatHex(digest));
+		}
+		return keys;
+	}
+
+	/**
+	 * Decode one entry.
+	 *
+	 * @return the build, or {@code null} when the file has no entry for {@code key}
+	 * @throws IOException when the entry is corrupt
+	 */
+	BuildResult read(String key) throws IOException {
+		int slot = find(key);
+		if (slot < 0) {
+			return null;
+		}
+		int at = index + slot * INDEX_ENTRY_BYTES + KEY_BYTES;
+		int offset = buffer.getInt(at);
+		int length = buffer.getInt(at + 4);
+		if (offset < index || length < 0 || (long) offset + length > buffer.limit()) {
+			throw new IOException("Corrupt compiled rotation entry " + key);
+		}
+		return new PayloadReader(offset, offset + length).read();
+	}
+
+	@Override
+	public void close() {
+		arena.close();
+	}
+
+	private int find(String key) {
+		byte[] wanted;
+		try {
+			wanted = HexFormat.of().parseHex(key);
+		} catch (IllegalArgumentException e) {
+			return -1;
+		}
+		byte[] probe = new byte[KEY_BYTES];
+		int low = 0;
+		int high = entryCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			buffer.get(index + mid * INDEX_ENTRY_BYTES, probe);
+			int order = Arrays.compareUnsigned(probe, wanted);
+			if (order < 0) {
+				low = mid + 1;
+			} else if (order > 0) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Interned: every preset decoded from this file shares one instance per distinct string.
+	 */
+	private String string(int id) throws IOException {
+		if (id == NONE) {
+			return null;
+		}
+		if (id < 0 || id >= stringCount) {
+			throw new IOException("Corrupt string reference " + id);
+		}
+		String cached = strings.get(id);
+		if (cached != null) {
+			return cached;
+		}
+		int start = buffer.getInt(HEADER_BYTES + 4 * id);
+		int end = buffer.getInt(HEADER_BYTES + 4 * (id + 1));
+		if (start < 0 || end < start || (long) stringData + end > index) {
+			throw new IOException("Corrupt string " + id);
+		}
+		byte[] bytes = new byte[end - start];
+		buffer.get(stringData + start, bytes);
+		String value = new String(bytes, StandardCharsets.UTF_8);
+		return strings.compareAndSet(id, null, value) ? value : strings.get(id);
+	}
+
+	/**
+	 * Decodes one payload; positions are absolute offsets into the mapped file.
+	 */
+	private final class PayloadReader {
+		private final int definitions;
+		private final int definitionCount;
+		private final int steps;
+		private final int stepCount;
+		private final int terms;
+		private final int termCount;
+		private final int alternatives;
+		private final int alternativeCount;
+		private final int modifiers;
+		private final int modifierCount;
+		private final int overrides;
+		private final int overrideCount;
+		private final int tooltips;
+		private final int tooltipCount;
+		private final AbilitySettingsOverrides[] decodedOverrides;
+
+		private PayloadReader(int start, int end) throws IOException {
+			int[] cursor = {start};
+			definitionCount = section(cursor, end, RANGE_BYTES);
+			definitions = cursor[0] - definitionCount * RANGE_BYTES;
+			stepCount = section(cursor, end, RANGE_BYTES);
+			steps = cursor[0] - stepCount * RANGE_BYTES;
+			termCount = section(cursor, end, RANGE_BYTES);
+			terms = cursor[0] - termCount * RANGE_BYTES;
+			alternativeCount = section(cursor, end, ALTERNATIVE_BYTES);
+			alternatives = cursor[0] - alternativeCount * ALTERNATIVE_BYTES;
+			modifierCount = section(cursor, end, 4);
+			modifiers = cursor[0] - modifierCount * 4;
+			overrideCount = section(cursor, end, OVERRIDE_BYTES);
+			overrides = cursor[0] - overrideCount * OVERRIDE_BYTES;
+			tooltipCount = section(cursor, end, TOOLTIP_BYTES);
+			tooltips = cursor[0] - tooltipCount * TOOLTIP_BYTES;
+			if (definitionCount == 0) {
+				throw new IOException("Compiled rotation entry has no definition");
+			}
+			decodedOverrides = new AbilitySettingsOverrides[overrideCount];
+		}
+
+		/**
+		 * Reads a section's count and advances {@code cursor} past its records.
+		 */
+		private int section(int[] cursor, int end, int recordBytes) throws IOException {
+			if (cursor[0] + 4 > end) {
+				throw new IOException("Truncated compiled rotation entry");
+			}
+			int count = buffer.getInt(cursor[0]);
+			long next = cursor[0] + 4L + (long) count * recordBytes;
+			if (count < 0 || next > end) {
+				throw new IOException("Truncated compiled rotation entry");
+			}
+			cursor[0] = (int) next;
+			return count;
+		}
+
+		BuildResult read() throws IOException {
+			SequenceDefinition definition = readDefinition(0, 0);
+			return new BuildResult(definition, readSchedule());
+		}
+
+		private SequenceDefinition readDefinition(int definition, int depth) throws IOException {
+			// A well-formed payload nests each definition once, so deeper recursion means a reference cycle.
+			if (depth >= definitionCount) {
+				throw new IOException("Cyclic group reference in compiled rotation entry");
+			}
+			int at = definitions + checked(definition, definitionCount) * RANGE_BYTES;
+			int firstStep = buffer.getInt(at);
+			int count = buffer.getInt(at + 4);
+			List<Step> result = new ArrayList<>(range(firstStep, count, stepCount));
+			for (int s = firstStep; s < firstStep + count; s++) {
+				result.add(readStep(s, depth));
+			}
+			return new SequenceDefinition(result);
+		}
+
+		private Step readStep(int step, int depth) throws IOException {
+			int at = steps + step * RANGE_BYTES;
+			int firstTerm = buffer.getInt(at);
+			int count = buffer.getInt(at + 4);
+			List<Term> result = new ArrayList<>(range(firstTerm, count, termCount));
+			for (int t = firstTerm; t < firstTerm + count; t++) {
+				int termAt = terms + t * RANGE_BYTES;
+				int firstAlternative = buffer.getInt(termAt);
+				int alternativesInTerm = buffer.getInt(termAt + 4);
+				List<Alternative> options = new ArrayList<>(range(firstAlternative, alternativesInTerm, alternativeCount));
+				for (int a = firstAlternative; a < firstAlternative + alternativesInTerm; a++) {
+					options.add(readAlternative(a, depth));
+				}
+				result.add(new Term(options));
+			}
+			return new Step(result);
+		}
+
+		private Alternative readAlternative(int alternative, int depth) throws IOException {
+			int at = alternatives + alternative * ALTERNATIVE_BYTES;
+			int subgroup = buffer.getInt(at + 20);
+			if (subgroup != NONE) {
+				return new Alternative(readDefinition(subgroup, depth + 1));
+			}
+			String token = string(buffer.getInt(at));
+			if (token == null) {
+				throw new IOException("Alternative without a token");
+			}
+			String label = string(buffer.getInt(at + 4));
+			int overridesId = buffer.getInt(at + 8);
+			int firstModifier = buffer.getInt(at + 12);
+			int count = buffer.getInt(at + 16);
+			List<String> abilityModifiers = new ArrayList<>(range(firstModifier, count, modifierCount));
+			for (int m = firstModifier; m < firstModifier + count; m++) {
+				abilityModifiers.add(string(buffer.getInt(modifiers + m * 4)));
+			}
+			return new Alternative(token, label, readOverrides(overridesId), abilityModifiers);
+		}
+
+		private AbilitySettingsOverrides readOverrides(int id) throws IOException {
+			if (id == NONE) {
+				return null;
+			}
+			checked(id, overrideCount);
+			if (decodedOverrides[id] != null) {
+				return decodedOverrides[id];
+			}
+			int at = overrides + id * OVERRIDE_BYTES;
+			String type = string(buffer.getInt(at));
+			String mask = string(buffer.getInt(at + 4));
+			int flags = buffer.get(at + 8);
+			AbilitySettingsOverrides value = new AbilitySettingsOverrides(
+					type,
+					(flags & HAS_LEVEL) != 0 ? buffer.getInt(at + 9) : null,
+					(flags & HAS_TRIGGERS_GCD) != 0 ? (flags & TRIGGERS_GCD) != 0 : null,
+					(flags & HAS_CAST_DURATION) != 0 ? buffer.getShort(at + 13) : null,
+					(flags & HAS_COOLDOWN) != 0 ? buffer.getShort(at + 15) : null,
+					(flags & HAS_DETECTION_THRESHOLD) != 0 ? buffer.getDouble(at + 17) : null,
+					mask
+			);
+			decodedOverrides[id] = value;
+			return value;
+		}
+
+		private TooltipSchedule readSchedule() throws IOException {
+			if (tooltipCount == 0) {
+				return TooltipSchedule.empty();
+			}
+			Map<Integer, List<SequenceTooltip>> byStep = new HashMap<>();
+			for (int i = 0; i < tooltipCount; i++) {
+				int at = tooltips + i * TOOLTIP_BYTES;
+				String message = string(buffer.getInt(at + 12));
+				if (message == null) {
+					throw new IOException("Tooltip without a message");
+				}
+				byStep.computeIfAbsent(buffer.getInt(at), ignored -> new ArrayList<>())
+						.add(new SequenceTooltip(buffer.getInt(at + 4), string(buffer.getInt(at + 8)), message));
+			}
+			return new TooltipSchedule(byStep);
+		}
+
+		private static int checked(int value, int count) throws IOException {
+			if (value < 0 || value >= count) {
+				throw new IOException("Corrupt table reference " + value);
+			}
+			return value;
+		}
+
+		/**
+		 * Validates the table range {@code [first, first + count)} and returns {@code count}.
+		 */
+		private static int range(int first, int count, int tableSize) throws IOException {
+			if (first < 0 || count < 0 || (long) first + count > tableSize) {
+				throw new IOException("Corrupt table range " + first + "+" + count);
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * Flattens one build into the payload tables, interning strings into the file-wide table.
+	 */
+	private static final class PayloadWriter {
+		private final StringTable strings;
+		private final Table definitions = new Table();
+		private final Table steps = new Table();
+		private final Table terms = new Table();
+		private final Table alternatives = new Table();
+		private final Table modifiers = new Table();
+		private final Table overrides = new Table();
+		private final Table tooltips = new Table();
+		private final Map<AbilitySettingsOverrides, Integer> overrideIds = new HashMap<>();
+
+		private PayloadWriter(StringTable strings) {
+			this.strings = strings;
+		}
+
+		byte[] encode(BuildResult result) throws IOException {
+			// Breadth-first: a group's definition index is known when its alternative is written.
+			Deque<SequenceDefinition> pending = new ArrayDeque<>();
+			pending.add(result.definition());
+			while (!pending.isEmpty()) {
+				writeDefinition(pending.poll(), pending);
+			}
+			TooltipSchedule schedule = result.schedule() != null ? result.schedule() : TooltipSchedule.empty();
+			for (Map.Entry<Integer, List<SequenceTooltip>> entry : schedule.getTooltipsByStep().entrySet()) {
+				for (SequenceTooltip tooltip : entry.getValue()) {
+					DataOutputStream out = tooltips.add();
+					out.writeInt(entry.getKey());
+					out.writeInt(tooltip.stepIndex());
+					out.writeInt(strings.id(tooltip.abilityInstanceId()));
+					out.writeInt(strings.id(tooltip.message()));
+				}
+			}
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+			try (DataOutputStream out = new DataOutputStream(bytes)) {
+				for (Table table : List.of(definitions, steps, terms, alternatives, modifiers, overrides, tooltips)) {
+					out.writeInt(table.count);
+					table.bytes.writeTo(out);
+				}
+			}
+			return bytes.toByteArray();
+		}
+
+		private void writeDefinition(SequenceDefinition definition, Deque<SequenceDefinition> pending) throws IOException {
+			List<Step> stepList = definition.getSteps();
+			DataOutputStream definitionOut = definitions.add();
+			definitionOut.writeInt(steps.count);
+			definitionOut.writeInt(stepList.size());
+
+			int nextTerm = terms.count;
+			for (Step step : stepList) {
+				DataOutputStream out = steps.add();
+				out.writeInt(nextTerm);
+				out.writeInt(step.getTerms().size());
+				nextTerm += step.getTerms().size();
+			}
+			int nextAlternative = alternatives.count;
+			for (Step step : stepList) {
+				for (Term term : step.getTerms()) {
+					DataOutputStream out = terms.add();
+					out.writeInt(nextAlternative);
+					out.writeInt(term.getAlternatives().size());
+					nextAlternative += term.getAlternatives().size();
+				}
+			}
+			for (Step step : stepList) {
+				for (Term term : step.getTerms()) {
+					for (Alternative alternative : term.getAlternatives()) {
+						writeAlternative(alternative, pending);
+					}
+				}
+			}
+		}
+
+		private void writeAlternative(Alternative alternative, Deque<SequenceDefinition> pending) throws IOException {
+			if (alternative.isGroup()) {
+				int subgroup = definitions.count + pending.size();
+				pending.add(alternative.getSubgroup());
+				DataOutputStream out = alternatives.add();
+				out.writeInt(NONE);
+				out.writeInt(NONE);
+				out.writeInt(NONE);
+				out.writeInt(0);
+				out.writeInt(0);
+				out.writeInt(subgroup);
+				return;
+			}
+			List<String> abilityModifiers = alternative.getAbilityModifiers();
+			int firstModifier = modifiers.count;
+			for (String modifier : abilityModifiers) {
+				modifiers.add().writeInt(strings.id(modifier));
+			}
+			DataOutputStream out = alternatives.add();
+			out.writeInt(strings.id(alternative.getToken()));
+			out.writeInt(strings.id(alternative.getInstanceLabel()));
+			out.writeInt(overridesId(alternative.getAbilitySettingsOverrides()));
+			out.writeInt(firstModifier);
+			out.writeInt(abilityModifiers.size());
+			out.writeInt(NONE);
+		}
+
+		private int overridesId(AbilitySettingsOverrides value) throws IOException {
+			if (value == null) {
+				return NONE;
+			}
+			Integer existing = overrideIds.get(value);
+			if (existing != null) {
+				return existing;
+			}
+			int id = overrides.count;
+			Integer level = value.getLevelOverride().orElse(null);
+			Boolean triggersGcd = value.getTriggersGcdOverride().orElse(null);
+			Short castDuration = value.getCastDurationOverride().orElse(null);
+			Short cooldown = value.getCooldownOverride().orElse(null);
+			Double detectionThreshold = value.getDetectionThresholdOverride().orElse(null);
+			int flags = (level != null ? HAS_LEVEL : 0)
+					| (triggersGcd != null ? HAS_TRIGGERS_GCD : 0)
+					| (Boolean.TRUE.equals(triggersGcd) ? TRIGGERS_GCD : 0)
+					| (castDuration != null ? HAS_CAST_DURATION : 0)
+					| (cooldown != null ? HAS_COOLDOWN : 0)
+					| (detectionThreshold != null ? HAS_DETECTION_THRESHOLD : 0);
+
+			DataOutputStream out = overrides.add();
+			out.writeInt(strings.id(value.getTypeOverride().orElse(null)));
+			out.writeInt(strings.id(value.getMaskOverride().orElse(null)));
+			out.writeByte(flags);
+			out.writeInt(level != null ? level : 0);
+			out.writeShort(castDuration != null ? castDuration : 0);
+			out.writeShort(cooldown != null ? cooldown : 0);
+			out.writeDouble(detectionThreshold != null ? detectionThreshold : 0d);
+			overrideIds.put(value, id);
+			return id;
+		}
+	}
+
+	/**
+	 * Fixed-size records appended to one payload table.
+	 */
+	private static final class Table {
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private final DataOutputStream out = new DataOutputStream(bytes);
+		private int count;
+
+		DataOutputStream add() {
+			count++;
+			return out;
+		}
+	}
+
+	private static final class StringTable {
+		private final Map<String, Integer> ids = new HashMap<>();
+		private final List<String> values = new ArrayList<>();
+
+		int id(String value) {
+			if (value == null) {
+				return NONE;
+			}
+			return ids.computeIfAbsent(value, ignored -> {
+				values.add(value);
+				return values.size() - 1;
+			});
+		}
+	}
+}
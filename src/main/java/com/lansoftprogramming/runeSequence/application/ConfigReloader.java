@@ -0,0 +1,237 @@
+package com.lansoftprogramming.runeSequence.application;
+
+import com.lansoftprogramming.runeSequence.application.TooltipScheduleBuilder.BuildResult;
+import com.lansoftprogramming.runeSequence.core.detection.TemplateDetector;
+import com.lansoftprogramming.runeSequence.core.sequence.model.AbilityRegistry;
+import com.lansoftprogramming.runeSequence.infrastructure.config.ConfigManager;
+import com.lansoftprogramming.runeSequence.infrastructure.config.RotationConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Applies outside edits of {@code rotations.json}, {@code abilities.json} and the active template folder while the
+ * app runs. A {@link WatchService} reports changed files; once they have been quiet for {@link #QUIET_PERIOD_MS}
+ * (editors save in several steps), each is diffed against the loaded state and only what changed is redone:
+ * <ul>
+ *     <li>abilities are updated in place and their cached detection locations dropped;</li>
+ *     <li>templates are re-read file by file, dropping the cached locations of the ones replaced;</li>
+ *     <li>presets the rotations reload reports as changed (all of them after an ability rename) are recompiled when
+ *     their compile key changed, and pushed to the {@link SequenceManager}.</li>
+ * </ul>
+ * The app's own saves are reported too; they diff as unchanged.
+ */
+public class ConfigReloader {
+	private static final Logger logger = LoggerFactory.getLogger(ConfigReloader.class);
+	static final long QUIET_PERIOD_MS = 300L;
+
+	private final ConfigManager configManager;
+	private final PresetCompiler presetCompiler;
+	private final SequenceManager sequenceManager;
+	private final TemplateCache templateCache;
+	private final TemplateDetector templateDetector;
+	private WatchService watchService;
+	private Thread thread;
+
+	public ConfigReloader(ConfigManager configManager,
+	                      PresetCompiler presetCompiler,
+	                      SequenceManager sequenceManager,
+	                      TemplateCache templateCache,
+	                      TemplateDetector templateDetector) {
+		this.configManager = Objects.requireNonNull(configManager, "configManager");
+		this.presetCompiler = Objects.requireNonNull(presetCompiler, "presetCompiler");
+		this.sequenceManager = Objects.requireNonNull(sequenceManager, "sequenceManager");
+		this.templateCache = Objects.requireNonNull(templateCache, "templateCache");
+		this.templateDetector = Objects.requireNonNull(templateDetector, "templateDetector");
+	}
+
+	public synchronized void start() {
+		if (thread != null) {
+			return;
+		}
+		try {
+			WatchService service = FileSystems.getDefault().newWatchService();
+			register(service, configManager.getConfigDir());
+			Path templateFolder = templateCache.getImagePath();
+			if (templateFolder != null && Files.isDirectory(templateFolder) && !templateFolder.equals(configManager.getConfigDir())) {
+				register(service, templateFolder);
+			}
+			watchService = service;
+		} catch (IOException e) {
+			logger.warn("Config hot reload unavailable; edits are picked up on restart", e);
+			return;
+		}
+		thread = new Thread(this::watch, "ConfigReloader");
+		thread.setDaemon(true);
+		thread.start();
+		logger.info("Watching {} for config changes", configManager.getConfigDir());
+	}
+
+	public synchronized void shutdown() {
+		if (watchService == null) {
+			return;
+		}
+		try {
+			watchService.close();
+		} catch (IOException e) {
+			logger.debug("Failed to close the config watch service", e);
+		}
+		watchService = null;
+		thread = null;
+	}
+
+	private static void register(WatchService service, Path directory) throws IOException {
+		directory.register(service, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+	}
+
+	private void watch() {
+		WatchService service;
+		synchronized (this) {
+			service = watchService;
+		}
+		Set<Path> changed = new LinkedHashSet<>();
+		try {
+			while (true) {
+				WatchKey key = changed.isEmpty()
+						? service.take()
+						: service.poll(QUIET_PERIOD_MS, TimeUnit.MILLISECONDS);
+				if (key == null) {
+					applySafely(changed);
+					changed.clear();
+					continue;
+				}
+				Path directory = (Path) key.watchable();
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (event.kind() == OVERFLOW) {
+						changed.addAll(everythingIn(directory));
+					} else if (event.context() instanceof Path name) {
+						changed.add(directory.resolve(name));
+					}
+				}
+				key.reset();
+			}
+		} catch (ClosedWatchServiceException | InterruptedException e) {
+			logger.debug("Config watcher stopped");
+		}
+	}
+
+	/**
+	 * Events were dropped: treat every file of the directory as changed.
+	 */
+	private Set<Path> everythingIn(Path directory) {
+		Set<Path> files = new LinkedHashSet<>(List.of(configManager.getRotationsPath(), configManager.getAbilitiesPath()));
+		try (Stream<Path> listed = Files.list(directory)) {
+			listed.forEach(files::add);
+		} catch (IOException e) {
+			logger.debug("Unable to list {} after dropped watch events", directory, e);
+		}
+		return files;
+	}
+
+	private void applySafely(Set<Path> changed) {
+		try {
+			apply(changed);
+		} catch (RuntimeException e) {
+			logger.warn("Failed to apply config changes {}", changed, e);
+		}
+	}
+
+	/**
+	 * Reload whatever {@code changed} touches. Abilities go first: their names feed the preset compiler.
+	 */
+	void apply(Set<Path> changed) {
+		boolean recompileAll = false;
+		if (changed.contains(configManager.getAbilitiesPath())) {
+			recompileAll = reloadAbilities();
+		}
+		Path templateFolder = templateCache.getImagePath();
+		List<Path> templateFiles = changed.stream()
+				.filter(path -> templateFolder != null && templateFolder.equals(path.getParent()))
+				.toList();
+		if (!templateFiles.isEmpty()) {
+			Set<String> reloaded = templateCache.reloadTemplates(templateFiles);
+			AbilityRegistry.shared().registerAbilities(reloaded);
+			templateDetector.invalidateCachedLocations(reloaded);
+		}
+		Set<String> changedPresets = Set.of();
+		if (changed.contains(configManager.getRotationsPath())) {
+			try {
+				changedPresets = configManager.reloadRotations();
+			} catch (IOException e) {
+				logger.warn("Edited rotations could not be read; keeping the loaded presets", e);
+			}
+		}
+		if (recompileAll) {
+			recompilePresets(null);
+		} else if (!changedPresets.isEmpty()) {
+			recompilePresets(changedPresets);
+		}
+	}
+
+	/**
+	 * @return whether the set of ability names changed, which changes how every preset parses
+	 */
+	private boolean reloadAbilities() {
+		Set<String> changedAbilities;
+		try {
+			changedAbilities = configManager.reloadAbilities();
+		} catch (IOException e) {
+			logger.warn("Edited abilities could not be read; keeping the loaded abilities", e);
+			return false;
+		}
+		if (changedAbilities.isEmpty()) {
+			return false;
+		}
+		AbilityRegistry.shared().registerAbilities(changedAbilities);
+		// Thresholds and masks decide where an ability matches, so its last location is no longer trusted.
+		templateDetector.invalidateCachedLocations(changedAbilities);
+		return presetCompiler.updateAbilityNames(Set.copyOf(configManager.getAbilities().getAbilities().keySet()));
+	}
+
+	/**
+	 * Recompile {@code ids} (every preset when {@code null}) where their compile key changed, and drop the compiled
+	 * presets that no longer exist. Only the presets visited are bound, so a small edit leaves the library's cache of
+	 * bound presets alone.
+	 */
+	private void recompilePresets(Set<String> ids) {
+		long startNanos = System.nanoTime();
+		RotationConfig rotations = configManager.getRotations();
+		Map<String, RotationConfig.PresetData> presets = rotations != null && rotations.getPresets() != null
+				? rotations.getPresets()
+				: Map.of();
+		int updated = 0;
+		for (String id : ids != null ? ids : List.copyOf(presets.keySet())) {
+			if (!presets.containsKey(id)) {
+				continue;
+			}
+			BuildResult result = presetCompiler.recompileIfChanged(id, presets.get(id));
+			if (result != null) {
+				sequenceManager.upsertSequence(id, result.definition(), result.schedule());
+				updated++;
+			}
+		}
+		int removed = 0;
+		for (String id : presetCompiler.presetIds()) {
+			if (!presets.containsKey(id)) {
+				presetCompiler.forget(id);
+				sequenceManager.upsertSequence(id, null, null);
+				removed++;
+			}
+		}
+		if (updated == 0 && removed == 0) {
+			return;
+		}
+		presetCompiler.saveCache();
+		if (logger.isInfoEnabled()) {
+			logger.info("Applied edited rotations: {} preset(s) recompiled, {} removed in {} ms",
+					updated, removed, (System.nanoTime() - startNanos) / 1_000_000L);
+		}
+	}
+}
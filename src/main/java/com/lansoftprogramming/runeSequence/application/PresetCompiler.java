@@ -0,0 +1,416 @@
+package com.lansoftprogramming.runeSequence.application;
+
+import com.lansoftprogramming.runeSequence.application.TooltipScheduleBuilder.BuildResult;
+import com.lansoftprogramming.runeSequence.core.metrics.MetricsRegistry;
+import com.lansoftprogramming.runeSequence.core.sequence.model.AbilitySettingsOverrides;
+import com.lansoftprogramming.runeSequence.infrastructure.config.AbilitySettingsOverridesMapper;
+import com.lansoftprogramming.runeSequence.infrastructure.config.RotationConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Compiles presets into {@link BuildResult}s, memoized by a hash of everything a build depends on: the expression,
+ * the per-instance and per-ability overrides, and the ability config version (the ability names the tooltip parser
+ * knows). Startup compiles the whole library in parallel; later rebuilds of unchanged presets are map lookups.
+ * <p>
+ * Successful builds are also kept in a compiled rotation file (see {@link CompiledRotationFile}), so an unchanged
+ * library restores with no parsing. The file is memory-mapped and each entry is decoded on first use, so loading
+ * costs a header check and activating a preset an index lookup. The cache is best-effort: a missing, stale or
+ * unreadable file only means presets are compiled again.
+ * <p>
+ * Only builds some tracked preset still maps to stay in memory; a preset's previous build is dropped when it
+ * recompiles to a new key or is forgotten.
+ * <p>
+ * Thread-safe.
+ */
+public class PresetCompiler {
+	private static final Logger logger = LoggerFactory.getLogger(PresetCompiler.class);
+	private static final MetricsRegistry.Counter CACHE_HITS = MetricsRegistry.shared().counter("presets.compileCacheHits");
+	private static final MetricsRegistry.Counter COMPILES = MetricsRegistry.shared().counter("presets.compiles");
+	// Part of every key: bump CompiledRotationFile.FORMAT_VERSION when the layout or the parser's output changes.
+	private static final int CACHE_FORMAT_VERSION = CompiledRotationFile.FORMAT_VERSION;
+	private static final int STORE_CLOSE_ATTEMPTS = 20;
+	private static final long STORE_CLOSE_RETRY_NANOS = 1_000_000L;
+
+	private final AbilitySettingsOverridesMapper overridesMapper = new AbilitySettingsOverridesMapper();
+	// Swapped as one, so no build is keyed under a version its builder does not match.
+	private volatile AbilityContext abilityContext;
+	private final Path cacheFile;
+	private final ConcurrentMap<String, BuildResult> compiled = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, String> keyByPresetId = new ConcurrentHashMap<>();
+	// Keys the cache file currently holds; saving is skipped while they match the tracked presets.
+	private Set<String> persistedKeys = Set.of();
+	private volatile CompiledRotationFile store;
+	// Unmapped stores a concurrent restore() was still reading; closed by the next closeStore().
+	private final List<CompiledRotationFile> unclosedStores = new ArrayList<>();
+	// Single daemon thread for saveCacheLater(); null when memoizing in memory only.
+	private final ExecutorService cacheWriter;
+	private final AtomicBoolean saveQueued = new AtomicBoolean(false);
+
+	/**
+	 * @param cacheFile compiled rotation file location, or {@code null} to memoize in memory only
+	 */
+	public PresetCompiler(TooltipScheduleBuilder scheduleBuilder, String abilityConfigVersion, Path cacheFile) {
+		this.abilityContext = new AbilityContext(
+				Objects.requireNonNull(scheduleBuilder, "scheduleBuilder"),
+				abilityConfigVersion != null ? abilityConfigVersion : ""
+		);
+		this.cacheFile = cacheFile;
+		this.cacheWriter = cacheFile != null
+				? Executors.newSingleThreadExecutor(r -> {
+					Thread t = new Thread(r, "PresetCacheWriter");
+					t.setDaemon(true);
+					return t;
+				})
+				: null;
+	}
+
+	/**
+	 * Version string for the ability config a build depends on. Builds only see ability names (tooltip parsing), so
+	 * that is all the version covers.
+	 */
+	public static String abilityConfigVersion(Collection<String> abilityNames) {
+		if (abilityNames == null || abilityNames.isEmpty()) {
+			return "";
+		}
+		List<String> sorted = new ArrayList<>(abilityNames);
+		sorted.removeIf(Objects::isNull);
+		Collections.sort(sorted);
+		return sha256Hex(String.join("\n", sorted));
+	}
+
+	/**
+	 * Compile every preset in parallel, keyed by preset id. Presets that fail to parse map to a result with a
+	 * {@code null} definition, as {@link TooltipScheduleBuilder#build} returns.
+	 */
+	public Map<String, BuildResult> compileAll(Map<String, RotationConfig.PresetData> presets) {
+		if (presets == null || presets.isEmpty()) {
+			return Map.of();
+		}
+		long startNanos = System.nanoTime();
+		long hitsBefore = CACHE_HITS.getCount();
+		Map<String, BuildResult> results = presets.entrySet().parallelStream()
+				.collect(Collectors.toMap(
+						Map.Entry::getKey,
+						entry -> compile(entry.getKey(), entry.getValue())
+				));
+		if (logger.isInfoEnabled()) {
+			logger.info("Compiled {} preset(s) in {} ms ({} restored from cache)",
+					results.size(),
+					(System.nanoTime() - startNanos) / 1_000_000L,
+					CACHE_HITS.getCount() - hitsBefore);
+		}
+		return results;
+	}
+
+	public BuildResult compile(String presetId, RotationConfig.PresetData preset) {
+		String expression = preset != null ? preset.getExpression() : null;
+		return compile(
+				presetId,
+				expression,
+				preset != null ? overridesMapper.toDomain(preset.getAbilitySettings()) : null,
+				preset != null ? overridesMapper.toDomainPerAbility(preset.getAbilitySettings()) : null
+		);
+	}
+
+	/**
+	 * Build (or look up) one preset.
+	 *
+	 * @param presetId identifies which cache entries are still in use when saving; {@code null} for a one-off build
+	 *                 (e.g. an editor preview), which is looked up but not memoized
+	 */
+	public BuildResult compile(String presetId,
+	                           String expression,
+	                           Map<String, AbilitySettingsOverrides> perInstanceOverrides,
+	                           Map<String, AbilitySettingsOverrides> perAbilityOverrides) {
+		AbilityContext context = abilityContext;
+		String key = cacheKey(context.version(), expression, perInstanceOverrides, perAbilityOverrides);
+		if (presetId != null) {
+			String previous = keyByPresetId.put(presetId, key);
+			if (previous != null && !previous.equals(key)) {
+				evictUnlessTracked(previous);
+			}
+		}
+
+		BuildResult result = compiled.get(key);
+		if (result != null) {
+			return result;
+		}
+		result = restore(key);
+		if (result == null) {
+			COMPILES.increment();
+			result = context.scheduleBuilder().build(expression, perInstanceOverrides, perAbilityOverrides);
+		}
+		if (presetId == null) {
+			return result;
+		}
+		BuildResult raced = compiled.putIfAbsent(key, result);
+		return raced != null ? raced : result;
+	}
+
+	/**
+	 * Compile {@code preset} unless nothing its build depends on changed since it was last compiled as
+	 * {@code presetId}.
+	 *
+	 * @return the build, or {@code null} when the preset is unchanged
+	 */
+	public BuildResult recompileIfChanged(String presetId, RotationConfig.PresetData preset) {
+		Objects.requireNonNull(presetId, "presetId");
+		String expression = preset != null ? preset.getExpression() : null;
+		Map<String, AbilitySettingsOverrides> perInstance = preset != null ? overridesMapper.toDomain(preset.getAbilitySettings()) : null;
+		Map<String, AbilitySettingsOverrides> perAbility = preset != null ? overridesMapper.toDomainPerAbility(preset.getAbilitySettings()) : null;
+		String key = cacheKey(abilityContext.version(), expression, perInstance, perAbility);
+		if (key.equals(keyByPresetId.get(presetId))) {
+			return null;
+		}
+		return compile(presetId, expression, perInstance, perAbility);
+	}
+
+	/**
+	 * Build against a changed set of ability names from now on. The names are part of every key, so
+	 * {@link #recompileIfChanged} then rebuilds every preset.
+	 *
+	 * @return false when the names are unchanged
+	 */
+	public synchronized boolean updateAbilityNames(Set<String> abilityNames) {
+		String version = abilityConfigVersion(abilityNames);
+		if (version.equals(abilityContext.version())) {
+			return false;
+		}
+		abilityContext = new AbilityContext(new TooltipScheduleBuilder(abilityNames), version);
+		return true;
+	}
+
+	/**
+	 * Ids of the presets compiled (and not forgotten) so far.
+	 */
+	public Set<String> presetIds() {
+		return Set.copyOf(keyByPresetId.keySet());
+	}
+
+	/**
+	 * Stop tracking a preset that no longer exists, so its entry is not saved.
+	 */
+	public void forget(String presetId) {
+		if (presetId != null) {
+			String previous = keyByPresetId.remove(presetId);
+			if (previous != null) {
+				evictUnlessTracked(previous);
+			}
+		}
+	}
+
+	private void evictUnlessTracked(String key) {
+		// Presets with identical builds share a key; keep it while any of them still maps to it.
+		if (!keyByPresetId.containsValue(key)) {
+			compiled.remove(key);
+		}
+	}
+
+	/**
+	 * Map the compiled rotation file. Entries are decoded lazily, on first lookup.
+	 */
+	public synchronized void loadCache() {
+		if (cacheFile == null || !Files.isRegularFile(cacheFile)) {
+			return;
+		}
+		closeStore();
+		try {
+			CompiledRotationFile opened = CompiledRotationFile.open(cacheFile);
+			if (opened == null) {
+				logger.info("Ignoring compiled rotation file with unknown format: {}", cacheFile);
+				return;
+			}
+			persistedKeys = opened.keys();
+			store = opened;
+			logger.debug("Mapped {} compiled preset(s) from {}", persistedKeys.size(), cacheFile);
+		} catch (IOException | RuntimeException e) {
+			logger.warn("Compiled rotation file could not be read; presets will be recompiled: {}", cacheFile, e);
+		}
+	}
+
+	/**
+	 * {@link #saveCache} on a background thread, for callers on the UI thread. Requests made while a save is still
+	 * queued are folded into it.
+	 */
+	public void saveCacheLater() {
+		if (cacheWriter == null || !saveQueued.compareAndSet(false, true)) {
+			return;
+		}
+		cacheWriter.execute(() -> {
+			saveQueued.set(false);
+			saveCache();
+		});
+	}
+
+	/**
+	 * Write the compiled form of every tracked preset, unless the file already holds exactly those. Failures are
+	 * logged; the cache is only an optimization.
+	 */
+	public synchronized void saveCache() {
+		if (cacheFile == null) {
+			return;
+		}
+		Map<String, BuildResult> live = new HashMap<>();
+		for (String key : keyByPresetId.values()) {
+			// Every tracked key went through compile(), so its build is in memory even if it came from the file.
+			BuildResult result = compiled.get(key);
+			if (result != null && result.definition() != null) {
+				live.put(key, result);
+			}
+		}
+		if (live.keySet().equals(persistedKeys)) {
+			return;
+		}
+		Path temp = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+		try {
+			CompiledRotationFile.write(temp, live);
+			// Unmap first: a mapped file cannot be replaced on every platform.
+			closeStore();
+			try {
+				Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+			}
+			persistedKeys = Set.copyOf(live.keySet());
+			logger.debug("Saved {} compiled preset(s) to {}", live.size(), cacheFile);
+		} catch (IOException | RuntimeException e) {
+			logger.warn("Failed to save compiled rotation file: {}", cacheFile, e);
+		}
+		if (store == null) {
+			// Map the file again (the new one, or the old one when the move failed) so restore() keeps hitting.
+			reopenStore();
+		}
+	}
+
+	private BuildResult restore(String key) {
+		CompiledRotationFile file = store;
+		if (file == null) {
+			return null;
+		}
+		try {
+			BuildResult result = file.read(key);
+			if (result != null) {
+				CACHE_HITS.increment();
+			}
+			return result;
+		} catch (IllegalStateException e) {
+			// A concurrent save has just unmapped the file; the preset compiles instead.
+			logger.debug("Compiled rotation file was unmapped while restoring {}", key);
+			return null;
+		} catch (IOException | RuntimeException e) {
+			logger.warn("Discarding unreadable compiled preset entry {}", key, e);
+			return null;
+		}
+	}
+
+	private void reopenStore() {
+		if (!Files.isRegularFile(cacheFile)) {
+			return;
+		}
+		try {
+			store = CompiledRotationFile.open(cacheFile);
+		} catch (IOException | RuntimeException e) {
+			logger.warn("Compiled rotation file could not be mapped again: {}", cacheFile, e);
+		}
+	}
+
+	/**
+	 * Unmap the store. A restore() that picked it up before it was cleared may still be reading, and a shared arena
+	 * refuses to close while another thread is inside it; such reads are short, so they are waited out briefly and a
+	 * store still busy after that is left for the next call.
+	 */
+	private void closeStore() {
+		CompiledRotationFile file = store;
+		store = null;
+		if (file != null) {
+			unclosedStores.add(file);
+		}
+		unclosedStores.removeIf(PresetCompiler::tryClose);
+	}
+
+	private static boolean tryClose(CompiledRotationFile file) {
+		for (int attempt = 0; attempt < STORE_CLOSE_ATTEMPTS; attempt++) {
+			try {
+				file.close();
+				return true;
+			} catch (IllegalStateException e) {
+				LockSupport.parkNanos(STORE_CLOSE_RETRY_NANOS);
+			}
+		}
+		logger.debug("Compiled rotation file is still being read; closing it later");
+		return false;
+	}
+
+	private static String cacheKey(String abilityConfigVersion,
+	                               String expression,
+	                               Map<String, AbilitySettingsOverrides> perInstanceOverrides,
+	                               Map<String, AbilitySettingsOverrides> perAbilityOverrides) {
+		StringBuilder material = new StringBuilder(expression != null ? expression.length() + 64 : 64);
+		material.append(CACHE_FORMAT_VERSION).append('\u0000')
+				.append(abilityConfigVersion).append('\u0000')
+				.append(expression != null ? expression : "\u0001").append('\u0000');
+		appendOverrides(material, perInstanceOverrides);
+		material.append('\u0000');
+		appendOverrides(material, perAbilityOverrides);
+		return sha256Hex(material.toString());
+	}
+
+	private static void appendOverrides(StringBuilder material, Map<String, AbilitySettingsOverrides> overrides) {
+		if (overrides == null || overrides.isEmpty()) {
+			return;
+		}
+		// Sorted so the key does not depend on map iteration order.
+		for (String name : new TreeSet<>(overrides.keySet())) {
+			AbilitySettingsOverrides value = overrides.get(name);
+			if (value == null || value.isEmpty()) {
+				continue;
+			}
+			appendField(material, name);
+			appendField(material, value.getTypeOverride().orElse(null));
+			appendField(material, value.getLevelOverride().orElse(null));
+			appendField(material, value.getTriggersGcdOverride().orElse(null));
+			appendField(material, value.getCastDurationOverride().orElse(null));
+			appendField(material, value.getCooldownOverride().orElse(null));
+			appendField(material, value.getDetectionThresholdOverride().orElse(null));
+			appendField(material, value.getMaskOverride().orElse(null));
+		}
+	}
+
+	/**
+	 * Length-prefixed, so no field value can be mistaken for a separator.
+	 */
+	private static void appendField(StringBuilder material, Object value) {
+		String text = String.valueOf(value);
+		material.append(text.length()).append(':').append(text);
+	}
+
+	private static String sha256Hex(String value) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(digest);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 unavailable", e);
+		}
+	}
+
+	private record AbilityContext(TooltipScheduleBuilder scheduleBuilder, String version) {
+	}
+}
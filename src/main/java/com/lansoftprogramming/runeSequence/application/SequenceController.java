@@ -88,6 +88,18 @@ public class SequenceController implements HotkeyListener {
 		}
 	}
 
+	/**
+	 * A keypress latch was not confirmed on screen: go back to waiting for the latch.
+	 */
+	public void onLatchRolledBack() {
+		synchronized (this) {
+			if (currentState == State.RUNNING) {
+				setState(State.ARMED);
+				logger.info("Latch not confirmed - sequence re-armed");
+			}
+		}
+	}
+
 	private synchronized void setState(State newState) {
 		if (this.currentState != newState) {
 			State oldState = this.currentState;
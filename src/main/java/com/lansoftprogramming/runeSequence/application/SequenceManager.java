@@ -1,13 +1,21 @@
 package com.lansoftprogramming.runeSequence.application;
 
+import com.lansoftprogramming.runeSequence.core.detection.BrightnessSampler;
 import com.lansoftprogramming.runeSequence.core.detection.DetectionResult;
 import com.lansoftprogramming.runeSequence.core.detection.TemplateDetector;
+import com.lansoftprogramming.runeSequence.core.metrics.FrameLatencyTracker;
+import com.lansoftprogramming.runeSequence.core.metrics.MetricsRegistry;
+import com.lansoftprogramming.runeSequence.core.metrics.jfr.LatchEvent;
+import com.lansoftprogramming.runeSequence.core.sequence.model.AbilityKeyCanonicalizer;
 import com.lansoftprogramming.runeSequence.core.sequence.model.EffectiveAbilityConfig;
 import com.lansoftprogramming.runeSequence.core.sequence.model.SequenceDefinition;
 import com.lansoftprogramming.runeSequence.core.sequence.runtime.ActiveSequence;
+import com.lansoftprogramming.runeSequence.core.sequence.runtime.RotationResync;
 import com.lansoftprogramming.runeSequence.core.sequence.runtime.SequenceTooltip;
 import com.lansoftprogramming.runeSequence.core.sequence.runtime.StepTimer;
+import com.lansoftprogramming.runeSequence.core.sequence.runtime.TickPhaseEstimator;
 import com.lansoftprogramming.runeSequence.core.sequence.runtime.TooltipSchedule;
+import com.lansoftprogramming.runeSequence.core.time.MonotonicClock;
 import com.lansoftprogramming.runeSequence.infrastructure.config.AbilityConfig;
 import com.lansoftprogramming.runeSequence.ui.notification.NotificationService;
 import org.bytedeco.opencv.opencv_core.Mat;
@@ -18,39 +26,46 @@ import java.awt.*;
 import java.util.*;
 import java.util.List;
 import java.util.function.Consumer;
-import java.util.function.LongSupplier;
 
 public class SequenceManager implements SequenceController.StateChangeListener {
 
 	private static final Logger logger = LoggerFactory.getLogger(SequenceManager.class);
+	private static final MetricsRegistry.Counter RESYNCS = MetricsRegistry.shared().counter("sequence.resyncs");
 
 	private final AbilityConfig abilityConfig;
 	private final Map<String, SequenceDefinition> namedSequences;
 	private final Map<String, TooltipSchedule> tooltipSchedules;
 	private final NotificationService notifications;
 	private final TemplateDetector templateDetector;
-	private final LongSupplier nowMs;
+	private final MonotonicClock clock;
 	private ActiveSequence activeSequence;
+	private RotationResync rotationResync;
 	private SequenceController sequenceController;
 	private final GcdLatchTracker gcdLatchTracker = new GcdLatchTracker();
+	private final TickPhaseEstimator tickPhase = new TickPhaseEstimator();
 	private final List<Consumer<SequenceProgress>> progressListeners = new ArrayList<>();
 	private boolean sequenceComplete = false;
 	private String activeSequenceId;
+	private volatile long activations = 0L;
 
 	public SequenceManager(Map<String, SequenceDefinition> namedSequences,
 	                       Map<String, TooltipSchedule> tooltipSchedules,
 	                       AbilityConfig abilityConfig,
 	                       NotificationService notifications,
 	                       TemplateDetector templateDetector) {
-		this(namedSequences, tooltipSchedules, abilityConfig, notifications, templateDetector, System::currentTimeMillis);
+		this(namedSequences, tooltipSchedules, abilityConfig, notifications, templateDetector, MonotonicClock.system());
 	}
 
-	SequenceManager(Map<String, SequenceDefinition> namedSequences,
-	                Map<String, TooltipSchedule> tooltipSchedules,
-	                AbilityConfig abilityConfig,
-	                NotificationService notifications,
-	                TemplateDetector templateDetector,
-	                LongSupplier nowMs) {
+	/**
+	 * @param clock shared time source for step timing, latch detection and (via {@link #getClock()}) the detection
+	 *              engine; inject a {@link com.lansoftprogramming.runeSequence.core.time.VirtualClock} for replays
+	 */
+	public SequenceManager(Map<String, SequenceDefinition> namedSequences,
+	                       Map<String, TooltipSchedule> tooltipSchedules,
+	                       AbilityConfig abilityConfig,
+	                       NotificationService notifications,
+	                       TemplateDetector templateDetector,
+	                       MonotonicClock clock) {
 		this.abilityConfig = Objects.requireNonNull(abilityConfig);
 		this.namedSequences = Objects.requireNonNull(namedSequences);
 		this.tooltipSchedules = tooltipSchedules != null
@@ -58,7 +73,7 @@ public class SequenceManager implements SequenceController.StateChangeListener {
 				: new HashMap<>();
 		this.notifications = Objects.requireNonNull(notifications);
 		this.templateDetector = Objects.requireNonNull(templateDetector);
-		this.nowMs = Objects.requireNonNull(nowMs, "nowMs");
+		this.clock = Objects.requireNonNull(clock, "clock");
 	}
 	public void setSequenceController(SequenceController sequenceController) {
 		if (this.sequenceController != null) {
@@ -73,6 +88,25 @@ public class SequenceManager implements SequenceController.StateChangeListener {
 	// Public API
 	// -------------------------
 
+	/**
+	 * Tick-phase estimate shared by step timing and the detection engine. It is fed from latch darkening here and from
+	 * icon state transitions in the detection engine, on the same millisecond clock as step timing.
+	 */
+	public TickPhaseEstimator getTickPhaseEstimator() {
+		return tickPhase;
+	}
+
+	public MonotonicClock getClock() {
+		return clock;
+	}
+
+	/**
+	 * Bumped whenever the active sequence is replaced or cleared, for per-frame callers that cache sequence state.
+	 */
+	public long activationCount() {
+		return activations;
+	}
+
 	public synchronized boolean activateSequence(String name) {
 		if (name == null || name.isBlank()) {
 			logger.warn("Sequence not found: <blank>");
@@ -90,7 +124,10 @@ public class SequenceManager implements SequenceController.StateChangeListener {
 			sequenceController.removeStateChangeListener(activeSequence);
 		}
 
-		this.activeSequence = new ActiveSequence(def, abilityConfig);
+		this.activeSequence = new ActiveSequence(def, abilityConfig, tickPhase, clock);
+		activations++;
+		templateDetector.preloadTemplates(activeSequence.getAllAbilityKeys());
+		this.rotationResync = RotationResync.forSequence(activeSequence);
 		this.sequenceComplete = false;
 		this.activeSequenceId = name;
 		gcdLatchTracker.reset();
@@ -142,6 +179,8 @@ public class SequenceManager implements SequenceController.StateChangeListener {
 			sequenceController.removeStateChangeListener(activeSequence);
 		}
 		activeSequence = null;
+		activations++;
+		rotationResync = null;
 		activeSequenceId = null;
 		sequenceComplete = false;
 		gcdLatchTracker.reset();
@@ -158,13 +197,40 @@ public class SequenceManager implements SequenceController.StateChangeListener {
 	}
 
 	public synchronized void processDetection(Mat frame, List<DetectionResult> results) {
+		processDetection(frame, results, FrameLatencyTracker.NO_CAPTURE);
+	}
+
+	/**
+	 * @param captureNanos {@link System#nanoTime()} stamp of the frame's capture, or
+	 *                     {@link FrameLatencyTracker#NO_CAPTURE}; used only for latency accounting
+	 */
+	public synchronized void processDetection(Mat frame, List<DetectionResult> results, long captureNanos) {
+		processDetection(frame, results, captureNanos, null);
+	}
+
+	/**
+	 * @param brightness precomputed brightness of {@code frame} (one integral image for all latch ROIs), or
+	 *                   {@code null} to sample each ROI from the frame
+	 */
+	public synchronized void processDetection(Mat frame, List<DetectionResult> results, long captureNanos,
+	                                          BrightnessSampler brightness) {
+		long startNanos = System.nanoTime();
+		try {
+			applyDetection(frame, results, brightness);
+		} finally {
+			if (captureNanos != FrameLatencyTracker.NO_CAPTURE) {
+				FrameLatencyTracker.shared().recordSince(FrameLatencyTracker.Stage.SEQUENCE, startNanos);
+			}
+		}
+	}
 
+	private void applyDetection(Mat frame, List<DetectionResult> results, BrightnessSampler brightness) {
 		if (sequenceComplete || activeSequence == null) {
 			return;
 		}
 
 		// Keep latch state synced to latest detections before step timers react
-		gcdLatchTracker.onFrame(frame, results);
+		gcdLatchTracker.onFrame(frame, results, brightness);
 
 		int previousStep = activeSequence.getCurrentStepIndex();
 
@@ -180,6 +246,54 @@ public class SequenceManager implements SequenceController.StateChangeListener {
 		}
 	}
 
+	/**
+	 * Keypress latch: an in-game keybind for {@code abilityKey} went down. While armed, a key for the current step
+	 * starts the sequence at the key-down time; the tracked GCD icons darkening on screen then confirms it, and no
+	 * darkening within the confirmation window re-arms. Called on the native hook thread.
+	 */
+	public void onAbilityKeyPressed(String abilityKey) {
+		// Stamp before possibly waiting for the detection thread to release the lock.
+		long pressedAtMs = clock.millis();
+		synchronized (this) {
+			boolean wasRunning = sequenceController != null && sequenceController.isRunning();
+			gcdLatchTracker.onAbilityKey(abilityKey, pressedAtMs);
+			if (wasRunning) {
+				onAbilityObserved(abilityKey, pressedAtMs);
+			}
+		}
+	}
+
+	/**
+	 * Resync: the player used {@code abilityKey} at {@code usedAtMs} while the sequence runs. Once the recent uses match
+	 * a single place in the rotation (see {@link RotationResync}) and that place is not where playback expects the
+	 * player to be, playback jumps there as if the matched step had just been latched.
+	 */
+	public synchronized void onAbilityObserved(String abilityKey, long usedAtMs) {
+		if (activeSequence == null || rotationResync == null || sequenceComplete) {
+			return;
+		}
+		int usedStep = rotationResync.observe(abilityKey);
+		if (usedStep < 0) {
+			return;
+		}
+		int currentStep = activeSequence.getCurrentStepIndex();
+		// Using the current step early, or the one just advanced past, is ordinary progress.
+		if (usedStep == currentStep || usedStep + 1 == currentStep) {
+			return;
+		}
+
+		RESYNCS.increment();
+		logger.info("Resync: {} matches step {} after {} steps; moving from step {} to {}",
+				abilityKey, usedStep, rotationResync.matchLength(), currentStep, usedStep + 1);
+		gcdLatchTracker.reset();
+		activeSequence.forceStepIndex(usedStep);
+		if (activeSequence.onLatchStart(usedAtMs)) {
+			onSequenceCompleted();
+			return;
+		}
+		emitProgressUpdate();
+	}
+
 	public synchronized List<DetectionResult> getCurrentAbilities() {
 		if (activeSequence == null || sequenceComplete) {
 			return List.of();
@@ -263,6 +377,9 @@ public class SequenceManager implements SequenceController.StateChangeListener {
 			activeSequence.reset();
 			activeSequence.stepTimer.pause();
 		}
+		if (rotationResync != null) {
+			rotationResync.reset();
+		}
 		sequenceComplete = false;
 		if (rearmLatchIfArmed && sequenceController != null && sequenceController.isArmed()) {
 			// If we're already ARMED, manually re-arm the latch tracker because no state change event will fire.
@@ -348,6 +465,10 @@ public class SequenceManager implements SequenceController.StateChangeListener {
 	public synchronized void onStateChanged(SequenceController.State oldState, SequenceController.State newState) {
 		// Keep detection-side latch phases aligned with UI state machine
 		gcdLatchTracker.onStateChanged(newState);
+		if (rotationResync != null && newState != SequenceController.State.RUNNING) {
+			// Uses observed before a pause or re-arm say nothing about where the next run starts.
+			rotationResync.reset();
+		}
 	}
 
 	private void onSequenceCompleted() {
@@ -449,10 +570,16 @@ public class SequenceManager implements SequenceController.StateChangeListener {
 		private static final int DARKEN_FRAMES_REQUIRED = 3;
 		private static final double MIN_BASELINE_BRIGHTNESS = 1.0;
 		private static final int MAX_TRACKED_GCD_ABILITIES = 2;
+		// Key-down to the GCD icons darkening: up to a tick for the server, then DARKEN_FRAMES_REQUIRED frames.
+		private static final long KEYPRESS_CONFIRM_WINDOW_MS = 3 * StepTimer.TICK_MS;
 
 		private boolean awaitingInitialDetection = false; // Waiting for baseline capture
 		private boolean waitingForDarken = false; // Watching for brightness drops
 		private List<TrackedTarget> trackedTargets = List.of();
+		// Keypress latch already running, waiting for these targets to darken
+		private List<TrackedTarget> confirmTargets = List.of();
+		private long keypressAtMs = 0L;
+		private int confirmSampledFrames = 0;
 
 		void onStateChanged(SequenceController.State newState) {
 			if (newState == SequenceController.State.ARMED) {
@@ -466,23 +593,28 @@ public class SequenceManager implements SequenceController.StateChangeListener {
 			}
 		}
 
-		void onFrame(Mat frame, List<DetectionResult> results) {
+		void onFrame(Mat frame, List<DetectionResult> results, BrightnessSampler brightness) {
 			if (sequenceController == null || frame == null || frame.empty()) {
 				return;
 			}
 
+			if (!confirmTargets.isEmpty()) {
+				confirmKeypressLatch(frame, brightness);
+				return;
+			}
+
 			if (awaitingInitialDetection) {
-				beginTracking(frame);
+				beginTracking(frame, brightness);
 			}
 
 			if (!waitingForDarken || trackedTargets.isEmpty()) {
 				return;
 			}
 
-			long nowMs = SequenceManager.this.nowMs.getAsLong();
+			long nowMs = clock.millis();
 			boolean allDarkened = true;
 			for (TrackedTarget target : trackedTargets) {
-				double sample = templateDetector.measureBrightness(frame, target.roi);
+				double sample = sampleBrightness(frame, brightness, target.roi);
 				target.updateFromBrightness(sample, nowMs);
 				if (!target.hasDarkened()) {
 					allDarkened = false;
@@ -494,7 +626,7 @@ public class SequenceManager implements SequenceController.StateChangeListener {
 			}
 		}
 
-		private void beginTracking(Mat frame) {
+		private void beginTracking(Mat frame, BrightnessSampler brightness) {
 			List<ActiveSequence.DetectionRequirement> gcdRequirements = selectGcdRequirements();
 			if (gcdRequirements.isEmpty()) {
 				return;
@@ -507,7 +639,7 @@ public class SequenceManager implements SequenceController.StateChangeListener {
 					logger.debug("Latch: ROI unavailable for {} (waiting for cache/search)", requirement.abilityKey());
 					continue;
 				}
-				double baseline = templateDetector.measureBrightness(frame, roi);
+				double baseline = sampleBrightness(frame, brightness, roi);
 				if (baseline < MIN_BASELINE_BRIGHTNESS) {
 					logger.debug("Latch: baseline too low for {} (brightness={})", requirement.abilityKey(), baseline);
 					continue;
@@ -524,6 +656,112 @@ public class SequenceManager implements SequenceController.StateChangeListener {
 			awaitingInitialDetection = false;
 			waitingForDarken = true;
 			logger.info("ARMED: brightness tracking {} targets; baselines={}", describeTargets(), describeBaselines());
+			if (LatchEvent.enabled()) {
+				LatchEvent.emit(LatchEvent.PHASE_BASELINE, describeTargets(), describeBaselines(), 0L);
+			}
+		}
+
+		void onAbilityKey(String abilityKey, long pressedAtMs) {
+			if (sequenceController == null || !sequenceController.isArmed() || activeSequence == null || sequenceComplete) {
+				return;
+			}
+			if (!isCurrentStepAbility(abilityKey)) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Keypress latch: {} is not part of the current step", abilityKey);
+				}
+				return;
+			}
+
+			// Baselines (if captured yet) are what the screen confirmation compares against.
+			List<TrackedTarget> targets = waitingForDarken ? trackedTargets : List.of();
+			logger.info("LATCH: {} pressed -> RUNNING (awaiting on-screen confirmation)", abilityKey);
+			if (LatchEvent.enabled()) {
+				LatchEvent.emit(LatchEvent.PHASE_KEYPRESS, abilityKey, describeBaselines(targets), 0L);
+			}
+			boolean completed = activeSequence.onLatchStart(pressedAtMs);
+			reset();
+			sequenceController.onLatchDetected();
+			if (!completed && !targets.isEmpty()) {
+				confirmTargets = targets;
+				keypressAtMs = pressedAtMs;
+				confirmSampledFrames = 0;
+			}
+			notifications.showSuccess("Sequence started!");
+			emitProgressUpdate();
+			if (completed) {
+				onSequenceCompleted();
+			}
+		}
+
+		private void confirmKeypressLatch(Mat frame, BrightnessSampler brightness) {
+			long nowMs = clock.millis();
+			boolean sampled = false;
+			for (TrackedTarget target : confirmTargets) {
+				double sample = sampleBrightness(frame, brightness, target.roi);
+				target.updateFromBrightness(sample, nowMs);
+				sampled |= sample > 0;
+			}
+			for (TrackedTarget target : confirmTargets) {
+				if (target.hasDarkened()) {
+					logger.info("LATCH: keypress confirmed by {} darkening", target.abilityKey);
+					if (LatchEvent.enabled()) {
+						LatchEvent.emit(LatchEvent.PHASE_CONFIRMED, describeTargets(confirmTargets),
+								describeBaselines(confirmTargets), nowMs - keypressAtMs);
+					}
+					tickPhase.observeTransition(target.lastBrightAtMs, target.firstDarkenAtMs);
+					clearConfirmation();
+					return;
+				}
+			}
+			if (sampled) {
+				confirmSampledFrames++;
+			}
+			if (nowMs - keypressAtMs < KEYPRESS_CONFIRM_WINDOW_MS) {
+				return;
+			}
+			if (confirmSampledFrames >= DARKEN_FRAMES_REQUIRED) {
+				rollBackKeypressLatch(nowMs);
+			} else {
+				// The icons were not visible often enough to contradict the keypress; keep running.
+				clearConfirmation();
+			}
+		}
+
+		private void rollBackKeypressLatch(long nowMs) {
+			logger.info("LATCH: keypress not confirmed on screen within {}ms -> re-arming", nowMs - keypressAtMs);
+			if (LatchEvent.enabled()) {
+				LatchEvent.emit(LatchEvent.PHASE_ROLLED_BACK, describeTargets(confirmTargets),
+						describeBaselines(confirmTargets), nowMs - keypressAtMs);
+			}
+			clearConfirmation();
+			activeSequence.reset();
+			activeSequence.stepTimer.pause();
+			sequenceController.onLatchRolledBack();
+			emitProgressUpdate();
+		}
+
+		private void clearConfirmation() {
+			confirmTargets = List.of();
+			keypressAtMs = 0L;
+			confirmSampledFrames = 0;
+		}
+
+		private boolean isCurrentStepAbility(String abilityKey) {
+			if (abilityKey == null) {
+				return false;
+			}
+			String lookupKey = AbilityKeyCanonicalizer.canonicalizeForLookup(abilityKey);
+			for (String stepKey : activeSequence.getAbilityKeysForStep(activeSequence.getCurrentStepIndex())) {
+				if (lookupKey.equals(AbilityKeyCanonicalizer.canonicalizeForLookup(stepKey))) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private double sampleBrightness(Mat frame, BrightnessSampler brightness, Rectangle roi) {
+			double sample = brightness != null ? brightness.meanBrightness(roi) : -1;
+			return sample >= 0 ? sample : templateDetector.measureBrightness(frame, roi);
 		}
 
 		private Rectangle resolveRoi(ActiveSequence.DetectionRequirement requirement, Mat frame) {
@@ -539,7 +777,11 @@ public class SequenceManager implements SequenceController.StateChangeListener {
 				return;
 			}
 			long latchTimeMs = resolveLatchTimeMs(nowMs);
+			observeLatchTick(latchTimeMs);
 			logger.info("LATCH: tracked abilities darkened -> RUNNING");
+			if (LatchEvent.enabled()) {
+				LatchEvent.emit(LatchEvent.PHASE_LATCHED, describeTargets(), describeBaselines(), nowMs - latchTimeMs);
+			}
 			boolean completed = false;
 			if (activeSequence != null) {
 				completed = activeSequence.onLatchStart(latchTimeMs);
@@ -567,6 +809,15 @@ public class SequenceManager implements SequenceController.StateChangeListener {
 			return earliestMs > 0L ? earliestMs : fallbackNowMs;
 		}
 
+		private void observeLatchTick(long latchTimeMs) {
+			for (TrackedTarget target : trackedTargets) {
+				if (target.firstDarkenAtMs == latchTimeMs) {
+					tickPhase.observeTransition(target.lastBrightAtMs, target.firstDarkenAtMs);
+					return;
+				}
+			}
+		}
+
 		private List<ActiveSequence.DetectionRequirement> selectGcdRequirements() {
 			if (activeSequence == null) {
 				return List.of();
@@ -598,16 +849,24 @@ public class SequenceManager implements SequenceController.StateChangeListener {
 		}
 
 		private String describeTargets() {
-			List<String> labels = new ArrayList<>(trackedTargets.size());
-			for (TrackedTarget target : trackedTargets) {
+			return describeTargets(trackedTargets);
+		}
+
+		private String describeTargets(List<TrackedTarget> targets) {
+			List<String> labels = new ArrayList<>(targets.size());
+			for (TrackedTarget target : targets) {
 				labels.add(target.abilityKey);
 			}
 			return String.join(",", labels);
 		}
 
 		private String describeBaselines() {
-			List<String> labels = new ArrayList<>(trackedTargets.size());
-			for (TrackedTarget target : trackedTargets) {
+			return describeBaselines(trackedTargets);
+		}
+
+		private String describeBaselines(List<TrackedTarget> targets) {
+			List<String> labels = new ArrayList<>(targets.size());
+			for (TrackedTarget target : targets) {
 				labels.add(target.abilityKey + "=" + Math.round(target.baselineBrightness));
 			}
 			return String.join(",", labels);
@@ -617,6 +876,7 @@ public class SequenceManager implements SequenceController.StateChangeListener {
 			awaitingInitialDetection = false;
 			waitingForDarken = false;
 			trackedTargets = List.of();
+			clearConfirmation();
 		}
 
 		private final class TrackedTarget { // Tracks one HUD tile's brightness drop
@@ -627,6 +887,7 @@ public class SequenceManager implements SequenceController.StateChangeListener {
 			private int consecutiveDarkFrames = 0;
 			private boolean darkened = false;
 			private long firstDarkenAtMs = 0L;
+			private long lastBrightAtMs = 0L;
 
 			private TrackedTarget(String instanceId, String abilityKey, Rectangle roi, double baselineBrightness) {
 				this.instanceId = instanceId;
@@ -657,6 +918,7 @@ public class SequenceManager implements SequenceController.StateChangeListener {
 					consecutiveDarkFrames = 0;
 					darkened = false;
 					firstDarkenAtMs = 0L;
+					lastBrightAtMs = nowMs;
 				}
 			}
 
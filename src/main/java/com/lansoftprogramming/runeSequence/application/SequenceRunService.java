@@ -21,18 +21,30 @@ public class SequenceRunService implements HotkeyListener {
 	private final SequenceController sequenceController;
 	private final SequenceManager sequenceManager;
 	private final DetectionEngine detectionEngine;
-	private final TooltipScheduleBuilder tooltipScheduleBuilder;
+	private final PresetCompiler presetCompiler;
 
 	public SequenceRunService(SequenceController sequenceController,
 	                          SequenceManager sequenceManager,
 	                          DetectionEngine detectionEngine,
 	                          TooltipScheduleBuilder tooltipScheduleBuilder) {
+		this(
+				sequenceController,
+				sequenceManager,
+				detectionEngine,
+				new PresetCompiler(tooltipScheduleBuilder != null ? tooltipScheduleBuilder : new TooltipScheduleBuilder(), "", null)
+		);
+	}
+
+	public SequenceRunService(SequenceController sequenceController,
+	                          SequenceManager sequenceManager,
+	                          DetectionEngine detectionEngine,
+	                          PresetCompiler presetCompiler) {
 		this.sequenceController = sequenceController;
 		this.sequenceManager = sequenceManager;
 		this.detectionEngine = detectionEngine;
-		this.tooltipScheduleBuilder = tooltipScheduleBuilder != null
-				? tooltipScheduleBuilder
-				: new TooltipScheduleBuilder();
+		this.presetCompiler = presetCompiler != null
+				? presetCompiler
+				: new PresetCompiler(new TooltipScheduleBuilder(), "", null);
 
 		if (this.sequenceManager != null && this.detectionEngine != null) {
 			this.sequenceManager.addProgressListener(progress -> {
@@ -50,7 +62,7 @@ public class SequenceRunService implements HotkeyListener {
 	public TooltipScheduleBuilder.BuildResult buildSchedule(String expression,
 	                                                       Map<String, AbilitySettingsOverrides> perInstanceOverrides,
 	                                                       Map<String, AbilitySettingsOverrides> perAbilityOverrides) {
-		return tooltipScheduleBuilder.build(expression != null ? expression : "", perInstanceOverrides, perAbilityOverrides);
+		return presetCompiler.compile(null, expression != null ? expression : "", perInstanceOverrides, perAbilityOverrides);
 	}
 
 	public boolean canBuildSequence(String expression) {
@@ -147,7 +159,8 @@ public class SequenceRunService implements HotkeyListener {
 			return false;
 		}
 
-		BuildResult result = buildSchedule(expression, perInstanceOverrides, perAbilityOverrides);
+		BuildResult result = presetCompiler.compile(presetId, expression != null ? expression : "", perInstanceOverrides, perAbilityOverrides);
+		presetCompiler.saveCacheLater();
 		SequenceDefinition definition = result.definition();
 		if (definition == null) {
 			logger.warn("Parsed sequence for preset '{}' is unavailable; definition is null.", presetId);
@@ -160,6 +173,14 @@ public class SequenceRunService implements HotkeyListener {
 		return true;
 	}
 
+	/**
+	 * Drops a deleted preset from the compiled preset cache.
+	 */
+	public void forgetPreset(String presetId) {
+		presetCompiler.forget(presetId);
+		presetCompiler.saveCacheLater();
+	}
+
 	/**
 	 * Switches the active sequence used by detection to the given identifier.
 	 * A null or blank identifier clears the active sequence, halting detections
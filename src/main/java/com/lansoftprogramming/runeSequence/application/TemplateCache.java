@@ -1,5 +1,9 @@
 package com.lansoftprogramming.runeSequence.application;
 
+import com.lansoftprogramming.runeSequence.core.detection.IconDescriptor;
+import com.lansoftprogramming.runeSequence.core.detection.TemplateDescriptorIndex;
+import com.lansoftprogramming.runeSequence.core.metrics.MetricsRegistry;
+import com.lansoftprogramming.runeSequence.core.time.MonotonicClock;
 import com.lansoftprogramming.runeSequence.infrastructure.config.ConfigManager;
 import com.lansoftprogramming.runeSequence.infrastructure.config.ScalingConverter;
 import org.bytedeco.opencv.global.opencv_imgcodecs;
@@ -11,23 +15,68 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 
 import static org.bytedeco.opencv.global.opencv_imgcodecs.IMREAD_UNCHANGED;
 
+/**
+ * Ability icon templates of one size folder, decoded on demand. {@link #initialize()} only lists the folder; a
+ * template is decoded on its first lookup, or ahead of time with {@link #preload} (on the background loader) for the
+ * presets the user is about to play.
+ * <p>
+ * Decoded templates live in native memory. Once they exceed the native-byte budget, the least recently used ones
+ * that have been idle for a while are evicted and decoded again if needed. Evicted and replaced templates are closed
+ * only after a grace period, since a detection worker may still be matching against one.
+ */
 public class TemplateCache {
 	private static final Logger logger = LoggerFactory.getLogger(TemplateCache.class);
+	// A ceiling, not a working-set size: a stock size folder decodes to a few MiB (a 30px BGRA icon is ~3.5 KiB), so
+	// eviction only starts for very large or custom libraries. Pass a smaller budget to evict sooner.
+	static final long DEFAULT_NATIVE_BUDGET_BYTES = 32L * 1024L * 1024L;
+	static final long MIN_IDLE_NANOS = TimeUnit.SECONDS.toNanos(60);
+	static final long RETIRE_GRACE_NANOS = TimeUnit.SECONDS.toNanos(5);
+	private static final int LOADER_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+	private static final MetricsRegistry.Counter LOADS = MetricsRegistry.shared().counter("templates.loads");
+	private static final MetricsRegistry.Counter EVICTIONS = MetricsRegistry.shared().counter("templates.evictions");
+
+	private final Map<String, Path> files = new ConcurrentHashMap<>();
 	private final Map<String, TemplateData> cache = new ConcurrentHashMap<>();
-	private final ExecutorService backgroundLoader = Executors.newCachedThreadPool();
+	// Survives eviction: the descriptor index covers every template, decoded or not. Empty when undescribable.
+	private final Map<String, Optional<IconDescriptor>> descriptors = new ConcurrentHashMap<>();
+	private final Queue<Retired> retired = new ConcurrentLinkedQueue<>();
+	private final AtomicLong residentBytes = new AtomicLong();
+	private final ExecutorService backgroundLoader = Executors.newFixedThreadPool(LOADER_THREADS, r -> {
+		Thread t = new Thread(r, "TemplateLoader");
+		t.setDaemon(true);
+		return t;
+	});
 	private final Path imagePath;
+	private final long nativeBudgetBytes;
+	private final MonotonicClock clock;
+	// Built on first request, dropped when a template changes.
+	private volatile TemplateDescriptorIndex descriptorIndex;
 
 	public TemplateCache(Path imagePath) {
+		this(imagePath, DEFAULT_NATIVE_BUDGET_BYTES);
+	}
+
+	/**
+	 * @param nativeBudgetBytes decoded template bytes to keep before idle templates are evicted
+	 */
+	public TemplateCache(Path imagePath, long nativeBudgetBytes) {
+		this(imagePath, nativeBudgetBytes, MonotonicClock.system());
+	}
+
+	/**
+	 * @param clock times idleness and the retire grace period
+	 */
+	public TemplateCache(Path imagePath, long nativeBudgetBytes, MonotonicClock clock) {
 		this.imagePath = imagePath;
+		this.nativeBudgetBytes = Math.max(0L, nativeBudgetBytes);
+		this.clock = Objects.requireNonNull(clock, "clock");
 		initialize();
 	}
 
@@ -59,12 +108,18 @@ public class TemplateCache {
 		private final String name;
 		private final Mat template;
 		private final Size size;
+		private final IconDescriptor descriptor;
+		private final long nativeBytes;
+		// Stamped by every lookup through the cache.
+		private volatile long lastUsedNanos;
 
 
 		public TemplateData(String name, Mat template) {
 			this.name = name;
 			this.template = template.clone(); // deep copy
 			this.size = template.size();
+			this.descriptor = IconDescriptor.of(this.template);
+			this.nativeBytes = this.template.total() * this.template.elemSize();
 		}
 
 		public String getName() {
@@ -79,52 +134,219 @@ public class TemplateCache {
 			return size;
 		}
 
+		public IconDescriptor getDescriptor() {
+			return descriptor;
+		}
+
+		public long getNativeBytes() {
+			return nativeBytes;
+		}
+
 		public void close() {
 			template.close();
 		}
 	}
 
 	/**
-	 * Initialize the cache by loading all templates in the app’s folder (non-recursive).
+	 * List the templates in the app’s folder (non-recursive). Nothing is decoded yet.
 	 */
 	public int initialize() {
-		int count = 0;
-		logger.info("Loading templates from: {}", imagePath);
+		logger.info("Indexing templates in: {}", imagePath);
 
 		if (!Files.exists(imagePath)) {
 			logger.error("Directory does not exist: {}", imagePath);
 			return 0;
 		}
 
-		try (Stream<Path> files = Files.list(imagePath)) { // non-recursive
-			for (Path file : files.filter(Files::isRegularFile)
-					.filter(p -> isImageFile(p.toString()))
+		try (Stream<Path> listed = Files.list(imagePath)) { // non-recursive
+			for (Path file : listed.filter(Files::isRegularFile)
+					.filter(p -> isImageFile(p.getFileName().toString()))
 					.toList()) {
-
-				String name = stripExtension(file.getFileName().toString());
-				if (cacheTemplate(name, file)) {
-					count++;
-				}
+				files.put(stripExtension(file.getFileName().toString()), file);
 			}
 		} catch (IOException e) {
 			throw new RuntimeException("Failed to initialize template cache", e);
 		}
 
-		logger.info("Loaded {} templates", count);
-		return count;
+		descriptorIndex = null;
+		logger.info("Found {} templates; each is loaded on first use", files.size());
+		return files.size();
+	}
+
+	/**
+	 * Decode the named templates in parallel on the background loader, so their first lookup does not stall a
+	 * frame. Unknown and already decoded names are skipped.
+	 */
+	public CompletableFuture<Void> preload(Collection<String> templateNames) {
+		if (templateNames == null || templateNames.isEmpty()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		List<CompletableFuture<Void>> loads = new ArrayList<>();
+		for (String name : new LinkedHashSet<>(templateNames)) {
+			if (name == null || cache.containsKey(name) || !files.containsKey(name)) {
+				continue;
+			}
+			try {
+				loads.add(CompletableFuture.runAsync(() -> load(name), backgroundLoader));
+			} catch (RejectedExecutionException e) {
+				break; // shut down
+			}
+		}
+		if (!loads.isEmpty()) {
+			logger.debug("Preloading {} template(s)", loads.size());
+		}
+		return CompletableFuture.allOf(loads.toArray(CompletableFuture[]::new));
+	}
+
+	/**
+	 * Re-read just the given image files after they changed on disk; a file that no longer exists drops its template.
+	 * Templates that are not decoded yet stay that way. Files outside the cache's folder are ignored.
+	 *
+	 * @return names of the templates that were replaced, added or removed
+	 */
+	public Set<String> reloadTemplates(Collection<Path> changedFiles) {
+		if (changedFiles == null || changedFiles.isEmpty()) {
+			return Set.of();
+		}
+		closeRetired(clock.nanoTime());
+		Set<String> changed = new LinkedHashSet<>();
+		for (Path file : changedFiles) {
+			if (file == null || !imagePath.equals(file.getParent()) || !isImageFile(file.getFileName().toString())) {
+				continue;
+			}
+			String name = stripExtension(file.getFileName().toString());
+			if (Files.isRegularFile(file)) {
+				files.put(name, file);
+			} else if (!files.remove(name, file)) {
+				continue;
+			}
+			descriptors.remove(name);
+			TemplateData previous = cache.remove(name);
+			if (previous != null) {
+				residentBytes.addAndGet(-previous.getNativeBytes());
+				retire(previous);
+				// It was in use: decode the new image now rather than on the next frame.
+				load(name);
+			}
+			changed.add(name);
+		}
+		if (!changed.isEmpty()) {
+			descriptorIndex = null;
+			logger.info("Reloaded {} template(s): {}", changed.size(), changed);
+		}
+		return changed;
+	}
+
+	private TemplateData load(String name) {
+		if (name == null) {
+			return null;
+		}
+		TemplateData data = cache.get(name);
+		if (data == null) {
+			Path file = files.get(name);
+			if (file == null) {
+				return null;
+			}
+			data = cache.computeIfAbsent(name, key -> decode(key, file));
+			if (data == null) {
+				return null;
+			}
+			if (residentBytes.get() > nativeBudgetBytes) {
+				trimToBudget();
+			}
+		}
+		data.lastUsedNanos = clock.nanoTime();
+		return data;
+	}
+
+	private TemplateData decode(String name, Path file) {
+		Mat mat = opencv_imgcodecs.imread(file.toString(), IMREAD_UNCHANGED);
+		try {
+			if (mat.empty()) {
+				logger.warn("Failed to load image: {}", file);
+				// Not retried on every lookup; a reload brings it back once the file is fixed.
+				files.remove(name, file);
+				return null;
+			}
+			TemplateData data = new TemplateData(name, mat); // clones, so the decoded Mat can be closed
+			residentBytes.addAndGet(data.getNativeBytes());
+			descriptors.put(name, Optional.ofNullable(data.getDescriptor()));
+			LOADS.increment();
+			return data;
+		} finally {
+			mat.close();
+		}
 	}
 
-	private boolean cacheTemplate(String abilityName, Path file) {
+	/**
+	 * Evict the least recently used idle templates until the decoded ones fit the budget again. Templates used within
+	 * {@link #MIN_IDLE_NANOS} are kept even over budget.
+	 */
+	private synchronized void trimToBudget() {
+		long now = clock.nanoTime();
+		closeRetired(now);
+		if (residentBytes.get() <= nativeBudgetBytes) {
+			return;
+		}
+		List<TemplateData> idle = cache.values().stream()
+				.filter(data -> now - data.lastUsedNanos >= MIN_IDLE_NANOS)
+				.sorted(Comparator.comparingLong(data -> data.lastUsedNanos))
+				.toList();
+		int evicted = 0;
+		for (TemplateData data : idle) {
+			if (residentBytes.get() <= nativeBudgetBytes) {
+				break;
+			}
+			if (cache.remove(data.getName(), data)) {
+				residentBytes.addAndGet(-data.getNativeBytes());
+				retire(data);
+				evicted++;
+			}
+		}
+		if (evicted > 0) {
+			EVICTIONS.add(evicted);
+			logger.debug("Evicted {} idle template(s); {} bytes resident", evicted, residentBytes.get());
+		}
+	}
+
+	private void retire(TemplateData data) {
+		retired.add(new Retired(data, clock.nanoTime()));
+	}
+
+	private void closeRetired(long now) {
+		Retired oldest;
+		while ((oldest = retired.peek()) != null && now - oldest.retiredAtNanos() >= RETIRE_GRACE_NANOS) {
+			if (retired.remove(oldest)) {
+				oldest.data().close();
+			}
+		}
+	}
+
+	private static Optional<IconDescriptor> describe(Path file) {
 		Mat mat = opencv_imgcodecs.imread(file.toString(), IMREAD_UNCHANGED);
-		if (mat.empty()) {
-			logger.warn("Failed to load image: {}", file);
-			return false;
+		try {
+			return mat.empty() ? Optional.empty() : Optional.ofNullable(IconDescriptor.of(mat));
+		} finally {
+			mat.close();
 		}
-		cache.put(abilityName, new TemplateData(abilityName, mat));
-		mat.close(); // safe because TemplateData clones it
-		return true;
 	}
 
+	private synchronized TemplateDescriptorIndex buildDescriptorIndex() {
+		TemplateDescriptorIndex index = descriptorIndex;
+		if (index != null) {
+			return index;
+		}
+		long startNanos = System.nanoTime();
+		Map<String, IconDescriptor> all = new HashMap<>();
+		files.forEach((name, file) -> descriptors.computeIfAbsent(name, key -> describe(file))
+				.ifPresent(descriptor -> all.put(name, descriptor)));
+		index = new TemplateDescriptorIndex(all);
+		descriptorIndex = index;
+		if (logger.isDebugEnabled()) {
+			logger.debug("Indexed {} template descriptor(s) in {} ms", index.size(), (System.nanoTime() - startNanos) / 1_000_000L);
+		}
+		return index;
+	}
 
 	private String stripExtension(String filename) {
 		int idx = filename.lastIndexOf('.');
@@ -137,17 +359,41 @@ public class TemplateCache {
 				|| lower.endsWith(".jpeg") || lower.endsWith(".bmp");
 	}
 
+	/**
+	 * The template, decoded now if needed; {@code null} when there is no such template.
+	 */
 	public Mat getTemplate(String abilityName) {
-		TemplateData data = cache.get(abilityName);
+		TemplateData data = load(abilityName);
 		return data != null ? data.getTemplate() : null;
 	}
 
+	public IconDescriptor getDescriptor(String abilityName) {
+		if (abilityName == null) {
+			return null;
+		}
+		Optional<IconDescriptor> known = descriptors.get(abilityName);
+		if (known != null) {
+			return known.orElse(null);
+		}
+		TemplateData data = load(abilityName);
+		return data != null ? data.getDescriptor() : null;
+	}
+
+	/**
+	 * Perceptual-hash index over every template in the folder. The first call after startup or a reload describes
+	 * the templates not decoded yet, without keeping them.
+	 */
+	public TemplateDescriptorIndex getDescriptorIndex() {
+		TemplateDescriptorIndex index = descriptorIndex;
+		return index != null ? index : buildDescriptorIndex();
+	}
+
 	public boolean hasTemplate(String abilityName) {
-		return cache.containsKey(abilityName);
+		return abilityName != null && files.containsKey(abilityName);
 	}
 
 	public Set<String> getTemplateNames() {
-		return Set.copyOf(cache.keySet());
+		return Set.copyOf(files.keySet());
 	}
 
 	public Path getImagePath() {
@@ -155,12 +401,29 @@ public class TemplateCache {
 	}
 
 	public int getCacheSize() {
-		return cache.size();
+		return files.size();
+	}
+
+	/**
+	 * Native bytes held by the decoded templates.
+	 */
+	public long getResidentBytes() {
+		return residentBytes.get();
 	}
 
 	public void shutdown() {
+		backgroundLoader.shutdown();
 		cache.values().forEach(TemplateData::close);
 		cache.clear();
-		backgroundLoader.shutdown();
+		residentBytes.set(0L);
+		Retired entry;
+		while ((entry = retired.poll()) != null) {
+			entry.data().close();
+		}
+		descriptors.clear();
+		descriptorIndex = TemplateDescriptorIndex.empty();
+	}
+
+	private record Retired(TemplateData data, long retiredAtNanos) {
 	}
 }
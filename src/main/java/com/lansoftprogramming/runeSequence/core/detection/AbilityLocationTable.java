@@ -0,0 +1,54 @@
+package com.lansoftprogramming.runeSequence.core.detection;
+
+import com.lansoftprogramming.runeSequence.core.sequence.model.AbilityRegistry;
+
+import java.awt.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Last known bounding box per ability, indexed by {@link AbilityRegistry} ability index.
+ * <p>
+ * Reads are a volatile array load plus an element load and never block. Stored rectangles are owned by the table and
+ * must not be mutated by callers. Writes are serialized with the (rare) resize, which fills the new array before
+ * publishing it, so a write is never lost and a cleared slot is never brought back. Writes happen only when a location
+ * changes, so the lock is uncontended in steady state. Safe to use from detection workers.
+ */
+final class AbilityLocationTable {
+	private volatile AtomicReferenceArray<Rectangle> locations;
+
+	AbilityLocationTable(int initialCapacity) {
+		this.locations = new AtomicReferenceArray<>(Math.max(16, initialCapacity));
+	}
+
+	Rectangle get(int abilityIndex) {
+		AtomicReferenceArray<Rectangle> current = locations;
+		return abilityIndex >= 0 && abilityIndex < current.length() ? current.get(abilityIndex) : null;
+	}
+
+	synchronized void put(int abilityIndex, Rectangle location) {
+		if (abilityIndex < 0) {
+			return;
+		}
+		AtomicReferenceArray<Rectangle> current = locations;
+		if (abilityIndex >= current.length()) {
+			current = grow(current, abilityIndex + 1);
+		}
+		current.set(abilityIndex, location);
+	}
+
+	/**
+	 * Upper bound (exclusive) of the indexes that may hold a location.
+	 */
+	int capacity() {
+		return locations.length();
+	}
+
+	private AtomicReferenceArray<Rectangle> grow(AtomicReferenceArray<Rectangle> current, int minCapacity) {
+		AtomicReferenceArray<Rectangle> grown = new AtomicReferenceArray<>(Math.max(minCapacity, current.length() * 2));
+		for (int i = 0; i < current.length(); i++) {
+			grown.set(i, current.get(i));
+		}
+		locations = grown;
+		return grown;
+	}
+}
@@ -0,0 +1,16 @@
+package com.lansoftprogramming.runeSequence.core.detection;
+
+import java.awt.*;
+
+/**
+ * Mean grayscale brightness of rectangles in the frame currently being processed.
+ */
+@FunctionalInterface
+public interface BrightnessSampler {
+
+	/**
+	 * @param roi rectangle in frame coordinates
+	 * @return mean brightness (0-255), or a negative value when {@code roi} cannot be sampled in this frame
+	 */
+	double meanBrightness(Rectangle roi);
+}
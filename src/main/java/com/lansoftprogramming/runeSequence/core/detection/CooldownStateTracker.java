@@ -0,0 +1,292 @@
+package com.lansoftprogramming.runeSequence.core.detection;
+
+import com.lansoftprogramming.runeSequence.core.metrics.MetricsRegistry;
+import com.lansoftprogramming.runeSequence.core.sequence.model.AbilityRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.*;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Follows the ready/cooling state of every ability slot with a known bar location, one brightness lookup per slot per
+ * frame (see {@link LuminanceIntegral}).
+ * <p>
+ * Using an ability darkens its whole tile (GCD sweep, cooldown overlay). Each slot keeps a running baseline of its
+ * ready brightness and turns {@link State#COOLING} after {@link #DARK_FRAMES_REQUIRED} consecutive frames at least
+ * {@link #DARKEN_RATIO} below it, publishing an {@link AbilityUsed} event stamped with the first dark frame. The slot
+ * is ready again once it recovers to {@link #RECOVER_RATIO} of the baseline. The thresholds match the ARMED latch.
+ * <p>
+ * Owned by the detection thread; listeners run on it and must return quickly.
+ */
+public class CooldownStateTracker {
+	private static final Logger logger = LoggerFactory.getLogger(CooldownStateTracker.class);
+	static final double DARKEN_RATIO = 0.25;
+	static final double RECOVER_RATIO = 0.9;
+	static final int DARK_FRAMES_REQUIRED = 3;
+	private static final double BASELINE_SMOOTHING = 0.2;
+	private static final double MIN_BASELINE_BRIGHTNESS = 1.0;
+	private static final MetricsRegistry.Counter ABILITIES_USED = MetricsRegistry.shared().counter("detection.abilityUsed");
+
+	public enum State {
+		UNKNOWN,
+		READY,
+		COOLING
+	}
+
+	/**
+	 * @param usedAtMs      clock time of the first frame the slot was seen dark
+	 * @param lastReadyAtMs clock time of the last frame it was seen ready; the use happened in between
+	 */
+	public record AbilityUsed(String abilityKey, long usedAtMs, long lastReadyAtMs) {
+	}
+
+	private final Map<String, Slot> slots = new HashMap<>();
+	private final List<Consumer<AbilityUsed>> listeners = new CopyOnWriteArrayList<>();
+	private final Rectangle scratchRoi = new Rectangle();
+	private Set<String> scope = null;
+
+	// Abilities trackCachedLocations follows, rebuilt only when the scope, the detector's invalidation count or (with
+	// no scope) the set of registered abilities changes.
+	private String[] followedKeys = new String[0];
+	private int[] followedIndexes = new int[0];
+	private boolean followedStale = true;
+	private long followedInvalidationCount = -1L;
+	private int followedAbilityCount = -1;
+	private final Rectangle trackedBounds = new Rectangle();
+	private boolean hasTrackedBounds = false;
+
+	public void addListener(Consumer<AbilityUsed> listener) {
+		listeners.add(Objects.requireNonNull(listener, "listener"));
+	}
+
+	public void removeListener(Consumer<AbilityUsed> listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Start (or keep) tracking {@code abilityKey} at {@code roi}. A slot whose ROI moved starts over; keys outside
+	 * {@link #restrictTo} are ignored.
+	 */
+	public void track(String abilityKey, Rectangle roi) {
+		if (abilityKey == null || roi == null || roi.isEmpty()) {
+			return;
+		}
+		if (scope != null && !scope.contains(abilityKey)) {
+			return;
+		}
+		Slot slot = slots.get(abilityKey);
+		if (slot == null) {
+			slots.put(abilityKey, new Slot(abilityKey, roi));
+		} else if (!slot.roi.equals(roi)) {
+			slot.roi.setBounds(roi);
+			slot.restart();
+		}
+	}
+
+	/**
+	 * Track every location {@code detector} has cached, keyed by lookup-normalized ability key. Visits only the abilities
+	 * in scope (every registered ability when unrestricted), and works out which those are only when they can have
+	 * changed.
+	 */
+	public void trackCachedLocations(TemplateDetector detector) {
+		AbilityRegistry registry = AbilityRegistry.shared();
+		long invalidationCount = detector.invalidationCount();
+		if (followedStale || invalidationCount != followedInvalidationCount
+				|| (scope == null && registry.abilityCount() != followedAbilityCount)) {
+			followAbilities(registry);
+			followedInvalidationCount = invalidationCount;
+		}
+
+		hasTrackedBounds = false;
+		for (int i = 0; i < followedIndexes.length; i++) {
+			String abilityKey = followedKeys[i];
+			if (detector.loadCachedLocation(followedIndexes[i], scratchRoi)) {
+				track(abilityKey, scratchRoi);
+				if (hasTrackedBounds) {
+					trackedBounds.add(scratchRoi);
+				} else {
+					trackedBounds.setBounds(scratchRoi);
+					hasTrackedBounds = true;
+				}
+			} else if (!slots.isEmpty()) {
+				slots.remove(abilityKey);
+			}
+		}
+	}
+
+	/**
+	 * Union of the locations the last {@link #trackCachedLocations} call tracked, written into {@code target}.
+	 *
+	 * @return false (leaving {@code target} untouched) when it tracked none
+	 */
+	public boolean loadTrackedBounds(Rectangle target) {
+		if (!hasTrackedBounds) {
+			return false;
+		}
+		target.setBounds(trackedBounds);
+		return true;
+	}
+
+	private void followAbilities(AbilityRegistry registry) {
+		if (scope != null) {
+			followedKeys = scope.toArray(new String[0]);
+			followedIndexes = new int[followedKeys.length];
+			for (int i = 0; i < followedKeys.length; i++) {
+				// Registered up front, so an ability first found after this rebuild still has its index here.
+				followedIndexes[i] = registry.registerAbility(followedKeys[i]);
+			}
+		} else {
+			int count = registry.abilityCount();
+			followedKeys = new String[count];
+			followedIndexes = new int[count];
+			for (int i = 0; i < count; i++) {
+				followedKeys[i] = registry.canonicalKey(i);
+				followedIndexes[i] = i;
+			}
+			followedAbilityCount = count;
+		}
+		followedStale = false;
+	}
+
+	/**
+	 * Track only {@code abilityKeys} from now on, dropping every other slot; {@code null} tracks every cached location
+	 * again.
+	 */
+	public void restrictTo(Collection<String> abilityKeys) {
+		followedStale = true;
+		if (abilityKeys == null) {
+			scope = null;
+			return;
+		}
+		AbilityRegistry registry = AbilityRegistry.shared();
+		Set<String> keys = new HashSet<>();
+		for (String abilityKey : abilityKeys) {
+			String canonical = registry.canonicalKey(abilityKey);
+			if (canonical != null) {
+				keys.add(canonical);
+			}
+		}
+		scope = keys;
+		slots.keySet().retainAll(keys);
+	}
+
+	/**
+	 * Sample every tracked slot for the frame taken at {@code nowMs}. Slots {@code brightness} cannot read this frame
+	 * (e.g. outside an adaptive capture window) keep their state.
+	 */
+	public void update(BrightnessSampler brightness, long nowMs) {
+		if (brightness == null) {
+			return;
+		}
+		for (Slot slot : slots.values()) {
+			double sample = brightness.meanBrightness(slot.roi);
+			if (sample < 0) {
+				continue;
+			}
+			if (slot.update(sample, nowMs)) {
+				publish(new AbilityUsed(slot.abilityKey, slot.firstDarkAtMs, slot.lastReadyAtMs));
+			}
+		}
+	}
+
+	public State getState(String abilityKey) {
+		Slot slot = slots.get(abilityKey);
+		return slot != null ? slot.state : State.UNKNOWN;
+	}
+
+	public int trackedCount() {
+		return slots.size();
+	}
+
+	public void reset() {
+		slots.clear();
+		followedStale = true;
+		hasTrackedBounds = false;
+	}
+
+	private void publish(AbilityUsed event) {
+		ABILITIES_USED.increment();
+		if (logger.isDebugEnabled()) {
+			logger.debug("Ability used: {} at {}ms (ready at {}ms)", event.abilityKey(), event.usedAtMs(), event.lastReadyAtMs());
+		}
+		for (Consumer<AbilityUsed> listener : listeners) {
+			try {
+				listener.accept(event);
+			} catch (Exception e) {
+				logger.error("Error notifying ability-used listener", e);
+			}
+		}
+	}
+
+	private static final class Slot {
+		private final String abilityKey;
+		private final Rectangle roi;
+		private State state = State.UNKNOWN;
+		private double baselineBrightness = 0.0d;
+		private int consecutiveDarkFrames = 0;
+		private long firstDarkAtMs = 0L;
+		private long lastReadyAtMs = 0L;
+
+		private Slot(String abilityKey, Rectangle roi) {
+			this.abilityKey = abilityKey;
+			this.roi = new Rectangle(roi);
+		}
+
+		private void restart() {
+			state = State.UNKNOWN;
+			baselineBrightness = 0.0d;
+			consecutiveDarkFrames = 0;
+			firstDarkAtMs = 0L;
+			lastReadyAtMs = 0L;
+		}
+
+		/**
+		 * @return true when this sample completes a ready -> cooling transition
+		 */
+		private boolean update(double sample, long nowMs) {
+			if (state == State.UNKNOWN) {
+				if (sample >= MIN_BASELINE_BRIGHTNESS) {
+					// Seeded from whatever is on screen; a slot first seen on cooldown brightens into a real baseline.
+					baselineBrightness = sample;
+					lastReadyAtMs = nowMs;
+					state = State.READY;
+				}
+				return false;
+			}
+
+			double drop = (baselineBrightness - sample) / baselineBrightness;
+			if (state == State.COOLING) {
+				if (sample >= baselineBrightness * RECOVER_RATIO) {
+					state = State.READY;
+					consecutiveDarkFrames = 0;
+					lastReadyAtMs = nowMs;
+				}
+				return false;
+			}
+
+			if (drop < DARKEN_RATIO) {
+				consecutiveDarkFrames = 0;
+				lastReadyAtMs = nowMs;
+				baselineBrightness += BASELINE_SMOOTHING * (sample - baselineBrightness);
+				return false;
+			}
+			if (consecutiveDarkFrames++ == 0) {
+				firstDarkAtMs = nowMs;
+			}
+			if (consecutiveDarkFrames < DARK_FRAMES_REQUIRED) {
+				return false;
+			}
+			state = State.COOLING;
+			return true;
+		}
+	}
+}
@@ -1,9 +1,14 @@
 package com.lansoftprogramming.runeSequence.core.detection;
 
 import com.lansoftprogramming.runeSequence.application.SequenceManager;
-import com.lansoftprogramming.runeSequence.core.sequence.model.EffectiveAbilityConfig;
+import com.lansoftprogramming.runeSequence.core.metrics.DiagnosticRecorder;
+import com.lansoftprogramming.runeSequence.core.metrics.FrameLatencyTracker;
+import com.lansoftprogramming.runeSequence.core.metrics.MetricsRegistry;
+import com.lansoftprogramming.runeSequence.core.metrics.jfr.FrameEvent;
 import com.lansoftprogramming.runeSequence.core.sequence.runtime.ActiveSequence;
 import com.lansoftprogramming.runeSequence.core.sequence.runtime.SequenceTooltip;
+import com.lansoftprogramming.runeSequence.core.sequence.runtime.TickPhaseEstimator;
+import com.lansoftprogramming.runeSequence.core.time.MonotonicClock;
 import com.lansoftprogramming.runeSequence.infrastructure.capture.ScreenCapture;
 import com.lansoftprogramming.runeSequence.ui.notification.NotificationService;
 import com.lansoftprogramming.runeSequence.ui.overlay.MouseTooltipOverlay;
@@ -15,15 +20,30 @@ import org.slf4j.LoggerFactory;
 import java.awt.*;
 import java.util.*;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
 
 public class DetectionEngine {
 	private static final Logger logger = LoggerFactory.getLogger(DetectionEngine.class);
+	private static final int ADAPTIVE_CAPTURE_PADDING = 24;
+	private static final int ADAPTIVE_CAPTURE_VALIDATION_FRAMES = 50;
+	private static final int ADAPTIVE_CAPTURE_MISS_BACKOFF_FRAMES = 10;
+	// Margin around the tracked cooldown slots kept integrated, for latch reads of ROIs that just moved slightly.
+	private static final int COOLDOWN_SAMPLE_PADDING = 8;
+	// Tick-aligned sampling: dense frames from just before a predicted tick boundary until DENSE_WINDOW_MS after it.
+	static final long TICK_DENSE_WINDOW_MS = 150L;
+	static final long TICK_BOUNDARY_GUARD_MS = 20L;
+	static final long TICK_MIN_DENSE_INTERVAL_MS = 20L;
+	static final long TICK_MAX_SPARSE_GAP_MS = 300L;
+	private static final MetricsRegistry.Counter FRAMES = MetricsRegistry.shared().counter("detection.frames");
+	private static final MetricsRegistry.Counter MATCHES = MetricsRegistry.shared().counter("detection.matches");
+	private static final MetricsRegistry.Counter ADAPTIVE_CAPTURE_FALLBACKS = MetricsRegistry.shared().counter("capture.adaptiveFallbacks");
+	private static final MetricsRegistry.Timer FRAME_TIME = MetricsRegistry.shared().timer("detection.frame");
 
 	private final ScreenCapture screenCapture;
 	private final TemplateDetector detector;
@@ -34,16 +54,32 @@ public class DetectionEngine {
 	private final NotificationService notificationService;
 	private final BooleanSupplier channeledWaitTooltipsEnabled;
 	private final BooleanSupplier mouseTooltipStepTickDebugEnabled;
+	private final BooleanSupplier adaptiveCaptureEnabled;
+	private final BooleanSupplier tickAlignedSamplingEnabled;
+	private final TickPhaseEstimator tickPhase;
+	private final MonotonicClock clock;
 
 	private ScheduledExecutorService scheduler;
 	private volatile boolean isRunning = false;
 	private long frameCounter = 0L;
 	private long overlayUpdateCounter = 0L;
 	private final AtomicBoolean fatalErrorNotified = new AtomicBoolean(false);
+	private final AtomicBoolean frameErrorDumped = new AtomicBoolean(false);
 	private int consecutiveCaptureFailures = 0;
 	private final AtomicBoolean captureFailureNotified = new AtomicBoolean(false);
-	private final Map<String, MissingDetectionStats> missingDetectionsByAbility = new HashMap<>();
 	private boolean lastUpdateHadChanneledWaitTooltip = false;
+	private int adaptiveCaptureBackoffFrames = 0;
+	private final FrameLatencyTracker latencyTracker = FrameLatencyTracker.shared();
+	private final DiagnosticRecorder diagnostics = DiagnosticRecorder.shared();
+	private final DetectionFrameScratch scratch = new DetectionFrameScratch();
+	private LuminanceIntegral luminance;
+	// Part of the frame integrated for cooldown sampling; reused across frames.
+	private final Rectangle cooldownArea = new Rectangle();
+	private final CooldownStateTracker cooldowns = new CooldownStateTracker();
+	private long frameTimeMs = 0L;
+	private long plannedInvalidationCount = -1L;
+	private long cooldownInvalidationCount = -1L;
+	private long cooldownActivationCount = -1L;
 
 	public DetectionEngine(ScreenCapture screenCapture, TemplateDetector detector,
 	                       SequenceManager sequenceManager, OverlayRenderer overlay,
@@ -51,6 +87,36 @@ public class DetectionEngine {
 	                       NotificationService notificationService, int detectionIntervalMs,
 	                       BooleanSupplier channeledWaitTooltipsEnabled,
 	                       BooleanSupplier mouseTooltipStepTickDebugEnabled) {
+		this(screenCapture, detector, sequenceManager, overlay, tooltipOverlay, notificationService, detectionIntervalMs,
+				channeledWaitTooltipsEnabled, mouseTooltipStepTickDebugEnabled, null);
+	}
+
+	public DetectionEngine(ScreenCapture screenCapture, TemplateDetector detector,
+	                       SequenceManager sequenceManager, OverlayRenderer overlay,
+	                       MouseTooltipOverlay tooltipOverlay,
+	                       NotificationService notificationService, int detectionIntervalMs,
+	                       BooleanSupplier channeledWaitTooltipsEnabled,
+	                       BooleanSupplier mouseTooltipStepTickDebugEnabled,
+	                       BooleanSupplier adaptiveCaptureEnabled) {
+		this(screenCapture, detector, sequenceManager, overlay, tooltipOverlay, notificationService, detectionIntervalMs,
+				channeledWaitTooltipsEnabled, mouseTooltipStepTickDebugEnabled, adaptiveCaptureEnabled, null);
+	}
+
+	/**
+	 * @param adaptiveCaptureEnabled when true, steady-state frames only refresh the padded union of cached ability
+	 *                               ROIs (see {@link ScreenCapture#captureScreen(Rectangle)}); defaults to off
+	 * @param tickAlignedSamplingEnabled when true and the sequence manager's {@link TickPhaseEstimator} is locked,
+	 *                                   frames are packed around predicted tick boundaries instead of running at a
+	 *                                   fixed rate; defaults to off
+	 */
+	public DetectionEngine(ScreenCapture screenCapture, TemplateDetector detector,
+	                       SequenceManager sequenceManager, OverlayRenderer overlay,
+	                       MouseTooltipOverlay tooltipOverlay,
+	                       NotificationService notificationService, int detectionIntervalMs,
+	                       BooleanSupplier channeledWaitTooltipsEnabled,
+	                       BooleanSupplier mouseTooltipStepTickDebugEnabled,
+	                       BooleanSupplier adaptiveCaptureEnabled,
+	                       BooleanSupplier tickAlignedSamplingEnabled) {
 		this.screenCapture = screenCapture;
 		this.detector = detector;
 		this.sequenceManager = sequenceManager;
@@ -64,6 +130,16 @@ public class DetectionEngine {
 		this.mouseTooltipStepTickDebugEnabled = mouseTooltipStepTickDebugEnabled != null
 				? mouseTooltipStepTickDebugEnabled
 				: () -> false;
+		this.adaptiveCaptureEnabled = adaptiveCaptureEnabled != null
+				? adaptiveCaptureEnabled
+				: () -> false;
+		this.tickAlignedSamplingEnabled = tickAlignedSamplingEnabled != null
+				? tickAlignedSamplingEnabled
+				: () -> false;
+		this.tickPhase = sequenceManager.getTickPhaseEstimator();
+		this.clock = sequenceManager.getClock();
+		// A slot going dark is a real game-tick edge; raw found/missed flips are too noisy to phase-lock on.
+		cooldowns.addListener(used -> tickPhase.observeTransition(used.lastReadyAtMs(), used.usedAtMs()));
 	}
 
 	public void start() {
@@ -73,16 +149,56 @@ public class DetectionEngine {
 		consecutiveCaptureFailures = 0;
 		captureFailureNotified.set(false);
 
-		scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
 			Thread t = new Thread(r, "DetectionEngine");
 			t.setDaemon(true);
 			return t;
 		});
+		// Frames reschedule themselves; drop the pending one on shutdown like a cancelled fixed-rate task.
+		executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		scheduler = executor;
 
-		scheduler.scheduleAtFixedRate(this::processFrame, 0, detectionIntervalMs, TimeUnit.MILLISECONDS);
+		scheduler.schedule(this::runScheduledFrame, 0, TimeUnit.MILLISECONDS);
 		logger.info("Detection engine started ({}ms interval)", detectionIntervalMs);
 	}
 
+	private void runScheduledFrame() {
+		long frameStartedMs = clock.millis();
+		processFrame();
+
+		ScheduledExecutorService current = scheduler;
+		if (!isRunning || current == null) {
+			return;
+		}
+		long nowMs = clock.millis();
+		long delayMs = tickAlignedSamplingEnabled.getAsBoolean() && tickPhase.isLocked()
+				? tickAlignedDelayMs(tickPhase.millisSinceBoundary(nowMs), detectionIntervalMs)
+				: Math.max(0L, frameStartedMs + detectionIntervalMs - nowMs);
+		try {
+			current.schedule(this::runScheduledFrame, delayMs, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// Stopped while this frame was running.
+		}
+	}
+
+	/**
+	 * Delay before the next frame when sampling is locked to the tick phase: every {@code baseIntervalMs / 3} (at least
+	 * {@link #TICK_MIN_DENSE_INTERVAL_MS}) from {@link #TICK_BOUNDARY_GUARD_MS} before a predicted boundary until
+	 * {@link #TICK_DENSE_WINDOW_MS} after it, and at most every {@link #TICK_MAX_SPARSE_GAP_MS} (or the base interval,
+	 * if slower) in between.
+	 */
+	static long tickAlignedDelayMs(long millisSinceBoundary, long baseIntervalMs) {
+		long denseIntervalMs = Math.max(TICK_MIN_DENSE_INTERVAL_MS, baseIntervalMs / 3);
+		if (millisSinceBoundary < 0L) {
+			return baseIntervalMs;
+		}
+		long windowOpensInMs = TickPhaseEstimator.TICK_MS - TICK_BOUNDARY_GUARD_MS - millisSinceBoundary;
+		if (millisSinceBoundary < TICK_DENSE_WINDOW_MS || windowOpensInMs <= 0L) {
+			return denseIntervalMs;
+		}
+		return Math.min(windowOpensInMs, Math.max(TICK_MAX_SPARSE_GAP_MS, baseIntervalMs));
+	}
+
 	public void stop() {
 		stop(true);
 	}
@@ -97,14 +213,17 @@ public class DetectionEngine {
 		ScheduledExecutorService schedulerToStop = scheduler;
 		scheduler = null;
 
+		boolean drained = schedulerToStop == null;
 		if (schedulerToStop != null) {
 			schedulerToStop.shutdown();
 			try {
 				// Ensure in-flight frame processing is finished before tearing down screen capture.
 				// Avoid waiting on the scheduler thread itself.
-				if (!Thread.currentThread().getName().equals("DetectionEngine")
-						&& !schedulerToStop.awaitTermination(750, TimeUnit.MILLISECONDS)) {
-					schedulerToStop.shutdownNow();
+				if (!Thread.currentThread().getName().equals("DetectionEngine")) {
+					drained = schedulerToStop.awaitTermination(750, TimeUnit.MILLISECONDS);
+					if (!drained) {
+						schedulerToStop.shutdownNow();
+					}
 				}
 			} catch (InterruptedException e) {
 				Thread.currentThread().interrupt();
@@ -114,6 +233,12 @@ public class DetectionEngine {
 			}
 		}
 
+		// Only once no frame can still be integrating; the next start allocates fresh buffers.
+		if (drained && luminance != null) {
+			luminance.close();
+			luminance = null;
+		}
+
 		if (stopCapture) {
 			try {
 				// Avoid leaving the screen-grabber in a stale state across pause/resume cycles.
@@ -159,9 +284,24 @@ public class DetectionEngine {
 
 		try {
 			long detectStartNanos = System.nanoTime();
-				Mat screenMat = screenCapture.captureScreen();
+				List<ActiveSequence.DetectionRequirement> requirements = sequenceManager.getDetectionRequirements();
+				planRequests(requirements);
+				Rectangle captureWindow = resolveAdaptiveCaptureWindow(frameId);
+				// Only allocated while a recording takes frame events.
+				FrameEvent frameEvent = FrameEvent.enabled() ? new FrameEvent() : null;
+				if (frameEvent != null) {
+					frameEvent.begin();
+				}
+				long grabStartNanos = System.nanoTime();
+				frameTimeMs = clock.millis();
+				Mat screenMat = captureWindow != null
+						? screenCapture.captureScreen(captureWindow)
+						: screenCapture.captureScreen();
+				// Monotonic capture stamp carried with this frame through sequence processing to overlay paint.
+				long captureNanos = latencyTracker.recordSince(FrameLatencyTracker.Stage.CAPTURE, grabStartNanos);
 				if (screenMat == null || screenMat.empty()) {
 					consecutiveCaptureFailures++;
+					diagnostics.record(frameId, -1, DiagnosticRecorder.Decision.CAPTURE_FAILED, 0.0d, 0.0d, captureWindow);
 					if (consecutiveCaptureFailures == 1 || consecutiveCaptureFailures % 30 == 0) {
 						logger.warn("Screen capture failed; skipping frame (consecutiveFailures={}).", consecutiveCaptureFailures);
 					}
@@ -184,7 +324,6 @@ public class DetectionEngine {
 
 				try {
 				Rectangle captureRegion = screenCapture.getRegion();
-				List<ActiveSequence.DetectionRequirement> requirements = sequenceManager.getDetectionRequirements();
 				if (logger.isDebugEnabled()) {
 					logger.debug("Frame requirements ({}): {}", requirements.size(), describeRequirements(requirements));
 				}
@@ -192,41 +331,55 @@ public class DetectionEngine {
 					return;
 				}
 
-				List<DetectionResult> detectionResults = new ArrayList<>(requirements.size());
-				Map<DetectionRequestKey, DetectionResult> detectionByAbility = new ConcurrentHashMap<>();
-
-				LinkedHashSet<DetectionRequestKey> detectionRequests = new LinkedHashSet<>();
-				for (ActiveSequence.DetectionRequirement requirement : requirements) {
-					detectionRequests.add(new DetectionRequestKey(requirement.abilityKey(),
-							resolveDetectionThreshold(requirement)));
+				List<DetectionResult> detectionResults;
+				// Part of the frame holding pixels from this grab.
+				Rectangle freshArea = captureWindow;
+				if (captureWindow != null && detectAtCachedLocations(screenMat, captureWindow)) {
+					detectionResults = collectResults(frameId, captureRegion);
+				} else {
+					if (captureWindow != null) {
+						// A cached ROI is gone or left the window: grow back to the full region for this frame and back off for a while.
+						adaptiveCaptureBackoffFrames = ADAPTIVE_CAPTURE_MISS_BACKOFF_FRAMES;
+						ADAPTIVE_CAPTURE_FALLBACKS.increment();
+						diagnostics.record(frameId, -1, DiagnosticRecorder.Decision.ADAPTIVE_FALLBACK, 0.0d, 0.0d, captureWindow);
+						long fullGrabStartNanos = System.nanoTime();
+						Mat fullFrame = screenCapture.captureScreen();
+						if (fullFrame != null && !fullFrame.empty()) {
+							captureNanos = latencyTracker.recordSince(FrameLatencyTracker.Stage.CAPTURE, fullGrabStartNanos);
+							screenMat.close();
+							screenMat = fullFrame;
+							freshArea = null;
+						} else if (fullFrame != null) {
+							fullFrame.close();
+						}
+					}
+					detectionResults = detectFrame(frameId, screenMat, requirements, captureRegion);
 				}
 
-				detectionRequests.parallelStream().forEach(request -> {
-					long detectionStart = System.nanoTime();
-					DetectionResult baseResult = detector.detectTemplate(screenMat, request.abilityKey(), false,
-							request.detectionThreshold());
-					detectionByAbility.put(request, baseResult);
-					if (logger.isDebugEnabled()) {
-						long detectionElapsedMicros = (System.nanoTime() - detectionStart) / 1_000;
-						logger.debug("Detection '{}' took {}µs (found={}).",
-								request.abilityKey(), detectionElapsedMicros, baseResult.found);
+				long detectedNanos = latencyTracker.recordSince(FrameLatencyTracker.Stage.DETECT, captureNanos);
+				FRAMES.increment();
+				int matched = 0;
+				for (int i = 0; i < detectionResults.size(); i++) {
+					DetectionResult result = detectionResults.get(i);
+					if (result != null && result.found) {
+						matched++;
 					}
-				});
-
-					logMissingDetections(detectionRequests, detectionByAbility, captureRegion);
-
-				for (ActiveSequence.DetectionRequirement requirement : requirements) {
-					DetectionRequestKey key = new DetectionRequestKey(requirement.abilityKey(),
-							resolveDetectionThreshold(requirement));
-					DetectionResult baseResult = detectionByAbility.get(key);
-					DetectionResult adapted = adaptDetectionResult(requirement, baseResult, captureRegion);
-					detectionResults.add(adapted);
+				}
+				MATCHES.add(matched);
+				BrightnessSampler brightness = sampleCooldowns(screenMat, freshArea);
+				sequenceManager.processDetection(screenMat, detectionResults, captureNanos, brightness);
+				updateOverlays(captureNanos);
+				if (frameEvent != null && frameEvent.shouldCommit()) {
+					frameEvent.frameId = frameId;
+					frameEvent.captureMs = (captureNanos - grabStartNanos) / 1_000_000;
+					frameEvent.detectMs = (detectedNanos - captureNanos) / 1_000_000;
+					frameEvent.requirementCount = requirements.size();
+					frameEvent.matchCount = matched;
+					frameEvent.adaptiveWindow = captureWindow != null && adaptiveCaptureBackoffFrames == 0;
+					frameEvent.commit();
 				}
 
-				sequenceManager.processDetection(screenMat, detectionResults);
-				updateOverlays();
-
-				long detectElapsedMs = (System.nanoTime() - detectStartNanos) / 1_000_000;
+				long detectElapsedMs = (FRAME_TIME.recordSince(detectStartNanos) - detectStartNanos) / 1_000_000;
 				if (detectElapsedMs > 1300) {
 					logger.warn("Frame processing exceeded budget: {}ms", detectElapsedMs);
 				}
@@ -239,10 +392,15 @@ public class DetectionEngine {
 			}
 		} catch (Exception e) {
 			logger.error("Error in detection frame", e);
+			diagnostics.record(frameId, -1, DiagnosticRecorder.Decision.FRAME_ERROR, 0.0d, 0.0d, null);
+			if (frameErrorDumped.compareAndSet(false, true)) {
+				diagnostics.dumpToLogsDir("detection frame error: " + e);
+			}
 		}
 		} catch (Throwable t) {
 			// ScheduledExecutorService tasks stop running if errors escape; keep things robust.
 			logger.error("Fatal error in detection engine; stopping detection.", t);
+			diagnostics.dumpToLogsDir("fatal detection error: " + t);
 			try {
 				stop();
 			} catch (Exception ignored) {
@@ -265,6 +423,10 @@ public class DetectionEngine {
 
 
 	void updateOverlays() {
+		updateOverlays(FrameLatencyTracker.NO_CAPTURE);
+	}
+
+	private void updateOverlays(long captureNanos) {
 
 		long callId = ++overlayUpdateCounter;
 
@@ -285,7 +447,7 @@ public class DetectionEngine {
 			);
 		}
 
-		overlay.updateOverlays(currentAbilities, nextAbilities);
+		overlay.updateOverlays(currentAbilities, nextAbilities, captureNanos);
 		if (tooltipOverlay != null) {
 			List<SequenceTooltip> merged = currentTooltips;
 			boolean hasWaitTooltip = false;
@@ -330,32 +492,190 @@ public class DetectionEngine {
 		}
 	}
 
-	public boolean isRunning() {
-		return isRunning;
+	/**
+	 * Full-frame detection of every requirement in {@code requirements} (planning them if they changed), followed by
+	 * diagnostics and adaptation to screen coordinates. The returned list is reused and only valid until the next frame.
+	 */
+	List<DetectionResult> detectFrame(long frameId, Mat screenMat, List<ActiveSequence.DetectionRequirement> requirements,
+	                                  Rectangle captureRegion) {
+		planRequests(requirements);
+		scratch.clearResults();
+		detectAll(screenMat);
+		return collectResults(frameId, captureRegion);
 	}
 
-	private Double resolveDetectionThreshold(ActiveSequence.DetectionRequirement requirement) {
-		EffectiveAbilityConfig effectiveConfig = requirement.effectiveAbilityConfig();
-		return effectiveConfig != null ? effectiveConfig.getDetectionThreshold().orElse(null) : null;
+	/**
+	 * Plan {@code requirements} into the scratch, re-planning when the detector's settings changed, and resolve each
+	 * new request's threshold and diagnostics ID once.
+	 */
+	void planRequests(List<ActiveSequence.DetectionRequirement> requirements) {
+		long invalidationCount = detector.invalidationCount();
+		if (invalidationCount != plannedInvalidationCount) {
+			scratch.invalidatePlan();
+			plannedInvalidationCount = invalidationCount;
+		}
+		if (!scratch.plan(requirements)) {
+			return;
+		}
+		for (int i = 0; i < scratch.requestCount(); i++) {
+			scratch.resolve(i,
+					detector.getThresholdForTemplate(scratch.lookupKey(i), scratch.threshold(i)),
+					diagnostics.abilityId(scratch.abilityKey(i)));
+		}
 	}
 
-	private DetectionResult adaptDetectionResult(ActiveSequence.DetectionRequirement requirement,
-	                                           DetectionResult base,
-	                                           Rectangle captureRegion) {
-		int offsetX = captureRegion != null ? captureRegion.x : 0;
-		int offsetY = captureRegion != null ? captureRegion.y : 0;
-		if (base != null && base.found) {
-			Point locationCopy = base.location != null ? new Point(base.location) : null;
-			Rectangle boundsCopy = base.boundingBox != null ? new Rectangle(base.boundingBox) : null;
-			if (locationCopy != null) {
-				locationCopy.translate(offsetX, offsetY);
+	List<DetectionResult> collectResults(long frameId, Rectangle captureRegion) {
+		recordDetectionDiagnostics(frameId, captureRegion);
+		return scratch.adaptResults(captureRegion);
+	}
+
+	private void detectAll(Mat screenMat) {
+		int count = scratch.requestCount();
+		if (count <= 1 || allRequestsCached()) {
+			// Warm cache: every search starts as a small ROI match, where a plain loop beats fork/join and adds no
+			// allocation of its own.
+			for (int i = 0; i < count; i++) {
+				detectRequest(screenMat, i);
+			}
+			return;
+		}
+		IntStream.range(0, count).parallel().forEach(i -> detectRequest(screenMat, i));
+	}
+
+	private void detectRequest(Mat screenMat, int request) {
+		long detectionStart = System.nanoTime();
+		DetectionResult baseResult = detector.detectTemplate(screenMat, scratch.abilityKey(request), false,
+				scratch.threshold(request));
+		scratch.setResult(request, baseResult);
+		if (logger.isDebugEnabled()) {
+			long detectionElapsedMicros = (System.nanoTime() - detectionStart) / 1_000;
+			logger.debug("Detection '{}' took {}µs (found={}).",
+					scratch.abilityKey(request), detectionElapsedMicros, baseResult.found);
+		}
+	}
+
+	private boolean allRequestsCached() {
+		for (int i = 0; i < scratch.requestCount(); i++) {
+			if (!detector.hasCachedLocation(scratch.abilityIndex(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Integrate the fresh part of the tracked slots' padded union once and advance every cached slot's cooldown state
+	 * from it. Latch brightness reads outside that area fall back to {@link TemplateDetector#measureBrightness}.
+	 *
+	 * @return the frame's brightness, or {@code null} when nothing could be integrated
+	 */
+	private BrightnessSampler sampleCooldowns(Mat screenMat, Rectangle freshArea) {
+		scopeCooldowns();
+		cooldowns.trackCachedLocations(detector);
+		if (!cooldowns.loadTrackedBounds(cooldownArea)) {
+			return null;
+		}
+		cooldownArea.grow(COOLDOWN_SAMPLE_PADDING, COOLDOWN_SAMPLE_PADDING);
+		if (freshArea != null) {
+			Rectangle.intersect(cooldownArea, freshArea, cooldownArea);
+		}
+		if (luminance == null) {
+			luminance = new LuminanceIntegral();
+		}
+		if (!luminance.update(screenMat, cooldownArea)) {
+			return null;
+		}
+		cooldowns.update(luminance, frameTimeMs);
+		return luminance;
+	}
+
+	/**
+	 * Drop every cooldown slot once the detector forgets its locations or another sequence becomes active; the new
+	 * sequence's slots are tracked again from the next cached locations.
+	 */
+	private void scopeCooldowns() {
+		long invalidationCount = detector.invalidationCount();
+		long activationCount = sequenceManager.activationCount();
+		if (invalidationCount == cooldownInvalidationCount && activationCount == cooldownActivationCount) {
+			return;
+		}
+		cooldowns.reset();
+		if (activationCount != cooldownActivationCount) {
+			cooldowns.restrictTo(sequenceManager.getActiveSequenceAbilityKeys());
+		}
+		cooldownInvalidationCount = invalidationCount;
+		cooldownActivationCount = activationCount;
+	}
+
+	/**
+	 * Ready/cooling state of every ability slot with a cached location; listeners receive an event per ability use.
+	 */
+	public CooldownStateTracker getCooldownTracker() {
+		return cooldowns;
+	}
+
+	/**
+	 * ROI-only detection for windowed frames (pixels outside the capture window are stale, so never fall back to a
+	 * full-frame search here). A searched ROI that finds nothing is still a valid result: an ability on cooldown
+	 * renders differently at the same spot. Returns false only when a request has no cached location any more or its
+	 * ROI left {@code window}; periodic validation frames catch abilities that really moved.
+	 */
+	boolean detectAtCachedLocations(Mat screenMat, Rectangle window) {
+		scratch.clearResults();
+		Rectangle roi = scratch.roi();
+		for (int i = 0; i < scratch.requestCount(); i++) {
+			if (!detector.loadCachedSearchRoi(scratch.abilityIndex(i), roi) || !window.contains(roi)) {
+				return false;
+			}
+			DetectionResult result = detector.detectTemplateAtCachedLocation(screenMat, scratch.abilityKey(i), false,
+					scratch.threshold(i));
+			if (result == null) {
+				return false;
+			}
+			scratch.setResult(i, result);
+		}
+		return true;
+	}
+
+	/**
+	 * Padded union of the cached search ROIs of every planned request (capture-region coordinates), or {@code null}
+	 * when the frame should be captured in full: adaptive capture disabled, any ROI not cached yet, backing off after
+	 * a miss, or a periodic validation frame. The returned rectangle is reused across frames.
+	 */
+	Rectangle resolveAdaptiveCaptureWindow(long frameId) {
+		int count = scratch.requestCount();
+		if (!adaptiveCaptureEnabled.getAsBoolean() || count == 0) {
+			return null;
+		}
+		if (adaptiveCaptureBackoffFrames > 0) {
+			adaptiveCaptureBackoffFrames--;
+			return null;
+		}
+		if (frameId % ADAPTIVE_CAPTURE_VALIDATION_FRAMES == 0) {
+			return null;
+		}
+
+		Rectangle window = scratch.captureWindow();
+		Rectangle roi = scratch.roi();
+		for (int i = 0; i < count; i++) {
+			if (!detector.loadCachedSearchRoi(scratch.abilityIndex(i), roi)) {
+				return null;
 			}
-			if (boundsCopy != null) {
-				boundsCopy.translate(offsetX, offsetY);
+			if (i == 0) {
+				window.setBounds(roi);
+			} else {
+				window.add(roi);
 			}
-			return DetectionResult.found(requirement.instanceId(), locationCopy, base.confidence, boundsCopy, requirement.isAlternative());
 		}
-		return DetectionResult.notFound(requirement.instanceId(), requirement.isAlternative());
+		window.grow(ADAPTIVE_CAPTURE_PADDING, ADAPTIVE_CAPTURE_PADDING);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Adaptive capture window {} for {} abilities", window, count);
+		}
+		return window;
+	}
+
+	public boolean isRunning() {
+		return isRunning;
 	}
 
 	public void primeActiveSequence() {
@@ -423,75 +743,42 @@ public class DetectionEngine {
 		return builder.toString();
 	}
 
-	private record DetectionRequestKey(String abilityKey, Double detectionThreshold) {
-	}
-
-	private void logMissingDetections(LinkedHashSet<DetectionRequestKey> detectionRequests,
-	                                  Map<DetectionRequestKey, DetectionResult> detectionByAbility,
-	                                  Rectangle captureRegion) {
-		if (detectionRequests == null || detectionRequests.isEmpty()) {
-			missingDetectionsByAbility.clear();
-			return;
-		}
-
+	/**
+	 * Record every request's outcome in the {@link DiagnosticRecorder} ring (no formatting, no allocation once keys
+	 * are known). Only the first miss of a streak is also logged.
+	 */
+	private void recordDetectionDiagnostics(long frameId, Rectangle captureRegion) {
 		int offsetX = captureRegion != null ? captureRegion.x : 0;
 		int offsetY = captureRegion != null ? captureRegion.y : 0;
 
-		LinkedHashSet<String> activeAbilityKeys = new LinkedHashSet<>();
-		for (DetectionRequestKey request : detectionRequests) {
-			activeAbilityKeys.add(request.abilityKey());
-
-			DetectionResult result = detectionByAbility.get(request);
-			if (result != null && result.found) {
-				MissingDetectionStats stats = missingDetectionsByAbility.get(request.abilityKey());
-				if (stats != null) {
-					stats.consecutiveMisses = 0;
-				}
-				continue;
-			}
-
-			MissingDetectionStats stats = missingDetectionsByAbility.computeIfAbsent(
-					request.abilityKey(),
-					ignored -> new MissingDetectionStats()
-			);
-			stats.consecutiveMisses++;
-
-			if (stats.consecutiveMisses == 1 || stats.consecutiveMisses % 30 == 0) {
-				String normalizedKey = TemplateDetector.normalizeAbilityKeyForLookup(request.abilityKey());
-				double requiredThreshold = detector.getThresholdForTemplate(normalizedKey, request.detectionThreshold());
-
-				String bestAt;
-				if (result != null && result.location != null) {
-					bestAt = String.format("(%d,%d)", result.location.x + offsetX, result.location.y + offsetY);
-				} else {
-					bestAt = "<unknown>";
-				}
-
-				String bestBounds;
-				if (result != null && result.boundingBox != null) {
-					Rectangle bb = result.boundingBox;
-					bestBounds = String.format("(%d,%d %dx%d)", bb.x + offsetX, bb.y + offsetY, bb.width, bb.height);
-				} else {
-					bestBounds = "<unknown>";
-				}
-
-				double bestConfidence = result != null ? result.confidence : 0.0;
-				logger.info(
-						"Ability not detected: {} (bestMatch={}, required={}, bestAt={}, bestBounds={}, consecutiveMisses={})",
-						request.abilityKey(),
-						String.format(Locale.ROOT, "%.2f%%", bestConfidence * 100.0),
-						String.format(Locale.ROOT, "%.2f%%", requiredThreshold * 100.0),
-						bestAt,
-						bestBounds,
-						stats.consecutiveMisses
-				);
+		for (int i = 0; i < scratch.requestCount(); i++) {
+			DetectionResult result = scratch.result(i);
+			boolean found = result != null && result.found;
+			double requiredThreshold = scratch.requiredThreshold(i);
+			recordDiagnostic(frameId, scratch.diagnosticId(i),
+					found ? DiagnosticRecorder.Decision.FOUND : DiagnosticRecorder.Decision.MISSED,
+					result, requiredThreshold, offsetX, offsetY);
+
+			if (found) {
+				scratch.recordHit(i);
+			} else if (scratch.recordMiss(i) == 1) {
+				logger.info("Ability not detected: {} (bestMatch={}, required={}); further misses go to the diagnostics ring",
+						scratch.abilityKey(i),
+						result != null ? result.confidence : 0.0d,
+						requiredThreshold);
 			}
 		}
-
-		missingDetectionsByAbility.keySet().retainAll(activeAbilityKeys);
 	}
 
-	private static final class MissingDetectionStats {
-		private int consecutiveMisses = 0;
+	private void recordDiagnostic(long frameId, int abilityId, DiagnosticRecorder.Decision decision,
+	                              DetectionResult result, double requiredThreshold, int offsetX, int offsetY) {
+		double confidence = result != null ? result.confidence : 0.0d;
+		Rectangle bb = result != null ? result.boundingBox : null;
+		if (bb != null) {
+			diagnostics.record(frameId, abilityId, decision, confidence, requiredThreshold,
+					bb.x + offsetX, bb.y + offsetY, bb.width, bb.height);
+		} else {
+			diagnostics.record(frameId, abilityId, decision, confidence, requiredThreshold, null);
+		}
 	}
 }
@@ -0,0 +1,269 @@
+package com.lansoftprogramming.runeSequence.core.detection;
+
+import com.lansoftprogramming.runeSequence.core.sequence.model.AbilityRegistry;
+import com.lansoftprogramming.runeSequence.core.sequence.model.EffectiveAbilityConfig;
+import com.lansoftprogramming.runeSequence.core.sequence.runtime.ActiveSequence;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Per-frame working storage for {@link DetectionEngine}, reused across frames so the engine's detection bookkeeping
+ * for a steady-state frame (same requirement list, detector reporting the same matches) allocates nothing on the Java
+ * heap. Capture, the detector's OpenCV calls and the sequence and overlay updates that follow are not covered.
+ * <p>
+ * {@link #plan} rebuilds the distinct ability/threshold requests only when the requirement list changes identity
+ * ({@link ActiveSequence#getDetectionRequirements()} returns one instance per step). Adapted results are reused while
+ * the detector keeps reporting the same match, and the not-found result of each requirement is built once per plan.
+ * <p>
+ * Owned by the detection thread. {@link #setResult} may be called from fork/join workers during a parallel search;
+ * each worker writes its own slot and the join publishes them.
+ */
+final class DetectionFrameScratch {
+	private static final String[] NO_KEYS = new String[0];
+
+	private List<ActiveSequence.DetectionRequirement> plannedRequirements;
+
+	// Distinct (abilityKey, threshold) requests.
+	private int requestCount = 0;
+	private String[] abilityKeys = NO_KEYS;
+	private String[] lookupKeys = NO_KEYS;
+	private int[] abilityIndexes = new int[0];
+	private Double[] thresholds = new Double[0];
+	// Filled in by the engine after each re-plan.
+	private double[] requiredThresholds = new double[0];
+	private int[] diagnosticIds = new int[0];
+	private DetectionResult[] results = new DetectionResult[0];
+	private int[] consecutiveMisses = new int[0];
+
+	// Per requirement (instance) of the planned list.
+	private int requirementCount = 0;
+	private ActiveSequence.DetectionRequirement[] requirements = new ActiveSequence.DetectionRequirement[0];
+	private int[] requestIndexByRequirement = new int[0];
+	private DetectionResult[] notFoundByRequirement = new DetectionResult[0];
+	private DetectionResult[] adaptedByRequirement = new DetectionResult[0];
+	private final ArrayList<DetectionResult> adaptedView = new ArrayList<>();
+
+	private final Rectangle captureWindow = new Rectangle();
+	private final Rectangle roi = new Rectangle();
+
+	/**
+	 * Point the scratch at {@code requirementList}; a no-op when it is the list planned last frame.
+	 * Miss streaks carry over for requests that survive a re-plan.
+	 *
+	 * @return true when the plan was rebuilt
+	 */
+	boolean plan(List<ActiveSequence.DetectionRequirement> requirementList) {
+		if (requirementList == plannedRequirements && plannedRequirements != null) {
+			return false;
+		}
+		List<ActiveSequence.DetectionRequirement> source = requirementList != null ? requirementList : List.of();
+		int size = source.size();
+
+		String[] newKeys = new String[size];
+		Double[] newThresholds = new Double[size];
+		int[] newMisses = new int[size];
+		int[] newIndexByRequirement = new int[size];
+		ActiveSequence.DetectionRequirement[] newRequirements = new ActiveSequence.DetectionRequirement[size];
+		DetectionResult[] newNotFound = new DetectionResult[size];
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			ActiveSequence.DetectionRequirement requirement = source.get(i);
+			Double threshold = resolveDetectionThreshold(requirement);
+			int index = indexOf(newKeys, newThresholds, count, requirement.abilityKey(), threshold);
+			if (index < 0) {
+				index = count++;
+				newKeys[index] = requirement.abilityKey();
+				newThresholds[index] = threshold;
+				int previous = indexOf(abilityKeys, thresholds, requestCount, requirement.abilityKey(), threshold);
+				newMisses[index] = previous >= 0 ? consecutiveMisses[previous] : 0;
+			}
+			newIndexByRequirement[i] = index;
+			newRequirements[i] = requirement;
+			newNotFound[i] = DetectionResult.notFoundInstance(requirement.instanceId(), requirement.instanceIndex(),
+					requirement.isAlternative());
+		}
+
+		abilityKeys = newKeys;
+		thresholds = newThresholds;
+		consecutiveMisses = newMisses;
+		lookupKeys = new String[count];
+		abilityIndexes = new int[count];
+		for (int i = 0; i < count; i++) {
+			lookupKeys[i] = TemplateDetector.normalizeAbilityKeyForLookup(newKeys[i]);
+			abilityIndexes[i] = AbilityRegistry.shared().registerAbility(newKeys[i]);
+		}
+		results = new DetectionResult[count];
+		requiredThresholds = new double[count];
+		diagnosticIds = new int[count];
+		requestCount = count;
+
+		requirements = newRequirements;
+		requestIndexByRequirement = newIndexByRequirement;
+		notFoundByRequirement = newNotFound;
+		adaptedByRequirement = new DetectionResult[size];
+		requirementCount = size;
+		adaptedView.clear();
+		adaptedView.ensureCapacity(size);
+
+		plannedRequirements = requirementList;
+		return true;
+	}
+
+	/**
+	 * Force the next {@link #plan} to rebuild, e.g. after detection settings changed under the same requirement list.
+	 */
+	void invalidatePlan() {
+		plannedRequirements = null;
+	}
+
+	int requestCount() {
+		return requestCount;
+	}
+
+	String abilityKey(int request) {
+		return abilityKeys[request];
+	}
+
+	String lookupKey(int request) {
+		return lookupKeys[request];
+	}
+
+	/**
+	 * {@link AbilityRegistry} ability index of the request, for the detector's index-based cache lookups.
+	 */
+	int abilityIndex(int request) {
+		return abilityIndexes[request];
+	}
+
+	Double threshold(int request) {
+		return thresholds[request];
+	}
+
+	/**
+	 * Store what the request resolves to once per plan: its effective threshold and its diagnostics ability ID.
+	 */
+	void resolve(int request, double requiredThreshold, int diagnosticId) {
+		requiredThresholds[request] = requiredThreshold;
+		diagnosticIds[request] = diagnosticId;
+	}
+
+	double requiredThreshold(int request) {
+		return requiredThresholds[request];
+	}
+
+	int diagnosticId(int request) {
+		return diagnosticIds[request];
+	}
+
+	DetectionResult result(int request) {
+		return results[request];
+	}
+
+	void setResult(int request, DetectionResult result) {
+		results[request] = result;
+	}
+
+	void clearResults() {
+		for (int i = 0; i < requestCount; i++) {
+			results[i] = null;
+		}
+	}
+
+	/**
+	 * @return the request's miss streak including this frame
+	 */
+	int recordMiss(int request) {
+		return ++consecutiveMisses[request];
+	}
+
+	void recordHit(int request) {
+		consecutiveMisses[request] = 0;
+	}
+
+	/**
+	 * Reusable rectangle for the adaptive capture window; valid until the next frame.
+	 */
+	Rectangle captureWindow() {
+		return captureWindow;
+	}
+
+	/**
+	 * Reusable rectangle for reading one cached ROI.
+	 */
+	Rectangle roi() {
+		return roi;
+	}
+
+	/**
+	 * One result per planned requirement (instance IDs, screen coordinates). The returned list is reused and only valid
+	 * until the next call.
+	 */
+	List<DetectionResult> adaptResults(Rectangle captureRegion) {
+		int offsetX = captureRegion != null ? captureRegion.x : 0;
+		int offsetY = captureRegion != null ? captureRegion.y : 0;
+		adaptedView.clear();
+		for (int i = 0; i < requirementCount; i++) {
+			adaptedView.add(adapt(i, results[requestIndexByRequirement[i]], offsetX, offsetY));
+		}
+		return adaptedView;
+	}
+
+	private DetectionResult adapt(int requirementIndex, DetectionResult base, int offsetX, int offsetY) {
+		if (base == null || !base.found) {
+			return notFoundByRequirement[requirementIndex];
+		}
+		DetectionResult previous = adaptedByRequirement[requirementIndex];
+		if (previous != null
+				&& previous.confidence == base.confidence
+				&& isTranslatedCopy(previous.location, base.location, offsetX, offsetY)
+				&& isTranslatedCopy(previous.boundingBox, base.boundingBox, offsetX, offsetY)) {
+			return previous;
+		}
+
+		Point locationCopy = base.location != null ? new Point(base.location) : null;
+		Rectangle boundsCopy = base.boundingBox != null ? new Rectangle(base.boundingBox) : null;
+		if (locationCopy != null) {
+			locationCopy.translate(offsetX, offsetY);
+		}
+		if (boundsCopy != null) {
+			boundsCopy.translate(offsetX, offsetY);
+		}
+		ActiveSequence.DetectionRequirement requirement = requirements[requirementIndex];
+		DetectionResult adapted = DetectionResult.foundInstance(requirement.instanceId(), requirement.instanceIndex(),
+				locationCopy, base.confidence, boundsCopy, requirement.isAlternative());
+		adaptedByRequirement[requirementIndex] = adapted;
+		return adapted;
+	}
+
+	static Double resolveDetectionThreshold(ActiveSequence.DetectionRequirement requirement) {
+		EffectiveAbilityConfig effectiveConfig = requirement.effectiveAbilityConfig();
+		return effectiveConfig != null ? effectiveConfig.getDetectionThreshold().orElse(null) : null;
+	}
+
+	private static int indexOf(String[] keys, Double[] keyThresholds, int count, String abilityKey, Double threshold) {
+		for (int i = 0; i < count; i++) {
+			if (Objects.equals(keys[i], abilityKey) && Objects.equals(keyThresholds[i], threshold)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean isTranslatedCopy(Point copy, Point base, int offsetX, int offsetY) {
+		if (copy == null || base == null) {
+			return copy == base;
+		}
+		return copy.x == base.x + offsetX && copy.y == base.y + offsetY;
+	}
+
+	private static boolean isTranslatedCopy(Rectangle copy, Rectangle base, int offsetX, int offsetY) {
+		if (copy == null || base == null) {
+			return copy == base;
+		}
+		return copy.x == base.x + offsetX && copy.y == base.y + offsetY
+				&& copy.width == base.width && copy.height == base.height;
+	}
+}
@@ -1,18 +1,26 @@
 package com.lansoftprogramming.runeSequence.core.detection;
 
+import com.lansoftprogramming.runeSequence.core.sequence.model.AbilityRegistry;
+
 import java.awt.*;
 
 public class DetectionResult {
 	public final String templateName;
+	/**
+	 * {@link AbilityRegistry} instance index of {@link #templateName} when it names an ability instance, otherwise
+	 * {@link AbilityRegistry#NO_INDEX}.
+	 */
+	public final int instanceIndex;
 	public final Point location;
 	public final double confidence;
 	public final Rectangle boundingBox;
 	public final boolean found;
 	public final boolean isAlternative;
 
-	private DetectionResult(String templateName, Point location, double confidence,
+	private DetectionResult(String templateName, int instanceIndex, Point location, double confidence,
 	                        Rectangle boundingBox, boolean found,boolean isAlternative) {
 		this.templateName = templateName;
+		this.instanceIndex = instanceIndex;
 		this.location = location;
 		this.confidence = confidence;
 		this.boundingBox = boundingBox;
@@ -23,7 +31,22 @@ public class DetectionResult {
 
 	public static DetectionResult found(String templateName, Point location,
 	                                    double confidence, Rectangle boundingBox,boolean isAlternative) {
-		return new DetectionResult(templateName, location, confidence, boundingBox, true,isAlternative);
+		return new DetectionResult(templateName, AbilityRegistry.NO_INDEX, location, confidence, boundingBox, true,isAlternative);
+	}
+
+	/**
+	 * Found result for an ability instance, carrying its registry index so consumers can skip the string lookup.
+	 */
+	public static DetectionResult foundInstance(String instanceId, int instanceIndex, Point location,
+	                                            double confidence, Rectangle boundingBox, boolean isAlternative) {
+		return new DetectionResult(instanceId, instanceIndex, location, confidence, boundingBox, true, isAlternative);
+	}
+
+	/**
+	 * Not-found result for an ability instance, carrying its registry index.
+	 */
+	public static DetectionResult notFoundInstance(String instanceId, int instanceIndex, boolean isAlternative) {
+		return new DetectionResult(instanceId, instanceIndex, null, 0.0, null, false, isAlternative);
 	}
 
 
@@ -38,7 +61,7 @@ public class DetectionResult {
 	 * Create a not-found DetectionResult and allow specifying whether it is part of an alternative (OR).
 	 */
 	public static DetectionResult notFound(String templateName, boolean isAlternative) {
-		return new DetectionResult(templateName, null, 0.0, null, false, isAlternative);
+		return new DetectionResult(templateName, AbilityRegistry.NO_INDEX, null, 0.0, null, false, isAlternative);
 	}
 
 	/**
@@ -47,6 +70,7 @@ public class DetectionResult {
 	 */
 	public static DetectionResult notFound(String templateName, Point bestLocation, double bestConfidence,
 	                                      Rectangle bestBoundingBox, boolean isAlternative) {
-		return new DetectionResult(templateName, bestLocation, bestConfidence, bestBoundingBox, false, isAlternative);
+		return new DetectionResult(templateName, AbilityRegistry.NO_INDEX, bestLocation, bestConfidence, bestBoundingBox, false,
+				isAlternative);
 	}
 }
@@ -0,0 +1,176 @@
+package com.lansoftprogramming.runeSequence.core.detection;
+
+import org.bytedeco.javacpp.indexer.UByteIndexer;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
+import org.bytedeco.opencv.opencv_core.Size;
+
+import java.util.Arrays;
+
+import static org.bytedeco.opencv.global.opencv_imgproc.INTER_AREA;
+import static org.bytedeco.opencv.global.opencv_imgproc.resize;
+
+/**
+ * Compact, shift-tolerant fingerprint of an icon-sized image patch.
+ * <p>
+ * The descriptor is built from the centre of the patch (the rounded/alpha-masked corners of ability icons are
+ * ignored) downsampled to a 32x32 grid: a 64-bit perceptual hash (signs of the lowest 8x8 DCT coefficients of the
+ * luminance relative to their median) plus a coarse 4x4x4 BGR histogram.
+ * Descriptors are only used to shortlist candidates; the final decision is always made by masked template matching.
+ */
+public final class IconDescriptor {
+	static final int SAMPLE_SIDE = 32;
+	static final int HASH_SIDE = 8;
+	static final int HASH_BITS = HASH_SIDE * HASH_SIDE;
+	static final int BINS_PER_CHANNEL = 4;
+	static final int HISTOGRAM_BINS = BINS_PER_CHANNEL * BINS_PER_CHANNEL * BINS_PER_CHANNEL;
+	private static final double CENTER_INSET_RATIO = 0.15d;
+	private static final double HISTOGRAM_WEIGHT = 0.7d;
+	private static final double[][] DCT_BASIS = buildDctBasis();
+
+	private final long perceptualHash;
+	private final float[] colorHistogram;
+
+	IconDescriptor(long perceptualHash, float[] colorHistogram) {
+		this.perceptualHash = perceptualHash;
+		this.colorHistogram = colorHistogram;
+	}
+
+	/**
+	 * Build a descriptor for a BGR/BGRA image (or a view into a larger frame).
+	 * Returns {@code null} when the image is too small to sample.
+	 */
+	public static IconDescriptor of(Mat image) {
+		if (image == null || image.empty() || image.channels() < 3) {
+			return null;
+		}
+		int insetX = (int) Math.round(image.cols() * CENTER_INSET_RATIO);
+		int insetY = (int) Math.round(image.rows() * CENTER_INSET_RATIO);
+		int w = image.cols() - insetX * 2;
+		int h = image.rows() - insetY * 2;
+		if (w < 2 || h < 2) {
+			return null;
+		}
+
+		Mat center = new Mat(image, new Rect(insetX, insetY, w, h));
+		Mat small = new Mat();
+		try {
+			resize(center, small, new Size(SAMPLE_SIDE, SAMPLE_SIDE), 0, 0, INTER_AREA);
+			return fromGrid(small);
+		} finally {
+			small.close();
+			center.close();
+		}
+	}
+
+	private static IconDescriptor fromGrid(Mat small) {
+		int cells = SAMPLE_SIDE * SAMPLE_SIDE;
+		double[] luma = new double[cells];
+		float[] histogram = new float[HISTOGRAM_BINS];
+
+		UByteIndexer idx = small.createIndexer();
+		try {
+			for (int y = 0; y < SAMPLE_SIDE; y++) {
+				for (int x = 0; x < SAMPLE_SIDE; x++) {
+					int b = idx.get(y, x, 0) & 0xFF;
+					int g = idx.get(y, x, 1) & 0xFF;
+					int r = idx.get(y, x, 2) & 0xFF;
+					// ITU-R BT.601 weights (same weights cvtColor uses for BGR2GRAY).
+					luma[y * SAMPLE_SIDE + x] = r * 0.299d + g * 0.587d + b * 0.114d;
+					int bin = (b * BINS_PER_CHANNEL / 256) * BINS_PER_CHANNEL * BINS_PER_CHANNEL
+							+ (g * BINS_PER_CHANNEL / 256) * BINS_PER_CHANNEL
+							+ (r * BINS_PER_CHANNEL / 256);
+					histogram[bin] += 1.0f / cells;
+				}
+			}
+		} finally {
+			idx.release();
+		}
+		return new IconDescriptor(perceptualHash(luma), histogram);
+	}
+
+	/**
+	 * 64-bit DCT hash of a {@link #SAMPLE_SIDE}-square luminance grid (row-major).
+	 * Only the low-frequency 8x8 block is evaluated; the DC term is excluded from the median and never sets a bit.
+	 */
+	static long perceptualHash(double[] luma) {
+		double[] rowPass = new double[HASH_SIDE * SAMPLE_SIDE];
+		for (int u = 0; u < HASH_SIDE; u++) {
+			double[] basis = DCT_BASIS[u];
+			for (int y = 0; y < SAMPLE_SIDE; y++) {
+				double acc = 0.0d;
+				int row = y * SAMPLE_SIDE;
+				for (int x = 0; x < SAMPLE_SIDE; x++) {
+					acc += basis[x] * luma[row + x];
+				}
+				rowPass[u * SAMPLE_SIDE + y] = acc;
+			}
+		}
+
+		double[] coefficients = new double[HASH_BITS];
+		for (int v = 0; v < HASH_SIDE; v++) {
+			double[] basis = DCT_BASIS[v];
+			for (int u = 0; u < HASH_SIDE; u++) {
+				double acc = 0.0d;
+				int offset = u * SAMPLE_SIDE;
+				for (int y = 0; y < SAMPLE_SIDE; y++) {
+					acc += basis[y] * rowPass[offset + y];
+				}
+				coefficients[v * HASH_SIDE + u] = acc;
+			}
+		}
+
+		double[] ac = Arrays.copyOfRange(coefficients, 1, HASH_BITS);
+		Arrays.sort(ac);
+		double median = ac[ac.length / 2];
+		long hash = 0L;
+		for (int i = 1; i < HASH_BITS; i++) {
+			if (coefficients[i] > median) {
+				hash |= 1L << i;
+			}
+		}
+		return hash;
+	}
+
+	private static double[][] buildDctBasis() {
+		double[][] basis = new double[HASH_SIDE][SAMPLE_SIDE];
+		for (int u = 0; u < HASH_SIDE; u++) {
+			for (int x = 0; x < SAMPLE_SIDE; x++) {
+				basis[u][x] = Math.cos((2 * x + 1) * u * Math.PI / (2.0d * SAMPLE_SIDE));
+			}
+		}
+		return basis;
+	}
+
+	public long getPerceptualHash() {
+		return perceptualHash;
+	}
+
+	float[] colorHistogram() {
+		return colorHistogram;
+	}
+
+	/**
+	 * Blended distance in {@code [0..1]}: histogram L1 distance (robust to small misalignment) weighted with the
+	 * normalized Hamming distance of the perceptual hashes (sensitive to layout).
+	 */
+	public double distanceTo(IconDescriptor other) {
+		if (other == null) {
+			return 1.0d;
+		}
+		return blendedDistance(colorHistogram, 0, other.colorHistogram, 0,
+				Long.bitCount(perceptualHash ^ other.perceptualHash));
+	}
+
+	/**
+	 * Shared by {@link TemplateDescriptorIndex}, which keeps histograms in one flat array.
+	 */
+	static double blendedDistance(float[] a, int aOffset, float[] b, int bOffset, int hashDistance) {
+		double l1 = 0.0d;
+		for (int i = 0; i < HISTOGRAM_BINS; i++) {
+			l1 += Math.abs(a[aOffset + i] - b[bOffset + i]);
+		}
+		double histogramDistance = Math.min(1.0d, l1 / 2.0d);
+		return HISTOGRAM_WEIGHT * histogramDistance + (1.0d - HISTOGRAM_WEIGHT) * hashDistance / (double) HASH_BITS;
+	}
+}
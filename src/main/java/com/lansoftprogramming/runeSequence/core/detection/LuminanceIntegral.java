@@ -0,0 +1,206 @@
+package com.lansoftprogramming.runeSequence.core.detection;
+
+import org.bytedeco.javacpp.indexer.DoubleIndexer;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
+
+import java.awt.*;
+
+import static org.bytedeco.opencv.global.opencv_core.CV_64F;
+import static org.bytedeco.opencv.global.opencv_core.multiply;
+import static org.bytedeco.opencv.global.opencv_imgproc.*;
+
+/**
+ * Integral image of a frame's luminance.
+ * <p>
+ * One O(pixels) {@link #update} per frame; after that the mean brightness (and, when built with squares, the variance)
+ * of any rectangle inside the integrated area costs four lookups and allocates nothing, instead of a grayscale ROI Mat
+ * per {@link TemplateDetector#measureBrightness} call. Native buffers are reused across frames.
+ * <p>
+ * Not thread-safe; {@link #close()} releases the native buffers.
+ */
+public final class LuminanceIntegral implements BrightnessSampler, AutoCloseable {
+	private final boolean withSquares;
+	private final Mat gray = new Mat();
+	private final Mat grayF;
+	private final Mat graySq;
+	private final Mat sum = new Mat();
+	private final Mat sqSum;
+	private DoubleIndexer sumIdx;
+	private DoubleIndexer sqIdx;
+	private int indexedCols = -1;
+	private int indexedRows = -1;
+
+	// Integrated area in frame coordinates, and the frame it was taken from.
+	private final Rectangle area = new Rectangle();
+	private int frameCols = 0;
+	private int frameRows = 0;
+	private boolean valid = false;
+
+	public LuminanceIntegral() {
+		this(false);
+	}
+
+	/**
+	 * @param withSquares also integrate squared luminance, enabling {@link #squareSum}
+	 */
+	public LuminanceIntegral(boolean withSquares) {
+		this.withSquares = withSquares;
+		this.grayF = withSquares ? new Mat() : null;
+		this.graySq = withSquares ? new Mat() : null;
+		this.sqSum = withSquares ? new Mat() : null;
+	}
+
+	public boolean update(Mat frame) {
+		return update(frame, null);
+	}
+
+	/**
+	 * Integrate {@code window} (frame coordinates, clamped to the frame; {@code null} for the whole frame) of a BGR,
+	 * BGRA or grayscale frame. Pixels outside the window are never read, so a partially refreshed frame (adaptive
+	 * capture) is safe as long as the window is the refreshed part.
+	 *
+	 * @return false when there is nothing to integrate; every query then fails until the next successful update
+	 */
+	public boolean update(Mat frame, Rectangle window) {
+		valid = false;
+		if (frame == null || frame.empty()) {
+			return false;
+		}
+		int cols = frame.cols();
+		int rows = frame.rows();
+		int x0 = 0;
+		int y0 = 0;
+		int x1 = cols;
+		int y1 = rows;
+		if (window != null) {
+			x0 = Math.max(0, window.x);
+			y0 = Math.max(0, window.y);
+			x1 = Math.min(cols, window.x + window.width);
+			y1 = Math.min(rows, window.y + window.height);
+		}
+		if (x1 - x0 < 1 || y1 - y0 < 1) {
+			return false;
+		}
+
+		boolean whole = x0 == 0 && y0 == 0 && x1 == cols && y1 == rows;
+		Mat source = whole ? frame : new Mat(frame, new Rect(x0, y0, x1 - x0, y1 - y0));
+		try {
+			Mat luma = source;
+			if (source.channels() == 4) {
+				cvtColor(source, gray, COLOR_BGRA2GRAY);
+				luma = gray;
+			} else if (source.channels() == 3) {
+				cvtColor(source, gray, COLOR_BGR2GRAY);
+				luma = gray;
+			}
+			if (withSquares) {
+				luma.convertTo(grayF, CV_64F);
+				multiply(grayF, grayF, graySq);
+				integral(grayF, sum, CV_64F);
+				integral(graySq, sqSum, CV_64F);
+			} else {
+				integral(luma, sum, CV_64F);
+			}
+		} finally {
+			if (source != frame) {
+				source.close();
+			}
+		}
+
+		refreshIndexers(x1 - x0, y1 - y0);
+		area.setBounds(x0, y0, x1 - x0, y1 - y0);
+		frameCols = cols;
+		frameRows = rows;
+		valid = true;
+		return true;
+	}
+
+	/**
+	 * Mean luminance of {@code roi} after clamping it to the frame, or {@code -1} when the clamped ROI is empty or
+	 * reaches outside the integrated area.
+	 */
+	@Override
+	public double meanBrightness(Rectangle roi) {
+		if (!valid || roi == null) {
+			return -1;
+		}
+		int x0 = Math.max(0, roi.x);
+		int y0 = Math.max(0, roi.y);
+		int x1 = Math.min(frameCols, roi.x + roi.width);
+		int y1 = Math.min(frameRows, roi.y + roi.height);
+		if (x1 <= x0 || y1 <= y0) {
+			return -1;
+		}
+		if (x0 < area.x || y0 < area.y || x1 > area.x + area.width || y1 > area.y + area.height) {
+			return -1;
+		}
+		double pixels = (double) (x1 - x0) * (y1 - y0);
+		return sum(x0 - area.x, y0 - area.y, x1 - area.x, y1 - area.y) / pixels;
+	}
+
+	public boolean isValid() {
+		return valid;
+	}
+
+	/**
+	 * Luminance sum over {@code [x0, x1) x [y0, y1)} in coordinates relative to the integrated area.
+	 */
+	double sum(int x0, int y0, int x1, int y1) {
+		return boxSum(sumIdx, x0, y0, x1, y1);
+	}
+
+	/**
+	 * Squared-luminance sum over {@code [x0, x1) x [y0, y1)}; requires {@code withSquares}.
+	 */
+	double squareSum(int x0, int y0, int x1, int y1) {
+		if (!withSquares) {
+			throw new IllegalStateException("Squared sums were not requested");
+		}
+		return boxSum(sqIdx, x0, y0, x1, y1);
+	}
+
+	private static double boxSum(DoubleIndexer idx, int x0, int y0, int x1, int y1) {
+		return idx.get(y1, x1) - idx.get(y0, x1) - idx.get(y1, x0) + idx.get(y0, x0);
+	}
+
+	private void refreshIndexers(int cols, int rows) {
+		// integral() reuses its output buffer while the size is unchanged, so indexers survive across frames.
+		if (sumIdx != null && cols == indexedCols && rows == indexedRows) {
+			return;
+		}
+		releaseIndexers();
+		sumIdx = sum.createIndexer();
+		if (withSquares) {
+			sqIdx = sqSum.createIndexer();
+		}
+		indexedCols = cols;
+		indexedRows = rows;
+	}
+
+	private void releaseIndexers() {
+		if (sumIdx != null) {
+			sumIdx.release();
+			sumIdx = null;
+		}
+		if (sqIdx != null) {
+			sqIdx.release();
+			sqIdx = null;
+		}
+		indexedCols = -1;
+		indexedRows = -1;
+	}
+
+	@Override
+	public void close() {
+		valid = false;
+		releaseIndexers();
+		sum.close();
+		gray.close();
+		if (withSquares) {
+			sqSum.close();
+			graySq.close();
+			grayF.close();
+		}
+	}
+}
@@ -0,0 +1,200 @@
+package com.lansoftprogramming.runeSequence.core.detection;
+
+import com.lansoftprogramming.runeSequence.application.TemplateCache;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+
+
+/**
+ * Single-pass action-bar slot classifier.
+ * <p>
+ * Instead of running one full-frame match per template, the frame is segmented once into icon-sized slots
+ * (high-contrast windows picked with integral images + non-maximum suppression), each slot gets an
+ * {@link IconDescriptor}, and the template cache's {@link TemplateDescriptorIndex} shortlists the closest templates
+ * per slot. Only those pairs are verified with masked matching in a small ROI around the slot, so the cost scales
+ * with the number of slots rather than slots x templates.
+ */
+public class SlotClassifier {
+	private static final Logger logger = LoggerFactory.getLogger(SlotClassifier.class);
+	private static final int DEFAULT_CANDIDATES_PER_SLOT = 4;
+	private static final int MAX_HASH_DISTANCE = 20;
+	private static final double MIN_SLOT_STDDEV = 12.0d;
+	private static final double SLOT_SEPARATION_RATIO = 0.75d;
+
+	private final TemplateCache templateCache;
+	private final TemplateDetector detector;
+	private final int candidatesPerSlot;
+
+	public SlotClassifier(TemplateCache templateCache, TemplateDetector detector) {
+		this(templateCache, detector, DEFAULT_CANDIDATES_PER_SLOT);
+	}
+
+	public SlotClassifier(TemplateCache templateCache, TemplateDetector detector, int candidatesPerSlot) {
+		this.templateCache = Objects.requireNonNull(templateCache, "templateCache");
+		this.detector = Objects.requireNonNull(detector, "detector");
+		this.candidatesPerSlot = Math.max(1, candidatesPerSlot);
+	}
+
+	public record Classification(List<Rectangle> slots, Map<String, DetectionResult> bestByTemplate, int verifiedPairs) {
+	}
+
+	/**
+	 * Classify every slot in {@code frame} against {@code templateNames}.
+	 * Results are in frame coordinates; templates that were not shortlisted for any slot are absent from the map.
+	 */
+	public Classification classify(Mat frame, Collection<String> templateNames) {
+		if (frame == null || frame.empty() || templateNames == null || templateNames.isEmpty()) {
+			return new Classification(List.of(), Map.of(), 0);
+		}
+
+		TemplateDescriptorIndex index = templateCache.getDescriptorIndex();
+		Set<String> requested = new HashSet<>();
+		Map<Integer, Integer> sizeVotes = new HashMap<>();
+		for (String name : templateNames) {
+			Mat template = templateCache.getTemplate(name);
+			if (template == null || !index.contains(name)) {
+				continue;
+			}
+			requested.add(name);
+			sizeVotes.merge(Math.max(template.cols(), template.rows()), 1, Integer::sum);
+		}
+		int slotSize = 0;
+		int bestVotes = 0;
+		for (Map.Entry<Integer, Integer> vote : sizeVotes.entrySet()) {
+			if (vote.getValue() > bestVotes) {
+				bestVotes = vote.getValue();
+				slotSize = vote.getKey();
+			}
+		}
+		if (requested.isEmpty() || slotSize <= 1 || slotSize > frame.cols() || slotSize > frame.rows()) {
+			return new Classification(List.of(), Map.of(), 0);
+		}
+
+		List<Rectangle> slots = segmentSlots(frame, slotSize);
+		if (slots.isEmpty()) {
+			return new Classification(List.of(), Map.of(), 0);
+		}
+
+		Map<String, DetectionResult> best = new HashMap<>();
+		int verified = 0;
+		int padding = Math.max(2, slotSize / 2);
+		for (Rectangle slot : slots) {
+			Mat slotMat = new Mat(frame, new Rect(slot.x, slot.y, slot.width, slot.height));
+			IconDescriptor slotDescriptor;
+			try {
+				slotDescriptor = IconDescriptor.of(slotMat);
+			} finally {
+				slotMat.close();
+			}
+			List<TemplateDescriptorIndex.Match> candidates = index.nearest(slotDescriptor, candidatesPerSlot, MAX_HASH_DISTANCE, requested);
+			if (candidates.isEmpty()) {
+				continue;
+			}
+			Rectangle searchRoi = padAndClamp(slot, padding, frame);
+			if (searchRoi == null) {
+				continue;
+			}
+			for (TemplateDescriptorIndex.Match candidate : candidates) {
+				String name = candidate.templateName();
+				DetectionResult result = detector.detectTemplateInRegion(frame, name, searchRoi, false, null);
+				verified++;
+				DetectionResult existing = best.get(name);
+				if (result != null && (existing == null || result.confidence > existing.confidence)) {
+					best.put(name, result);
+				}
+			}
+		}
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("SlotClassifier: {} slots ({}px), {} templates, {} verified pairs",
+					slots.size(), slotSize, requested.size(), verified);
+		}
+		return new Classification(List.copyOf(slots), best, verified);
+	}
+
+	/**
+	 * Segment the frame into icon-sized slots.
+	 * Windows are scored by luminance standard deviation (flat UI chrome and empty bar slots score low) and greedily
+	 * accepted strongest-first, suppressing neighbours closer than {@link #SLOT_SEPARATION_RATIO} of a slot.
+	 */
+	List<Rectangle> segmentSlots(Mat frame, int slotSize) {
+		int cols = frame.cols();
+		int rows = frame.rows();
+		int stride = Math.max(2, slotSize / 4);
+		int windowsX = (cols - slotSize) / stride + 1;
+		int windowsY = (rows - slotSize) / stride + 1;
+		if (windowsX <= 0 || windowsY <= 0) {
+			return List.of();
+		}
+
+		double[] stddev = new double[windowsX * windowsY];
+		try (LuminanceIntegral luma = new LuminanceIntegral(true)) {
+			luma.update(frame);
+			double area = (double) slotSize * slotSize;
+			for (int wy = 0; wy < windowsY; wy++) {
+				int y0 = wy * stride;
+				int y1 = y0 + slotSize;
+				for (int wx = 0; wx < windowsX; wx++) {
+					int x0 = wx * stride;
+					int x1 = x0 + slotSize;
+					double mean = luma.sum(x0, y0, x1, y1) / area;
+					double variance = Math.max(0.0d, luma.squareSum(x0, y0, x1, y1) / area - mean * mean);
+					stddev[wy * windowsX + wx] = Math.sqrt(variance);
+				}
+			}
+		}
+
+		Integer[] ranked = new Integer[stddev.length];
+		int rankedCount = 0;
+		for (int i = 0; i < stddev.length; i++) {
+			if (stddev[i] >= MIN_SLOT_STDDEV) {
+				ranked[rankedCount++] = i;
+			}
+		}
+		Arrays.sort(ranked, 0, rankedCount, (a, b) -> Double.compare(stddev[b], stddev[a]));
+
+		int suppressRadius = Math.max(1, (int) Math.ceil(slotSize * SLOT_SEPARATION_RATIO / stride) - 1);
+		int maxSlots = Math.max(1, (cols / slotSize) * (rows / slotSize));
+		boolean[] suppressed = new boolean[stddev.length];
+		List<Rectangle> slots = new ArrayList<>();
+		for (int r = 0; r < rankedCount && slots.size() < maxSlots; r++) {
+			int index = ranked[r];
+			if (suppressed[index]) {
+				continue;
+			}
+			int wx = index % windowsX;
+			int wy = index / windowsX;
+			slots.add(new Rectangle(wx * stride, wy * stride, slotSize, slotSize));
+			for (int dy = -suppressRadius; dy <= suppressRadius; dy++) {
+				int ny = wy + dy;
+				if (ny < 0 || ny >= windowsY) {
+					continue;
+				}
+				for (int dx = -suppressRadius; dx <= suppressRadius; dx++) {
+					int nx = wx + dx;
+					if (nx >= 0 && nx < windowsX) {
+						suppressed[ny * windowsX + nx] = true;
+					}
+				}
+			}
+		}
+		return slots;
+	}
+
+	private static Rectangle padAndClamp(Rectangle slot, int padding, Mat frame) {
+		int x = Math.max(0, slot.x - padding);
+		int y = Math.max(0, slot.y - padding);
+		int right = Math.min(frame.cols(), slot.x + slot.width + padding);
+		int bottom = Math.min(frame.rows(), slot.y + slot.height + padding);
+		if (right - x < slot.width || bottom - y < slot.height) {
+			return null;
+		}
+		return new Rectangle(x, y, right - x, bottom - y);
+	}
+}
@@ -0,0 +1,134 @@
+package com.lansoftprogramming.runeSequence.core.detection;
+
+import java.util.*;
+
+/**
+ * Immutable lookup structure answering "which templates could this patch be?".
+ * <p>
+ * Templates are organised in a BK-tree keyed by the Hamming distance between their perceptual hashes, so a radius
+ * query only visits subtrees whose edge distance lies within {@code [d - radius, d + radius]} of the query.
+ * Survivors are re-ranked by the blended hash + colour distance of {@link IconDescriptor}.
+ * All node data lives in parallel primitive arrays (node id == template id, node 0 is the root).
+ */
+public final class TemplateDescriptorIndex {
+	private static final int NO_NODE = -1;
+	private static final TemplateDescriptorIndex EMPTY = new TemplateDescriptorIndex(Map.of());
+
+	private final String[] names;
+	private final Map<String, Integer> idsByName;
+	private final long[] hashes;
+	private final float[] histograms;
+	private final int[] firstChild;
+	private final int[] nextSibling;
+	private final byte[] edgeDistance;
+
+	public record Match(String templateName, int hashDistance, double distance) {
+	}
+
+	/**
+	 * Build an index over {@code descriptorsByName}; entries with a {@code null} descriptor are skipped.
+	 * Templates are inserted in name order so the tree shape is deterministic.
+	 */
+	public TemplateDescriptorIndex(Map<String, IconDescriptor> descriptorsByName) {
+		TreeMap<String, IconDescriptor> ordered = new TreeMap<>();
+		if (descriptorsByName != null) {
+			descriptorsByName.forEach((name, descriptor) -> {
+				if (name != null && descriptor != null) {
+					ordered.put(name, descriptor);
+				}
+			});
+		}
+
+		int size = ordered.size();
+		names = new String[size];
+		hashes = new long[size];
+		histograms = new float[size * IconDescriptor.HISTOGRAM_BINS];
+		firstChild = new int[size];
+		nextSibling = new int[size];
+		edgeDistance = new byte[size];
+		Arrays.fill(firstChild, NO_NODE);
+		Arrays.fill(nextSibling, NO_NODE);
+
+		Map<String, Integer> ids = new HashMap<>(size * 2);
+		int id = 0;
+		for (Map.Entry<String, IconDescriptor> entry : ordered.entrySet()) {
+			names[id] = entry.getKey();
+			hashes[id] = entry.getValue().getPerceptualHash();
+			System.arraycopy(entry.getValue().colorHistogram(), 0, histograms, id * IconDescriptor.HISTOGRAM_BINS,
+					IconDescriptor.HISTOGRAM_BINS);
+			ids.put(entry.getKey(), id);
+			if (id > 0) {
+				insert(id);
+			}
+			id++;
+		}
+		idsByName = Map.copyOf(ids);
+	}
+
+	public static TemplateDescriptorIndex empty() {
+		return EMPTY;
+	}
+
+	private void insert(int id) {
+		int node = 0;
+		while (true) {
+			int distance = Long.bitCount(hashes[node] ^ hashes[id]);
+			int child = firstChild[node];
+			while (child != NO_NODE && edgeDistance[child] != distance) {
+				child = nextSibling[child];
+			}
+			if (child == NO_NODE) {
+				edgeDistance[id] = (byte) distance;
+				nextSibling[id] = firstChild[node];
+				firstChild[node] = id;
+				return;
+			}
+			node = child;
+		}
+	}
+
+	public int size() {
+		return names.length;
+	}
+
+	public boolean contains(String templateName) {
+		return templateName != null && idsByName.containsKey(templateName);
+	}
+
+	/**
+	 * Up to {@code limit} templates whose hash lies within {@code maxHashDistance} bits of {@code query},
+	 * closest (blended distance) first. When {@code allowed} is non-null only those template names are returned.
+	 */
+	public List<Match> nearest(IconDescriptor query, int limit, int maxHashDistance, Set<String> allowed) {
+		if (query == null || limit <= 0 || names.length == 0) {
+			return List.of();
+		}
+		long queryHash = query.getPerceptualHash();
+		float[] queryHistogram = query.colorHistogram();
+		int radius = Math.max(0, Math.min(IconDescriptor.HASH_BITS, maxHashDistance));
+
+		List<Match> matches = new ArrayList<>();
+		int[] stack = new int[names.length];
+		int top = 0;
+		stack[top++] = 0;
+		while (top > 0) {
+			int node = stack[--top];
+			int distance = Long.bitCount(hashes[node] ^ queryHash);
+			if (distance <= radius && (allowed == null || allowed.contains(names[node]))) {
+				matches.add(new Match(names[node], distance, IconDescriptor.blendedDistance(
+						queryHistogram, 0, histograms, node * IconDescriptor.HISTOGRAM_BINS, distance)));
+			}
+			int low = distance - radius;
+			int high = distance + radius;
+			for (int child = firstChild[node]; child != NO_NODE; child = nextSibling[child]) {
+				int edge = edgeDistance[child];
+				if (edge >= low && edge <= high) {
+					stack[top++] = child;
+				}
+			}
+		}
+
+		matches.sort(Comparator.comparingDouble(Match::distance).thenComparing(Match::templateName));
+		return matches.size() > limit ? List.copyOf(matches.subList(0, limit)) : List.copyOf(matches);
+	}
+}
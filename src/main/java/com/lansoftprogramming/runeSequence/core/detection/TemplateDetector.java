@@ -1,7 +1,10 @@
 package com.lansoftprogramming.runeSequence.core.detection;
 
 import com.lansoftprogramming.runeSequence.application.TemplateCache;
+import com.lansoftprogramming.runeSequence.core.metrics.MetricsRegistry;
+import com.lansoftprogramming.runeSequence.core.metrics.jfr.TemplateDetectionEvent;
 import com.lansoftprogramming.runeSequence.core.sequence.model.AbilityKeyCanonicalizer;
+import com.lansoftprogramming.runeSequence.core.sequence.model.AbilityRegistry;
 import com.lansoftprogramming.runeSequence.core.sequence.model.AbilityValueSanitizers;
 import com.lansoftprogramming.runeSequence.infrastructure.config.AbilityConfig;
 import org.bytedeco.javacpp.DoublePointer;
@@ -13,10 +16,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.awt.*;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
 
 import static org.bytedeco.opencv.global.opencv_core.*;
 import static org.bytedeco.opencv.global.opencv_imgproc.*;
@@ -31,18 +40,42 @@ import static org.bytedeco.opencv.global.opencv_imgproc.*;
  */
 public class TemplateDetector {
 	private static final Logger logger = LoggerFactory.getLogger(TemplateDetector.class);
+	// Full-frame searches on frames at least this large are split into row bands matched in parallel.
+	private static final long TILED_SEARCH_MIN_PIXELS = 1_000_000L;
+	private static final int TILE_MIN_RESULT_ROWS = 96;
+	private static final int CACHED_ROI_PADDING = 10;
+	private static final MetricsRegistry.Counter ROI_HITS = MetricsRegistry.shared().counter("detection.roi.hits");
+	private static final MetricsRegistry.Counter ROI_MISSES = MetricsRegistry.shared().counter("detection.roi.misses");
+	private static final MetricsRegistry.Counter FULL_FRAME_SEARCHES = MetricsRegistry.shared().counter("detection.fullFrameSearches");
+	private static final MetricsRegistry.Timer FULL_FRAME_SEARCH_TIME = MetricsRegistry.shared().timer("detection.fullFrameSearch");
+
+	static {
+		MetricsRegistry.shared().gauge("detection.roi.hitRate", () -> {
+			long hits = ROI_HITS.getCount();
+			long total = hits + ROI_MISSES.getCount();
+			return total > 0L ? hits / (double) total : 0.0d;
+		});
+	}
+
+	private static final ThreadLocal<RoiMatchScratch> ROI_MATCH_SCRATCH = ThreadLocal.withInitial(RoiMatchScratch::new);
 
 	private final TemplateCache templateCache;
 	private final AbilityConfig abilityConfig;
-	private final Map<String, Rectangle> lastKnownLocations = new java.util.concurrent.ConcurrentHashMap<>();
+	private final AbilityRegistry registry = AbilityRegistry.shared();
+	private final AbilityLocationTable lastKnownLocations = new AbilityLocationTable(registry.abilityCount());
+	private final AtomicLong invalidations = new AtomicLong();
 
 	public TemplateDetector(TemplateCache templateCache, AbilityConfig abilityConfig) {
 		this.templateCache = templateCache;
 		this.abilityConfig = abilityConfig;
 	}
 
+	/**
+	 * {@link AbilityKeyCanonicalizer#canonicalizeForLookup}, memoized per registered raw key by the
+	 * {@link AbilityRegistry}.
+	 */
 	static String normalizeAbilityKeyForLookup(String abilityKey) {
-		return AbilityKeyCanonicalizer.canonicalizeForLookup(abilityKey);
+		return AbilityRegistry.shared().canonicalKey(abilityKey);
 	}
 
 	public DetectionResult detectTemplate(Mat screen, String templateName) {
@@ -59,27 +92,202 @@ public class TemplateDetector {
 		}
 
 		// First, try searching in the last known location
-		if (lastKnownLocations.containsKey(lookupName)) {
-			Rectangle lastRoi = lastKnownLocations.get(lookupName);
-			// Add some padding to the ROI to allow for small movements
-			Rectangle searchRoi = new Rectangle(lastRoi.x - 10, lastRoi.y - 10, lastRoi.width + 20, lastRoi.height + 20);
-
-			DetectionResult result = detectTemplateInRegion(screen, templateName, searchRoi, isAlternative, detectionThreshold);
-			if (result.found) {
-				lastKnownLocations.put(lookupName, result.boundingBox);
-				return result;
-			}
+		DetectionResult cachedResult = detectTemplateAtCachedLocation(screen, templateName, isAlternative, detectionThreshold);
+		if (cachedResult != null && cachedResult.found) {
+			return cachedResult;
 		}
 
 		// If not found in the last known location, or if there is no last known location, search the whole screen
 		double threshold = getThresholdForTemplate(lookupName, detectionThreshold);
+		FULL_FRAME_SEARCHES.increment();
+		TemplateDetectionEvent event = beginDetectionEvent();
+		long searchStartNanos = System.nanoTime();
 		DetectionResult result = findBestMatch(screen, template, templateName, threshold, isAlternative);
+		long searchEndNanos = FULL_FRAME_SEARCH_TIME.recordSince(searchStartNanos);
+		commitDetectionEvent(event, templateName, TemplateDetectionEvent.MODE_FULL_FRAME, result, searchEndNanos - searchStartNanos);
+		if (result.found) {
+			lastKnownLocations.put(registry.registerAbility(lookupName), result.boundingBox);
+		}
+		return result;
+	}
+
+	/**
+	 * Search only the (padded) last known location of a template, never the full frame.
+	 * Returns {@code null} when no location is cached; a found result refreshes the cache.
+	 * <p>
+	 * Matches through the calling thread's {@link RoiMatchScratch}, and returns the thread's previous result for the
+	 * ability again while the search keeps reporting the same match, so a warm search allocates nothing on the Java
+	 * heap.
+	 */
+	public DetectionResult detectTemplateAtCachedLocation(Mat screen, String templateName, boolean isAlternative,
+	                                                      Double detectionThreshold) {
+		int abilityIndex = registry.abilityIndex(templateName);
+		RoiMatchScratch scratch = ROI_MATCH_SCRATCH.get();
+		if (!loadCachedSearchRoi(abilityIndex, scratch.searchRoi)) {
+			return null;
+		}
+		TemplateDetectionEvent event = beginDetectionEvent();
+		long searchStartNanos = System.nanoTime();
+		DetectionResult result = matchCachedRoi(screen, templateName, abilityIndex, isAlternative, detectionThreshold,
+				scratch);
+		commitDetectionEvent(event, templateName, TemplateDetectionEvent.MODE_ROI, result, System.nanoTime() - searchStartNanos);
 		if (result.found) {
-			lastKnownLocations.put(lookupName, result.boundingBox);
+			ROI_HITS.increment();
+			if (lastKnownLocations.get(abilityIndex) != result.boundingBox) {
+				lastKnownLocations.put(abilityIndex, result.boundingBox);
+			}
+		} else {
+			ROI_MISSES.increment();
 		}
 		return result;
 	}
 
+	/**
+	 * {@link #detectTemplateInRegion} over {@code scratch.searchRoi}, through the scratch's reused native buffers.
+	 */
+	private DetectionResult matchCachedRoi(Mat screen, String templateName, int abilityIndex, boolean isAlternative,
+	                                       Double detectionThreshold, RoiMatchScratch scratch) {
+		String lookupName = normalizeAbilityKeyForLookup(templateName);
+		Mat template = templateCache.getTemplate(lookupName);
+		if (template == null) {
+			logger.warn("Template not found in cache: {}", templateName);
+			return DetectionResult.notFound(templateName);
+		}
+
+		Rectangle roi = scratch.searchRoi;
+		if (roi.x < 0 || roi.y < 0 || roi.width <= 0 || roi.height <= 0
+				|| roi.x + roi.width > screen.cols() || roi.y + roi.height > screen.rows()) {
+			logger.warn("Requested ROI is out-of-bounds: {} on screen size {}x{}", roi, screen.cols(), screen.rows());
+			return DetectionResult.notFound(templateName);
+		}
+		if (template.cols() > roi.width || template.rows() > roi.height) {
+			logger.debug("Template {} is larger than screen; skipping match", templateName);
+			return DetectionResult.notFound(templateName);
+		}
+
+		try {
+			scratch.match(screen, template);
+		} catch (Exception e) {
+			logger.error("TemplateDetector.matchCachedRoi failed for {}", templateName, e);
+			return DetectionResult.notFound(templateName);
+		}
+		double confidence = 1.0 - scratch.minValue;
+		boolean found = confidence >= getThresholdForTemplate(lookupName, detectionThreshold);
+		return scratch.result(abilityIndex, templateName, found, roi.x + scratch.matchX, roi.y + scratch.matchY,
+				template.cols(), template.rows(), confidence, isAlternative);
+	}
+
+	/**
+	 * A started event, or {@code null} (and nothing allocated) while no recording takes template detection events.
+	 */
+	private static TemplateDetectionEvent beginDetectionEvent() {
+		if (!TemplateDetectionEvent.enabled()) {
+			return null;
+		}
+		TemplateDetectionEvent event = new TemplateDetectionEvent();
+		event.begin();
+		return event;
+	}
+
+	private static void commitDetectionEvent(TemplateDetectionEvent event, String templateName, String searchMode,
+	                                         DetectionResult result, long elapsedNanos) {
+		if (event == null || !event.shouldCommit()) {
+			return;
+		}
+		event.ability = templateName;
+		event.searchMode = searchMode;
+		event.found = result != null && result.found;
+		event.confidence = result != null ? result.confidence : 0.0d;
+		event.micros = elapsedNanos / 1_000L;
+		event.commit();
+	}
+
+	/**
+	 * The rectangle {@link #detectTemplateAtCachedLocation} would search for a template, or {@code null} when no
+	 * location is cached. Not clamped to any frame.
+	 */
+	public Rectangle getCachedSearchRoi(String templateName) {
+		Rectangle lastRoi = lastKnownLocations.get(registry.abilityIndex(templateName));
+		if (lastRoi == null) {
+			return null;
+		}
+		// Add some padding to the ROI to allow for small movements
+		return new Rectangle(lastRoi.x - CACHED_ROI_PADDING, lastRoi.y - CACHED_ROI_PADDING,
+				lastRoi.width + CACHED_ROI_PADDING * 2, lastRoi.height + CACHED_ROI_PADDING * 2);
+	}
+
+	/**
+	 * Allocation-free variant of {@link #getCachedSearchRoi(String)}: writes the padded ROI into {@code target}.
+	 *
+	 * @return false (leaving {@code target} untouched) when no location is cached
+	 */
+	public boolean loadCachedSearchRoi(String templateName, Rectangle target) {
+		return loadCachedSearchRoi(registry.abilityIndex(templateName), target);
+	}
+
+	/**
+	 * {@link #loadCachedSearchRoi(String, Rectangle)} by {@link AbilityRegistry} ability index.
+	 */
+	public boolean loadCachedSearchRoi(int abilityIndex, Rectangle target) {
+		Rectangle lastRoi = lastKnownLocations.get(abilityIndex);
+		if (lastRoi == null) {
+			return false;
+		}
+		target.setBounds(lastRoi.x - CACHED_ROI_PADDING, lastRoi.y - CACHED_ROI_PADDING,
+				lastRoi.width + CACHED_ROI_PADDING * 2, lastRoi.height + CACHED_ROI_PADDING * 2);
+		return true;
+	}
+
+	public boolean hasCachedLocation(String templateName) {
+		return hasCachedLocation(registry.abilityIndex(templateName));
+	}
+
+	public boolean hasCachedLocation(int abilityIndex) {
+		return lastKnownLocations.get(abilityIndex) != null;
+	}
+
+	/**
+	 * Allocation-free variant of {@link #getCachedLocation(String)}: writes the bounding box into {@code target}.
+	 *
+	 * @return false (leaving {@code target} untouched) when no location is cached
+	 */
+	public boolean loadCachedLocation(String templateName, Rectangle target) {
+		return loadCachedLocation(registry.abilityIndex(templateName), target);
+	}
+
+	/**
+	 * {@link #loadCachedLocation(String, Rectangle)} by {@link AbilityRegistry} ability index.
+	 */
+	public boolean loadCachedLocation(int abilityIndex, Rectangle target) {
+		Rectangle cached = lastKnownLocations.get(abilityIndex);
+		if (cached == null) {
+			return false;
+		}
+		target.setBounds(cached);
+		return true;
+	}
+
+	/**
+	 * Snapshot of the (lookup-normalized) keys that currently have a cached location.
+	 */
+	public Set<String> cachedLocationKeys() {
+		Set<String> keys = new LinkedHashSet<>();
+		for (int i = 0; i < lastKnownLocations.capacity(); i++) {
+			if (lastKnownLocations.get(i) != null) {
+				keys.add(registry.canonicalKey(i));
+			}
+		}
+		return Collections.unmodifiableSet(keys);
+	}
+
+	/**
+	 * Upper bound (exclusive) of the ability indexes that may have a cached location; iterate with
+	 * {@link #loadCachedLocation(int, Rectangle)} to visit them without allocating.
+	 */
+	public int cachedLocationCapacity() {
+		return lastKnownLocations.capacity();
+	}
+
 	public Map<String, DetectionResult> cacheAbilityLocations(Mat screen, Collection<String> abilityKeys) {
 		if (screen == null || screen.empty() || abilityKeys == null || abilityKeys.isEmpty()) {
 			return Collections.emptyMap();
@@ -97,7 +305,7 @@ public class TemplateDetector {
 				logger.debug("Skipping pre-cache for {} because no template is loaded", abilityKey);
 				return;
 			}
-			if (lastKnownLocations.containsKey(lookupName)) {
+			if (hasCachedLocation(lookupName)) {
 				return;
 			}
 
@@ -120,7 +328,7 @@ public class TemplateDetector {
 	 * Returned rectangles are defensive copies so callers cannot mutate the cache.
 	 */
 	public Rectangle getCachedLocation(String templateName) {
-		Rectangle cached = lastKnownLocations.get(normalizeAbilityKeyForLookup(templateName));
+		Rectangle cached = lastKnownLocations.get(registry.abilityIndex(templateName));
 		return cached != null ? new Rectangle(cached) : null;
 	}
 
@@ -132,7 +340,47 @@ public class TemplateDetector {
 		if (templateName == null || boundingBox == null) {
 			return;
 		}
-		lastKnownLocations.put(normalizeAbilityKeyForLookup(templateName), new Rectangle(boundingBox));
+		lastKnownLocations.put(registry.registerAbility(templateName), new Rectangle(boundingBox));
+	}
+
+	/**
+	 * Forget the cached locations of the given templates (after their image or detection settings changed), so their
+	 * next detection searches the whole frame.
+	 */
+	public void invalidateCachedLocations(Collection<String> templateNames) {
+		if (templateNames == null) {
+			return;
+		}
+		for (String templateName : templateNames) {
+			if (templateName != null) {
+				lastKnownLocations.put(registry.abilityIndex(templateName), null);
+			}
+		}
+		invalidations.incrementAndGet();
+	}
+
+	/**
+	 * Bumped by every {@link #invalidateCachedLocations}; callers holding state derived from templates, thresholds or
+	 * locations re-derive it when this changes.
+	 */
+	public long invalidationCount() {
+		return invalidations.get();
+	}
+
+	/**
+	 * Decode the templates of the given ability keys in the background, ahead of the frames that will look for them.
+	 */
+	public void preloadTemplates(Collection<String> abilityKeys) {
+		if (abilityKeys == null || abilityKeys.isEmpty()) {
+			return;
+		}
+		Set<String> templateNames = new LinkedHashSet<>();
+		for (String abilityKey : abilityKeys) {
+			if (abilityKey != null) {
+				templateNames.add(normalizeAbilityKeyForLookup(abilityKey));
+			}
+		}
+		templateCache.preload(templateNames);
 	}
 
 	public DetectionResult detectTemplateInRegion(Mat screen, String templateName, Rectangle roi) {
@@ -283,14 +531,17 @@ public class TemplateDetector {
 	}
 
 	double getThresholdForTemplate(String templateName, Double overrideThreshold) {
-		Double override = AbilityValueSanitizers.sanitizeDetectionThreshold(overrideThreshold);
-		if (override != null) {
-			return override;
+		// Same rules as AbilityValueSanitizers.sanitizeDetectionThreshold, without boxing on the per-frame path.
+		if (overrideThreshold != null) {
+			double override = AbilityValueSanitizers.clampFiniteOrDefault(overrideThreshold, 0.0d, 1.0d, Double.NaN);
+			if (!Double.isNaN(override)) {
+				return override;
+			}
 		}
 		AbilityConfig.AbilityData abilityData = abilityConfig.getAbility(templateName);
 		if (abilityData != null && abilityData.getDetectionThreshold() != null) {
-			Double fromConfig = AbilityValueSanitizers.sanitizeDetectionThreshold(abilityData.getDetectionThreshold());
-			if (fromConfig != null) {
+			double fromConfig = AbilityValueSanitizers.clampFiniteOrDefault(abilityData.getDetectionThreshold(), 0.0d, 1.0d, Double.NaN);
+			if (!Double.isNaN(fromConfig)) {
 				return fromConfig;
 			}
 		}
@@ -327,11 +578,6 @@ public class TemplateDetector {
 		Mat workingScreen = null;
 		MatVector channels = null;
 		MatVector bgrChannels = null;
-		Mat result = null;
-		DoublePointer minVal = null;
-		DoublePointer maxVal = null;
-		Point minLoc = null;
-		Point maxLoc = null;
 
 		try {
 			// Handle alpha channel as mask
@@ -368,30 +614,27 @@ public class TemplateDetector {
 				return DetectionResult.notFound(templateName);
 			}
 
-			result = new Mat(new org.bytedeco.opencv.opencv_core.Size(resultCols, resultRows), CV_32FC1);
-
-			// Perform template matching with SQDIFF_NORMED (smaller = better)
-			matchTemplate(workingScreen, workingTemplate, result, TM_SQDIFF_NORMED, mask);
-
-			// minMaxLoc to find best match
-			minVal = new DoublePointer(1);
-			maxVal = new DoublePointer(1);
-			minLoc = new Point();
-			maxLoc = new Point();
-
-			minMaxLoc(result, minVal, maxVal, minLoc, maxLoc, null);
+			int tiles = planTileCount(workingScreen, resultRows);
+			MatchScore best;
+			if (tiles > 1) {
+				best = matchTiled(workingScreen, workingTemplate, mask, resultRows, tiles);
+			} else {
+				best = matchRows(workingScreen, workingTemplate, mask, 0, resultRows);
+			}
+			if (best == null) {
+				return DetectionResult.notFound(templateName);
+			}
 
-			double minValD = minVal.get();
 			// Convert to intuitive confidence: lower error -> higher confidence
-			double confidence = 1.0 - minValD;
+			double confidence = 1.0 - best.minValue();
 			// Found if confidence meets threshold
 			boolean found = confidence >= threshold;
 
 			Rectangle boundingBox = new Rectangle(
-					minLoc.x(), minLoc.y(),
+					best.x(), best.y(),
 					workingTemplate.cols(), workingTemplate.rows()
 			);
-			java.awt.Point location = new java.awt.Point(minLoc.x(), minLoc.y());
+			java.awt.Point location = new java.awt.Point(best.x(), best.y());
 
 			if (found) {
 				return DetectionResult.found(templateName,
@@ -415,16 +658,6 @@ public class TemplateDetector {
 
 			if (workingScreen != null && workingScreen != screen) workingScreen.close();
 
-			if (result != null) result.close();
-
-			if (minVal != null) minVal.close();
-
-			if (maxVal != null) maxVal.close();
-
-			if (minLoc != null) minLoc.close();
-
-			if (maxLoc != null) maxLoc.close();
-
 			// Close channel vectors (MatVector releases contained Mats)
 			if (channels != null) {
 				channels.close();
@@ -436,6 +669,137 @@ public class TemplateDetector {
 		}
 	}
 
+	/**
+	 * Best (lowest) SQDIFF_NORMED score and its top-left position in screen coordinates.
+	 */
+	record MatchScore(double minValue, int x, int y) {
+	}
+
+	/**
+	 * Number of horizontal bands to split a full-frame search into; {@code 1} means "match in one call".
+	 * Only large frames are split, and never into bands thinner than {@link #TILE_MIN_RESULT_ROWS}.
+	 */
+	private static int planTileCount(Mat workingScreen, int resultRows) {
+		long pixels = (long) workingScreen.cols() * workingScreen.rows();
+		if (pixels < TILED_SEARCH_MIN_PIXELS) {
+			return 1;
+		}
+		int parallelism = ForkJoinPool.getCommonPoolParallelism();
+		return Math.max(1, Math.min(parallelism, resultRows / TILE_MIN_RESULT_ROWS));
+	}
+
+	/**
+	 * Result rows per DFT block of {@code matchTemplate}'s cross-correlation for a template of {@code templateRows}
+	 * over {@code resultRows} result rows, mirroring OpenCV's {@code crossCorr} block sizing. Each result pixel is
+	 * computed from the block it falls in, so bands that start on this grid (and are at least one block tall) compute
+	 * every pixel from the same block data as a single call, and score bit-identically.
+	 */
+	static int matchBlockRows(int templateRows, int resultRows) {
+		int block = Math.max((int) Math.round(templateRows * 4.5), 256 - templateRows + 1);
+		block = Math.min(block, resultRows);
+		int dftRows = getOptimalDFTSize(block + templateRows - 1);
+		return Math.max(1, Math.min(dftRows - templateRows + 1, resultRows));
+	}
+
+	/**
+	 * Split {@code resultRows} result rows into {@code tiles} contiguous {@code [start, end)} bands of near-equal height.
+	 * Each band reads screen rows {@code [start, end + templateRows - 1)}, so neighbouring tiles overlap by
+	 * template height - 1 and every candidate position is scored exactly once.
+	 */
+	static int[] planTileBounds(int resultRows, int tiles) {
+		return planTileBounds(resultRows, tiles, 1);
+	}
+
+	/**
+	 * {@link #planTileBounds(int, int)} with every inner bound snapped down to a multiple of {@code alignRows}, so every
+	 * band is at least {@code alignRows} tall; fewer tiles come back when the rows do not hold {@code tiles} such bands.
+	 */
+	static int[] planTileBounds(int resultRows, int tiles, int alignRows) {
+		int align = Math.max(1, alignRows);
+		int count = Math.max(1, Math.min(tiles, resultRows / align));
+		int[] bounds = new int[count + 1];
+		int planned = 1;
+		for (int i = 1; i < count; i++) {
+			// Rounded down, so the last band keeps at least resultRows / count >= align rows.
+			int bound = (int) ((long) resultRows * i / count / align) * align;
+			if (bound > bounds[planned - 1] && bound < resultRows) {
+				bounds[planned++] = bound;
+			}
+		}
+		bounds[planned++] = resultRows;
+		return planned == bounds.length ? bounds : Arrays.copyOf(bounds, planned);
+	}
+
+	/**
+	 * Reduce per-tile bests (ordered top to bottom) to the global best.
+	 * Only a strictly lower score replaces the current best, which reproduces minMaxLoc's row-major
+	 * "first minimum wins" tie-break across tile boundaries.
+	 */
+	static MatchScore reduceTileScores(List<MatchScore> tileScores) {
+		MatchScore best = null;
+		for (MatchScore score : tileScores) {
+			if (score != null && (best == null || score.minValue() < best.minValue())) {
+				best = score;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Match {@code tiles} row bands in parallel. Bands start on {@code matchTemplate}'s DFT block grid
+	 * ({@link #matchBlockRows}), so the location and score are identical to one call over the whole frame.
+	 */
+	static MatchScore matchTiled(Mat workingScreen, Mat workingTemplate, Mat mask, int resultRows, int tiles) {
+		int[] bounds = planTileBounds(resultRows, tiles, matchBlockRows(workingTemplate.rows(), resultRows));
+		List<MatchScore> tileScores = IntStream.range(0, bounds.length - 1)
+				.parallel()
+				.mapToObj(i -> matchRows(workingScreen, workingTemplate, mask, bounds[i], bounds[i + 1]))
+				.toList();
+		return reduceTileScores(tileScores);
+	}
+
+	/**
+	 * Masked SQDIFF_NORMED over result rows {@code [rowStart, rowEnd)}. When the band covers the whole frame the
+	 * screen is matched directly; otherwise a row-band view (plus template-height overlap) is matched and the
+	 * location is shifted back by {@code rowStart}.
+	 */
+	static MatchScore matchRows(Mat workingScreen, Mat workingTemplate, Mat mask, int rowStart, int rowEnd) {
+		int resultCols = workingScreen.cols() - workingTemplate.cols() + 1;
+		boolean wholeFrame = rowStart == 0 && rowEnd == workingScreen.rows() - workingTemplate.rows() + 1;
+
+		Mat band = null;
+		Mat result = null;
+		DoublePointer minVal = null;
+		DoublePointer maxVal = null;
+		Point minLoc = null;
+		Point maxLoc = null;
+		try {
+			band = wholeFrame
+					? workingScreen
+					: new Mat(workingScreen, new Rect(0, rowStart, workingScreen.cols(), rowEnd - rowStart + workingTemplate.rows() - 1));
+			result = new Mat(new org.bytedeco.opencv.opencv_core.Size(resultCols, rowEnd - rowStart), CV_32FC1);
+
+			// Perform template matching with SQDIFF_NORMED (smaller = better)
+			matchTemplate(band, workingTemplate, result, TM_SQDIFF_NORMED, mask);
+
+			// minMaxLoc to find best match
+			minVal = new DoublePointer(1);
+			maxVal = new DoublePointer(1);
+			minLoc = new Point();
+			maxLoc = new Point();
+			minMaxLoc(result, minVal, maxVal, minLoc, maxLoc, null);
+
+			return new MatchScore(minVal.get(), minLoc.x(), minLoc.y() + rowStart);
+		} finally {
+			if (band != null && band != workingScreen) band.close();
+			if (result != null) result.close();
+			if (minVal != null) minVal.close();
+			if (maxVal != null) maxVal.close();
+			if (minLoc != null) minLoc.close();
+			if (maxLoc != null) maxLoc.close();
+		}
+	}
+
 	/**
 	 * Ensure screen colors align with template:
 	 * - If screen has 4 channels (BGRA) and template is 3-channel (BGR), convert screen to BGR and return a new Mat (caller must close).
@@ -453,4 +817,89 @@ public class TemplateDetector {
 		// return original reference (caller must NOT close it)
 		return screen;
 	}
+
+	/**
+	 * Per-thread working storage for cached-ROI searches: native buffers that {@code matchTemplate} and friends write
+	 * into in place, and the last result per ability index. Only used by searches that never fork, so a thread cannot
+	 * re-enter it while a search is still reading from it.
+	 */
+	private static final class RoiMatchScratch {
+		private static final DetectionResult[] NO_RESULTS = new DetectionResult[0];
+
+		private final Rectangle searchRoi = new Rectangle();
+		private final Mat roiView = new Mat();
+		private final Mat bgrScreen = new Mat();
+		private final Mat bgrTemplate = new Mat();
+		private final Mat alphaMask = new Mat();
+		private final Mat scores = new Mat();
+		private final DoublePointer minVal = new DoublePointer(1);
+		private final DoublePointer maxVal = new DoublePointer(1);
+		private final Point minLoc = new Point();
+		private final Point maxLoc = new Point();
+		private DetectionResult[] lastResults = NO_RESULTS;
+
+		// Best (lowest) SQDIFF_NORMED score of the last match and its top-left position within searchRoi.
+		private double minValue;
+		private int matchX;
+		private int matchY;
+
+		/**
+		 * Same steps as {@link TemplateDetector#findBestMatch} for one band: alpha becomes the mask, BGRA inputs are matched as BGR.
+		 */
+		void match(Mat screen, Mat template) {
+			// A header over searchRoi inside screen, re-pointed in place rather than built per call.
+			roiView.put(screen);
+			roiView.adjustROI(-searchRoi.y, searchRoi.y + searchRoi.height - screen.rows(),
+					-searchRoi.x, searchRoi.x + searchRoi.width - screen.cols());
+
+			Mat workingTemplate = template;
+			Mat mask = null;
+			if (template.channels() == 4) {
+				cvtColor(template, bgrTemplate, COLOR_BGRA2BGR);
+				extractChannel(template, alphaMask, 3);
+				workingTemplate = bgrTemplate;
+				mask = alphaMask;
+			}
+			Mat workingScreen = roiView;
+			if (roiView.channels() == 4 && workingTemplate.channels() == 3) {
+				cvtColor(roiView, bgrScreen, COLOR_BGRA2BGR);
+				workingScreen = bgrScreen;
+			}
+
+			matchTemplate(workingScreen, workingTemplate, scores, TM_SQDIFF_NORMED, mask);
+			minMaxLoc(scores, minVal, maxVal, minLoc, maxLoc, null);
+			minValue = minVal.get();
+			matchX = minLoc.x();
+			matchY = minLoc.y();
+		}
+
+		/**
+		 * The thread's previous result for {@code abilityIndex} when it reports exactly this match, otherwise a new one
+		 * that replaces it.
+		 */
+		DetectionResult result(int abilityIndex, String templateName, boolean found, int x, int y, int width, int height,
+		                       double confidence, boolean isAlternative) {
+			if (abilityIndex >= lastResults.length) {
+				lastResults = Arrays.copyOf(lastResults, Math.max(abilityIndex + 1, lastResults.length * 2));
+			}
+			DetectionResult previous = lastResults[abilityIndex];
+			if (previous != null
+					&& previous.found == found
+					&& previous.confidence == confidence
+					&& previous.isAlternative == isAlternative
+					&& previous.templateName.equals(templateName)
+					&& previous.location.x == x && previous.location.y == y
+					&& previous.boundingBox.x == x && previous.boundingBox.y == y
+					&& previous.boundingBox.width == width && previous.boundingBox.height == height) {
+				return previous;
+			}
+			java.awt.Point location = new java.awt.Point(x, y);
+			Rectangle boundingBox = new Rectangle(x, y, width, height);
+			DetectionResult fresh = found
+					? DetectionResult.found(templateName, location, confidence, boundingBox, isAlternative)
+					: DetectionResult.notFound(templateName, location, confidence, boundingBox, isAlternative);
+			lastResults[abilityIndex] = fresh;
+			return fresh;
+		}
+	}
 }
@@ -0,0 +1,222 @@
+package com.lansoftprogramming.runeSequence.core.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.*;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory flight recorder for detection diagnostics.
+ * <p>
+ * Records are primitive-encoded into preallocated parallel arrays (a ring of {@link #DEFAULT_CAPACITY} slots), so
+ * {@link #record} never allocates once an ability key has been seen and never formats text on the detection thread.
+ * The ring is only decoded when someone asks for a dump (tray action, or after an error).
+ * <p>
+ * Writers claim slots with one atomic increment; each slot carries the sequence number it was written for, published
+ * last, so a concurrent dump skips slots that are mid-write or already overwritten instead of printing torn data.
+ */
+public final class DiagnosticRecorder {
+	private static final Logger logger = LoggerFactory.getLogger(DiagnosticRecorder.class);
+	static final int DEFAULT_CAPACITY = 8192;
+	private static final DiagnosticRecorder SHARED = new DiagnosticRecorder(DEFAULT_CAPACITY);
+	private static final DateTimeFormatter DUMP_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss", Locale.ROOT);
+	private static final long UNPUBLISHED = -1L;
+	static final int NO_COORDINATE = Integer.MIN_VALUE;
+
+	public enum Decision {
+		FOUND,
+		MISSED,
+		CAPTURE_FAILED,
+		ADAPTIVE_FALLBACK,
+		FRAME_ERROR
+	}
+
+	private static final Decision[] DECISIONS = Decision.values();
+
+	private final int mask;
+	private final AtomicLong cursor = new AtomicLong();
+	private final AtomicLongArray publishedSeq;
+	private final long[] timestampNanos;
+	private final long[] frameIds;
+	private final int[] abilityIds;
+	private final float[] confidences;
+	private final float[] requiredConfidences;
+	private final int[] xs;
+	private final int[] ys;
+	private final int[] widths;
+	private final int[] heights;
+	private final byte[] decisions;
+
+	private final ConcurrentMap<String, Integer> abilityIdsByKey = new ConcurrentHashMap<>();
+	private final CopyOnWriteArrayList<String> abilityKeysById = new CopyOnWriteArrayList<>();
+
+	/**
+	 * @param capacity number of records kept; rounded up to a power of two
+	 */
+	public DiagnosticRecorder(int capacity) {
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		mask = size - 1;
+		publishedSeq = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			publishedSeq.set(i, UNPUBLISHED);
+		}
+		timestampNanos = new long[size];
+		frameIds = new long[size];
+		abilityIds = new int[size];
+		confidences = new float[size];
+		requiredConfidences = new float[size];
+		xs = new int[size];
+		ys = new int[size];
+		widths = new int[size];
+		heights = new int[size];
+		decisions = new byte[size];
+	}
+
+	public static DiagnosticRecorder shared() {
+		return SHARED;
+	}
+
+	public int capacity() {
+		return mask + 1;
+	}
+
+	/**
+	 * Stable small-integer ID for an ability key; allocates only the first time a key is seen.
+	 */
+	public int abilityId(String abilityKey) {
+		if (abilityKey == null) {
+			return -1;
+		}
+		Integer existing = abilityIdsByKey.get(abilityKey);
+		if (existing != null) {
+			return existing;
+		}
+		synchronized (abilityKeysById) {
+			return abilityIdsByKey.computeIfAbsent(abilityKey, key -> {
+				abilityKeysById.add(key);
+				return abilityKeysById.size() - 1;
+			});
+		}
+	}
+
+	/**
+	 * Record one decision. Pass {@code null} bounds when no location is known.
+	 */
+	public void record(long frameId, int abilityId, Decision decision, double confidence, double requiredConfidence,
+	                   Rectangle bounds) {
+		if (bounds != null) {
+			record(frameId, abilityId, decision, confidence, requiredConfidence, bounds.x, bounds.y, bounds.width, bounds.height);
+		} else {
+			record(frameId, abilityId, decision, confidence, requiredConfidence, NO_COORDINATE, NO_COORDINATE, 0, 0);
+		}
+	}
+
+	public void record(long frameId, int abilityId, Decision decision, double confidence, double requiredConfidence,
+	                   int x, int y, int width, int height) {
+		long seq = cursor.getAndIncrement();
+		int slot = (int) (seq & mask);
+		publishedSeq.set(slot, UNPUBLISHED);
+		VarHandle.storeStoreFence();
+		timestampNanos[slot] = System.nanoTime();
+		frameIds[slot] = frameId;
+		abilityIds[slot] = abilityId;
+		confidences[slot] = (float) confidence;
+		requiredConfidences[slot] = (float) requiredConfidence;
+		xs[slot] = x;
+		ys[slot] = y;
+		widths[slot] = width;
+		heights[slot] = height;
+		decisions[slot] = (byte) (decision != null ? decision.ordinal() : Decision.FRAME_ERROR.ordinal());
+		// Volatile write publishes the plain field writes above to dumping threads.
+		publishedSeq.set(slot, seq);
+	}
+
+	/**
+	 * Decode the retained records, oldest first. Times are relative to the newest record.
+	 */
+	public String dump() {
+		long end = cursor.get();
+		long start = Math.max(0L, end - capacity());
+		long newestNanos = end > 0L ? timestampNanos[(int) ((end - 1) & mask)] : 0L;
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format(Locale.ROOT, "# %d records (capacity %d, %d total)%n", end - start, capacity(), end));
+		sb.append(String.format(Locale.ROOT, "# %10s %8s %-18s %-24s %8s %8s %s%n",
+				"t-ms", "frame", "decision", "ability", "conf%", "req%", "bounds"));
+		for (long seq = start; seq < end; seq++) {
+			int slot = (int) (seq & mask);
+			if (publishedSeq.get(slot) != seq) {
+				continue;
+			}
+			long nanos = timestampNanos[slot];
+			long frameId = frameIds[slot];
+			int abilityId = abilityIds[slot];
+			float confidence = confidences[slot];
+			float required = requiredConfidences[slot];
+			int x = xs[slot];
+			int y = ys[slot];
+			int w = widths[slot];
+			int h = heights[slot];
+			int decision = decisions[slot];
+			VarHandle.loadLoadFence();
+			if (publishedSeq.get(slot) != seq) {
+				continue; // overwritten while we were reading it
+			}
+			String bounds = x == NO_COORDINATE
+					? "<unknown>"
+					: String.format(Locale.ROOT, "(%d,%d %dx%d)", x, y, w, h);
+			sb.append(String.format(Locale.ROOT, "  %10.1f %8d %-18s %-24s %8.2f %8.2f %s%n",
+					(nanos - newestNanos) / 1_000_000.0d,
+					frameId,
+					decision >= 0 && decision < DECISIONS.length ? DECISIONS[decision].name() : "?",
+					abilityName(abilityId),
+					confidence * 100.0f,
+					required * 100.0f,
+					bounds));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Write {@link #dump()} to {@code diagnostics_<timestamp>.log} in {@code directory}.
+	 */
+	public Path dumpTo(Path directory, String reason) throws IOException {
+		Files.createDirectories(directory);
+		Path target = directory.resolve("diagnostics_" + LocalDateTime.now().format(DUMP_TIMESTAMP) + ".log");
+		String header = "# reason: " + (reason != null ? reason : "<unspecified>") + System.lineSeparator();
+		Files.writeString(target, header + dump(), StandardCharsets.UTF_8);
+		logger.info("Wrote detection diagnostics to {} ({})", target, reason);
+		return target;
+	}
+
+	/**
+	 * Best-effort dump next to the application logs; failures are logged, never thrown.
+	 */
+	public Path dumpToLogsDir(String reason) {
+		try {
+			return dumpTo(LogDirectory.resolve(), reason);
+		} catch (Exception e) {
+			logger.warn("Failed to write detection diagnostics ({})", reason, e);
+			return null;
+		}
+	}
+
+	private String abilityName(int abilityId) {
+		if (abilityId < 0 || abilityId >= abilityKeysById.size()) {
+			return "-";
+		}
+		return abilityKeysById.get(abilityId);
+	}
+}
@@ -0,0 +1,128 @@
+package com.lansoftprogramming.runeSequence.core.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-stage and end-to-end latency of the detection pipeline.
+ * <p>
+ * Every frame is stamped with {@link System#nanoTime()} right after the screen grab returns; that capture timestamp
+ * travels with the frame through {@code DetectionEngine}, {@code SequenceManager.processDetection},
+ * {@code OverlayRenderer.processOverlayUpdate} and the overlay paint, and each hop records into its stage histogram.
+ * {@link Stage#CAPTURE_TO_PAINT} answers "how stale is the border when it appears".
+ */
+public final class FrameLatencyTracker {
+	private static final Logger logger = LoggerFactory.getLogger(FrameLatencyTracker.class);
+	private static final FrameLatencyTracker SHARED = new FrameLatencyTracker();
+	private static final DateTimeFormatter DUMP_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss", Locale.ROOT);
+
+	/**
+	 * Marker for "this update did not originate from a captured frame" (e.g. clearing overlays once a sequence ends).
+	 */
+	public static final long NO_CAPTURE = 0L;
+
+	public enum Stage {
+		CAPTURE("capture"),
+		DETECT("detect"),
+		SEQUENCE("sequence"),
+		OVERLAY_QUEUE("overlay queue"),
+		OVERLAY_UPDATE("overlay update"),
+		PAINT_DISPATCH("paint dispatch"),
+		CAPTURE_TO_PAINT("capture->paint");
+
+		private final String label;
+
+		Stage(String label) {
+			this.label = label;
+		}
+
+		public String label() {
+			return label;
+		}
+	}
+
+	private final LatencyHistogram[] histograms;
+
+	public FrameLatencyTracker() {
+		Stage[] stages = Stage.values();
+		histograms = new LatencyHistogram[stages.length];
+		for (int i = 0; i < stages.length; i++) {
+			histograms[i] = new LatencyHistogram();
+		}
+	}
+
+	/**
+	 * Process-wide tracker shared by the detection thread, the overlay render thread and the EDT.
+	 */
+	public static FrameLatencyTracker shared() {
+		return SHARED;
+	}
+
+	public void record(Stage stage, long elapsedNanos) {
+		if (stage != null) {
+			histograms[stage.ordinal()].recordNanos(elapsedNanos);
+		}
+	}
+
+	/**
+	 * Record {@code now - startNanos} into {@code stage} and return {@code now}, so consecutive stages can chain.
+	 * A {@link #NO_CAPTURE} start is skipped.
+	 */
+	public long recordSince(Stage stage, long startNanos) {
+		long now = System.nanoTime();
+		if (startNanos != NO_CAPTURE) {
+			record(stage, now - startNanos);
+		}
+		return now;
+	}
+
+	public Map<Stage, LatencyHistogram.Snapshot> snapshot() {
+		Map<Stage, LatencyHistogram.Snapshot> snapshots = new EnumMap<>(Stage.class);
+		for (Stage stage : Stage.values()) {
+			snapshots.put(stage, histograms[stage.ordinal()].snapshot());
+		}
+		return snapshots;
+	}
+
+	public void reset() {
+		for (LatencyHistogram histogram : histograms) {
+			histogram.reset();
+		}
+	}
+
+	/**
+	 * Fixed-width table of count/p50/p90/p99/max per stage, in milliseconds.
+	 */
+	public String formatReport() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format(Locale.ROOT, "%-16s %8s %9s %9s %9s %9s%n", "stage", "count", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+		for (Map.Entry<Stage, LatencyHistogram.Snapshot> entry : snapshot().entrySet()) {
+			LatencyHistogram.Snapshot s = entry.getValue();
+			sb.append(String.format(Locale.ROOT, "%-16s %8d %9.2f %9.2f %9.2f %9.2f%n",
+					entry.getKey().label(), s.count(),
+					s.p50Micros() / 1_000.0d, s.p90Micros() / 1_000.0d, s.p99Micros() / 1_000.0d, s.maxMicros() / 1_000.0d));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Write {@link #formatReport()} to a timestamped file in {@code directory} and return its path.
+	 */
+	public Path dumpTo(Path directory) throws IOException {
+		Files.createDirectories(directory);
+		Path target = directory.resolve("latency_" + LocalDateTime.now().format(DUMP_TIMESTAMP) + ".log");
+		Files.writeString(target, formatReport(), StandardCharsets.UTF_8);
+		logger.info("Wrote latency histograms to {}", target);
+		return target;
+	}
+}
@@ -0,0 +1,117 @@
+package com.lansoftprogramming.runeSequence.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-memory, lock-free latency histogram with log-linear buckets (the layout HdrHistogram uses).
+ * <p>
+ * Values are recorded in microseconds. The first {@link #SUB_BUCKETS} buckets are linear (one per microsecond); above
+ * that every power of two is split into {@link #SUB_BUCKETS} equal sub-buckets, so reported percentiles are within
+ * ~6% of the true value from 1µs up to {@link #MAX_TRACKABLE_MICROS} (larger samples are clamped).
+ * Recording is a handful of atomic increments and never allocates; snapshots are taken without blocking writers,
+ * so a snapshot may be off by the few samples recorded while it was copied.
+ */
+public final class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 4;
+	static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_EXPONENT = 32;
+	static final long MAX_TRACKABLE_MICROS = (1L << MAX_EXPONENT) - 1;
+	static final int BUCKET_COUNT = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	private final AtomicLong totalMicros = new AtomicLong();
+	private final AtomicLong maxMicros = new AtomicLong();
+
+	public record Snapshot(long count, long p50Micros, long p90Micros, long p99Micros, long maxMicros, double meanMicros) {
+		public static final Snapshot EMPTY = new Snapshot(0L, 0L, 0L, 0L, 0L, 0.0d);
+	}
+
+	/**
+	 * Record one sample given in nanoseconds; negative samples (clock skew, unset timestamps) are ignored.
+	 */
+	public void recordNanos(long nanos) {
+		if (nanos < 0L) {
+			return;
+		}
+		recordMicros(nanos / 1_000L);
+	}
+
+	public void recordMicros(long micros) {
+		if (micros < 0L) {
+			return;
+		}
+		long clamped = Math.min(micros, MAX_TRACKABLE_MICROS);
+		counts.incrementAndGet(bucketIndex(clamped));
+		totalMicros.addAndGet(clamped);
+		long currentMax = maxMicros.get();
+		while (clamped > currentMax && !maxMicros.compareAndSet(currentMax, clamped)) {
+			currentMax = maxMicros.get();
+		}
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts.set(i, 0L);
+		}
+		totalMicros.set(0L);
+		maxMicros.set(0L);
+	}
+
+	public Snapshot snapshot() {
+		long[] copy = new long[BUCKET_COUNT];
+		long count = 0L;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			copy[i] = counts.get(i);
+			count += copy[i];
+		}
+		if (count == 0L) {
+			return Snapshot.EMPTY;
+		}
+		long max = maxMicros.get();
+		return new Snapshot(
+				count,
+				valueAtPercentile(copy, count, 50.0d, max),
+				valueAtPercentile(copy, count, 90.0d, max),
+				valueAtPercentile(copy, count, 99.0d, max),
+				max,
+				totalMicros.get() / (double) count
+		);
+	}
+
+	static int bucketIndex(long micros) {
+		if (micros < SUB_BUCKETS) {
+			return (int) micros;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(micros);
+		int shift = exponent - SUB_BUCKET_BITS;
+		int subBucket = (int) (micros >>> shift) & (SUB_BUCKETS - 1);
+		return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * Largest value that maps to {@code index}.
+	 */
+	static long bucketUpperBound(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+		int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+		long lower = (long) (SUB_BUCKETS + subBucket) << shift;
+		return lower + (1L << shift) - 1L;
+	}
+
+	private static long valueAtPercentile(long[] counts, long total, double percentile, long max) {
+		long rank = Math.max(1L, (long) Math.ceil(total * percentile / 100.0d));
+		long seen = 0L;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				// The bucket bound can overshoot the largest sample actually recorded.
+				return Math.min(bucketUpperBound(i), max);
+			}
+		}
+		return max;
+	}
+}
@@ -0,0 +1,22 @@
+package com.lansoftprogramming.runeSequence.core.metrics;
+
+import java.nio.file.Path;
+
+/**
+ * Where diagnostic dumps and debug logs go: the directory Main bootstraps into {@value #PROPERTY}, or the legacy
+ * per-user folder when the property is not set (tests, tools started outside Main).
+ */
+public final class LogDirectory {
+	public static final String PROPERTY = "runeSequence.log.dir";
+
+	private LogDirectory() {
+	}
+
+	public static Path resolve() {
+		String logsDir = System.getProperty(PROPERTY);
+		if (logsDir != null && !logsDir.isBlank()) {
+			return Path.of(logsDir);
+		}
+		return Path.of(System.getProperty("user.home", ".")).resolve("RuneSequence").resolve("logs");
+	}
+}
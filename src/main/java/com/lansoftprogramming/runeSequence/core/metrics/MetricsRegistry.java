@@ -0,0 +1,235 @@
+package com.lansoftprogramming.runeSequence.core.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * In-process metrics: lock-free counters, sampled gauges and latency timers, keyed by dotted names
+ * ({@code detection.frames}, {@code overlay.repaints}, ...).
+ * <p>
+ * Hot paths only ever touch a {@link LongAdder} or a {@link LatencyHistogram}; rates and percentiles are derived on
+ * read. Once {@link #enableJmx()} has been called every metric (including ones registered later) is also exposed as a
+ * platform MXBean under {@value #JMX_DOMAIN}, so a live session can be watched from JConsole/VisualVM.
+ */
+public final class MetricsRegistry {
+	private static final Logger logger = LoggerFactory.getLogger(MetricsRegistry.class);
+	private static final MetricsRegistry SHARED = new MetricsRegistry();
+	static final String JMX_DOMAIN = "com.lansoftprogramming.runeSequence";
+	private static final long RATE_WINDOW_NANOS = 1_000_000_000L;
+
+	private final ConcurrentMap<String, Object> metrics = new ConcurrentHashMap<>();
+	private volatile MBeanServer mbeanServer;
+
+	public interface CounterMXBean {
+		long getCount();
+
+		double getRatePerSecond();
+	}
+
+	public interface GaugeMXBean {
+		double getValue();
+	}
+
+	public interface TimerMXBean {
+		long getCount();
+
+		double getMeanMillis();
+
+		double getP50Millis();
+
+		double getP99Millis();
+
+		double getMaxMillis();
+	}
+
+	/**
+	 * Monotonic event count. {@link #getRatePerSecond()} reports the rate over the last completed window of at least
+	 * one second, evaluated lazily by whoever reads it.
+	 */
+	public static final class Counter implements CounterMXBean {
+		private final LongAdder count = new LongAdder();
+		private final Object rateLock = new Object();
+		private long windowStartNanos = System.nanoTime();
+		private long windowStartCount = 0L;
+		private double lastRate = 0.0d;
+
+		public void increment() {
+			count.increment();
+		}
+
+		public void add(long delta) {
+			count.add(delta);
+		}
+
+		@Override
+		public long getCount() {
+			return count.sum();
+		}
+
+		@Override
+		public double getRatePerSecond() {
+			synchronized (rateLock) {
+				long now = System.nanoTime();
+				long elapsed = now - windowStartNanos;
+				if (elapsed >= RATE_WINDOW_NANOS) {
+					long current = count.sum();
+					lastRate = (current - windowStartCount) * 1_000_000_000.0d / elapsed;
+					windowStartNanos = now;
+					windowStartCount = current;
+				}
+				return lastRate;
+			}
+		}
+	}
+
+	public static final class Gauge implements GaugeMXBean {
+		private final DoubleSupplier supplier;
+
+		private Gauge(DoubleSupplier supplier) {
+			this.supplier = supplier;
+		}
+
+		@Override
+		public double getValue() {
+			try {
+				return supplier.getAsDouble();
+			} catch (RuntimeException | LinkageError e) {
+				// A failing gauge (e.g. native library not loadable) reads as "unknown" rather than breaking exports.
+				return Double.NaN;
+			}
+		}
+	}
+
+	public static final class Timer implements TimerMXBean {
+		private final LatencyHistogram histogram = new LatencyHistogram();
+
+		public void recordNanos(long nanos) {
+			histogram.recordNanos(nanos);
+		}
+
+		/**
+		 * Record {@code now - startNanos} and return {@code now}.
+		 */
+		public long recordSince(long startNanos) {
+			long now = System.nanoTime();
+			histogram.recordNanos(now - startNanos);
+			return now;
+		}
+
+		public LatencyHistogram.Snapshot snapshot() {
+			return histogram.snapshot();
+		}
+
+		@Override
+		public long getCount() {
+			return histogram.snapshot().count();
+		}
+
+		@Override
+		public double getMeanMillis() {
+			return histogram.snapshot().meanMicros() / 1_000.0d;
+		}
+
+		@Override
+		public double getP50Millis() {
+			return histogram.snapshot().p50Micros() / 1_000.0d;
+		}
+
+		@Override
+		public double getP99Millis() {
+			return histogram.snapshot().p99Micros() / 1_000.0d;
+		}
+
+		@Override
+		public double getMaxMillis() {
+			return histogram.snapshot().maxMicros() / 1_000.0d;
+		}
+	}
+
+	public static MetricsRegistry shared() {
+		return SHARED;
+	}
+
+	public Counter counter(String name) {
+		return register(name, Counter.class, Counter::new);
+	}
+
+	public Timer timer(String name) {
+		return register(name, Timer.class, Timer::new);
+	}
+
+	/**
+	 * Register (or replace) a gauge. The supplier is sampled on read and must be cheap and thread-safe.
+	 */
+	public void gauge(String name, DoubleSupplier supplier) {
+		if (name == null || supplier == null) {
+			return;
+		}
+		Gauge gauge = new Gauge(supplier);
+		metrics.put(name, gauge);
+		registerMBean(name, gauge, true);
+	}
+
+	/**
+	 * All metrics, sorted by name. Values are {@link Counter}, {@link Gauge} or {@link Timer}.
+	 */
+	public Map<String, Object> metrics() {
+		return new TreeMap<>(metrics);
+	}
+
+	/**
+	 * Expose every current and future metric through the platform MBean server. Safe to call more than once.
+	 */
+	public synchronized void enableJmx() {
+		if (mbeanServer != null) {
+			return;
+		}
+		mbeanServer = ManagementFactory.getPlatformMBeanServer();
+		metrics.forEach((name, metric) -> registerMBean(name, metric, false));
+	}
+
+	private <T> T register(String name, Class<T> type, Supplier<T> factory) {
+		Object existing = metrics.get(name);
+		if (existing == null) {
+			existing = metrics.computeIfAbsent(name, key -> {
+				T created = factory.get();
+				registerMBean(key, created, false);
+				return created;
+			});
+		}
+		if (!type.isInstance(existing)) {
+			throw new IllegalArgumentException("Metric " + name + " is already registered as " + existing.getClass().getSimpleName());
+		}
+		return type.cast(existing);
+	}
+
+	private void registerMBean(String name, Object metric, boolean replace) {
+		MBeanServer server = mbeanServer;
+		if (server == null) {
+			return;
+		}
+		try {
+			ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=" + metric.getClass().getSimpleName() + ",name=" + ObjectName.quote(name));
+			if (server.isRegistered(objectName)) {
+				if (!replace) {
+					return;
+				}
+				server.unregisterMBean(objectName);
+			}
+			server.registerMBean(metric, objectName);
+		} catch (Exception e) {
+			logger.warn("Failed to register metric {} with JMX", name, e);
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package com.lansoftprogramming.runeSequence.core.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically appends a JSON line with every metric of a {@link MetricsRegistry} to {@code metrics.jsonl} in the
+ * logs directory. The file rolls over to {@code metrics.jsonl.1..N} once it exceeds {@link #MAX_FILE_BYTES}, so disk
+ * use stays bounded over long sessions.
+ */
+public class MetricsSnapshotWriter {
+	private static final Logger logger = LoggerFactory.getLogger(MetricsSnapshotWriter.class);
+	static final String FILE_NAME = "metrics.jsonl";
+	static final long MAX_FILE_BYTES = 2L * 1024L * 1024L;
+	static final int MAX_BACKUPS = 3;
+
+	private final MetricsRegistry registry;
+	private final Path directory;
+	private final long maxFileBytes;
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private ScheduledExecutorService scheduler;
+
+	public MetricsSnapshotWriter(MetricsRegistry registry, Path directory) {
+		this(registry, directory, MAX_FILE_BYTES);
+	}
+
+	MetricsSnapshotWriter(MetricsRegistry registry, Path directory, long maxFileBytes) {
+		this.registry = Objects.requireNonNull(registry, "registry");
+		this.directory = Objects.requireNonNull(directory, "directory");
+		this.maxFileBytes = Math.max(1L, maxFileBytes);
+	}
+
+	public synchronized void start(long intervalSeconds) {
+		if (scheduler != null) {
+			return;
+		}
+		long interval = Math.max(1L, intervalSeconds);
+		scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "MetricsSnapshotWriter");
+			t.setDaemon(true);
+			return t;
+		});
+		scheduler.scheduleAtFixedRate(this::writeSafely, interval, interval, TimeUnit.SECONDS);
+		logger.info("Writing metrics snapshots to {} every {}s", directory.resolve(FILE_NAME), interval);
+	}
+
+	/**
+	 * Stop the schedule and write one final snapshot.
+	 */
+	public synchronized void shutdown() {
+		if (scheduler == null) {
+			return;
+		}
+		scheduler.shutdownNow();
+		scheduler = null;
+		writeSafely();
+	}
+
+	private void writeSafely() {
+		try {
+			writeSnapshot();
+		} catch (Exception e) {
+			logger.warn("Failed to write metrics snapshot", e);
+		}
+	}
+
+	synchronized void writeSnapshot() throws IOException {
+		Files.createDirectories(directory);
+		Path target = directory.resolve(FILE_NAME);
+		if (Files.exists(target) && Files.size(target) >= maxFileBytes) {
+			roll(target);
+		}
+		String line = objectMapper.writeValueAsString(snapshot()) + System.lineSeparator();
+		Files.writeString(target, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+	}
+
+	private void roll(Path target) throws IOException {
+		Files.deleteIfExists(backup(MAX_BACKUPS));
+		for (int i = MAX_BACKUPS - 1; i >= 1; i--) {
+			Path source = backup(i);
+			if (Files.exists(source)) {
+				Files.move(source, backup(i + 1), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		Files.move(target, backup(1), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private Path backup(int index) {
+		return directory.resolve(FILE_NAME + "." + index);
+	}
+
+	Map<String, Object> snapshot() {
+		Map<String, Object> counters = new LinkedHashMap<>();
+		Map<String, Object> gauges = new LinkedHashMap<>();
+		Map<String, Object> timers = new LinkedHashMap<>();
+		registry.metrics().forEach((name, metric) -> {
+			if (metric instanceof MetricsRegistry.Counter counter) {
+				Map<String, Object> values = new LinkedHashMap<>();
+				values.put("count", counter.getCount());
+				values.put("ratePerSecond", round(counter.getRatePerSecond()));
+				counters.put(name, values);
+			} else if (metric instanceof MetricsRegistry.Gauge gauge) {
+				double value = gauge.getValue();
+				gauges.put(name, Double.isFinite(value) ? round(value) : null);
+			} else if (metric instanceof MetricsRegistry.Timer timer) {
+				LatencyHistogram.Snapshot s = timer.snapshot();
+				Map<String, Object> values = new LinkedHashMap<>();
+				values.put("count", s.count());
+				values.put("meanMs", round(s.meanMicros() / 1_000.0d));
+				values.put("p50Ms", round(s.p50Micros() / 1_000.0d));
+				values.put("p99Ms", round(s.p99Micros() / 1_000.0d));
+				values.put("maxMs", round(s.maxMicros() / 1_000.0d));
+				timers.put(name, values);
+			}
+		});
+
+		Map<String, Object> snapshot = new LinkedHashMap<>();
+		snapshot.put("timestamp", Instant.now().toString());
+		snapshot.put("counters", counters);
+		snapshot.put("gauges", gauges);
+		snapshot.put("timers", timers);
+		return snapshot;
+	}
+
+	private static double round(double value) {
+		return Math.round(value * 1_000.0d) / 1_000.0d;
+	}
+}
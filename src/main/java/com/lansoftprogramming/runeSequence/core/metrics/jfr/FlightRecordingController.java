@@ -0,0 +1,105 @@
+package com.lansoftprogramming.runeSequence.core.metrics.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Starts and stops a bounded JDK Flight Recorder recording (JVM "default" settings plus the RuneSequence events).
+ * <p>
+ * The recording keeps at most {@link #MAX_AGE} / {@link #MAX_SIZE_BYTES} of data on disk and is written to
+ * {@code runesequence-<timestamp>.jfr} in the logs directory when stopped (or when the JVM exits), ready for JMC.
+ * When no recording is running the custom events cost a disabled-check and nothing else.
+ */
+public class FlightRecordingController {
+	private static final Logger logger = LoggerFactory.getLogger(FlightRecordingController.class);
+	static final Duration MAX_AGE = Duration.ofMinutes(20);
+	static final long MAX_SIZE_BYTES = 128L * 1024L * 1024L;
+	private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss", Locale.ROOT);
+	private static final List<Class<? extends jdk.jfr.Event>> EVENT_TYPES = List.of(
+			FrameEvent.class,
+			TemplateDetectionEvent.class,
+			LatchEvent.class,
+			StepAdvanceEvent.class,
+			OverlayEvent.class
+	);
+
+	private final Path directory;
+	private Recording recording;
+	private Path destination;
+
+	public FlightRecordingController(Path directory) {
+		this.directory = Objects.requireNonNull(directory, "directory");
+	}
+
+	/**
+	 * Start or stop the recording to match {@code enabled}; repeated calls with the same value are no-ops.
+	 */
+	public synchronized void setEnabled(boolean enabled) {
+		if (enabled) {
+			start();
+		} else {
+			stop();
+		}
+	}
+
+	public synchronized boolean isRecording() {
+		return recording != null;
+	}
+
+	private void start() {
+		if (recording != null) {
+			return;
+		}
+		Recording created = null;
+		try {
+			Files.createDirectories(directory);
+			created = new Recording(Configuration.getConfiguration("default"));
+			for (Class<? extends jdk.jfr.Event> type : EVENT_TYPES) {
+				created.enable(type);
+			}
+			Path target = directory.resolve("runesequence-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr");
+			created.setName("RuneSequence");
+			created.setToDisk(true);
+			created.setMaxAge(MAX_AGE);
+			created.setMaxSize(MAX_SIZE_BYTES);
+			created.setDumpOnExit(true);
+			created.setDestination(target);
+			created.start();
+			recording = created;
+			destination = target;
+			logger.info("Flight recording started -> {} (maxAge={}, maxSize={}MB)", target, MAX_AGE, MAX_SIZE_BYTES / (1024 * 1024));
+		} catch (Exception | LinkageError e) {
+			logger.warn("Failed to start flight recording", e);
+			if (created != null) {
+				created.close();
+			}
+		}
+	}
+
+	private void stop() {
+		if (recording == null) {
+			return;
+		}
+		try {
+			recording.stop();
+			logger.info("Flight recording written to {}", destination);
+		} catch (Exception e) {
+			logger.warn("Failed to stop flight recording", e);
+		} finally {
+			recording.close();
+			recording = null;
+			destination = null;
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package com.lansoftprogramming.runeSequence.core.metrics.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * One {@code DetectionEngine} frame, spanning capture through overlay hand-off.
+ */
+@Name("com.lansoftprogramming.runeSequence.Frame")
+@Label("Detection Frame")
+@Category({"RuneSequence", "Detection"})
+@StackTrace(false)
+public final class FrameEvent extends Event {
+	private static final EventType TYPE = EventType.getEventType(FrameEvent.class);
+
+	@Label("Frame ID")
+	public long frameId;
+
+	@Label("Capture Time")
+	@Timespan(Timespan.MILLISECONDS)
+	public long captureMs;
+
+	@Label("Detect Time")
+	@Timespan(Timespan.MILLISECONDS)
+	public long detectMs;
+
+	@Label("Requirements")
+	public int requirementCount;
+
+	@Label("Matches")
+	public int matchCount;
+
+	@Label("Adaptive Window")
+	@Description("Frame was captured through a cached-ROI window instead of the full region")
+	public boolean adaptiveWindow;
+
+	/**
+	 * Whether a recording currently takes frame events; lets callers skip building their fields.
+	 */
+	public static boolean enabled() {
+		return TYPE.isEnabled();
+	}
+}
@@ -0,0 +1,57 @@
+package com.lansoftprogramming.runeSequence.core.metrics.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * GCD latch progress: baselines captured while armed, then the darken (or ability keypress) that starts the sequence,
+ * and for keypress latches whether the screen confirmed it.
+ */
+@Name("com.lansoftprogramming.runeSequence.Latch")
+@Label("GCD Latch")
+@Category({"RuneSequence", "Sequence"})
+@StackTrace(false)
+public final class LatchEvent extends Event {
+	public static final String PHASE_BASELINE = "baseline";
+	public static final String PHASE_LATCHED = "latched";
+	public static final String PHASE_KEYPRESS = "keypress";
+	public static final String PHASE_CONFIRMED = "confirmed";
+	public static final String PHASE_ROLLED_BACK = "rolledBack";
+	private static final EventType TYPE = EventType.getEventType(LatchEvent.class);
+
+	@Label("Phase")
+	public String phase;
+
+	@Label("Abilities")
+	public String abilities;
+
+	@Label("Baselines")
+	@Description("Baseline brightness per tracked ability")
+	public String baselines;
+
+	@Label("Darken To Latch")
+	@Description("Time from the first darkened frame to the latch being confirmed")
+	@Timespan(Timespan.MILLISECONDS)
+	public long darkenToLatchMs;
+
+	public static void emit(String phase, String abilities, String baselines, long darkenToLatchMs) {
+		if (!TYPE.isEnabled()) {
+			return;
+		}
+		LatchEvent event = new LatchEvent();
+		if (!event.shouldCommit()) {
+			return;
+		}
+		event.phase = phase;
+		event.abilities = abilities;
+		event.baselines = baselines;
+		event.darkenToLatchMs = darkenToLatchMs;
+		event.commit();
+	}
+
+	/**
+	 * Whether a recording currently takes latch events; lets callers skip building their fields.
+	 */
+	public static boolean enabled() {
+		return TYPE.isEnabled();
+	}
+}
@@ -0,0 +1,37 @@
+package com.lansoftprogramming.runeSequence.core.metrics.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Overlay state published by the render thread, or painted on the EDT.
+ */
+@Name("com.lansoftprogramming.runeSequence.Overlay")
+@Label("Overlay Update")
+@Category({"RuneSequence", "Overlay"})
+@StackTrace(false)
+public final class OverlayEvent extends Event {
+	public static final String PHASE_PUBLISH = "publish";
+	public static final String PHASE_PAINT = "paint";
+	private static final EventType TYPE = EventType.getEventType(OverlayEvent.class);
+
+	@Label("Phase")
+	public String phase;
+
+	@Label("Update Sequence")
+	public long updateSeq;
+
+	@Label("Borders")
+	public int borderCount;
+
+	@Label("Frame Age")
+	@Description("Time since the originating frame was captured; 0 when the update did not come from a frame")
+	@Timespan(Timespan.NANOSECONDS)
+	public long frameAgeNanos;
+
+	/**
+	 * Whether a recording currently takes overlay events; lets callers skip allocating one.
+	 */
+	public static boolean enabled() {
+		return TYPE.isEnabled();
+	}
+}
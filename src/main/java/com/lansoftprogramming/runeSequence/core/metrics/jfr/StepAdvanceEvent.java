@@ -0,0 +1,45 @@
+package com.lansoftprogramming.runeSequence.core.metrics.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * {@code ActiveSequence} moved to another step.
+ */
+@Name("com.lansoftprogramming.runeSequence.StepAdvance")
+@Label("Step Advance")
+@Category({"RuneSequence", "Sequence"})
+@StackTrace(false)
+public final class StepAdvanceEvent extends Event {
+	public static final String REASON_TIMER = "timer";
+	public static final String REASON_PLAYBACK = "playback";
+	public static final String REASON_LATCH = "latch";
+	public static final String REASON_FORCED = "forced";
+	private static final EventType TYPE = EventType.getEventType(StepAdvanceEvent.class);
+
+	@Label("From Step")
+	public int fromStep;
+
+	@Label("To Step")
+	public int toStep;
+
+	@Label("Step Count")
+	public int stepCount;
+
+	@Label("Reason")
+	public String reason;
+
+	public static void emit(int fromStep, int toStep, int stepCount, String reason) {
+		if (!TYPE.isEnabled()) {
+			return;
+		}
+		StepAdvanceEvent event = new StepAdvanceEvent();
+		if (!event.shouldCommit()) {
+			return;
+		}
+		event.fromStep = fromStep;
+		event.toStep = toStep;
+		event.stepCount = stepCount;
+		event.reason = reason;
+		event.commit();
+	}
+}
@@ -0,0 +1,39 @@
+package com.lansoftprogramming.runeSequence.core.metrics.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * One template search, either in a cached ROI or across the full frame.
+ */
+@Name("com.lansoftprogramming.runeSequence.TemplateDetection")
+@Label("Template Detection")
+@Category({"RuneSequence", "Detection"})
+@StackTrace(false)
+public final class TemplateDetectionEvent extends Event {
+	public static final String MODE_ROI = "roi";
+	public static final String MODE_FULL_FRAME = "full-frame";
+	private static final EventType TYPE = EventType.getEventType(TemplateDetectionEvent.class);
+
+	@Label("Ability")
+	public String ability;
+
+	@Label("Search Mode")
+	public String searchMode;
+
+	@Label("Found")
+	public boolean found;
+
+	@Label("Confidence")
+	public double confidence;
+
+	@Label("Match Time")
+	@Timespan(Timespan.MICROSECONDS)
+	public long micros;
+
+	/**
+	 * Whether a recording currently takes template detection events; lets callers skip allocating one.
+	 */
+	public static boolean enabled() {
+		return TYPE.isEnabled();
+	}
+}
@@ -17,6 +17,11 @@ public final class AbilityKeyCanonicalizer {
 		if (abilityKey == null) {
 			return null;
 		}
+		if (abilityKey.indexOf('[') < 0) {
+			// Common case (no stack suffix): trim() returns the same instance when there is nothing to strip.
+			String trimmed = abilityKey.trim();
+			return trimmed.isEmpty() ? abilityKey : trimmed;
+		}
 		String normalized = ABILITY_STACK_SUFFIX.matcher(abilityKey).replaceAll("").trim();
 		return normalized.isEmpty() ? abilityKey : normalized;
 	}
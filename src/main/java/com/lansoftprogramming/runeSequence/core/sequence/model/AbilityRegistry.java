@@ -0,0 +1,173 @@
+package com.lansoftprogramming.runeSequence.core.sequence.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Dense int indexes for ability keys and ability instance IDs ({@code "limitless#0"}), so per-frame code can use
+ * arrays instead of hashing strings and re-running {@link AbilityKeyCanonicalizer} on every lookup.
+ * <p>
+ * Ability indexes are assigned per canonical key by {@link #registerAbility}; every registered raw spelling (e.g.
+ * {@code "limitless[*2]"}) is remembered so it is canonicalized once. Lookups never assign or remember anything, so
+ * arbitrary keys read from tooltips or expressions cannot grow the registry. Instance indexes are a separate space, are
+ * compared verbatim and are assigned on first lookup. Indexes are never reused or removed; both spaces are seeded at
+ * startup from the ability config and template cache.
+ * <p>
+ * Lookups are lock-free; assigning a new index takes a lock. Safe to use from any thread.
+ */
+public final class AbilityRegistry {
+	public static final int NO_INDEX = -1;
+	private static final AbilityRegistry SHARED = new AbilityRegistry();
+
+	private final ConcurrentMap<String, Integer> abilityIndexByRawKey = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Integer> abilityIndexByCanonicalKey = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Integer> instanceIndexById = new ConcurrentHashMap<>();
+	private volatile String[] canonicalKeys = new String[16];
+	private volatile String[] instanceIds = new String[16];
+	private int abilityCount = 0;
+	private int instanceCount = 0;
+
+	public static AbilityRegistry shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Index of {@code abilityKey}'s canonical form, without assigning one.
+	 *
+	 * @return {@link #NO_INDEX} for {@code null} or a key that was never registered
+	 */
+	public int abilityIndex(String abilityKey) {
+		if (abilityKey == null) {
+			return NO_INDEX;
+		}
+		Integer known = abilityIndexByRawKey.get(abilityKey);
+		if (known == null) {
+			known = abilityIndexByCanonicalKey.get(AbilityKeyCanonicalizer.canonicalizeForLookup(abilityKey));
+		}
+		return known != null ? known : NO_INDEX;
+	}
+
+	/**
+	 * Same result as {@link AbilityKeyCanonicalizer#canonicalizeForLookup}. For registered keys the returned string is
+	 * the single shared instance for that key; anything else is canonicalized on every call.
+	 */
+	public String canonicalKey(String abilityKey) {
+		if (abilityKey == null) {
+			return null;
+		}
+		Integer known = abilityIndexByRawKey.get(abilityKey);
+		if (known != null) {
+			return canonicalKey(known);
+		}
+		String canonical = AbilityKeyCanonicalizer.canonicalizeForLookup(abilityKey);
+		known = abilityIndexByCanonicalKey.get(canonical);
+		return known != null ? canonicalKey(known) : canonical;
+	}
+
+	public String canonicalKey(int abilityIndex) {
+		String[] keys = canonicalKeys;
+		return abilityIndex >= 0 && abilityIndex < keys.length ? keys[abilityIndex] : null;
+	}
+
+	/**
+	 * Index of an ability instance ID, assigning one if needed.
+	 *
+	 * @return {@link #NO_INDEX} for {@code null}
+	 */
+	public int instanceIndex(String instanceId) {
+		if (instanceId == null) {
+			return NO_INDEX;
+		}
+		Integer known = instanceIndexById.get(instanceId);
+		if (known != null) {
+			return known;
+		}
+		return internInstance(instanceId);
+	}
+
+	public String instanceId(int instanceIndex) {
+		String[] ids = instanceIds;
+		return instanceIndex >= 0 && instanceIndex < ids.length ? ids[instanceIndex] : null;
+	}
+
+	/**
+	 * Upper bound (exclusive) of the ability indexes assigned so far; sizes arrays indexed by ability.
+	 */
+	public synchronized int abilityCount() {
+		return abilityCount;
+	}
+
+	/**
+	 * Upper bound (exclusive) of the instance indexes assigned so far.
+	 */
+	public synchronized int instanceCount() {
+		return instanceCount;
+	}
+
+	/**
+	 * Index of {@code abilityKey}'s canonical form, assigning one if needed and remembering this spelling.
+	 *
+	 * @return {@link #NO_INDEX} for {@code null}
+	 */
+	public int registerAbility(String abilityKey) {
+		if (abilityKey == null) {
+			return NO_INDEX;
+		}
+		Integer known = abilityIndexByRawKey.get(abilityKey);
+		if (known != null) {
+			return known;
+		}
+		return internAbility(abilityKey);
+	}
+
+	/**
+	 * Assign indexes to {@code abilityKeys} up front so they are dense and stable before the first frame.
+	 */
+	public void registerAbilities(Collection<String> abilityKeys) {
+		if (abilityKeys == null) {
+			return;
+		}
+		for (String abilityKey : abilityKeys) {
+			registerAbility(abilityKey);
+		}
+	}
+
+	private synchronized int internAbility(String abilityKey) {
+		Integer known = abilityIndexByRawKey.get(abilityKey);
+		if (known != null) {
+			return known;
+		}
+		String canonical = AbilityKeyCanonicalizer.canonicalizeForLookup(abilityKey);
+		Integer index = abilityIndexByCanonicalKey.get(canonical);
+		if (index == null) {
+			index = abilityCount++;
+			String[] keys = canonicalKeys;
+			if (index >= keys.length) {
+				keys = Arrays.copyOf(keys, keys.length * 2);
+			}
+			keys[index] = canonical;
+			canonicalKeys = keys;
+			abilityIndexByCanonicalKey.put(canonical, index);
+		}
+		abilityIndexByRawKey.put(abilityKey, index);
+		return index;
+	}
+
+	private synchronized int internInstance(String instanceId) {
+		Integer known = instanceIndexById.get(instanceId);
+		if (known != null) {
+			return known;
+		}
+		int index = instanceCount++;
+		String[] ids = instanceIds;
+		if (index >= ids.length) {
+			ids = Arrays.copyOf(ids, ids.length * 2);
+		}
+		ids[index] = instanceId;
+		instanceIds = ids;
+		instanceIndexById.put(instanceId, index);
+		return index;
+	}
+}
@@ -48,7 +48,7 @@ public final class ExpressionSanitizer {
 		return inner.trim();
 	}
 
-	private static boolean isInvisibleNoise(char c) {
+	static boolean isInvisibleNoise(char c) {
 		return c == '\u200B' // zero-width space
 				|| c == '\u200C' // zero-width non-joiner
 				|| c == '\u200D' // zero-width joiner
@@ -0,0 +1,233 @@
+package com.lansoftprogramming.runeSequence.core.sequence.parser;
+
+import com.lansoftprogramming.runeSequence.core.sequence.model.AbilitySettingsOverrides;
+import com.lansoftprogramming.runeSequence.core.sequence.model.SequenceDefinition;
+import com.lansoftprogramming.runeSequence.core.sequence.model.Step;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses successive versions of one expression (an editor's), re-lexing and re-parsing only the top-level steps an
+ * edit touched and reusing the {@link Step} instances of the rest. Results are the same as
+ * {@link SequenceParser#parse(String, Map, Map)}.
+ * <p>
+ * The previous expression is kept cut into segments at top-level {@code '→'} characters, each with its source range
+ * and steps. Lexing never looks across a {@code '→'} (tooltip markup cannot contain one, and suffix, line-break and
+ * escape rules all stop at it), so an unchanged segment lexes the same in the old and new text. An edit re-lexes the
+ * segments between the nearest unchanged cuts and splices their steps in. Whenever the edited range does not stand
+ * on its own (unbalanced parentheses, a parse error) or the override maps changed, the whole expression is parsed
+ * instead, which also reports errors exactly as a full parse would.
+ * <p>
+ * Not thread-safe.
+ */
+public final class IncrementalSequenceParser {
+	private static final Logger logger = LoggerFactory.getLogger(IncrementalSequenceParser.class);
+	private static final char ARROW = '→';
+
+	private final Tokenizer tokenizer = new Tokenizer();
+	private String expression;
+	private Map<String, AbilitySettingsOverrides> overridesByLabel;
+	private Map<String, AbilitySettingsOverrides> overridesByAbility;
+	private List<Segment> segments = List.of();
+	private SequenceDefinition definition;
+
+	public SequenceDefinition parse(String input) {
+		return parse(input, null, null);
+	}
+
+	/**
+	 * Same contract as {@link SequenceParser#parse(String, Map, Map)}.
+	 */
+	public SequenceDefinition parse(String input,
+	                                Map<String, AbilitySettingsOverrides> perInstanceOverrides,
+	                                Map<String, AbilitySettingsOverrides> perAbilityOverrides) {
+		RotationDslCodec.ParsedRotation parts = RotationDslCodec.parse(input);
+		String next = parts.expression();
+		Map<String, AbilitySettingsOverrides> byLabel = SequenceParser.mergeOverridesMaps(parts.perInstanceOverrides(), perInstanceOverrides);
+		Map<String, AbilitySettingsOverrides> byAbility = SequenceParser.mergeOverridesMaps(parts.perAbilityOverrides(), perAbilityOverrides);
+
+		if (definition != null && byLabel.equals(overridesByLabel) && byAbility.equals(overridesByAbility)) {
+			if (next.equals(expression)) {
+				return definition;
+			}
+			if (splice(next)) {
+				return definition;
+			}
+		}
+		parseFully(next, byLabel, byAbility);
+		return definition;
+	}
+
+	/**
+	 * Forget the previous expression; the next parse is a full one.
+	 */
+	public void reset() {
+		expression = null;
+		overridesByLabel = null;
+		overridesByAbility = null;
+		segments = List.of();
+		definition = null;
+	}
+
+	private void parseFully(String text,
+	                        Map<String, AbilitySettingsOverrides> byLabel,
+	                        Map<String, AbilitySettingsOverrides> byAbility) {
+		List<Token> tokens = tokenizer.tokenize(text);
+		SequenceDefinition parsed = SequenceParser.parseTokens(tokens, byLabel, byAbility);
+
+		List<Step> steps = parsed.getSteps();
+		List<Piece> pieces = cut(text, tokens, 0, text.length());
+		List<Segment> parsedSegments = new ArrayList<>(pieces.size());
+		int stepIndex = 0;
+		for (Piece piece : pieces) {
+			parsedSegments.add(new Segment(piece.start(), piece.end(), steps.subList(stepIndex, stepIndex + piece.steps())));
+			stepIndex += piece.steps();
+		}
+
+		expression = text;
+		overridesByLabel = byLabel;
+		overridesByAbility = byAbility;
+		segments = parsedSegments;
+		definition = parsed;
+	}
+
+	/**
+	 * Re-parse only the segments {@code next} changed. Returns false, leaving the state untouched, when the change
+	 * cannot be parsed on its own.
+	 */
+	private boolean splice(String next) {
+		String previous = expression;
+		int prefix = commonPrefix(previous, next);
+		int suffix = commonSuffix(previous, next, prefix);
+		int delta = next.length() - previous.length();
+
+		// The cut before `first` lies in the unchanged prefix and the cut after `last` in the unchanged suffix.
+		int first = segmentEndingAtOrAfter(prefix);
+		int last = segmentEndingAtOrAfter(previous.length() - suffix);
+		int start = segments.get(first).start();
+		int end = segments.get(last).end() + delta;
+
+		List<Token> tokens = tokenizer.tokenize(next, start, end);
+		List<Piece> pieces = cut(next, tokens, start, end);
+		if (pieces == null) {
+			return false;
+		}
+
+		List<Segment> replacement = new ArrayList<>(pieces.size());
+		for (Piece piece : pieces) {
+			SequenceDefinition parsed;
+			try {
+				parsed = SequenceParser.parseTokens(tokens.subList(piece.fromToken(), piece.toToken()), overridesByLabel, overridesByAbility);
+			} catch (IllegalStateException | IllegalArgumentException e) {
+				return false;
+			}
+			replacement.add(new Segment(piece.start(), piece.end(), parsed.getSteps()));
+		}
+
+		List<Segment> spliced = new ArrayList<>(segments.size() - (last - first + 1) + replacement.size());
+		spliced.addAll(segments.subList(0, first));
+		spliced.addAll(replacement);
+		for (Segment segment : segments.subList(last + 1, segments.size())) {
+			spliced.add(segment.shift(delta));
+		}
+
+		List<Step> steps = new ArrayList<>(definition.size() + replacement.size());
+		for (Segment segment : spliced) {
+			steps.addAll(segment.steps());
+		}
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Re-parsed segments {}..{} of {} (chars {}..{})", first, last, segments.size(), start, end);
+		}
+		expression = next;
+		segments = spliced;
+		definition = new SequenceDefinition(steps);
+		return true;
+	}
+
+	private int segmentEndingAtOrAfter(int position) {
+		int low = 0;
+		int high = segments.size() - 1;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (segments.get(mid).end() < position) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Splits tokens lexed from {@code text[start, end)} at top-level literal {@code '→'}s. Arrows implied by line
+	 * breaks or spelled {@code "->"} do not cut, since their lexing depends on the surrounding text.
+	 *
+	 * @return the pieces, or {@code null} when the parentheses do not balance
+	 */
+	private static List<Piece> cut(String text, List<Token> tokens, int start, int end) {
+		List<Piece> pieces = new ArrayList<>();
+		int depth = 0;
+		int fromToken = 0;
+		int pieceStart = start;
+		int steps = 1;
+		for (int i = 0; i < tokens.size(); i++) {
+			Token token = tokens.get(i);
+			if (token instanceof Token.LeftParen) {
+				depth++;
+			} else if (token instanceof Token.RightParen) {
+				if (--depth < 0) {
+					return null;
+				}
+			} else if (depth == 0 && token instanceof Token.Operator operator && operator.symbol().equals("→")) {
+				if (text.charAt(token.offset()) == ARROW) {
+					pieces.add(new Piece(fromToken, i, pieceStart, token.offset(), steps));
+					fromToken = i + 1;
+					pieceStart = token.offset() + 1;
+					steps = 1;
+				} else {
+					steps++;
+				}
+			}
+		}
+		if (depth != 0) {
+			return null;
+		}
+		pieces.add(new Piece(fromToken, tokens.size(), pieceStart, end, steps));
+		return pieces;
+	}
+
+	private static int commonPrefix(String a, String b) {
+		int max = Math.min(a.length(), b.length());
+		int i = 0;
+		while (i < max && a.charAt(i) == b.charAt(i)) {
+			i++;
+		}
+		return i;
+	}
+
+	private static int commonSuffix(String a, String b, int prefix) {
+		int max = Math.min(a.length(), b.length()) - prefix;
+		int i = 0;
+		while (i < max && a.charAt(a.length() - 1 - i) == b.charAt(b.length() - 1 - i)) {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Source range {@code [start, end)} between two cuts and the steps parsed from it.
+	 */
+	private record Segment(int start, int end, List<Step> steps) {
+		Segment shift(int delta) {
+			return delta == 0 ? this : new Segment(start + delta, end + delta, steps);
+		}
+	}
+
+	private record Piece(int fromToken, int toToken, int start, int end, int steps) {
+	}
+}
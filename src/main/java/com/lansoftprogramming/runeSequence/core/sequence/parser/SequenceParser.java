@@ -74,6 +74,15 @@ public class SequenceParser {
 
 		Tokenizer tokenizer = new Tokenizer();
 		List<Token> tokens = tokenizer.tokenize(expression);
+		return parseTokens(tokens, overridesByLabel, overridesByAbility);
+	}
+
+	/**
+	 * Parses an already tokenized expression (without inline settings lines) and applies ability modifiers.
+	 */
+	static SequenceDefinition parseTokens(List<Token> tokens,
+	                                      Map<String, AbilitySettingsOverrides> overridesByLabel,
+	                                      Map<String, AbilitySettingsOverrides> overridesByAbility) {
 		SequenceParser parser = new SequenceParser(tokens, overridesByLabel, overridesByAbility);
 		SequenceDefinition definition = parser.parseExpression();
 		parser.ensureFullyConsumed();
@@ -219,8 +228,8 @@ public class SequenceParser {
 	private record ParsedAbility(String abilityName, String instanceLabel) {
 	}
 
-	private static Map<String, AbilitySettingsOverrides> mergeOverridesMaps(Map<String, AbilitySettingsOverrides> base,
-	                                                                       Map<String, AbilitySettingsOverrides> delta) {
+	static Map<String, AbilitySettingsOverrides> mergeOverridesMaps(Map<String, AbilitySettingsOverrides> base,
+	                                                               Map<String, AbilitySettingsOverrides> delta) {
 		if ((base == null || base.isEmpty()) && (delta == null || delta.isEmpty())) {
 			return Map.of();
 		}
@@ -8,18 +8,33 @@ import java.util.Objects;
  */
 public sealed interface Token {
 
+	/**
+	 * Offset of tokens that were not read from source text.
+	 */
+	int NO_OFFSET = -1;
+
+	/**
+	 * @return index in the tokenized expression of the token's first character (or of the text that implied it), or
+	 * {@link #NO_OFFSET}
+	 */
+	int offset();
+
 	/**
 	 * Represents an ability name.
 	 *
 	 * @param name The name of the ability, which can include spaces.
 	 */
-	record Ability(String name) implements Token {
+	record Ability(String name, int offset) implements Token {
 		public Ability {
 			Objects.requireNonNull(name, "Ability name cannot be null.");
 			if (name.isBlank()) {
 				throw new IllegalArgumentException("Ability name cannot be blank.");
 			}
 		}
+
+		public Ability(String name) {
+			this(name, NO_OFFSET);
+		}
 	}
 
 	/**
@@ -27,24 +42,34 @@ public sealed interface Token {
 	 *
 	 * @param symbol The operator symbol (e.g., "→", "+", "/").
 	 */
-	record Operator(String symbol) implements Token {
+	record Operator(String symbol, int offset) implements Token {
 		public Operator {
 			Objects.requireNonNull(symbol, "Operator symbol cannot be null.");
 			if (!symbol.equals("→") && !symbol.equals("+") && !symbol.equals("/")) {
 				throw new IllegalArgumentException("Invalid operator symbol: " + symbol);
 			}
 		}
+
+		public Operator(String symbol) {
+			this(symbol, NO_OFFSET);
+		}
 	}
 
 	/**
 	 * Represents a left parenthesis '('.
 	 */
-	record LeftParen() implements Token {
+	record LeftParen(int offset) implements Token {
+		public LeftParen() {
+			this(NO_OFFSET);
+		}
 	}
 
 	/**
 	 * Represents a right parenthesis ')'.
 	 */
-	record RightParen() implements Token {
+	record RightParen(int offset) implements Token {
+		public RightParen() {
+			this(NO_OFFSET);
+		}
 	}
-}
\ No newline at end of file
+}
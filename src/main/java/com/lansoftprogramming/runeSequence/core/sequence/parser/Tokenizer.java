@@ -5,317 +5,467 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
-
+import java.util.Objects;
+
+/**
+ * Splits a rotation expression into {@link Token}s in a single pass over its characters.
+ * <p>
+ * The scanner applies, in order and without building intermediate strings:
+ * <ol>
+ *     <li>{@code "[ability] spec"} / {@code "[ability] eofspec"} become {@code "[ability] + spec"} (the whitespace run,
+ *     line breaks included, turns into the operator), and {@code "roarofawakening odetodeceit"} is paired with
+ *     {@code +};</li>
+ *     <li>tooltip markup {@code "(message)"} attached to an ability is dropped but still ends the ability, so
+ *     {@code "A (tip) B"} does not merge into one ability {@code "A B"};</li>
+ *     <li>line breaks between two abilities act as an implicit arrow ({@code "a → b\nc"} reads as {@code "a → b→c"});
+ *     next to an operator they are plain spacing. Lines are trimmed and invisible copy/paste noise is removed;</li>
+ *     <li>{@code "->"} is the canonical arrow {@code "→"};</li>
+ *     <li>operators and parentheses stand alone; the words between them form ability names, joined by single
+ *     spaces.</li>
+ * </ol>
+ * Every token records the source offset of its first character; implied tokens (a {@code +} from a suffix, an arrow
+ * from a line break) take the offset of the text that implied them.
+ */
 public class Tokenizer {
 	private static final Logger logger = LoggerFactory.getLogger(Tokenizer.class);
 	private static final char TOOLTIP_MARKER = '\uE000';
-	private static final Pattern SPEC_SUFFIX = Pattern.compile("(?i)\\s+spec\\b");
-	private static final Pattern EOFSPEC_SUFFIX = Pattern.compile("(?i)\\s+eofspec\\b");
-	private static final Pattern ROAR_ODE_PAIR = Pattern.compile("(?i)\\b(roarofawakening)\\s+(odetodeceit)\\b");
+	private static final char ARROW = '→';
+	private static final String SPEC = "spec";
+	private static final String EOFSPEC = "eofspec";
+	private static final String ROAR = "roarofawakening";
+	private static final String ODE = "odetodeceit";
 
 	public List<Token> tokenize(String expression) {
-
+		Objects.requireNonNull(expression, "expression");
 		logger.debug("Tokenizer: Input expression: '{}'", expression);
 
-		// Handle "spec" as a special suffix, converting "[ability] spec" to "[ability] + spec"
-		String processedExpression = normalizeSpecialSuffixes(expression);
-		processedExpression = normalizeGroupedItems(processedExpression);
-		// Treat tooltip markup "(message)" as non-structural and ignore it for operator decisions.
-		// We replace it with a marker that forces an ability boundary so "A (tip) B" does not become
-		// a single merged ability token "A B".
-		processedExpression = replaceTooltipMarkupWithMarker(processedExpression);
-
-		// Treat line breaks between two abilities as an implicit arrow.
-		// This allows multi-line clipboard payloads to be parsed as a single expression:
-		// "a → b\nc → d" becomes "a → b→c → d".
-		String newlineNormalizedExpression = normalizeLineBreaks(processedExpression);
-		logger.debug("Tokenizer: Expression after newline normalization: '{}'", newlineNormalizedExpression);
-
-		// Stage 1: Add padding around operators and parentheses
-		// Support both Unicode → and ASCII -> by normalizing to the canonical arrow
-		String paddedExpression = newlineNormalizedExpression
-				.replace("->", "→")
-				.replaceAll("([→+/()])", " $1 ");
-
-		logger.debug("Tokenizer: Padded expression: '{}'", paddedExpression);
-
-		// Stage 2: Split by whitespace and merge ability words
-		String[] parts = paddedExpression.trim().split("\\s+");
-		logger.debug("Tokenizer: Split into {} parts:", parts.length);
-
-		for (int i = 0; i < parts.length; i++) {
-			logger.debug("  Part[{}]: '{}'", i, parts[i]);
+		List<Token> tokens = new Lexer(expression, 0).run();
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Tokenizer: Final token count: {}", tokens.size());
+			for (int i = 0; i < tokens.size(); i++) {
+				logger.debug("  Token[{}]: {}", i, tokens.get(i));
+			}
 		}
+		return tokens;
+	}
 
-		List<Token> tokens = new ArrayList<>();
-		StringBuilder currentAbility = new StringBuilder();
+	/**
+	 * Tokenizes {@code expression[start, end)} as if it were the whole input, with offsets into {@code expression}.
+	 */
+	List<Token> tokenize(String expression, int start, int end) {
+		Objects.requireNonNull(expression, "expression");
+		return new Lexer(expression.substring(start, end), start).run();
+	}
 
-		for (String part : parts) {
-			if (isTooltipMarker(part)) {
-				if (currentAbility.length() > 0) {
-					String abilityName = currentAbility.toString().trim();
-					logger.debug("Tokenizer: Adding ability token: '{}'", abilityName);
-					tokens.add(new Token.Ability(abilityName));
-					currentAbility.setLength(0);
-				}
-				continue;
-			}
-			if (isOperatorOrParen(part)) {
-				// Add pending ability first
-				if (currentAbility.length() > 0) {
-					String abilityName = currentAbility.toString().trim();
-
-					logger.debug("Tokenizer: Adding ability token: '{}'", abilityName);
-					tokens.add(new Token.Ability(abilityName));
-					currentAbility.setLength(0);
-				}
-				// Add operator/paren
+	/**
+	 * One tokenization. Characters flow through {@link #scan} (suffixes, tooltips), {@link #line} (line breaks,
+	 * trimming, invisibles), {@link #arrow} ({@code ->}) and {@link #token} (words and operators), each carrying its
+	 * source offset.
+	 */
+	private static final class Lexer {
+		private final String src;
+		private final int length;
+		private final int base;
+		private final List<Token> tokens = new ArrayList<>();
+
+		// line(): trailing whitespace is held back until the line continues.
+		private boolean lineHasContent = false;
+		private boolean joinPending = false;
+		private char previousLineLast = 0;
+		private char lastContent = 0;
+		private final StringBuilder heldChars = new StringBuilder();
+		private int[] heldOffsets = new int[8];
+
+		// arrow(): a '-' waiting to see whether '>' follows.
+		private boolean dashPending = false;
+		private int dashOffset = 0;
+
+		// token(): the word being read and the ability it extends.
+		private final StringBuilder word = new StringBuilder();
+		private int wordOffset = Token.NO_OFFSET;
+		private final StringBuilder ability = new StringBuilder();
+		private int abilityOffset = Token.NO_OFFSET;
+
+		private Lexer(String src, int base) {
+			this.src = src;
+			this.length = src.length();
+			this.base = base;
+		}
 
-				logger.debug("Tokenizer: Adding operator/paren: '{}'", part);
-				addOperatorOrParenToken(part, tokens);
-			} else {
-				// Append to current ability
-				if (currentAbility.length() > 0) {
-					currentAbility.append(" ");
+		private List<Token> run() {
+			int i = 0;
+			while (i < length) {
+				char c = src.charAt(i);
+				if (isRunStart(i)) {
+					int runEnd = runEnd(i);
+					String suffix = suffixAfterRun(runEnd);
+					if (suffix != null) {
+						emitPlus(i);
+						for (int k = 0; k < suffix.length(); k++) {
+							scan(suffix.charAt(k), runEnd + k);
+						}
+						i = runEnd + suffix.length();
+						continue;
+					}
+					if (isRoarOdeRun(i, runEnd)) {
+						emitPlus(i);
+						i = runEnd;
+						continue;
+					}
+				} else if (c == '(' && !ParserEscapes.isEscaped(src, i)) {
+					int tooltipEnd = tooltipEnd(i);
+					if (tooltipEnd != -1) {
+						scan(' ', i);
+						scan(TOOLTIP_MARKER, i);
+						scan(' ', i);
+						i = tooltipEnd + 1;
+						continue;
+					}
 				}
-				currentAbility.append(part);
-
-				logger.debug("Tokenizer: Building ability: '{}'", currentAbility);
+				scan(c, i);
+				i++;
 			}
+			finish();
+			return tokens;
 		}
 
-		// Add final ability
-		if (currentAbility.length() > 0) {
-			String finalAbility = currentAbility.toString().trim();
+		// --- Suffixes and tooltips, on the source text ---
 
-			logger.debug("Tokenizer: Adding final ability: '{}'", finalAbility);
-			tokens.add(new Token.Ability(finalAbility));
+		/**
+		 * Start of a maximal run of regex whitespace ({@code \s}).
+		 */
+		private boolean isRunStart(int i) {
+			return isRegexSpace(src.charAt(i)) && (i == 0 || !isRegexSpace(src.charAt(i - 1)));
 		}
 
+		private int runEnd(int runStart) {
+			int end = runStart;
+			while (end < length && isRegexSpace(src.charAt(end))) {
+				end++;
+			}
+			return end;
+		}
 
-		logger.debug("Tokenizer: Final token count: {}", tokens.size());
-
-		for (int i = 0; i < tokens.size(); i++) {
+		/**
+		 * The canonical suffix keyword ({@code "spec"} / {@code "eofspec"}) that a whitespace run ending at
+		 * {@code runEnd} introduces, or {@code null}.
+		 */
+		private String suffixAfterRun(int runEnd) {
+			if (matchesWord(runEnd, SPEC) && isBoundaryAfter(runEnd + SPEC.length())) {
+				return SPEC;
+			}
+			if (matchesWord(runEnd, EOFSPEC) && isBoundaryAfter(runEnd + EOFSPEC.length())) {
+				return EOFSPEC;
+			}
+			return null;
+		}
 
-			logger.debug("  Token[{}]: {}", i, tokens.get(i));
+		private boolean isRoarOdeRun(int runStart, int runEnd) {
+			int roarStart = runStart - ROAR.length();
+			return roarStart >= 0
+					&& matchesWord(roarStart, ROAR)
+					&& (roarStart == 0 || !isWordForBoundary(roarStart - 1))
+					&& matchesWord(runEnd, ODE)
+					&& isBoundaryAfter(runEnd + ODE.length());
+		}
 
+		/**
+		 * Whether the whitespace run starting at {@code runStart} reads as a {@code +}.
+		 */
+		private boolean isPlusRun(int runStart) {
+			int runEnd = runEnd(runStart);
+			return suffixAfterRun(runEnd) != null || isRoarOdeRun(runStart, runEnd);
 		}
 
-		return tokens;
-	}
+		private boolean matchesWord(int start, String lowerCaseWord) {
+			if (start < 0 || start + lowerCaseWord.length() > length) {
+				return false;
+			}
+			for (int k = 0; k < lowerCaseWord.length(); k++) {
+				if (toLowerAscii(src.charAt(start + k)) != lowerCaseWord.charAt(k)) {
+					return false;
+				}
+			}
+			return true;
+		}
 
-	private String normalizeSpecialSuffixes(String expression) {
-		if (expression == null || expression.isEmpty()) {
-			return expression;
+		/**
+		 * Word boundary right after a keyword (which ends in a word character).
+		 */
+		private boolean isBoundaryAfter(int index) {
+			return index >= length || !isWordForBoundary(index);
 		}
-		String normalized = SPEC_SUFFIX.matcher(expression).replaceAll(" + spec");
-		return EOFSPEC_SUFFIX.matcher(normalized).replaceAll(" + eofspec");
-	}
 
-	private String normalizeGroupedItems(String expression) {
-		if (expression == null || expression.isEmpty()) {
-			return expression;
+		/**
+		 * Word-ness of a character for a boundary check: ASCII word characters, plus non-spacing marks that follow
+		 * a letter or digit (they extend the word they are attached to).
+		 */
+		private boolean isWordForBoundary(int index) {
+			char c = src.charAt(index);
+			if (isAsciiWord(c)) {
+				return true;
+			}
+			if (Character.getType(c) != Character.NON_SPACING_MARK) {
+				return false;
+			}
+			for (int k = index; k >= 0; k--) {
+				char base = src.charAt(k);
+				if (Character.isLetterOrDigit(base)) {
+					return true;
+				}
+				if (Character.getType(base) != Character.NON_SPACING_MARK) {
+					return false;
+				}
+			}
+			return false;
 		}
-		return ROAR_ODE_PAIR.matcher(expression).replaceAll("$1 + $2");
-	}
 
-	private boolean isTooltipMarker(String part) {
-		return part != null && part.length() == 1 && part.charAt(0) == TOOLTIP_MARKER;
-	}
+		/**
+		 * Index of the ')' closing tooltip markup opened at {@code open}, or -1 when the parentheses are structural:
+		 * empty, nested, containing an operator, or attached to nothing on either side.
+		 */
+		private int tooltipEnd(int open) {
+			int close = tooltipCandidateEnd(open + 1);
+			if (close == -1) {
+				return -1;
+			}
+			char before = previousNonWhitespace(open - 1);
+			char after = nextNonWhitespace(close + 1);
+			return isAttachable(before) || isAttachable(after) ? close : -1;
+		}
 
-	private String replaceTooltipMarkupWithMarker(String input) {
-		if (input == null || input.isEmpty()) {
-			return input;
+		private static boolean isAttachable(char neighbour) {
+			return neighbour != 0
+					&& !Character.isWhitespace(neighbour)
+					&& !isOperatorOrParenChar(neighbour)
+					&& neighbour != TOOLTIP_MARKER;
 		}
 
-		StringBuilder out = new StringBuilder(input.length());
-		int index = 0;
-
-		while (index < input.length()) {
-			char current = input.charAt(index);
-
-			if (current == '(' && !ParserEscapes.isEscaped(input, index)) {
-				int candidateEnd = findTooltipCandidateEnd(input, index + 1);
-				if (candidateEnd != -1) {
-					char prevNonWhitespace = prevNonWhitespace(input, index - 1);
-					char nextNonWhitespace = nextNonWhitespace(input, candidateEnd + 1);
-					boolean leftAttached = prevNonWhitespace != 0
-							&& !Character.isWhitespace(prevNonWhitespace)
-							&& !isOperatorOrParenChar(prevNonWhitespace)
-							&& prevNonWhitespace != TOOLTIP_MARKER;
-					boolean rightAttached = nextNonWhitespace != 0
-							&& !Character.isWhitespace(nextNonWhitespace)
-							&& !isOperatorOrParenChar(nextNonWhitespace)
-							&& nextNonWhitespace != TOOLTIP_MARKER;
-
-					// Only treat "(...)" as tooltip markup when it is attached to an ability-like token
-					// on either side; otherwise it is likely structural grouping "(expression)".
-					if (!leftAttached && !rightAttached) {
-						out.append(current);
-						index++;
+		private int tooltipCandidateEnd(int start) {
+			int cursor = start;
+			boolean hasContent = false;
+			while (cursor < length) {
+				char current = src.charAt(cursor);
+				if (current == '\\' && cursor + 1 < length) {
+					char next = src.charAt(cursor + 1);
+					if (next == '(' || next == ')') {
+						hasContent = true;
+						cursor += 2;
 						continue;
 					}
-					out.append(' ').append(TOOLTIP_MARKER).append(' ');
-					index = candidateEnd + 1;
-					continue;
 				}
+				if (current == '(' && !ParserEscapes.isEscaped(src, cursor)) {
+					return -1; // nested paren => structural grouping, not a tooltip
+				}
+				if (current == ')' && !ParserEscapes.isEscaped(src, cursor)) {
+					return hasContent ? cursor : -1;
+				}
+				if (isRunStart(cursor) && isPlusRun(cursor)) {
+					return -1; // a suffix "+" inside: tooltip text cannot contain structural operators
+				}
+				if (!Character.isWhitespace(current)) {
+					hasContent = true;
+				}
+				if (current == ARROW || current == '+' || current == '/') {
+					return -1; // tooltip text cannot contain structural operators
+				}
+				cursor++;
 			}
-
-			out.append(current);
-			index++;
+			return -1;
 		}
 
-		return out.toString();
-	}
-
-	private char prevNonWhitespace(String expression, int startIndex) {
-		for (int i = Math.min(startIndex, expression.length() - 1); i >= 0; i--) {
-			char c = expression.charAt(i);
-			if (!Character.isWhitespace(c)) {
-				return c;
+		private char previousNonWhitespace(int from) {
+			// The run right before '(' is never a suffix run: those are always followed by their keyword.
+			for (int k = Math.min(from, length - 1); k >= 0; k--) {
+				char c = src.charAt(k);
+				if (!Character.isWhitespace(c)) {
+					return c;
+				}
 			}
+			return 0;
 		}
-		return 0;
-	}
 
-	private char nextNonWhitespace(String expression, int startIndex) {
-		for (int i = Math.max(0, startIndex); i < expression.length(); i++) {
-			char c = expression.charAt(i);
-			if (!Character.isWhitespace(c)) {
-				return c;
+		private char nextNonWhitespace(int from) {
+			for (int k = Math.max(0, from); k < length; k++) {
+				char c = src.charAt(k);
+				if (isRunStart(k) && isPlusRun(k)) {
+					return '+';
+				}
+				if (!Character.isWhitespace(c)) {
+					return c;
+				}
 			}
+			return 0;
 		}
-		return 0;
-	}
 
-	private int findTooltipCandidateEnd(String expression, int startIndex) {
-		int cursor = startIndex;
-		boolean foundClosing = false;
-		boolean hasContent = false;
+		private void emitPlus(int offset) {
+			scan(' ', offset);
+			scan('+', offset);
+			scan(' ', offset);
+		}
 
-		while (cursor < expression.length()) {
-			char current = expression.charAt(cursor);
+		private void scan(char c, int offset) {
+			line(c, offset);
+		}
 
-			if (current == '\\' && cursor + 1 < expression.length()) {
-				char next = expression.charAt(cursor + 1);
-				if (next == '(' || next == ')') {
-					hasContent = true;
-					cursor += 2;
-					continue;
-				}
-			}
+		// --- Lines ---
 
-			if (current == '(' && !ParserEscapes.isEscaped(expression, cursor)) {
-				return -1; // nested paren => structural grouping, not a tooltip
+		private void line(char c, int offset) {
+			if (isInvisibleNoise(c)) {
+				return;
 			}
-
-			if (current == ')' && !ParserEscapes.isEscaped(expression, cursor)) {
-				foundClosing = true;
-				break;
+			if (isLineBreak(c)) {
+				heldChars.setLength(0);
+				if (lineHasContent) {
+					joinPending = true;
+					previousLineLast = lastContent;
+					lineHasContent = false;
+				}
+				return;
 			}
-
-			if (!Character.isWhitespace(current)) {
-				hasContent = true;
+			if (c <= ' ') {
+				// trim(): leading whitespace is dropped, trailing whitespace only survives if the line continues.
+				if (lineHasContent) {
+					hold(c, offset);
+				}
+				return;
 			}
-			if (current == '→' || current == '+' || current == '/') {
-				return -1; // tooltip text cannot contain structural operators
+			if (!lineHasContent) {
+				if (joinPending) {
+					// Next to an operator/paren a line break is spacing; between abilities it is an arrow.
+					boolean spacing = isOperatorOrParenChar(previousLineLast) || isOperatorOrParenChar(c);
+					arrow(spacing ? ' ' : ARROW, offset);
+					joinPending = false;
+				}
+				lineHasContent = true;
+			} else {
+				for (int k = 0; k < heldChars.length(); k++) {
+					arrow(heldChars.charAt(k), heldOffsets[k]);
+				}
 			}
-
-			cursor++;
+			heldChars.setLength(0);
+			lastContent = c;
+			arrow(c, offset);
 		}
 
-		if (!foundClosing || !hasContent) {
-			return -1;
+		private void hold(char c, int offset) {
+			int index = heldChars.length();
+			if (index == heldOffsets.length) {
+				heldOffsets = java.util.Arrays.copyOf(heldOffsets, index * 2);
+			}
+			heldChars.append(c);
+			heldOffsets[index] = offset;
 		}
 
-		return cursor;
-	}
-
+		// --- "->" ---
 
-	private String normalizeLineBreaks(String input) {
-		if (input == null || input.isEmpty()) {
-			return input;
+		private void arrow(char c, int offset) {
+			if (dashPending) {
+				dashPending = false;
+				if (c == '>') {
+					token(ARROW, dashOffset);
+					return;
+				}
+				token('-', dashOffset);
+			}
+			if (c == '-') {
+				dashPending = true;
+				dashOffset = offset;
+				return;
+			}
+			token(c, offset);
 		}
 
-		String[] rawLines = input.split("\\R");
-		List<String> logicalLines = new ArrayList<>();
+		// --- Tokens ---
 
-		for (String raw : rawLines) {
-			String cleaned = cleanLine(raw);
-			if (!cleaned.isEmpty()) {
-				logicalLines.add(cleaned);
+		private void token(char c, int offset) {
+			if (isOperatorOrParenChar(c)) {
+				endWord();
+				flushAbility();
+				switch (c) {
+					case '(' -> tokens.add(new Token.LeftParen(base + offset));
+					case ')' -> tokens.add(new Token.RightParen(base + offset));
+					default -> tokens.add(new Token.Operator(String.valueOf(c), base + offset));
+				}
+				return;
 			}
+			if (isRegexSpace(c)) {
+				endWord();
+				return;
+			}
+			if (word.length() == 0) {
+				wordOffset = offset;
+			}
+			word.append(c);
 		}
 
-		if (logicalLines.isEmpty()) {
-			return "";
-		}
-
-		StringBuilder out = new StringBuilder(input.length());
-		// Start with the first non-empty line as-is
-		out.append(logicalLines.get(0));
-
-		for (int i = 1; i < logicalLines.size(); i++) {
-			String prev = logicalLines.get(i - 1);
-			String current = logicalLines.get(i);
-
-			char last = prev.charAt(prev.length() - 1);
-			char first = current.charAt(0);
-
-			// If a line boundary sits next to an operator/paren, treat it as spacing only.
-			// Otherwise, treat it as an implicit arrow between abilities.
-			if (isOperatorOrParenChar(last) || isOperatorOrParenChar(first)) {
-				out.append(' ');
+		private void endWord() {
+			if (word.length() == 0) {
+				return;
+			}
+			if (word.length() == 1 && word.charAt(0) == TOOLTIP_MARKER) {
+				// Tooltip boundary: ends the current ability without contributing to it.
+				flushAbility();
 			} else {
-				out.append('→');
+				if (ability.length() > 0) {
+					ability.append(' ');
+				} else {
+					abilityOffset = wordOffset;
+				}
+				ability.append(word);
 			}
-
-			out.append(current);
+			word.setLength(0);
 		}
 
-		return out.toString();
-	}
-
-	private String cleanLine(String line) {
-		if (line == null || line.isEmpty()) {
-			return "";
+		private void flushAbility() {
+			if (ability.length() == 0) {
+				return;
+			}
+			String name = ability.toString().trim();
+			logger.debug("Tokenizer: Adding ability token: '{}'", name);
+			tokens.add(new Token.Ability(name, base + abilityOffset));
+			ability.setLength(0);
 		}
 
-		String sanitized = ExpressionSanitizer.removeInvisibles(line);
-		StringBuilder sb = new StringBuilder(sanitized.length());
-		for (int i = 0; i < sanitized.length(); i++) {
-			char c = sanitized.charAt(i);
-			// Strip line-break characters defensively (split() should already have removed them)
-			if (c == '\n' || c == '\r') {
-				continue;
+		private void finish() {
+			if (dashPending) {
+				dashPending = false;
+				token('-', dashOffset);
 			}
-			sb.append(c);
+			endWord();
+			flushAbility();
 		}
-
-		return sb.toString().trim();
 	}
 
-	private boolean isOperatorOrParenChar(char c) {
-		return c == '→' || c == '+' || c == '/' || c == '(' || c == ')';
+	/**
+	 * {@code \s}: the whitespace that suffix matching and word splitting recognise.
+	 */
+	private static boolean isRegexSpace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
 	}
 
+	/**
+	 * {@code \R}: characters that end a line.
+	 */
+	private static boolean isLineBreak(char c) {
+		return c == '\n' || c == '\r' || c == '\u000B' || c == '\f'
+				|| c == '\u0085' || c == '\u2028' || c == '\u2029';
+	}
 
-	private boolean isOperatorOrParen(String part) {
-		boolean isOp = part.equals("→") || part.equals("+") ||
-				part.equals("/") || part.equals("(") || part.equals(")");
+	private static boolean isAsciiWord(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+	}
 
-		logger.debug("Tokenizer.isOperatorOrParen('{}'): {}", part, isOp);
-		return isOp;
+	private static char toLowerAscii(char c) {
+		return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
 	}
 
-	private void addOperatorOrParenToken(String part, List<Token> tokens) {
-		switch (part) {
-			case "→", "+", "/" -> tokens.add(new Token.Operator(part));
-			case "(" -> tokens.add(new Token.LeftParen());
-			case ")" -> tokens.add(new Token.RightParen());
+	private static boolean isInvisibleNoise(char c) {
+		return ExpressionSanitizer.isInvisibleNoise(c);
+	}
 
-			default -> logger.error("Tokenizer: Unknown operator/paren: '{}'", part);
-		}
+	private static boolean isOperatorOrParenChar(char c) {
+		return c == ARROW || c == '+' || c == '/' || c == '(' || c == ')';
 	}
 }
@@ -2,8 +2,10 @@ package com.lansoftprogramming.runeSequence.core.sequence.runtime;
 
 import com.lansoftprogramming.runeSequence.application.SequenceController;
 import com.lansoftprogramming.runeSequence.core.detection.DetectionResult;
+import com.lansoftprogramming.runeSequence.core.metrics.jfr.StepAdvanceEvent;
 import com.lansoftprogramming.runeSequence.core.sequence.model.*;
 import com.lansoftprogramming.runeSequence.core.sequence.modifier.AbilityModifierEngine;
+import com.lansoftprogramming.runeSequence.core.time.MonotonicClock;
 import com.lansoftprogramming.runeSequence.infrastructure.config.AbilityConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,7 +27,11 @@ public class ActiveSequence implements SequenceController.StateChangeListener{
 	public final StepTimer stepTimer;
 	private boolean playbackStarted = false;
 
-	private final Map<String, DetectionResult> lastDetections = new HashMap<>();
+	// Latest detection per instance, indexed by AbilityInstance.slot; slotByInstanceIndex maps registry indexes to slots.
+	private final DetectionResult[] lastDetections;
+	private final int[] slotByInstanceIndex;
+	private List<DetectionRequirement> cachedRequirements;
+	private int cachedRequirementsStepIndex = -1;
 
 	@Override
 	public void onStateChanged(SequenceController.State oldState, SequenceController.State newState) {
@@ -37,11 +43,28 @@ public class ActiveSequence implements SequenceController.StateChangeListener{
 	}
 
 	public ActiveSequence(SequenceDefinition def, AbilityConfig abilityConfig) {
+		this(def, abilityConfig, null);
+	}
+
+	/**
+	 * @param tickPhase optional shared tick-phase estimate used to snap step starts onto real ticks
+	 */
+	public ActiveSequence(SequenceDefinition def, AbilityConfig abilityConfig, TickPhaseEstimator tickPhase) {
+		this(def, abilityConfig, tickPhase, MonotonicClock.system());
+	}
+
+	/**
+	 * @param clock time source for step timing; latch times passed to {@link #onLatchStart} must come from it too
+	 */
+	public ActiveSequence(SequenceDefinition def, AbilityConfig abilityConfig, TickPhaseEstimator tickPhase,
+	                      MonotonicClock clock) {
 		this.definition = def;
 		this.abilityConfig = abilityConfig;
 		this.stepInstances = indexInstances(def, abilityConfig);
+		this.lastDetections = new DetectionResult[instancesById.size()];
+		this.slotByInstanceIndex = buildSlotIndex(instancesById.values());
 		this.channelInfoByStep = computeChannelInfoByStep(stepInstances);
-		this.stepTimer = new StepTimer();
+		this.stepTimer = new StepTimer(clock, tickPhase);
 
 		if (logger.isDebugEnabled()) {
 			logger.debug("ActiveSequence: Created with {} steps", def.getSteps().size());
@@ -52,18 +75,21 @@ public class ActiveSequence implements SequenceController.StateChangeListener{
 
 
 	/**
-	 * Return a map of required template names -> whether they belong to an OR term (alternative).
-	 * This allows callers to know which detections should be treated as alternatives.
+	 * Requirements for the current and next step. The list is immutable and the same instance is returned until the
+	 * step index changes, so per-frame callers can key their own caches on its identity.
 	 */
 	public List<DetectionRequirement> getDetectionRequirements() {
-		Map<String, DetectionRequirement> requirements = new LinkedHashMap<>();
-		addRequirementsForStep(currentStepIndex, requirements);
-		addRequirementsForStep(currentStepIndex + 1, requirements);
-		List<DetectionRequirement> out = new ArrayList<>(requirements.values());
-		if (logger.isDebugEnabled()) {
-			logger.debug("ActiveSequence.getDetectionRequirements: {}", out);
+		if (cachedRequirements == null || cachedRequirementsStepIndex != currentStepIndex) {
+			Map<String, DetectionRequirement> requirements = new LinkedHashMap<>();
+			addRequirementsForStep(currentStepIndex, requirements);
+			addRequirementsForStep(currentStepIndex + 1, requirements);
+			cachedRequirements = List.copyOf(requirements.values());
+			cachedRequirementsStepIndex = currentStepIndex;
+			if (logger.isDebugEnabled()) {
+				logger.debug("ActiveSequence.getDetectionRequirements: {}", cachedRequirements);
+			}
 		}
-		return out;
+		return cachedRequirements;
 	}
 
 	public void processDetections(List<DetectionResult> results) {
@@ -76,12 +102,15 @@ public class ActiveSequence implements SequenceController.StateChangeListener{
 			logger.debug("ActiveSequence.processDetections: Received {} results", results.size());
 		}
 
-		lastDetections.clear();
+		clearLastDetections();
 		for (DetectionResult r : results) {
-			lastDetections.put(r.templateName, r);
+			int slot = slotOf(r);
+			if (slot >= 0) {
+				lastDetections[slot] = r;
+			}
 
-			String abilityKey = getAbilityKeyForInstance(r.templateName);
 			if (logger.isDebugEnabled()) {
+				String abilityKey = getAbilityKeyForInstance(r.templateName);
 				logger.debug("Stored detection: {}{} found={}",
 						r.templateName,
 						abilityKey != null ? " (" + abilityKey + ")" : "",
@@ -93,7 +122,7 @@ public class ActiveSequence implements SequenceController.StateChangeListener{
 		if (logger.isDebugEnabled()) {
 			logger.debug("Checking if step is satisfied...");
 		}
-		if (stepTimer.isStepSatisfied(lastDetections)) {
+		if (stepTimer.isStepSatisfied()) {
 
 			if (logger.isDebugEnabled()) {
 				logger.debug("Step satisfied! Advancing...");
@@ -131,7 +160,8 @@ public class ActiveSequence implements SequenceController.StateChangeListener{
 
 			currentStepIndex++;
 			stepTimer.startStep(assumedUsed, abilityConfig);
-			lastDetections.clear();
+			clearLastDetections();
+			StepAdvanceEvent.emit(currentStepIndex - 1, currentStepIndex, stepInstances.size(), StepAdvanceEvent.REASON_PLAYBACK);
 			if (logger.isDebugEnabled()) {
 				logger.debug("Playback advanced to step {}", currentStepIndex);
 			}
@@ -159,9 +189,9 @@ public class ActiveSequence implements SequenceController.StateChangeListener{
 			logger.debug("ActiveSequence.getCurrentAbilities: {} abilities", current.size());
 		}
 
-		for (DetectionResult result : current) {
-			String abilityKey = getAbilityKeyForInstance(result.templateName);
-			if (logger.isDebugEnabled()) {
+		if (logger.isDebugEnabled()) {
+			for (DetectionResult result : current) {
+				String abilityKey = getAbilityKeyForInstance(result.templateName);
 				logger.debug("Current ability: {}{} found={}",
 						result.templateName,
 						abilityKey != null ? " (" + abilityKey + ")" : "",
@@ -221,6 +251,7 @@ public class ActiveSequence implements SequenceController.StateChangeListener{
 		}
 
 		currentStepIndex++;
+		StepAdvanceEvent.emit(currentStepIndex - 1, currentStepIndex, stepInstances.size(), StepAdvanceEvent.REASON_TIMER);
 
 		if (logger.isDebugEnabled()) {
 			logger.debug("advanceStep: Advanced to step {}", currentStepIndex);
@@ -242,7 +273,7 @@ public class ActiveSequence implements SequenceController.StateChangeListener{
 		if (!definition.getSteps().isEmpty()) {
 			stepTimer.startStep(definition.getStep(currentStepIndex), abilityConfig);
 		}
-		lastDetections.clear();
+		clearLastDetections();
 		complete = false;
 	}
 
@@ -284,12 +315,14 @@ public class ActiveSequence implements SequenceController.StateChangeListener{
 	 * Resets timers and clears cached detections to mirror a fresh step start.
 	 */
 	public void forceStepIndex(int stepIndex) {
+		StepAdvanceEvent.emit(currentStepIndex, Math.max(0, Math.min(stepIndex, stepInstances.size())),
+				stepInstances.size(), StepAdvanceEvent.REASON_FORCED);
 		if (stepInstances.isEmpty()) {
 			currentStepIndex = 0;
 			complete = true;
 			playbackStarted = false;
 			stepTimer.reset();
-			lastDetections.clear();
+			clearLastDetections();
 			return;
 		}
 
@@ -299,7 +332,7 @@ public class ActiveSequence implements SequenceController.StateChangeListener{
 			complete = true;
 			playbackStarted = false;
 			stepTimer.reset();
-			lastDetections.clear();
+			clearLastDetections();
 			return;
 		}
 
@@ -308,7 +341,7 @@ public class ActiveSequence implements SequenceController.StateChangeListener{
 		playbackStarted = false;
 		stepTimer.reset();
 		stepTimer.startStep(definition.getStep(currentStepIndex), abilityConfig);
-		lastDetections.clear();
+		clearLastDetections();
 	}
 
 	public List<String> getAbilityKeysForStep(int stepIndex) {
@@ -331,23 +364,47 @@ public class ActiveSequence implements SequenceController.StateChangeListener{
 		List<AbilityInstance> instances = stepInstances.get(stepIndex);
 		List<DetectionResult> out = new ArrayList<>(instances.size());
 		for (AbilityInstance instance : instances) {
-			DetectionResult existing = lastDetections.get(instance.instanceId);
-			if (existing != null) {
-				out.add(existing);
-			} else {
-				out.add(DetectionResult.notFound(instance.instanceId, instance.isAlternative));
-			}
+			DetectionResult existing = lastDetections[instance.slot];
+			out.add(existing != null ? existing : instance.notFound);
 		}
 		return out;
 	}
 
+	private int slotOf(DetectionResult result) {
+		int instanceIndex = result.instanceIndex;
+		if (instanceIndex >= 0) {
+			return instanceIndex < slotByInstanceIndex.length ? slotByInstanceIndex[instanceIndex] : -1;
+		}
+		// Results built without an index (tests, older callers) fall back to the instance ID.
+		AbilityInstance instance = instancesById.get(result.templateName);
+		return instance != null ? instance.slot : -1;
+	}
+
+	private void clearLastDetections() {
+		Arrays.fill(lastDetections, null);
+	}
+
+	private static int[] buildSlotIndex(Collection<AbilityInstance> instances) {
+		int size = 0;
+		for (AbilityInstance instance : instances) {
+			size = Math.max(size, instance.instanceIndex + 1);
+		}
+		int[] slots = new int[size];
+		Arrays.fill(slots, -1);
+		for (AbilityInstance instance : instances) {
+			slots[instance.instanceIndex] = instance.slot;
+		}
+		return slots;
+	}
+
 	private void addRequirementsForStep(int stepIndex, Map<String, DetectionRequirement> out) {
 		if (stepIndex < 0 || stepIndex >= stepInstances.size()) {
 			return;
 		}
 		for (AbilityInstance instance : stepInstances.get(stepIndex)) {
 			out.putIfAbsent(instance.instanceId,
-					new DetectionRequirement(instance.instanceId, instance.abilityKey, instance.isAlternative, instance.effectiveAbilityConfig));
+					new DetectionRequirement(instance.instanceId, instance.abilityKey, instance.isAlternative,
+							instance.effectiveAbilityConfig, instance.instanceIndex));
 		}
 	}
 
@@ -387,7 +444,8 @@ public class ActiveSequence implements SequenceController.StateChangeListener{
 			String instanceId = abilityKey + "#" + occurrenceIndex;
 			occurrenceCounters.put(abilityKey, occurrenceIndex + 1);
 			EffectiveAbilityConfig effectiveConfig = buildEffectiveConfig(alt, abilityKey, abilityConfig);
-			AbilityInstance instance = new AbilityInstance(instanceId, abilityKey, parentTermIsAlternative, effectiveConfig);
+			AbilityInstance instance = new AbilityInstance(instanceId, instancesById.size(), abilityKey,
+					parentTermIsAlternative, effectiveConfig);
 			collector.add(instance);
 			instancesById.put(instanceId, instance);
 			if (logger.isDebugEnabled()) {
@@ -416,15 +474,22 @@ public class ActiveSequence implements SequenceController.StateChangeListener{
 
 	private static final class AbilityInstance {
 		private final String instanceId;
+		private final int instanceIndex;
+		private final int slot;
 		private final String abilityKey;
 		private final boolean isAlternative;
 		private final EffectiveAbilityConfig effectiveAbilityConfig;
+		private final DetectionResult notFound;
 
-		private AbilityInstance(String instanceId, String abilityKey, boolean isAlternative, EffectiveAbilityConfig effectiveAbilityConfig) {
+		private AbilityInstance(String instanceId, int slot, String abilityKey, boolean isAlternative,
+		                        EffectiveAbilityConfig effectiveAbilityConfig) {
 			this.instanceId = instanceId;
+			this.instanceIndex = AbilityRegistry.shared().instanceIndex(instanceId);
+			this.slot = slot;
 			this.abilityKey = abilityKey;
 			this.isAlternative = isAlternative;
 			this.effectiveAbilityConfig = effectiveAbilityConfig;
+			this.notFound = DetectionResult.notFoundInstance(instanceId, instanceIndex, isAlternative);
 		}
 
 		@Override
@@ -433,8 +498,17 @@ public class ActiveSequence implements SequenceController.StateChangeListener{
 		}
 	}
 
+	/**
+	 * @param instanceIndex {@link AbilityRegistry} index of {@code instanceId}
+	 */
 	public record DetectionRequirement(String instanceId, String abilityKey, boolean isAlternative,
-	                                   EffectiveAbilityConfig effectiveAbilityConfig) {
+	                                   EffectiveAbilityConfig effectiveAbilityConfig, int instanceIndex) {
+		public DetectionRequirement(String instanceId, String abilityKey, boolean isAlternative,
+		                            EffectiveAbilityConfig effectiveAbilityConfig) {
+			this(instanceId, abilityKey, isAlternative, effectiveAbilityConfig,
+					AbilityRegistry.shared().instanceIndex(instanceId));
+		}
+
 		@Override
 		public String toString() {
 			return instanceId + "->" + abilityKey + "[" + (isAlternative ? "OR" : "AND") + "]";
@@ -486,7 +560,8 @@ public class ActiveSequence implements SequenceController.StateChangeListener{
 		stepTimer.startStep(currentStep, abilityConfig);
 		stepTimer.restartAt(latchTimeMs);
 		currentStepIndex++;
-		lastDetections.clear();
+		clearLastDetections();
+		StepAdvanceEvent.emit(currentStepIndex - 1, currentStepIndex, stepInstances.size(), StepAdvanceEvent.REASON_LATCH);
 		return false;
 	}
 
@@ -0,0 +1,203 @@
+package com.lansoftprogramming.runeSequence.core.sequence.runtime;
+
+import com.lansoftprogramming.runeSequence.core.sequence.model.AbilityKeyCanonicalizer;
+
+import java.util.*;
+
+/**
+ * Locates the player in a rotation from the abilities they actually used.
+ * <p>
+ * Each step is one symbol: its first ability key. A suffix automaton over the step symbols lets
+ * {@link #observe} extend the longest run of recent observations that also occurs in the rotation, in amortized
+ * O(1) per observation however long the rotation is. Once that run is {@link #MIN_MATCH_LENGTH} steps long and occurs
+ * exactly once in the rotation, the step it ends on is reported.
+ * <p>
+ * Alternatives and secondary terms are mapped to their step's symbol when that is unambiguous (the key never leads a
+ * step and always shares a step with the same leader), and a repeat of such an alias is dropped so "A + B" counts once.
+ * Abilities that are not part of the rotation are ignored rather than breaking the run. Not thread-safe.
+ */
+public final class RotationResync {
+	static final int MIN_MATCH_LENGTH = 3;
+	private static final int NO_SYMBOL = -1;
+
+	private final Map<String, Integer> symbolByKey = new HashMap<>();
+	private final Set<String> aliasKeys = new HashSet<>();
+	private final int[] stepOfPosition;
+
+	// Suffix automaton over step symbols; state 0 is the root.
+	private final List<Map<Integer, Integer>> transitions = new ArrayList<>();
+	private int[] link;
+	private int[] length;
+	private int[] firstEnd;
+	private int[] occurrences;
+	private int stateCount = 0;
+
+	private int state = 0;
+	private int matchLength = 0;
+	private int lastSymbol = NO_SYMBOL;
+
+	/**
+	 * @param abilityKeysByStep ability keys of each step in order, leading key first (see
+	 *                          {@link ActiveSequence#getAbilityKeysForStep}); steps without keys are skipped
+	 */
+	public RotationResync(List<List<String>> abilityKeysByStep) {
+		List<Integer> symbols = new ArrayList<>();
+		List<Integer> steps = new ArrayList<>();
+		Map<String, Integer> aliasCandidates = new HashMap<>();
+		Set<String> ambiguousAliases = new HashSet<>();
+		List<List<String>> source = abilityKeysByStep != null ? abilityKeysByStep : List.of();
+		for (int step = 0; step < source.size(); step++) {
+			List<String> keys = source.get(step);
+			if (keys == null || keys.isEmpty() || keys.get(0) == null) {
+				continue;
+			}
+			String leader = AbilityKeyCanonicalizer.canonicalizeForLookup(keys.get(0));
+			Integer symbol = symbolByKey.computeIfAbsent(leader, key -> symbolByKey.size());
+			symbols.add(symbol);
+			steps.add(step);
+			for (int i = 1; i < keys.size(); i++) {
+				String key = AbilityKeyCanonicalizer.canonicalizeForLookup(keys.get(i));
+				if (key == null || key.equals(leader)) {
+					continue;
+				}
+				Integer previous = aliasCandidates.putIfAbsent(key, symbol);
+				if (previous != null && !previous.equals(symbol)) {
+					ambiguousAliases.add(key);
+				}
+			}
+		}
+		for (Map.Entry<String, Integer> alias : aliasCandidates.entrySet()) {
+			String key = alias.getKey();
+			if (!symbolByKey.containsKey(key) && !ambiguousAliases.contains(key)) {
+				symbolByKey.put(key, alias.getValue());
+				aliasKeys.add(key);
+			}
+		}
+
+		stepOfPosition = new int[steps.size()];
+		for (int i = 0; i < stepOfPosition.length; i++) {
+			stepOfPosition[i] = steps.get(i);
+		}
+		build(symbols);
+	}
+
+	public static RotationResync forSequence(ActiveSequence sequence) {
+		List<List<String>> keysByStep = new ArrayList<>(sequence.getStepCount());
+		for (int step = 0; step < sequence.getStepCount(); step++) {
+			keysByStep.add(sequence.getAbilityKeysForStep(step));
+		}
+		return new RotationResync(keysByStep);
+	}
+
+	/**
+	 * Feed one observed ability use.
+	 *
+	 * @return the step the observation most likely belongs to, or {@code -1} while the recent run is too short or
+	 * occurs more than once in the rotation
+	 */
+	public int observe(String abilityKey) {
+		String key = AbilityKeyCanonicalizer.canonicalizeForLookup(abilityKey);
+		Integer boxed = key != null ? symbolByKey.get(key) : null;
+		if (boxed == null) {
+			return -1;
+		}
+		int symbol = boxed;
+		if (symbol == lastSymbol && aliasKeys.contains(key)) {
+			return -1;
+		}
+		lastSymbol = symbol;
+
+		while (state != 0 && !transitions.get(state).containsKey(symbol)) {
+			state = link[state];
+			matchLength = length[state];
+		}
+		Integer next = transitions.get(state).get(symbol);
+		if (next != null) {
+			state = next;
+			matchLength++;
+		} else {
+			state = 0;
+			matchLength = 0;
+		}
+
+		if (matchLength < MIN_MATCH_LENGTH || occurrences[state] != 1) {
+			return -1;
+		}
+		return stepOfPosition[firstEnd[state]];
+	}
+
+	/**
+	 * Steps in the current run of observations that matches the rotation.
+	 */
+	public int matchLength() {
+		return matchLength;
+	}
+
+	public void reset() {
+		state = 0;
+		matchLength = 0;
+		lastSymbol = NO_SYMBOL;
+	}
+
+	private void build(List<Integer> symbols) {
+		int capacity = Math.max(2, symbols.size() * 2);
+		link = new int[capacity];
+		length = new int[capacity];
+		firstEnd = new int[capacity];
+		occurrences = new int[capacity];
+		link[0] = -1;
+		transitions.add(new HashMap<>());
+		stateCount = 1;
+
+		int last = 0;
+		for (int position = 0; position < symbols.size(); position++) {
+			int symbol = symbols.get(position);
+			int current = newState(length[last] + 1, position, new HashMap<>());
+			occurrences[current] = 1;
+			int p = last;
+			while (p != -1 && !transitions.get(p).containsKey(symbol)) {
+				transitions.get(p).put(symbol, current);
+				p = link[p];
+			}
+			if (p == -1) {
+				link[current] = 0;
+			} else {
+				int q = transitions.get(p).get(symbol);
+				if (length[p] + 1 == length[q]) {
+					link[current] = q;
+				} else {
+					int clone = newState(length[p] + 1, firstEnd[q], new HashMap<>(transitions.get(q)));
+					link[clone] = link[q];
+					while (p != -1 && transitions.get(p).get(symbol) == q) {
+						transitions.get(p).put(symbol, clone);
+						p = link[p];
+					}
+					link[q] = clone;
+					link[current] = clone;
+				}
+			}
+			last = current;
+		}
+
+		// End-position counts: propagate from longer states to their suffix links.
+		Integer[] byLength = new Integer[stateCount];
+		for (int i = 0; i < stateCount; i++) {
+			byLength[i] = i;
+		}
+		Arrays.sort(byLength, (a, b) -> Integer.compare(length[b], length[a]));
+		for (int s : byLength) {
+			if (link[s] >= 0) {
+				occurrences[link[s]] += occurrences[s];
+			}
+		}
+	}
+
+	private int newState(int stateLength, int endPosition, Map<Integer, Integer> stateTransitions) {
+		int s = stateCount++;
+		length[s] = stateLength;
+		firstEnd[s] = endPosition;
+		link[s] = -1;
+		transitions.add(stateTransitions);
+		return s;
+	}
+}
@@ -1,13 +1,11 @@
 package com.lansoftprogramming.runeSequence.core.sequence.runtime;
 
-import com.lansoftprogramming.runeSequence.core.detection.DetectionResult;
 import com.lansoftprogramming.runeSequence.core.sequence.model.EffectiveAbilityConfig;
 import com.lansoftprogramming.runeSequence.core.sequence.model.Step;
+import com.lansoftprogramming.runeSequence.core.time.MonotonicClock;
 import com.lansoftprogramming.runeSequence.infrastructure.config.AbilityConfig;
 
-import java.util.Map;
 import java.util.Objects;
-import java.util.function.LongSupplier;
 
 
 /**
@@ -16,7 +14,8 @@ import java.util.function.LongSupplier;
 public class StepTimer {
 	public static final long TICK_MS = 600L;
 
-	private final LongSupplier nowMs;
+	private final MonotonicClock clock;
+	private final TickPhaseEstimator tickPhase;
 	private long stepStartTimeMs;
 	private long stepDurationMs;
 	private long pausedAtMs = 0;
@@ -24,16 +23,31 @@ public class StepTimer {
 	private boolean isPaused = false;
 
 	public StepTimer() {
-		this(System::currentTimeMillis);
+		this(MonotonicClock.system());
 	}
 
-	StepTimer(LongSupplier nowMs) {
-		this.nowMs = Objects.requireNonNull(nowMs, "nowMs");
+	/**
+	 * @param tickPhase when non-null and locked, step start times are snapped onto estimated tick boundaries
+	 */
+	public StepTimer(TickPhaseEstimator tickPhase) {
+		this(MonotonicClock.system(), tickPhase);
+	}
+
+	public StepTimer(MonotonicClock clock) {
+		this(clock, null);
+	}
+
+	/**
+	 * All times taken and accepted by this timer are {@link MonotonicClock#millis()} readings of {@code clock}.
+	 */
+	public StepTimer(MonotonicClock clock, TickPhaseEstimator tickPhase) {
+		this.clock = Objects.requireNonNull(clock, "clock");
+		this.tickPhase = tickPhase;
 	}
 
 	public void startStep(Step step, AbilityConfig abilityConfig) {
 		stepDurationMs = calculateStepDuration(step, abilityConfig);
-		restartAt(nowMs.getAsLong());
+		restartAt(clock.millis());
 	}
 
 	/**
@@ -46,7 +60,8 @@ public class StepTimer {
 	}
 
 	public void restartAt(long startTimeMs) {
-		stepStartTimeMs = startTimeMs;
+		// Steps start when an ability is used, which only happens on a tick; frames see it up to an interval late.
+		stepStartTimeMs = tickPhase != null ? tickPhase.snapToTick(startTimeMs) : startTimeMs;
 		totalPausedTimeMs = 0;
 		pausedAtMs = 0;
 		isPaused = false;
@@ -54,14 +69,14 @@ public class StepTimer {
 
 	public void pause() {
 		if (!isPaused) {
-			pausedAtMs = nowMs.getAsLong();
+			pausedAtMs = clock.millis();
 			isPaused = true;
 		}
 	}
 
 	public void resume() {
 		if (isPaused) {
-			totalPausedTimeMs += nowMs.getAsLong() - pausedAtMs;
+			totalPausedTimeMs += clock.millis() - pausedAtMs;
 			isPaused = false;
 		}
 	}
@@ -71,17 +86,17 @@ public class StepTimer {
 	}
 
 	public long getEffectiveElapsedMs() {
-		long now = nowMs.getAsLong();
+		long now = clock.millis();
 		long end = isPaused ? pausedAtMs : now;
 		return (end - stepStartTimeMs) - totalPausedTimeMs;
 	}
 
-	public boolean isStepSatisfied(Map<String, DetectionResult> lastDetections) {
+	public boolean isStepSatisfied() {
 		if (isPaused) {
 			return false; // Never satisfied while paused
 		}
 
-		long now = nowMs.getAsLong();
+		long now = clock.millis();
 		long effectiveElapsed = (now - stepStartTimeMs) - totalPausedTimeMs;
 		return effectiveElapsed >= stepDurationMs;
 	}
@@ -0,0 +1,120 @@
+package com.lansoftprogramming.runeSequence.core.sequence.runtime;
+
+/**
+ * Estimates where the game's 600ms tick boundaries fall on the local clock.
+ * <p>
+ * Icon state changes (a cooldown darkening, an icon reappearing) are only ever rendered on a tick, so each observed
+ * transition is a noisy sample of the tick phase. Samples feed a small phase-locked loop: the first few are averaged,
+ * after that each one nudges the phase by a fixed fraction of its error, which also tracks slow drift between the
+ * local and server clocks. Samples far from a locked estimate are treated as outliers until enough of them agree
+ * that the phase really moved.
+ * <p>
+ * All times are {@link com.lansoftprogramming.runeSequence.core.time.MonotonicClock#millis()} readings of the clock
+ * shared with {@link StepTimer}. Thread-safe.
+ */
+public class TickPhaseEstimator {
+	public static final long TICK_MS = StepTimer.TICK_MS;
+	private static final double MIN_GAIN = 0.15d;
+	private static final int LOCK_MIN_SAMPLES = 4;
+	private static final double LOCK_MAX_MEAN_ERROR_MS = 90.0d;
+	private static final double ERROR_SMOOTHING = 0.25d;
+	private static final long OUTLIER_ERROR_MS = 200L;
+	private static final int RELOCK_OUTLIERS = 4;
+	/**
+	 * {@link #snapToTick} pulls a timestamp back to the latest boundary at or before {@code t + SNAP_LEAD_MS}: events are
+	 * seen late (after the boundary) far more often than early.
+	 */
+	static final long SNAP_LEAD_MS = 100L;
+
+	private double phaseMs = Double.NaN;
+	private int samples = 0;
+	private double meanAbsErrorMs = 0.0d;
+	private int consecutiveOutliers = 0;
+
+	/**
+	 * Record an icon state transition first seen in a frame at {@code observedAtMs}; {@code lastUnchangedAtMs} is the
+	 * previous frame (still in the old state), or {@code 0} if unknown. The boundary lies between the two, so the
+	 * midpoint is used. Windows wider than a tick cannot localise the phase and are ignored.
+	 */
+	public synchronized void observeTransition(long lastUnchangedAtMs, long observedAtMs) {
+		long sampleMs;
+		if (lastUnchangedAtMs > 0L && lastUnchangedAtMs < observedAtMs) {
+			if (observedAtMs - lastUnchangedAtMs >= TICK_MS) {
+				return;
+			}
+			sampleMs = lastUnchangedAtMs + (observedAtMs - lastUnchangedAtMs) / 2;
+		} else {
+			sampleMs = observedAtMs;
+		}
+		addSample(sampleMs);
+	}
+
+	private void addSample(long sampleMs) {
+		if (Double.isNaN(phaseMs)) {
+			phaseMs = Math.floorMod(sampleMs, TICK_MS);
+			samples = 1;
+			meanAbsErrorMs = 0.0d;
+			return;
+		}
+
+		double error = wrapError(sampleMs - phaseMs);
+		if (isLocked() && Math.abs(error) > OUTLIER_ERROR_MS) {
+			if (++consecutiveOutliers >= RELOCK_OUTLIERS) {
+				// The phase moved (e.g. world hop or a clock step); start over from this sample.
+				reset();
+				addSample(sampleMs);
+			}
+			return;
+		}
+		consecutiveOutliers = 0;
+
+		double gain = Math.max(MIN_GAIN, 1.0d / (samples + 1));
+		phaseMs = floorMod(phaseMs + gain * error);
+		meanAbsErrorMs = samples == 1
+				? Math.abs(error)
+				: meanAbsErrorMs + ERROR_SMOOTHING * (Math.abs(error) - meanAbsErrorMs);
+		samples++;
+	}
+
+	public synchronized boolean isLocked() {
+		return samples >= LOCK_MIN_SAMPLES && meanAbsErrorMs <= LOCK_MAX_MEAN_ERROR_MS;
+	}
+
+	/**
+	 * Milliseconds since the latest estimated boundary at or before {@code timeMs}, in {@code [0, TICK_MS)}; {@code -1}
+	 * before the first sample.
+	 */
+	public synchronized long millisSinceBoundary(long timeMs) {
+		if (Double.isNaN(phaseMs)) {
+			return -1L;
+		}
+		return Math.floorMod(timeMs - Math.round(phaseMs), TICK_MS);
+	}
+
+	/**
+	 * Move {@code timeMs} onto the estimated tick it most likely belongs to, or return it unchanged while unlocked.
+	 */
+	public synchronized long snapToTick(long timeMs) {
+		if (!isLocked()) {
+			return timeMs;
+		}
+		long leadTimeMs = timeMs + SNAP_LEAD_MS;
+		return leadTimeMs - Math.floorMod(leadTimeMs - Math.round(phaseMs), TICK_MS);
+	}
+
+	public synchronized void reset() {
+		phaseMs = Double.NaN;
+		samples = 0;
+		meanAbsErrorMs = 0.0d;
+		consecutiveOutliers = 0;
+	}
+
+	private static double wrapError(double errorMs) {
+		return floorMod(errorMs + TICK_MS / 2.0d) - TICK_MS / 2.0d;
+	}
+
+	private static double floorMod(double valueMs) {
+		double mod = valueMs % TICK_MS;
+		return mod < 0 ? mod + TICK_MS : mod;
+	}
+}
@@ -30,6 +30,13 @@ public class TooltipSchedule {
 		return list != null ? List.copyOf(list) : List.of();
 	}
 
+	/**
+	 * @return every scheduled tooltip keyed by step index; read-only
+	 */
+	public Map<Integer, List<SequenceTooltip>> getTooltipsByStep() {
+		return tooltipsByStep;
+	}
+
 	public static TooltipSchedule empty() {
 		return EMPTY;
 	}
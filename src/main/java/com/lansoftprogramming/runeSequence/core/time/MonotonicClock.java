@@ -0,0 +1,31 @@
+package com.lansoftprogramming.runeSequence.core.time;
+
+/**
+ * Monotonic time source for sequence timing, latch detection and frame scheduling.
+ * <p>
+ * Unlike {@link System#currentTimeMillis()}, readings never jump when the wall clock is adjusted (NTP, sleep/resume,
+ * manual changes), so a step can neither stretch nor collapse. The origin is arbitrary but readings are always
+ * positive, which lets callers keep using {@code 0} as "not set".
+ * <p>
+ * Production code uses {@link #system()}; tests, replay and benchmarks inject a {@link VirtualClock}.
+ */
+public interface MonotonicClock {
+
+	long NANOS_PER_MILLI = 1_000_000L;
+
+	/**
+	 * Current reading in nanoseconds. Only differences between readings of the same clock are meaningful.
+	 */
+	long nanoTime();
+
+	/**
+	 * Current reading in milliseconds, on the same origin as {@link #nanoTime()}.
+	 */
+	default long millis() {
+		return nanoTime() / NANOS_PER_MILLI;
+	}
+
+	static MonotonicClock system() {
+		return SystemMonotonicClock.INSTANCE;
+	}
+}
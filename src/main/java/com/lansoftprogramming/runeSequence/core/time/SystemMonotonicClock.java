@@ -0,0 +1,19 @@
+package com.lansoftprogramming.runeSequence.core.time;
+
+/**
+ * {@link System#nanoTime()} rebased so the first reading is one second: positive, and far from overflow.
+ */
+final class SystemMonotonicClock implements MonotonicClock {
+	static final SystemMonotonicClock INSTANCE = new SystemMonotonicClock();
+	private static final long START_NANOS = 1_000L * NANOS_PER_MILLI;
+
+	private final long originNanos = System.nanoTime();
+
+	private SystemMonotonicClock() {
+	}
+
+	@Override
+	public long nanoTime() {
+		return System.nanoTime() - originNanos + START_NANOS;
+	}
+}
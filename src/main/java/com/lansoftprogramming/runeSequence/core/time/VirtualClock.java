@@ -0,0 +1,61 @@
+package com.lansoftprogramming.runeSequence.core.time;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Manually advanced {@link MonotonicClock}. Time only moves when told to, so replays and benchmarks run as fast as
+ * the code allows and produce the same timings on every run. Thread-safe; never moves backwards.
+ */
+public final class VirtualClock implements MonotonicClock {
+	private static final long DEFAULT_START_MILLIS = 1_000L;
+
+	private final AtomicLong nanos;
+
+	public VirtualClock() {
+		this(DEFAULT_START_MILLIS);
+	}
+
+	/**
+	 * @param startMillis initial reading; must be positive
+	 */
+	public VirtualClock(long startMillis) {
+		if (startMillis <= 0L) {
+			throw new IllegalArgumentException("startMillis must be positive: " + startMillis);
+		}
+		this.nanos = new AtomicLong(startMillis * NANOS_PER_MILLI);
+	}
+
+	@Override
+	public long nanoTime() {
+		return nanos.get();
+	}
+
+	public void advanceNanos(long deltaNanos) {
+		if (deltaNanos < 0L) {
+			throw new IllegalArgumentException("Virtual time cannot move backwards: " + deltaNanos);
+		}
+		nanos.addAndGet(deltaNanos);
+	}
+
+	public void advanceMillis(long deltaMillis) {
+		advanceNanos(Math.multiplyExact(deltaMillis, NANOS_PER_MILLI));
+	}
+
+	public void advance(Duration delta) {
+		advanceNanos(delta.toNanos());
+	}
+
+	/**
+	 * Jump to an absolute reading, which must not be earlier than the current one.
+	 */
+	public void setMillis(long millis) {
+		long target = Math.multiplyExact(millis, NANOS_PER_MILLI);
+		nanos.getAndUpdate(current -> {
+			if (target < current) {
+				throw new IllegalArgumentException("Virtual time cannot move backwards: " + millis + "ms");
+			}
+			return target;
+		});
+	}
+}
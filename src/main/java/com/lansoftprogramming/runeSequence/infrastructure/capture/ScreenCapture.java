@@ -1,8 +1,11 @@
 package com.lansoftprogramming.runeSequence.infrastructure.capture;
 
+import com.lansoftprogramming.runeSequence.core.metrics.MetricsRegistry;
 import com.lansoftprogramming.runeSequence.infrastructure.config.AppSettings;
+import org.bytedeco.javacpp.BytePointer;
 import org.bytedeco.javacv.FFmpegFrameGrabber;
 import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.FrameGrabber;
 import org.bytedeco.javacv.OpenCVFrameConverter;
 import org.bytedeco.opencv.opencv_core.Mat;
 import org.bytedeco.opencv.opencv_core.Rect;
@@ -10,20 +13,49 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.awt.*;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.bytedeco.ffmpeg.global.avutil.*;
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC3;
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC4;
+import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_BGRA2BGR;
+import static org.bytedeco.opencv.global.opencv_imgproc.cvtColor;
 
 public class ScreenCapture {
 	private static final Logger logger = LoggerFactory.getLogger(ScreenCapture.class);
+	private static final long RESTART_COOLDOWN_MS = 150L;
+	private static final int STANDBY_FIRST_FRAME_ATTEMPTS = 20;
+	private static final MetricsRegistry.Counter CAPTURE_FAILURES = MetricsRegistry.shared().counter("capture.failures");
+	private static final MetricsRegistry.Counter GRABBER_RECOVERIES = MetricsRegistry.shared().counter("capture.grabberRecoveries");
 
 	private FFmpegFrameGrabber grabber;
+	// Screen-space bounds covered by frames of the live grabber (its region, or the whole screen when cropping).
+	private Rectangle grabberFrameBounds;
+	// Channels of the live grabber's unconverted frames (4 for BGRA/BGR0, 3 for BGR24), or 0 when FFmpeg converts
+	// every frame to BGR itself.
+	private int grabberRawChannels;
 	private OpenCVFrameConverter.ToMat converter;
 	private Rectangle captureRegion;
+	// Region passed to setRegion that the live grabber cannot serve; captureRegion keeps the old one until a standby
+	// grabber for it is ready. Null when captureRegion is current.
+	private Rectangle requestedRegion;
 	private Rectangle screenBounds;
 	private final AtomicBoolean isInitialized = new AtomicBoolean(false);
 	private final AtomicInteger consecutiveNullFrames = new AtomicInteger(0);
 	private final AtomicInteger consecutiveNullMats = new AtomicInteger(0);
 	private volatile long lastStopNanos = 0L;
+	// Reused full-region BGR buffer for windowed captures; only the requested window is refreshed each frame.
+	private Mat windowedFrame;
+	// Warm-standby supervisor: replacement grabbers are built off-thread and swapped in once they deliver a frame.
+	private final AtomicLong standbyGeneration = new AtomicLong(0L);
+	private boolean standbyPending = false;
+	private Rectangle standbyRegion;
+	private ExecutorService standbyExecutor;
 	private String platform;
 	private final boolean supportsNativeRegionCapture;
 
@@ -66,41 +98,251 @@ public class ScreenCapture {
 			stopCapture();
 		}
 
+		waitForRestartCooldown();
+
+		Rectangle region = new Rectangle(captureRegion);
+		grabber = createGrabber(region);
+		grabberFrameBounds = frameBoundsFor(region);
+		grabberRawChannels = rawChannels(grabber);
+		isInitialized.set(true);
+
+		logger.info("FFmpeg grabber started for region {} (nativeRegionCapture={}?)",
+				region, supportsNativeRegionCapture && !isFullScreen(region));
+	}
+
+	private void waitForRestartCooldown() {
 		long sinceStopMs = (System.nanoTime() - lastStopNanos) / 1_000_000L;
-		if (lastStopNanos > 0L && sinceStopMs >= 0 && sinceStopMs < 150) {
+		if (lastStopNanos > 0L && sinceStopMs >= 0 && sinceStopMs < RESTART_COOLDOWN_MS) {
 			// On Windows gdigrab can intermittently fail (e.g. "error 6") if restarted immediately after close.
 			try {
-				Thread.sleep(150 - sinceStopMs);
+				Thread.sleep(RESTART_COOLDOWN_MS - sinceStopMs);
 			} catch (InterruptedException e) {
 				Thread.currentThread().interrupt();
 			}
 		}
+	}
+
+	/**
+	 * Build and start a grabber for {@code region}. Touches no shared state, so it is safe to call off-thread.
+	 * <p>
+	 * Where the grab itself is cropped to the region, frames are taken in the capture device's own pixel format, so
+	 * FFmpeg does not colour-convert the whole region on every grab; {@link #captureScreen(Rectangle)} converts just
+	 * the pixels it returns. Devices delivering a format we cannot wrap get FFmpeg's BGR conversion instead.
+	 */
+	private FFmpegFrameGrabber createGrabber(Rectangle region) throws Exception {
+		if (supportsNativeRegionCapture) {
+			FFmpegFrameGrabber raw = startGrabber(region, FrameGrabber.ImageMode.RAW);
+			// Unconverted frames are not scaled either, so they must already have the region's size.
+			if (rawChannels(raw) > 0 && raw.getImageWidth() == region.width && raw.getImageHeight() == region.height) {
+				return raw;
+			}
+			logger.info("Capture device delivers {}x{} frames in pixel format {}; falling back to converted frames",
+					raw.getImageWidth(), raw.getImageHeight(), raw.getPixelFormat());
+			closeQuietly(raw);
+		}
+		return startGrabber(region, FrameGrabber.ImageMode.COLOR);
+	}
 
-		grabber = new FFmpegFrameGrabber(getInputSource());
-		grabber.setFormat(getScreenFormat());
+	private FFmpegFrameGrabber startGrabber(Rectangle region, FrameGrabber.ImageMode imageMode) throws Exception {
+		FFmpegFrameGrabber created = new FFmpegFrameGrabber(getInputSource());
+		created.setFormat(getScreenFormat());
+		created.setImageMode(imageMode);
 
 		// Performance optimizations
-		grabber.setOption("framerate", "60"); // High framerate
-		grabber.setOption("probesize", "32"); // Fast probe
-		grabber.setOption("fflags", "nobuffer"); // Minimize latency
-		grabber.setOption("flags", "low_delay");
+		created.setOption("framerate", "60"); // High framerate
+		created.setOption("probesize", "32"); // Fast probe
+		created.setOption("fflags", "nobuffer"); // Minimize latency
+		created.setOption("flags", "low_delay");
 
 		// GPU acceleration options
-		enableHardwareAcceleration();
+		enableHardwareAcceleration(created);
 
-		configureCaptureRegion();
+		if (imageMode != FrameGrabber.ImageMode.RAW) {
+			created.setImageWidth(region.width);
+			created.setImageHeight(region.height);
+		}
+		configureCaptureRegion(created, region);
 
-		grabber.start();
-		isInitialized.set(true);
+		try {
+			created.start();
+		} catch (Exception e) {
+			closeQuietly(created);
+			throw e;
+		}
+		return created;
+	}
 
-		logger.info("FFmpeg grabber started for region {} (nativeRegionCapture={}?)",
-				captureRegion, supportsNativeRegionCapture && !isFullScreen());
+	/**
+	 * Replace the live grabber in the background; the current one keeps serving frames until the replacement has
+	 * delivered its first frame. Duplicate requests while a replacement for the same region is being built are
+	 * ignored; a request for another region supersedes it.
+	 *
+	 * @param stopOnFailure when the replacement cannot be started, tear the live grabber down as well so the next
+	 *                      capture performs a full synchronous re-initialisation (used for glitch recovery)
+	 */
+	private synchronized void requestStandbyGrabber(String reason, boolean stopOnFailure) {
+		Rectangle region = new Rectangle(targetRegion());
+		if (standbyPending && region.equals(standbyRegion)) {
+			return;
+		}
+		standbyPending = true;
+		standbyRegion = region;
+		long generation = standbyGeneration.incrementAndGet();
+		if (standbyExecutor == null) {
+			standbyExecutor = Executors.newSingleThreadExecutor(r -> {
+				Thread t = new Thread(r, "ScreenCapture-standby");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		logger.info("Preparing standby grabber for region {} ({})", region, reason);
+		standbyExecutor.execute(() -> buildStandbyGrabber(generation, region, reason, stopOnFailure));
+	}
+
+	private void buildStandbyGrabber(long generation, Rectangle region, String reason, boolean stopOnFailure) {
+		FFmpegFrameGrabber candidate = null;
+		boolean swapped = false;
+		long startNanos = System.nanoTime();
+		try {
+			waitForRestartCooldown();
+			candidate = createGrabber(region);
+			if (!awaitFirstFrame(candidate)) {
+				logger.warn("Standby grabber for region {} delivered no frame ({})", region, reason);
+				return;
+			}
+
+			FFmpegFrameGrabber retired;
+			synchronized (this) {
+				if (generation != standbyGeneration.get() || !region.equals(targetRegion())) {
+					logger.debug("Discarding stale standby grabber for region {}", region);
+					return;
+				}
+				if (requestedRegion != null) {
+					applyRequestedRegion();
+				}
+				retired = grabber;
+				grabber = candidate;
+				grabberFrameBounds = frameBoundsFor(region);
+				grabberRawChannels = rawChannels(candidate);
+				candidate = null;
+				swapped = true;
+				isInitialized.set(true);
+				consecutiveNullFrames.set(0);
+				consecutiveNullMats.set(0);
+			}
+			if (retired != null) {
+				lastStopNanos = System.nanoTime();
+				closeQuietly(retired);
+			}
+			logger.info("Standby grabber swapped in for region {} after {}ms ({})",
+					region, (System.nanoTime() - startNanos) / 1_000_000L, reason);
+		} catch (Exception e) {
+			logger.warn("Failed to prepare standby grabber for region {} ({})", region, reason, e);
+		} finally {
+			if (candidate != null) {
+				closeQuietly(candidate);
+			}
+			synchronized (this) {
+				if (generation == standbyGeneration.get()) {
+					standbyPending = false;
+					standbyRegion = null;
+					// A region the live grabber cannot serve is only reachable through a cold restart now.
+					if (!swapped && (stopOnFailure || requestedRegion != null)) {
+						stopCapture();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Region the next grabber should be built for: the pending {@link #setRegion} request, if any.
+	 */
+	private Rectangle targetRegion() {
+		return requestedRegion != null ? requestedRegion : captureRegion;
+	}
+
+	/**
+	 * Start serving the region passed to {@link #setRegion}; called once no grabber for the old region is needed.
+	 */
+	private void applyRequestedRegion() {
+		captureRegion = requestedRegion;
+		requestedRegion = null;
+		releaseWindowedFrame();
+		logger.debug("Capture region now serving {}", captureRegion);
+	}
+
+	private boolean awaitFirstFrame(FFmpegFrameGrabber candidate) throws Exception {
+		for (int attempt = 0; attempt < STANDBY_FIRST_FRAME_ATTEMPTS; attempt++) {
+			Frame frame = candidate.grab();
+			if (frame != null && frame.image != null) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Live grabber is misbehaving: warm-swap a fresh one when possible, otherwise tear down for a cold restart.
+	 */
+	private void recoverGrabber(String reason) {
+		GRABBER_RECOVERIES.increment();
+		if (grabber != null && isInitialized.get()) {
+			requestStandbyGrabber(reason, true);
+		} else {
+			stopCapture();
+		}
+	}
+
+	/**
+	 * Channels of {@code target}'s unconverted frames, or 0 when its frames are converted by FFmpeg (or come in a
+	 * pixel format that is not packed 8-bit BGR).
+	 */
+	private static int rawChannels(FFmpegFrameGrabber target) {
+		if (target.getImageMode() != FrameGrabber.ImageMode.RAW) {
+			return 0;
+		}
+		int pixelFormat = target.getPixelFormat();
+		if (pixelFormat == AV_PIX_FMT_BGRA || pixelFormat == AV_PIX_FMT_BGR0) {
+			return 4;
+		}
+		return pixelFormat == AV_PIX_FMT_BGR24 ? 3 : 0;
+	}
+
+	private Rectangle frameBoundsFor(Rectangle region) {
+		boolean nativeRegion = supportsNativeRegionCapture || isFullScreen(region);
+		return nativeRegion ? new Rectangle(region) : new Rectangle(screenBounds);
+	}
+
+	private static void closeQuietly(FFmpegFrameGrabber target) {
+		try {
+			target.stop();
+		} catch (Exception e) {
+			logger.debug("Ignoring grabber.stop failure", e);
+		}
+		try {
+			target.close();
+		} catch (Exception e) {
+			logger.debug("Ignoring grabber.close failure", e);
+		}
 	}
 
 	/**
 	 * Capture screen and return OpenCV Mat (cropped to region)
 	 */
 	public synchronized Mat captureScreen() {
+		return captureScreen(null);
+	}
+
+	/**
+	 * Capture only {@code window} (in capture-region coordinates) of the current region.
+	 * <p>
+	 * The returned Mat still spans the whole capture region so frame coordinates (and cached ROIs) stay stable, but
+	 * only pixels inside {@code window} are fresh; the rest hold whatever an earlier capture left there. Windowed
+	 * frames share one buffer and are valid until the next capture. A {@code null} window, or one that covers the
+	 * region, falls back to a normal full capture.
+	 */
+	public synchronized Mat captureScreen(Rectangle window) {
 		try {
 			ensureConverter();
 			if (!isInitialized.get()) {
@@ -109,6 +351,7 @@ public class ScreenCapture {
 
 			Frame frame = grabber.grab();
 			if (frame == null) {
+				CAPTURE_FAILURES.increment();
 				int count = consecutiveNullFrames.incrementAndGet();
 				if (count == 1 || count % 30 == 0) {
 					logger.warn("Frame grab returned null (consecutiveNullFrames={})", count);
@@ -117,15 +360,16 @@ public class ScreenCapture {
 				}
 				if (count >= 30) {
 					// gdigrab can enter a bad state after stop/start or desktop transitions; force a restart.
-					stopCapture();
 					consecutiveNullFrames.set(0);
+					recoverGrabber("null frames");
 				}
 				return new Mat();
 			}
 			consecutiveNullFrames.set(0);
 
-			Mat fullScreenMat = converter.convert(frame);
+			Mat fullScreenMat = grabberRawChannels > 0 ? wrapRawFrame(frame) : converter.convert(frame);
 			if (fullScreenMat == null) {
+				CAPTURE_FAILURES.increment();
 				int count = consecutiveNullMats.incrementAndGet();
 				if (count == 1 || count % 30 == 0) {
 					logger.warn("Frame conversion returned null (consecutiveNullMats={})", count);
@@ -133,16 +377,21 @@ public class ScreenCapture {
 					logger.debug("Frame conversion returned null (consecutiveNullMats={})", count);
 				}
 				if (count >= 30) {
-					stopCapture();
 					consecutiveNullMats.set(0);
+					recoverGrabber("null conversions");
 				}
 				return new Mat();
 			}
 			consecutiveNullMats.set(0);
 
-			boolean needsCropping = shouldCropFrame();
+			boolean needsCropping = !captureRegion.equals(grabberFrameBounds);
+			Rectangle clampedWindow = clampWindow(window);
+			if (clampedWindow != null) {
+				return copyWindow(fullScreenMat, clampedWindow);
+			}
 			if (!needsCropping) {
-				Mat clone = fullScreenMat.clone();
+				Mat clone = new Mat();
+				copyPixels(fullScreenMat, clone);
 				fullScreenMat.release();
 				return clone;
 			}
@@ -151,8 +400,87 @@ public class ScreenCapture {
 
 		} catch (Exception e) {
 			logger.error("Screen capture failed", e);
-			stopCapture();
+			CAPTURE_FAILURES.increment();
+			recoverGrabber("capture error");
+			return new Mat();
+		}
+	}
+
+	/**
+	 * Header over an unconverted frame's pixel buffer; nothing is copied or converted.
+	 */
+	private Mat wrapRawFrame(Frame frame) {
+		if (frame.image == null || frame.image.length == 0 || !(frame.image[0] instanceof ByteBuffer buffer)
+				|| buffer.capacity() < (long) frame.imageHeight * frame.imageStride) {
+			return null;
+		}
+		int type = grabberRawChannels == 4 ? CV_8UC4 : CV_8UC3;
+		return new Mat(frame.imageHeight, frame.imageWidth, type, new BytePointer(buffer), frame.imageStride);
+	}
+
+	/**
+	 * Copy {@code source} into {@code target} as BGR, converting from BGRA/BGR0 when the frame is unconverted.
+	 * {@code target} may be a view into a larger Mat of the right size, which is then written in place.
+	 */
+	private static void copyPixels(Mat source, Mat target) {
+		if (source.channels() == 4) {
+			cvtColor(source, target, COLOR_BGRA2BGR);
+		} else {
+			source.copyTo(target);
+		}
+	}
+
+	private Rectangle clampWindow(Rectangle window) {
+		if (window == null) {
+			return null;
+		}
+		Rectangle clamped = window.intersection(new Rectangle(0, 0, captureRegion.width, captureRegion.height));
+		if (clamped.isEmpty() || (clamped.width == captureRegion.width && clamped.height == captureRegion.height)) {
+			return null;
+		}
+		return clamped;
+	}
+
+	/**
+	 * Copy {@code window} from the grabbed frame into the shared region-sized buffer and return a new header on it.
+	 * Only the window is read, and for unconverted frames only the window is colour-converted.
+	 */
+	private Mat copyWindow(Mat fullMat, Rectangle window) {
+		Mat source = null;
+		Mat target = null;
+		try {
+			if (windowedFrame == null
+					|| windowedFrame.cols() != captureRegion.width
+					|| windowedFrame.rows() != captureRegion.height
+					|| windowedFrame.type() != CV_8UC3) {
+				releaseWindowedFrame();
+				windowedFrame = new Mat(captureRegion.height, captureRegion.width, CV_8UC3);
+			}
+
+			int sourceX = captureRegion.x - grabberFrameBounds.x + window.x;
+			int sourceY = captureRegion.y - grabberFrameBounds.y + window.y;
+			source = new Mat(fullMat, new Rect(sourceX, sourceY, window.width, window.height));
+			target = new Mat(windowedFrame, new Rect(window.x, window.y, window.width, window.height));
+			copyPixels(source, target);
+			return new Mat(windowedFrame);
+		} catch (Exception e) {
+			logger.error("Failed to copy capture window {}", window, e);
 			return new Mat();
+		} finally {
+			if (target != null) {
+				target.release();
+			}
+			if (source != null) {
+				source.release();
+			}
+			fullMat.release();
+		}
+	}
+
+	private void releaseWindowedFrame() {
+		if (windowedFrame != null) {
+			windowedFrame.close();
+			windowedFrame = null;
 		}
 	}
 
@@ -163,12 +491,13 @@ public class ScreenCapture {
 		try {
 //			org.opencv.core.Rect roi = new org.opencv.core.Rect(
 			Rect roi = new Rect(
-					captureRegion.x, captureRegion.y,
+					captureRegion.x - grabberFrameBounds.x, captureRegion.y - grabberFrameBounds.y,
 					captureRegion.width, captureRegion.height
 			);
 
 			Mat croppedMat = new Mat(fullMat, roi);
-			Mat result = croppedMat.clone();
+			Mat result = new Mat();
+			copyPixels(croppedMat, result);
 
 			// Cleanup
 			fullMat.release();
@@ -184,19 +513,38 @@ public class ScreenCapture {
 	}
 
 	/**
-	 * Set capture region and reconfigure the grabber if required
+	 * Set capture region and reconfigure the grabber if required. Never restarts the grabber on the caller's thread:
+	 * when the live grabber cannot serve the new region, frames (and {@link #getRegion()}) stay on the old region
+	 * until a standby grabber for the new one has delivered its first frame.
 	 */
 	public synchronized void setRegion(Rectangle region) {
 		Rectangle newRegion = clampRegion(region);
-		Rectangle previous = captureRegion;
-		captureRegion = newRegion;
-
-		logger.debug("Capture region set to: {}", captureRegion);
+		if (newRegion.equals(targetRegion())) {
+			return;
+		}
+		logger.debug("Capture region set to: {}", newRegion);
+		if (newRegion.equals(captureRegion)) {
+			// Back to the region still being served: drop the pending switch.
+			requestedRegion = null;
+			standbyGeneration.incrementAndGet();
+			standbyPending = false;
+			standbyRegion = null;
+			return;
+		}
 
-		boolean regionChanged = previous != null && !previous.equals(captureRegion);
-		if (regionChanged && supportsNativeRegionCapture && isInitialized.get()) {
-			restartGrabber();
+		boolean liveGrabber = isInitialized.get() && grabber != null;
+		if (!liveGrabber || grabberFrameBounds.contains(newRegion)) {
+			// Nothing running, or the live grabber already covers the new region: crop from it right away.
+			requestedRegion = null;
+			captureRegion = newRegion;
+			releaseWindowedFrame();
+			if (liveGrabber && supportsNativeRegionCapture) {
+				requestStandbyGrabber("region change", false);
+			}
+			return;
 		}
+		requestedRegion = newRegion;
+		requestStandbyGrabber("region change", false);
 	}
 
 	/**
@@ -217,7 +565,11 @@ public class ScreenCapture {
 	 * Check if using full screen capture
 	 */
 	private boolean isFullScreen() {
-		return captureRegion.equals(screenBounds);
+		return isFullScreen(captureRegion);
+	}
+
+	private boolean isFullScreen(Rectangle region) {
+		return region.equals(screenBounds);
 	}
 
 	/**
@@ -274,20 +626,20 @@ public class ScreenCapture {
 	/**
 	 * Enable hardware acceleration based on platform
 	 */
-	private void enableHardwareAcceleration() {
+	private void enableHardwareAcceleration(FFmpegFrameGrabber target) {
 		try {
 			switch (platform) {
 				case "Windows":
 					// Try DXVA2, D3D11VA, then CUDA
-					grabber.setOption("hwaccel", "dxva2");
+					target.setOption("hwaccel", "dxva2");
 					break;
 				case "Linux":
 					// Try VAAPI, then CUDA
-					grabber.setOption("hwaccel", "vaapi");
+					target.setOption("hwaccel", "vaapi");
 					break;
 				case "macOS":
 					// VideoToolbox
-					grabber.setOption("hwaccel", "videotoolbox");
+					target.setOption("hwaccel", "videotoolbox");
 					break;
 			}
 			logger.debug("Hardware acceleration enabled for {}", platform);
@@ -334,6 +686,13 @@ public class ScreenCapture {
 			}
 
 			stopCapture();
+			synchronized (this) {
+				releaseWindowedFrame();
+				if (standbyExecutor != null) {
+					standbyExecutor.shutdownNow();
+					standbyExecutor = null;
+				}
+			}
 
 			logger.info("ScreenCapture shutdown completed");
 
@@ -350,21 +709,24 @@ public class ScreenCapture {
 		isInitialized.set(false);
 		consecutiveNullFrames.set(0);
 		consecutiveNullMats.set(0);
+		// Invalidate any standby grabber still being built; it will close itself instead of swapping in.
+		standbyGeneration.incrementAndGet();
+		standbyPending = false;
+		standbyRegion = null;
+		if (requestedRegion != null) {
+			// The next initialisation starts cold anyway, so it may as well use the requested region.
+			applyRequestedRegion();
+		}
 		if (grabber == null) {
 			return;
 		}
 		lastStopNanos = System.nanoTime();
 		try {
-			grabber.stop();
-		} catch (Exception e) {
-			logger.debug("Ignoring grabber.stop failure", e);
-		}
-		try {
-			grabber.close();
-		} catch (Exception e) {
-			logger.debug("Ignoring grabber.close failure", e);
+			closeQuietly(grabber);
 		} finally {
 			grabber = null;
+			grabberFrameBounds = null;
+			grabberRawChannels = 0;
 		}
 	}
 
@@ -395,50 +757,32 @@ public class ScreenCapture {
 		return clamped;
 	}
 
-	private void configureCaptureRegion() {
-		Rectangle region = isFullScreen() ? screenBounds : captureRegion;
-		grabber.setImageWidth(region.width);
-		grabber.setImageHeight(region.height);
-
-		if (isFullScreen()) {
-			grabber.setOption("video_size", region.width + "x" + region.height);
+	private void configureCaptureRegion(FFmpegFrameGrabber target, Rectangle region) {
+		if (isFullScreen(region)) {
+			target.setOption("video_size", region.width + "x" + region.height);
 			return;
 		}
 
 		if (!supportsNativeRegionCapture) {
 			logger.info("Platform {} does not support native region capture; will crop in software", platform);
-			grabber.setOption("video_size", screenBounds.width + "x" + screenBounds.height);
+			target.setOption("video_size", screenBounds.width + "x" + screenBounds.height);
 			return;
 		}
 
 		switch (platform) {
 			case "Windows":
-				grabber.setOption("video_size", region.width + "x" + region.height);
-				grabber.setOption("offset_x", String.valueOf(region.x));
-				grabber.setOption("offset_y", String.valueOf(region.y));
+				target.setOption("video_size", region.width + "x" + region.height);
+				target.setOption("offset_x", String.valueOf(region.x));
+				target.setOption("offset_y", String.valueOf(region.y));
 				break;
 			case "Linux":
-				grabber.setOption("video_size", region.width + "x" + region.height);
-				grabber.setOption("grab_x", String.valueOf(region.x));
-				grabber.setOption("grab_y", String.valueOf(region.y));
+				target.setOption("video_size", region.width + "x" + region.height);
+				target.setOption("grab_x", String.valueOf(region.x));
+				target.setOption("grab_y", String.valueOf(region.y));
 				break;
 			default:
 				logger.info("Native region capture not configured for platform {}, defaulting to cropping", platform);
 				break;
 		}
 	}
-
-	private boolean shouldCropFrame() {
-		return !isFullScreen() && !supportsNativeRegionCapture;
-	}
-
-	private void restartGrabber() {
-		try {
-			initializeGrabber();
-			logger.info("Capture region updated, grabber restarted for new bounds {}", captureRegion);
-		} catch (Exception e) {
-			logger.error("Failed to restart grabber after region update", e);
-			isInitialized.set(false);
-		}
-	}
 }
\ No newline at end of file
@@ -4,11 +4,12 @@ import com.fasterxml.jackson.annotation.JsonAnyGetter;
 import com.fasterxml.jackson.annotation.JsonAnySetter;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class AbilityConfig {
-	private Map<String, AbilityData> abilities = new HashMap<>();
+	// Concurrent: a hot reload updates entries while detection reads them.
+	private Map<String, AbilityData> abilities = new ConcurrentHashMap<>();
 
 
 	@JsonAnyGetter
@@ -19,7 +20,7 @@ public class AbilityConfig {
 
 	@JsonAnySetter
 	public void setAbility(String name, AbilityData data) {
-		abilities.put(name, data);
+		putAbility(name, data);
 	}
 
 	// Convenience methods
@@ -28,9 +29,17 @@ public class AbilityConfig {
 	}
 
 	public void putAbility(String name, AbilityData data) {
+		if (data == null) {
+			abilities.remove(name);
+			return;
+		}
 		abilities.put(name, data);
 	}
 
+	public void removeAbility(String name) {
+		abilities.remove(name);
+	}
+
 	public static class AbilityData {
 		@JsonProperty("common_name")
 		private String commonName;
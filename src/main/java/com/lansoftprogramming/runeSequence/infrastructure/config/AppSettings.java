@@ -7,7 +7,9 @@ import java.awt.*;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.logging.Logger;
 
@@ -395,6 +397,14 @@ public class AppSettings {
 		@JsonProperty("enableOverlay")
 		private boolean enableOverlay = true;
 
+		// Only refresh the padded union of cached ability ROIs between full validation frames.
+		@JsonProperty("adaptiveCapture")
+		private boolean adaptiveCapture = true;
+
+		// Once the tick phase is known, sample densely around tick boundaries and sparsely in between.
+		@JsonProperty("tickAlignedSampling")
+		private boolean tickAlignedSampling = true;
+
 		// Getters and setters
 		public int getIntervalMs() {
 			return intervalMs;
@@ -419,17 +429,39 @@ public class AppSettings {
 		public void setEnableOverlay(boolean enableOverlay) {
 			this.enableOverlay = enableOverlay;
 		}
+
+		public boolean isAdaptiveCapture() {
+			return adaptiveCapture;
+		}
+
+		public void setAdaptiveCapture(boolean adaptiveCapture) {
+			this.adaptiveCapture = adaptiveCapture;
+		}
+
+		public boolean isTickAlignedSampling() {
+			return tickAlignedSampling;
+		}
+
+		public void setTickAlignedSampling(boolean tickAlignedSampling) {
+			this.tickAlignedSampling = tickAlignedSampling;
+		}
 	}
 
 	// ------------------------------ ROTATION ------------------------------
 	@JsonIgnoreProperties(ignoreUnknown = true)
 	public static class RotationSettings {
+		static final int MAX_RECENT_IDS = 5;
+
 		@JsonProperty("selectedId")
 		private String selectedId;
 
 		@JsonProperty("autoSaveOnSwitch")
 		private boolean autoSaveOnSwitch = false;
 
+		// Most recently played rotations first; their templates are preloaded on startup.
+		@JsonProperty("recentIds")
+		private List<String> recentIds = new ArrayList<>();
+
 		public String getSelectedId() {
 			return selectedId;
 		}
@@ -445,6 +477,31 @@ public class AppSettings {
 		public void setAutoSaveOnSwitch(boolean autoSaveOnSwitch) {
 			this.autoSaveOnSwitch = autoSaveOnSwitch;
 		}
+
+		public List<String> getRecentIds() {
+			return recentIds;
+		}
+
+		public void setRecentIds(List<String> recentIds) {
+			this.recentIds = recentIds != null ? new ArrayList<>(recentIds) : new ArrayList<>();
+		}
+
+		/**
+		 * Move {@code rotationId} to the front of {@link #getRecentIds()}, keeping at most {@link #MAX_RECENT_IDS}.
+		 */
+		public void markUsed(String rotationId) {
+			if (rotationId == null || rotationId.isBlank()) {
+				return;
+			}
+			if (recentIds == null) {
+				recentIds = new ArrayList<>();
+			}
+			recentIds.remove(rotationId);
+			recentIds.add(0, rotationId);
+			while (recentIds.size() > MAX_RECENT_IDS) {
+				recentIds.remove(recentIds.size() - 1);
+			}
+		}
 	}
 
 	// ------------------------------ HOTKEYS ------------------------------
@@ -456,6 +513,14 @@ public class AppSettings {
 		@JsonProperty("bindings")
 		private List<Binding> bindings;
 
+		// Start the sequence on the key-down of a current-step ability; darkening on screen confirms or rolls back.
+		@JsonProperty("abilityKeypressLatch")
+		private boolean abilityKeypressLatch = false;
+
+		// In-game keybinds per ability key, e.g. {"surge": ["Shift+E"]}.
+		@JsonProperty("abilityKeybinds")
+		private Map<String, List<String>> abilityKeybinds = new LinkedHashMap<>();
+
 		public int getSchema() {
 			return schema;
 		}
@@ -472,6 +537,22 @@ public class AppSettings {
 			this.bindings = bindings;
 		}
 
+		public boolean isAbilityKeypressLatch() {
+			return abilityKeypressLatch;
+		}
+
+		public void setAbilityKeypressLatch(boolean abilityKeypressLatch) {
+			this.abilityKeypressLatch = abilityKeypressLatch;
+		}
+
+		public Map<String, List<String>> getAbilityKeybinds() {
+			return abilityKeybinds;
+		}
+
+		public void setAbilityKeybinds(Map<String, List<String>> abilityKeybinds) {
+			this.abilityKeybinds = abilityKeybinds != null ? new LinkedHashMap<>(abilityKeybinds) : new LinkedHashMap<>();
+		}
+
 		@JsonIgnoreProperties(ignoreUnknown = true)
 		public static class Binding {
 			@JsonProperty("action")
@@ -561,6 +642,9 @@ public class AppSettings {
 			@JsonProperty("showDebugOptions")
 			private boolean showDebugOptions = false;
 
+			@JsonProperty("flightRecordingEnabled")
+			private boolean flightRecordingEnabled = false;
+
 			public int getIconSize() {
 				return iconSize;
 			}
@@ -636,6 +720,14 @@ public class AppSettings {
 				this.showDebugOptions = showDebugOptions;
 			}
 
+			public boolean isFlightRecordingEnabled() {
+				return flightRecordingEnabled;
+			}
+
+			public void setFlightRecordingEnabled(boolean flightRecordingEnabled) {
+				this.flightRecordingEnabled = flightRecordingEnabled;
+			}
+
 			@JsonIgnoreProperties(ignoreUnknown = true)
 			public static class WindowSettings {
 				@JsonProperty("presetManager")
@@ -1,5 +1,6 @@
 package com.lansoftprogramming.runeSequence.infrastructure.config;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -15,21 +16,30 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
 
 public class ConfigManager {
 	private static final Logger logger = LoggerFactory.getLogger(ConfigManager.class);
 	private static final String APP_NAME = "RuneSequence";
+	private static final long WRITE_DEBOUNCE_MS = 500L;
+	private static final long WRITE_MAX_DELAY_MS = 5_000L;
 
 	private final Path configDir;
 	private final Path settingsPath;
 	private final Path rotationsPath;
+	private final Path rotationsIndexPath;
+	private final Path rotationsJournalPath;
 	private final Path abilitiesPath;
 	private final Path abilityCategoriesPath;
 	private final Path abilityImagePath;
 	private final ObjectMapper objectMapper;
+	private final ConfigWriter writer = new ConfigWriter(WRITE_DEBOUNCE_MS, WRITE_MAX_DELAY_MS);
 
 	private AppSettings settings;
 	private RotationConfig rotations;
@@ -38,9 +48,18 @@ public class ConfigManager {
 	private final List<Consumer<AppSettings>> settingsSaveListeners = new CopyOnWriteArrayList<>();
 
 	public ConfigManager() {
-		this.configDir = getAppDataPath().resolve(APP_NAME);
+		this(getAppDataPath().resolve(APP_NAME));
+	}
+
+	/**
+	 * @param configDir folder holding the config files and the ability images, created on {@link #initialize()}
+	 */
+	public ConfigManager(Path configDir) {
+		this.configDir = configDir;
 		this.settingsPath = configDir.resolve("settings.json");
 		this.rotationsPath = configDir.resolve("rotations.json");
+		this.rotationsIndexPath = configDir.resolve("rotations.index");
+		this.rotationsJournalPath = configDir.resolve("rotations.journal");
 		this.abilitiesPath = configDir.resolve("abilities.json");
 		this.abilityCategoriesPath = configDir.resolve("ability_categories.json");
 		this.abilityImagePath = configDir.resolve("Abilities");
@@ -52,10 +71,25 @@ public class ConfigManager {
 		//User AppData folder ifExists check
 		createConfigDirectory();
 		//settings files
+		long startNanos = System.nanoTime();
+		ConfigStreamReader reader = new ConfigStreamReader(objectMapper.getFactory());
 		loadOrCreateSettings();
+		long settingsNanos = System.nanoTime();
 		loadOrCreateRotations();
-		loadOrCreateAbilities();
-		loadOrCreateAbilityCategories();
+		long rotationsNanos = System.nanoTime();
+		loadOrCreateAbilities(reader);
+		long abilitiesNanos = System.nanoTime();
+		loadOrCreateAbilityCategories(reader);
+		long endNanos = System.nanoTime();
+		if (logger.isInfoEnabled()) {
+			// Per file, so a startup regression shows which one grew; the first read also pays for Jackson's warm-up.
+			logger.info("Loaded config files in {} ms (settings {}, rotations {}, abilities {}, categories {})",
+					(endNanos - startNanos) / 1_000_000L,
+					(settingsNanos - startNanos) / 1_000_000L,
+					(rotationsNanos - settingsNanos) / 1_000_000L,
+					(abilitiesNanos - rotationsNanos) / 1_000_000L,
+					(endNanos - abilitiesNanos) / 1_000_000L);
+		}
 		//assets
 		checkOrCreateAbilities();
 	}
@@ -140,7 +174,16 @@ public class ConfigManager {
 	private void loadOrCreateRotations() throws IOException {
 		if (Files.exists(rotationsPath)) {
 			try {
-				rotations = objectMapper.readValue(rotationsPath.toFile(), RotationConfig.class);
+				// Presets are indexed here and bound on first use.
+				RotationConfig loaded = new RotationConfig();
+				loaded.setPresets(PresetLibrary.open(
+						rotationsPath,
+						rotationsIndexPath,
+						rotationsJournalPath,
+						objectMapper,
+						PresetLibrary.DEFAULT_CACHE_SIZE
+				));
+				rotations = loaded;
 				logger.info("Loaded existing rotations");
 				return;
 			} catch (Exception e) {
@@ -151,15 +194,19 @@ public class ConfigManager {
 		}
 
 		backupIfExists(rotationsPath, "rotations.json");
+		// Journaled edits belong to the file being replaced.
+		backupIfExists(rotationsJournalPath, "rotations.journal");
+		Files.deleteIfExists(rotationsJournalPath);
 		rotations = loadDefaultRotations();
 		saveRotations();
 		logger.info("Created default rotations");
 	}
 
-	private void loadOrCreateAbilities() throws IOException {
+	private void loadOrCreateAbilities(ConfigStreamReader reader) throws IOException {
 		if (Files.exists(abilitiesPath)) {
+			AbilityConfig loaded;
 			try {
-				abilities = objectMapper.readValue(abilitiesPath.toFile(), AbilityConfig.class);
+				loaded = reader.readAbilities(abilitiesPath);
 			} catch (Exception e) {
 				logger.warn("Abilities file could not be read; backing up and regenerating from defaults: {}", abilitiesPath, e);
 				backupIfExists(abilitiesPath, "abilities.json");
@@ -169,14 +216,15 @@ public class ConfigManager {
 				return;
 			}
 
-			// Check if abilities need migration (missing new fields)
-			if (needsAbilitiesMigration()) {
+			// The reader rejects files that predate the common_name/type/level fields.
+			if (loaded == null) {
 				logger.warn("Abilities file is missing new fields. Backing up and regenerating from defaults.");
 				backupIfExists(abilitiesPath, "abilities.json");
 				abilities = loadDefaultAbilities();
 				saveAbilities();
 				logger.info("Regenerated abilities with updated schema");
 			} else {
+				abilities = loaded;
 				logger.info("Loaded existing abilities");
 			}
 		} else {
@@ -186,21 +234,6 @@ public class ConfigManager {
 		}
 	}
 
-	/**
-	 * Checks if the abilities configuration needs migration to the new schema.
-	 * Returns true if any ability is missing the new fields (common_name, type, level).
-	 */
-	private boolean needsAbilitiesMigration() {
-		if (abilities == null || abilities.getAbilities() == null) {
-			return false;
-		}
-
-		// Sample a few abilities to check if they have the new fields
-		return abilities.getAbilities().values().stream()
-				.limit(5)
-				.anyMatch(data -> data.getCommonName() == null && data.getType() == null && data.getLevel() == null);
-	}
-
 	private void backupIfExists(Path filePath, String logicalName) {
 		if (filePath == null || !Files.exists(filePath)) {
 			return;
@@ -218,10 +251,10 @@ public class ConfigManager {
 		}
 	}
 
-	private void loadOrCreateAbilityCategories() throws IOException {
+	private void loadOrCreateAbilityCategories(ConfigStreamReader reader) throws IOException {
 		if (Files.exists(abilityCategoriesPath)) {
 			try {
-				abilityCategories = objectMapper.readValue(abilityCategoriesPath.toFile(), AbilityCategoryConfig.class);
+				abilityCategories = reader.readAbilityCategories(abilityCategoriesPath);
 				logger.info("Loaded existing ability categories");
 				return;
 			} catch (Exception e) {
@@ -237,10 +270,17 @@ public class ConfigManager {
 		logger.info("Created default ability categories");
 	}
 
-	public void saveSettings() throws IOException {
+	/**
+	 * Snapshot the settings and write them in the background.
+	 *
+	 * @return completes once they are on disk, exceptionally if the write failed; an explicit Save reports from it
+	 * @throws IOException when the settings cannot be snapshotted
+	 */
+	public CompletableFuture<Void> saveSettings() throws IOException {
 		settings.setUpdated(Instant.now());
-		objectMapper.writeValue(settingsPath.toFile(), settings);
+		CompletableFuture<Void> written = writeLater(settingsPath, settings);
 		notifySettingsSaved();
+		return written;
 	}
 
 	public void addSettingsSaveListener(Consumer<AppSettings> listener) {
@@ -264,16 +304,127 @@ public class ConfigManager {
 		}
 	}
 
-	public void saveRotations() throws IOException {
-		objectMapper.writeValue(rotationsPath.toFile(), rotations);
+	/**
+	 * A preset library journals only the presets that changed and is compacted once the journal grows; both run on
+	 * the writer thread, so the journal's fsync stays off the caller's. Until the commit runs, the library already
+	 * serves the edits from memory. Anything else is written in full, like the other files.
+	 *
+	 * @return completes once the change is on disk, exceptionally if the write failed
+	 * @throws IOException when plain presets cannot be snapshotted
+	 */
+	public CompletableFuture<Void> saveRotations() throws IOException {
+		if (rotations.getPresets() instanceof PresetLibrary library) {
+			return writer.schedule(rotationsJournalPath.getFileName().toString(), () -> {
+				if (library.commit()) {
+					writer.schedule(rotationsPath.getFileName().toString(), library::compact);
+				}
+			});
+		}
+		return writeLater(rotationsPath, rotations);
 	}
 
-	public void saveAbilities() throws IOException {
-		objectMapper.writeValue(abilitiesPath.toFile(), abilities);
+	public CompletableFuture<Void> saveAbilities() throws IOException {
+		return writeLater(abilitiesPath, abilities);
 	}
 
-	public void saveAbilityCategories() throws IOException {
-		objectMapper.writeValue(abilityCategoriesPath.toFile(), abilityCategories);
+	public CompletableFuture<Void> saveAbilityCategories() throws IOException {
+		return writeLater(abilityCategoriesPath, abilityCategories);
+	}
+
+	/**
+	 * Pick up an outside edit of rotations.json. A library re-reads its source and replays its journal over it; the
+	 * presets of a first run (written in full, not yet a library) are replaced by a library over the file.
+	 *
+	 * @return ids of the presets that may have changed (added, edited or removed); empty for the library's own writes
+	 */
+	public Set<String> reloadRotations() throws IOException {
+		if (writer.isPending(rotationsPath.getFileName().toString()) || !Files.isRegularFile(rotationsPath)) {
+			// A pending save of ours is about to overwrite the file anyway.
+			return Set.of();
+		}
+		if (rotations.getPresets() instanceof PresetLibrary library) {
+			return library.reload();
+		}
+		Set<String> changed = new LinkedHashSet<>();
+		if (rotations.getPresets() != null) {
+			changed.addAll(rotations.getPresets().keySet());
+		}
+		PresetLibrary library = PresetLibrary.open(
+				rotationsPath,
+				rotationsIndexPath,
+				rotationsJournalPath,
+				objectMapper,
+				PresetLibrary.DEFAULT_CACHE_SIZE
+		);
+		changed.addAll(library.keySet());
+		rotations.setPresets(library);
+		logger.info("Reloaded rotations");
+		return changed;
+	}
+
+	/**
+	 * Pick up an outside edit of abilities.json. Changes are applied to the loaded {@link AbilityConfig} in place, so
+	 * everything holding it sees them.
+	 *
+	 * @return names of the abilities that were added, changed or removed
+	 */
+	public Set<String> reloadAbilities() throws IOException {
+		if (writer.isPending(abilitiesPath.getFileName().toString()) || !Files.isRegularFile(abilitiesPath)) {
+			return Set.of();
+		}
+		AbilityConfig loaded = new ConfigStreamReader(objectMapper.getFactory()).readAbilities(abilitiesPath);
+		if (loaded == null) {
+			logger.warn("Ignoring edited abilities file that is missing the common_name/type/level fields");
+			return Set.of();
+		}
+		Map<String, AbilityConfig.AbilityData> current = abilities.getAbilities();
+		Set<String> changed = new LinkedHashSet<>();
+		for (Map.Entry<String, AbilityConfig.AbilityData> entry : loaded.getAbilities().entrySet()) {
+			AbilityConfig.AbilityData previous = current.get(entry.getKey());
+			if (previous == null || !objectMapper.valueToTree(previous).equals(objectMapper.valueToTree(entry.getValue()))) {
+				abilities.putAbility(entry.getKey(), entry.getValue());
+				changed.add(entry.getKey());
+			}
+		}
+		for (String name : List.copyOf(current.keySet())) {
+			if (!loaded.getAbilities().containsKey(name)) {
+				abilities.removeAbility(name);
+				changed.add(name);
+			}
+		}
+		if (!changed.isEmpty()) {
+			logger.info("Reloaded abilities ({} changed)", changed.size());
+		}
+		return changed;
+	}
+
+	/**
+	 * Write every pending save now.
+	 */
+	public void flush() {
+		writer.flush();
+	}
+
+	/**
+	 * Flush pending saves and stop the writer thread; later saves are written synchronously.
+	 */
+	public void shutdown() {
+		writer.close();
+	}
+
+	/**
+	 * Snapshot {@code value} now, on the caller's thread, so later edits cannot race the write; serializing and
+	 * writing the snapshot happen on the writer thread, coalesced with other saves of the same file.
+	 */
+	private CompletableFuture<Void> writeLater(Path target, Object value) throws IOException {
+		JsonNode snapshot;
+		try {
+			snapshot = objectMapper.valueToTree(value);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Failed to snapshot " + target.getFileName(), e);
+		}
+		return writer.schedule(target.getFileName().toString(),
+				() -> ConfigWriter.writeAtomically(target, objectMapper.writeValueAsBytes(snapshot)));
 	}
 
 	// Getters
@@ -297,6 +448,14 @@ public class ConfigManager {
 		return configDir;
 	}
 
+	public Path getRotationsPath() {
+		return rotationsPath;
+	}
+
+	public Path getAbilitiesPath() {
+		return abilitiesPath;
+	}
+
 	public Path getAbilityImagePath() {
 		return abilityImagePath;
 	}
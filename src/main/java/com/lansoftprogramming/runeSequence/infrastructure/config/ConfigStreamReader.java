@@ -0,0 +1,128 @@
+package com.lansoftprogramming.runeSequence.infrastructure.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Streaming readers for {@code abilities.json} and {@code ability_categories.json}. Entries are decoded field by field
+ * straight from the token stream, with no reflective binding and no intermediate tree; fields the app does not use
+ * are skipped. Repeated strings (masks, types, the ability keys the categories list) are shared, which matters for
+ * the heap the config keeps for the whole session.
+ * <p>
+ * One reader shares its strings across every file it reads; not thread-safe.
+ */
+final class ConfigStreamReader {
+	// Entries sampled to tell an abilities file from before the common_name/type/level schema.
+	static final int SCHEMA_SAMPLE_SIZE = 5;
+
+	private final JsonFactory factory;
+	private final Map<String, String> strings = new HashMap<>();
+
+	ConfigStreamReader(JsonFactory factory) {
+		this.factory = Objects.requireNonNull(factory, "factory");
+	}
+
+	/**
+	 * The schema check runs on the first entries, before the rest of the file is decoded: a file where none of them
+	 * has {@code common_name}, {@code type} or {@code level} predates the schema and is not read any further.
+	 *
+	 * @return the abilities, or {@code null} when the file needs migrating
+	 */
+	AbilityConfig readAbilities(Path file) throws IOException {
+		try (JsonParser parser = factory.createParser(file.toFile())) {
+			expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+			AbilityConfig config = new AbilityConfig();
+			int sampled = 0;
+			boolean currentSchema = false;
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = share(parser.currentName());
+				JsonToken value = parser.nextToken();
+				if (value == JsonToken.VALUE_NULL) {
+					continue;
+				}
+				expect(parser, value, JsonToken.START_OBJECT);
+				AbilityConfig.AbilityData data = readAbility(parser);
+				if (sampled < SCHEMA_SAMPLE_SIZE) {
+					sampled++;
+					currentSchema |= data.getCommonName() != null || data.getType() != null || data.getLevel() != null;
+					if (sampled == SCHEMA_SAMPLE_SIZE && !currentSchema) {
+						return null;
+					}
+				}
+				config.putAbility(name, data);
+			}
+			expect(parser, parser.currentToken(), JsonToken.END_OBJECT);
+			return sampled > 0 && !currentSchema ? null : config;
+		}
+	}
+
+	AbilityCategoryConfig readAbilityCategories(Path file) throws IOException {
+		try (JsonParser parser = factory.createParser(file.toFile())) {
+			expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+			Map<String, List<String>> categories = new LinkedHashMap<>();
+			List<String> keys = new ArrayList<>();
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String category = share(parser.currentName());
+				JsonToken value = parser.nextToken();
+				if (value == JsonToken.VALUE_NULL) {
+					categories.put(category, null);
+					continue;
+				}
+				expect(parser, value, JsonToken.START_ARRAY);
+				keys.clear();
+				JsonToken element;
+				while ((element = parser.nextToken()) != JsonToken.END_ARRAY) {
+					expect(parser, element, JsonToken.VALUE_STRING);
+					keys.add(share(parser.getText()));
+				}
+				categories.put(category, List.copyOf(keys));
+			}
+			expect(parser, parser.currentToken(), JsonToken.END_OBJECT);
+			return new AbilityCategoryConfig(categories);
+		}
+	}
+
+	private AbilityConfig.AbilityData readAbility(JsonParser parser) throws IOException {
+		AbilityConfig.AbilityData data = new AbilityConfig.AbilityData();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.currentName();
+			JsonToken value = parser.nextToken();
+			if (value == JsonToken.VALUE_NULL) {
+				// Leaves the default, as the field would be absent.
+				continue;
+			}
+			switch (field) {
+				case "common_name" -> data.setCommonName(share(parser.getValueAsString()));
+				case "type" -> data.setType(share(parser.getValueAsString()));
+				case "level" -> data.setLevel(parser.getIntValue());
+				case "triggers_gcd" -> data.setTriggersGcd(parser.getBooleanValue());
+				case "cast_duration" -> data.setCastDuration(parser.getShortValue());
+				case "cooldown" -> data.setCooldown(parser.getShortValue());
+				case "detection_threshold" -> data.setDetectionThreshold(parser.getDoubleValue());
+				case "mask" -> data.setMask(share(parser.getValueAsString()));
+				default -> parser.skipChildren();
+			}
+		}
+		return data;
+	}
+
+	private String share(String value) {
+		if (value == null) {
+			return null;
+		}
+		String shared = strings.putIfAbsent(value, value);
+		return shared != null ? shared : value;
+	}
+
+	private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws IOException {
+		if (actual != expected) {
+			throw new JsonParseException(parser, "Expected " + expected + " but found " + actual);
+		}
+	}
+}
@@ -0,0 +1,184 @@
+package com.lansoftprogramming.runeSequence.infrastructure.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Background writer for config files. Writes are keyed (one key per file): scheduling a key replaces its pending
+ * write and restarts a short quiet period, so a burst of saves from UI handlers becomes one write. A key waits at most
+ * {@code maxDelayMillis} after its first pending request. Every write runs on one daemon thread, in order, and each
+ * request's future completes once the write that covers it has run (exceptionally when that write failed).
+ * <p>
+ * {@link #writeAtomically} is the crash-safe primitive: temp file, fsync, atomic rename. A crash leaves either the
+ * old or the new file, never a torn one.
+ */
+final class ConfigWriter implements AutoCloseable {
+	private static final Logger logger = LoggerFactory.getLogger(ConfigWriter.class);
+
+	@FunctionalInterface
+	interface Write {
+		void run() throws IOException;
+	}
+
+	private final long debounceMillis;
+	private final long maxDelayMillis;
+	private final ScheduledExecutorService executor;
+	private final Map<String, Pending> pending = new LinkedHashMap<>();
+
+	ConfigWriter(long debounceMillis, long maxDelayMillis) {
+		this.debounceMillis = Math.max(0L, debounceMillis);
+		this.maxDelayMillis = Math.max(this.debounceMillis, maxDelayMillis);
+		this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "ConfigWriter");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * Run {@code write} once {@code key} has been quiet for the debounce period, replacing any write still pending
+	 * for it.
+	 *
+	 * @return completes when {@code write}, or a later one for the same key that replaced it, has run; shared with
+	 * the requests it replaced
+	 */
+	synchronized CompletableFuture<Void> schedule(String key, Write write) {
+		if (executor.isShutdown()) {
+			CompletableFuture<Void> done = new CompletableFuture<>();
+			runNow(key, write, done);
+			return done;
+		}
+		long now = System.nanoTime();
+		Pending previous = pending.get(key);
+		long firstRequested = previous != null ? previous.firstRequestedNanos() : now;
+		CompletableFuture<Void> done = previous != null ? previous.done() : new CompletableFuture<>();
+		if (previous != null) {
+			previous.future().cancel(false);
+		}
+		long waitedMillis = TimeUnit.NANOSECONDS.toMillis(now - firstRequested);
+		long delay = Math.max(0L, Math.min(debounceMillis, maxDelayMillis - waitedMillis));
+		ScheduledFuture<?> future = executor.schedule(() -> runPending(key), delay, TimeUnit.MILLISECONDS);
+		pending.put(key, new Pending(write, firstRequested, future, done));
+		return done;
+	}
+
+	/**
+	 * Whether a write for {@code key} is waiting to run.
+	 */
+	synchronized boolean isPending(String key) {
+		return pending.containsKey(key);
+	}
+
+	/**
+	 * Run every pending write now and wait for them.
+	 */
+	void flush() {
+		Future<?> drained;
+		synchronized (this) {
+			if (executor.isShutdown()) {
+				return;
+			}
+			drained = executor.submit(this::drain);
+		}
+		try {
+			drained.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			logger.warn("Flushing pending config writes failed", e.getCause());
+		}
+	}
+
+	/**
+	 * Flush, then stop the writer thread. Later writes run on the caller's thread.
+	 */
+	@Override
+	public void close() {
+		flush();
+		synchronized (this) {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Replace {@code target} with {@code bytes}: write a sibling temp file, fsync it, and rename it over the target.
+	 */
+	static void writeAtomically(Path target, byte[] bytes) throws IOException {
+		Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp,
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+		replace(temp, target);
+	}
+
+	/**
+	 * Rename an already synced {@code temp} over {@code target}, then best-effort sync the directory entry.
+	 */
+	static void replace(Path temp, Path target) throws IOException {
+		try {
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+		Path directory = target.toAbsolutePath().getParent();
+		if (directory == null) {
+			return;
+		}
+		// Not supported everywhere (Windows); the rename itself is still atomic there.
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException | UnsupportedOperationException e) {
+			logger.trace("Directory sync unavailable for {}", directory, e);
+		}
+	}
+
+	private void runPending(String key) {
+		Pending current;
+		synchronized (this) {
+			current = pending.remove(key);
+		}
+		if (current != null) {
+			runNow(key, current.write(), current.done());
+		}
+	}
+
+	private void drain() {
+		Map<String, Pending> batch;
+		synchronized (this) {
+			batch = new LinkedHashMap<>(pending);
+			pending.clear();
+		}
+		for (Map.Entry<String, Pending> entry : batch.entrySet()) {
+			entry.getValue().future().cancel(false);
+			runNow(entry.getKey(), entry.getValue().write(), entry.getValue().done());
+		}
+	}
+
+	private static void runNow(String key, Write write, CompletableFuture<Void> done) {
+		try {
+			write.run();
+			logger.debug("Wrote {}", key);
+			done.complete(null);
+		} catch (IOException | RuntimeException e) {
+			logger.warn("Failed to write {}", key, e);
+			done.completeExceptionally(e);
+		}
+	}
+
+	private record Pending(Write write, long firstRequestedNanos, ScheduledFuture<?> future,
+	                       CompletableFuture<Void> done) {
+	}
+}
@@ -0,0 +1,928 @@
+package com.lansoftprogramming.runeSequence.infrastructure.config;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.lansoftprogramming.runeSequence.core.sequence.parser.RotationDslCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+/**
+ * The presets of {@code rotations.json} as a lazily loaded map. Opening the library only builds (or reuses) an index
+ * of each preset's id, name, ability keys and byte range in the file; a preset's body is bound on first
+ * {@link #get(Object)} and kept in a small LRU.
+ * <p>
+ * The index is persisted next to the source and reused while the source's size and modification time match, so
+ * startup reads neither the file nor any preset it does not need.
+ * <p>
+ * Changes are held in memory until {@link #commit()}, which appends one record per changed preset to a journal and
+ * fsyncs it, so saving an edit never rewrites the library. Opening replays the journal over the source, cutting off a
+ * record torn by a crash and skipping any other unreadable one. {@link #compact()} folds the journal back into the
+ * source (temp file, fsync, atomic rename) and can run in the background; until it does, journaled presets are read
+ * straight from the journal.
+ * <p>
+ * An instance returned by {@link #get(Object)} that is changed in place is an edit like any other: the cache
+ * remembers a fingerprint of each instance it binds, and one found changed when it would be evicted or at the next
+ * {@link #commit()} stays pending instead of being dropped. {@link #put} it back to have {@link #nameOf} and
+ * {@link #abilityKeysOf} see the change before then. Thread-safe.
+ */
+public final class PresetLibrary extends AbstractMap<String, RotationConfig.PresetData> implements Closeable {
+	private static final Logger logger = LoggerFactory.getLogger(PresetLibrary.class);
+	public static final int DEFAULT_CACHE_SIZE = 128;
+	private static final int INDEX_MAGIC = 0x52534958; // "RSIX"
+	private static final int INDEX_VERSION = 2;
+	private static final long MIN_COMPACTION_BYTES = 64L * 1024L;
+
+	private final Path source;
+	private final Path indexFile;
+	private final Path journalFile;
+	private final ObjectMapper objectMapper;
+	private final ObjectWriter recordWriter;
+	private final LinkedHashMap<String, IndexEntry> index = new LinkedHashMap<>();
+	private final Map<String, RotationConfig.PresetData> edited = new LinkedHashMap<>();
+	private final Set<String> removed = new LinkedHashSet<>();
+	private final Map<String, Bound> cache;
+	// Index keys in order, for positional access; rebuilt after the key set changes.
+	private List<String> order;
+	// Serializes compactions, which share a temp file; held without the library's own lock while writing.
+	private final Object compactionLock = new Object();
+	// Bumped whenever the source is replaced (compaction, reload); an in-flight compaction then drops its rewrite.
+	private long generation;
+	private long sourceSize;
+	private long sourceModified;
+	private long journalSize;
+	private FileChannel sourceChannel;
+	private FileChannel journalChannel;
+
+	private PresetLibrary(Path source, Path indexFile, Path journalFile, ObjectMapper objectMapper, int cacheSize) {
+		this.source = source;
+		this.indexFile = indexFile;
+		this.journalFile = journalFile;
+		this.objectMapper = objectMapper;
+		this.recordWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+		int capacity = Math.max(1, cacheSize);
+		this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Bound> eldest) {
+				if (size() <= capacity) {
+					return false;
+				}
+				pinIfChanged(eldest.getKey(), eldest.getValue());
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Open {@code source} (a rotations file), reusing {@code indexFile} when it is current and rewriting it otherwise,
+	 * then replay {@code journalFile} over it.
+	 *
+	 * @param indexFile persisted index location, or {@code null} to index in memory only
+	 * @throws IOException when the source cannot be read or is not a rotations file
+	 */
+	public static PresetLibrary open(Path source,
+	                                 Path indexFile,
+	                                 Path journalFile,
+	                                 ObjectMapper objectMapper,
+	                                 int cacheSize) throws IOException {
+		PresetLibrary library = new PresetLibrary(
+				Objects.requireNonNull(source, "source"),
+				indexFile,
+				Objects.requireNonNull(journalFile, "journalFile"),
+				Objects.requireNonNull(objectMapper, "objectMapper"),
+				cacheSize
+		);
+		synchronized (library) {
+			library.loadIndex();
+			library.replayJournal();
+		}
+		return library;
+	}
+
+	/**
+	 * Name of a preset, from the index unless it was edited; does not load the preset.
+	 */
+	public synchronized String nameOf(String id) {
+		RotationConfig.PresetData preset = edited.get(id);
+		if (preset != null) {
+			return preset.getName();
+		}
+		IndexEntry entry = index.get(id);
+		return entry != null ? entry.name() : null;
+	}
+
+	/**
+	 * Base ability keys a preset's expression uses, from the index unless it was edited; does not load the preset.
+	 */
+	public synchronized Set<String> abilityKeysOf(String id) {
+		RotationConfig.PresetData preset = edited.get(id);
+		if (preset != null) {
+			return RotationDslCodec.collectAbilityKeysInExpression(preset.getExpression());
+		}
+		IndexEntry entry = index.get(id);
+		return entry != null ? entry.abilityKeys() : Set.of();
+	}
+
+	/**
+	 * Id of the preset at {@code position} in listing order; does not load the preset.
+	 *
+	 * @throws IndexOutOfBoundsException when {@code position} is not below {@link #size()}
+	 */
+	public synchronized String idAt(int position) {
+		return order().get(position);
+	}
+
+	/**
+	 * Listing position of a preset, or -1 when the library does not hold it.
+	 */
+	public synchronized int positionOf(String id) {
+		return index.containsKey(id) ? order().indexOf(id) : -1;
+	}
+
+	/**
+	 * Durably record every change since the last commit by appending it to the journal.
+	 *
+	 * @return whether the journal has grown enough that {@link #compact()} should run
+	 */
+	public synchronized boolean commit() throws IOException {
+		for (Iterator<Map.Entry<String, Bound>> it = cache.entrySet().iterator(); it.hasNext(); ) {
+			Map.Entry<String, Bound> entry = it.next();
+			if (pinIfChanged(entry.getKey(), entry.getValue())) {
+				it.remove();
+			}
+		}
+		if (edited.isEmpty() && removed.isEmpty()) {
+			return needsCompaction();
+		}
+		try (FileChannel out = FileChannel.open(journalFile,
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			long base = out.size();
+			ByteArrayOutputStream records = new ByteArrayOutputStream();
+			for (String id : removed) {
+				records.write(recordPrefix(id));
+				records.write("\"removed\":true}\n".getBytes(StandardCharsets.UTF_8));
+			}
+			Map<String, IndexEntry> journaled = new LinkedHashMap<>();
+			for (Map.Entry<String, RotationConfig.PresetData> entry : edited.entrySet()) {
+				RotationConfig.PresetData preset = entry.getValue();
+				byte[] body = recordWriter.writeValueAsBytes(preset);
+				records.write(recordPrefix(entry.getKey()));
+				records.write("\"preset\":".getBytes(StandardCharsets.UTF_8));
+				long offset = base + records.size();
+				records.write(body);
+				records.write("}\n".getBytes(StandardCharsets.UTF_8));
+				journaled.put(entry.getKey(), new IndexEntry(
+						preset != null ? preset.getName() : null,
+						RotationDslCodec.collectAbilityKeysInExpression(preset != null ? preset.getExpression() : null),
+						true,
+						offset,
+						body.length,
+						checksum(body, 0, body.length)
+				));
+			}
+			ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+			while (buffer.hasRemaining()) {
+				out.write(buffer);
+			}
+			out.force(true);
+			journalSize = base + records.size();
+
+			index.putAll(journaled);
+			for (Map.Entry<String, RotationConfig.PresetData> entry : edited.entrySet()) {
+				if (entry.getValue() != null) {
+					// The journaled body is the preset as recordWriter wrote it, so its checksum is the fingerprint.
+					cache.put(entry.getKey(), new Bound(entry.getValue(), journaled.get(entry.getKey()).checksum()));
+				}
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Journaled {} preset change(s) to {}", journaled.size() + removed.size(), journalFile.getFileName());
+			}
+			edited.clear();
+			removed.clear();
+		}
+		return needsCompaction();
+	}
+
+	/**
+	 * Rewrite the source with every committed preset and drop the journal. Uncommitted changes stay pending. Preset
+	 * bodies are copied as they are stored, without re-binding them.
+	 * <p>
+	 * The library stays usable meanwhile: only snapshotting the index and swapping in the new file hold its lock. If
+	 * a commit, reload or other compaction lands in between, the rewrite is discarded and the journal kept; the next
+	 * {@link #commit()} asks for compaction again.
+	 *
+	 * @return false when the rewrite was discarded
+	 */
+	public boolean compact() throws IOException {
+		synchronized (compactionLock) {
+			long startNanos = System.nanoTime();
+			List<Map.Entry<String, IndexEntry>> committed;
+			Set<String> folded;
+			long snapshotJournalSize;
+			long snapshotGeneration;
+			synchronized (this) {
+				committed = new ArrayList<>();
+				for (Map.Entry<String, IndexEntry> entry : index.entrySet()) {
+					if (entry.getValue() != IndexEntry.UNSAVED) {
+						committed.add(Map.entry(entry.getKey(), entry.getValue()));
+					}
+				}
+				folded = Set.copyOf(removed);
+				snapshotJournalSize = journalSize;
+				snapshotGeneration = generation;
+			}
+
+			Path temp = source.resolveSibling(source.getFileName() + ".tmp");
+			Map<String, IndexEntry> rewritten = writeCompacted(temp, committed);
+
+			synchronized (this) {
+				if (generation != snapshotGeneration || journalSize != snapshotJournalSize) {
+					Files.deleteIfExists(temp);
+					logger.debug("Discarded a compaction of {}; the library changed meanwhile", source.getFileName());
+					return false;
+				}
+				closeChannels();
+				ConfigWriter.replace(temp, source);
+				// A crash before this delete replays records the new source already holds, which changes nothing.
+				Files.deleteIfExists(journalFile);
+				journalSize = 0L;
+				generation++;
+				removed.removeAll(folded);
+				index.replaceAll((id, entry) -> rewritten.getOrDefault(id, IndexEntry.UNSAVED));
+				sourceSize = Files.size(source);
+				sourceModified = Files.getLastModifiedTime(source).toMillis();
+				writeIndexFile(sourceSize, sourceModified);
+			}
+			if (logger.isInfoEnabled()) {
+				logger.info("Compacted {} preset(s) into {} in {} ms",
+						rewritten.size(), source.getFileName(), (System.nanoTime() - startNanos) / 1_000_000L);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Write {@code committed} to {@code temp} as a rotations file and fsync it, reading bodies through channels of its
+	 * own so the shared ones stay with the lock.
+	 *
+	 * @return where each preset now lives in {@code temp}
+	 */
+	private Map<String, IndexEntry> writeCompacted(Path temp, List<Map.Entry<String, IndexEntry>> committed)
+			throws IOException {
+		Map<String, IndexEntry> rewritten = new LinkedHashMap<>();
+		FileChannel sourceIn = null;
+		FileChannel journalIn = null;
+		try (FileChannel out = FileChannel.open(temp,
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			long position = write(out, "{\n  \"presets\" : {");
+			boolean first = true;
+			for (Map.Entry<String, IndexEntry> entry : committed) {
+				IndexEntry stored = entry.getValue();
+				FileChannel in;
+				if (stored.journaled()) {
+					in = journalIn != null ? journalIn : (journalIn = FileChannel.open(journalFile, StandardOpenOption.READ));
+				} else {
+					in = sourceIn != null ? sourceIn : (sourceIn = FileChannel.open(source, StandardOpenOption.READ));
+				}
+				byte[] body = readBody(in, stored);
+				position += write(out, (first ? "\n    " : ",\n    ") + objectMapper.writeValueAsString(entry.getKey()) + " : ");
+				rewritten.put(entry.getKey(), new IndexEntry(stored.name(), stored.abilityKeys(), false, position, body.length,
+						stored.checksum()));
+				position += write(out, body);
+				first = false;
+			}
+			write(out, first ? "}\n}\n" : "\n  }\n}\n");
+			out.force(true);
+		} finally {
+			// Closed before the swap: an open handle blocks replacing the file on some platforms.
+			for (FileChannel channel : new FileChannel[]{sourceIn, journalIn}) {
+				if (channel != null) {
+					channel.close();
+				}
+			}
+		}
+		return rewritten;
+	}
+
+	/**
+	 * Re-read the source after it was changed outside the library (edited by hand, say), then replay the journal over
+	 * it again. Uncommitted changes stay pending. If the new source cannot be read, the library keeps its current
+	 * index.
+	 *
+	 * @return ids of the presets that were added, removed or whose stored body changed; empty when the source is
+	 * still the one the library last read or wrote
+	 */
+	public synchronized Set<String> reload() throws IOException {
+		if (!Files.isRegularFile(source)
+				|| (Files.size(source) == sourceSize && Files.getLastModifiedTime(source).toMillis() == sourceModified)) {
+			return Set.of();
+		}
+		Map<String, IndexEntry> previous = new LinkedHashMap<>(index);
+		long previousSize = sourceSize;
+		long previousModified = sourceModified;
+		closeChannels();
+		index.clear();
+		generation++;
+		try {
+			loadIndex();
+			replayJournal();
+		} catch (IOException | RuntimeException e) {
+			index.clear();
+			index.putAll(previous);
+			sourceSize = previousSize;
+			sourceModified = previousModified;
+			throw e;
+		}
+		cache.forEach(this::pinIfChanged);
+		cache.clear();
+		order = null;
+		removed.removeIf(id -> index.remove(id) == null);
+		for (String id : edited.keySet()) {
+			index.putIfAbsent(id, IndexEntry.UNSAVED);
+		}
+		Set<String> changed = new LinkedHashSet<>();
+		for (Map.Entry<String, IndexEntry> entry : index.entrySet()) {
+			IndexEntry before = previous.get(entry.getKey());
+			if (before == null || !before.sameBody(entry.getValue())) {
+				changed.add(entry.getKey());
+			}
+		}
+		for (String id : previous.keySet()) {
+			if (!index.containsKey(id)) {
+				changed.add(id);
+			}
+		}
+		logger.info("Reloaded {} preset(s) from {}, {} changed", index.size(), source.getFileName(), changed.size());
+		return Collections.unmodifiableSet(changed);
+	}
+
+	@Override
+	public RotationConfig.PresetData get(Object key) {
+		if (!(key instanceof String id)) {
+			return null;
+		}
+		byte[] body;
+		synchronized (this) {
+			if (edited.containsKey(id)) {
+				return edited.get(id);
+			}
+			Bound bound = cache.get(id);
+			if (bound != null) {
+				return bound.preset();
+			}
+			IndexEntry entry = index.get(id);
+			if (entry == null || entry == IndexEntry.UNSAVED) {
+				return null;
+			}
+			try {
+				body = readBody(entry);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to read preset " + id + " from " + source, e);
+			}
+		}
+
+		// Bind outside the lock so parallel compiles only serialize on the file read.
+		RotationConfig.PresetData preset;
+		try {
+			preset = objectMapper.readValue(body, RotationConfig.PresetData.class);
+		} catch (IOException e) {
+			logger.warn("Preset {} in {} could not be read", id, source, e);
+			return null;
+		}
+		long fingerprint = fingerprint(preset);
+		synchronized (this) {
+			if (edited.containsKey(id)) {
+				return edited.get(id);
+			}
+			if (!index.containsKey(id)) {
+				return preset;
+			}
+			Bound raced = cache.putIfAbsent(id, new Bound(preset, fingerprint));
+			return raced != null ? raced.preset() : preset;
+		}
+	}
+
+	@Override
+	public synchronized boolean containsKey(Object key) {
+		return index.containsKey(key);
+	}
+
+	@Override
+	public synchronized RotationConfig.PresetData put(String id, RotationConfig.PresetData preset) {
+		Objects.requireNonNull(id, "id");
+		RotationConfig.PresetData previous = edited.put(id, preset);
+		Bound bound = cache.remove(id);
+		if (previous == null && bound != null) {
+			previous = bound.preset();
+		}
+		removed.remove(id);
+		if (index.putIfAbsent(id, IndexEntry.UNSAVED) == null) {
+			order = null;
+		}
+		return previous;
+	}
+
+	@Override
+	public RotationConfig.PresetData remove(Object key) {
+		if (!(key instanceof String id)) {
+			return null;
+		}
+		RotationConfig.PresetData previous = get(id);
+		synchronized (this) {
+			edited.remove(id);
+			cache.remove(id);
+			IndexEntry entry = index.remove(id);
+			if (entry == null) {
+				return null;
+			}
+			order = null;
+			if (entry != IndexEntry.UNSAVED) {
+				removed.add(id);
+			}
+			return previous;
+		}
+	}
+
+	@Override
+	public synchronized int size() {
+		return index.size();
+	}
+
+	@Override
+	public Set<Map.Entry<String, RotationConfig.PresetData>> entrySet() {
+		return new AbstractSet<>() {
+			@Override
+			public Iterator<Map.Entry<String, RotationConfig.PresetData>> iterator() {
+				Iterator<String> ids = snapshotIds().iterator();
+				return new Iterator<>() {
+					private String current;
+
+					@Override
+					public boolean hasNext() {
+						return ids.hasNext();
+					}
+
+					@Override
+					public Map.Entry<String, RotationConfig.PresetData> next() {
+						current = ids.next();
+						return new LazyEntry(current);
+					}
+
+					@Override
+					public void remove() {
+						if (current == null) {
+							throw new IllegalStateException();
+						}
+						PresetLibrary.this.remove(current);
+						current = null;
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return PresetLibrary.this.size();
+			}
+		};
+	}
+
+	@Override
+	public synchronized void close() {
+		closeChannels();
+	}
+
+	private synchronized List<String> snapshotIds() {
+		return new ArrayList<>(index.keySet());
+	}
+
+	private List<String> order() {
+		if (order == null) {
+			order = new ArrayList<>(index.keySet());
+		}
+		return order;
+	}
+
+	/**
+	 * Keep {@code bound} pending in {@code edited} if it was changed in place since it was bound.
+	 *
+	 * @return whether it was pinned
+	 */
+	private boolean pinIfChanged(String id, Bound bound) {
+		if (edited.containsKey(id) || fingerprint(bound.preset()) == bound.fingerprint()) {
+			return false;
+		}
+		edited.put(id, bound.preset());
+		if (logger.isDebugEnabled()) {
+			logger.debug("Preset {} was changed in place; keeping it as a pending edit", id);
+		}
+		return true;
+	}
+
+	/**
+	 * Checksum of a preset as {@link #commit()} would journal it.
+	 */
+	private long fingerprint(RotationConfig.PresetData preset) {
+		try {
+			byte[] body = recordWriter.writeValueAsBytes(preset);
+			return checksum(body, 0, body.length);
+		} catch (IOException e) {
+			// Commit would fail on it as well; treat it as unchanged rather than pin something unwritable.
+			logger.warn("Failed to fingerprint a preset of {}", source.getFileName(), e);
+			return 0L;
+		}
+	}
+
+	private boolean needsCompaction() {
+		return journalSize > Math.max(MIN_COMPACTION_BYTES, sourceSize / 4L);
+	}
+
+	private byte[] recordPrefix(String id) throws IOException {
+		return ("{\"id\":" + objectMapper.writeValueAsString(id) + ",").getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static long write(FileChannel out, String text) throws IOException {
+		return write(out, text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static long write(FileChannel out, byte[] bytes) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		while (buffer.hasRemaining()) {
+			out.write(buffer);
+		}
+		return bytes.length;
+	}
+
+	private byte[] readBody(IndexEntry entry) throws IOException {
+		FileChannel channel;
+		if (entry.journaled()) {
+			if (journalChannel == null || !journalChannel.isOpen()) {
+				journalChannel = FileChannel.open(journalFile, StandardOpenOption.READ);
+			}
+			channel = journalChannel;
+		} else {
+			if (sourceChannel == null || !sourceChannel.isOpen()) {
+				sourceChannel = FileChannel.open(source, StandardOpenOption.READ);
+			}
+			channel = sourceChannel;
+		}
+		return readBody(channel, entry);
+	}
+
+	private static byte[] readBody(FileChannel channel, IndexEntry entry) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(entry.length());
+		long position = entry.offset();
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position + buffer.position());
+			if (read < 0) {
+				throw new EOFException("Preset body extends past the end of its file");
+			}
+		}
+		return buffer.array();
+	}
+
+	private void closeChannels() {
+		for (FileChannel channel : new FileChannel[]{sourceChannel, journalChannel}) {
+			if (channel == null) {
+				continue;
+			}
+			try {
+				channel.close();
+			} catch (IOException e) {
+				logger.debug("Failed to close a preset library file", e);
+			}
+		}
+		sourceChannel = null;
+		journalChannel = null;
+	}
+
+	private void loadIndex() throws IOException {
+		sourceSize = Files.size(source);
+		long modified = Files.getLastModifiedTime(source).toMillis();
+		sourceModified = modified;
+		if (readIndexFile(sourceSize, modified)) {
+			logger.debug("Reused preset index {} ({} presets)", indexFile, index.size());
+			return;
+		}
+		long startNanos = System.nanoTime();
+		scan();
+		writeIndexFile(sourceSize, modified);
+		if (logger.isInfoEnabled()) {
+			logger.info("Indexed {} preset(s) from {} in {} ms",
+					index.size(), source.getFileName(), (System.nanoTime() - startNanos) / 1_000_000L);
+		}
+	}
+
+	/**
+	 * Stream the source once, recording each preset's byte range plus the fields the index keeps, then checksum each
+	 * range so {@link #reload()} can tell which presets an outside edit changed.
+	 */
+	private void scan() throws IOException {
+		try (JsonParser parser = objectMapper.getFactory().createParser(source.toFile())) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new IOException("Rotations file is not a JSON object: " + source);
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.currentName();
+				JsonToken value = parser.nextToken();
+				if (!"presets".equals(field) || value == JsonToken.VALUE_NULL) {
+					parser.skipChildren();
+					continue;
+				}
+				if (value != JsonToken.START_OBJECT) {
+					throw new IOException("\"presets\" is not a JSON object in " + source);
+				}
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					String id = parser.currentName();
+					parser.nextToken();
+					index.remove(id);
+					index.put(id, scanPreset(parser, false, 0L));
+				}
+			}
+		}
+		try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+			for (Map.Entry<String, IndexEntry> entry : index.entrySet()) {
+				byte[] body = readBody(in, entry.getValue());
+				entry.setValue(entry.getValue().withChecksum(checksum(body, 0, body.length)));
+			}
+		}
+	}
+
+	/**
+	 * Apply every complete journal record in order. Records are one per line, so only an unterminated last line can
+	 * be a record torn by a crash; it is cut off so later appends follow the last good record. A corrupt record
+	 * anywhere else is skipped and left for {@link #compact()} to drop.
+	 */
+	private void replayJournal() throws IOException {
+		if (!Files.isRegularFile(journalFile)) {
+			journalSize = 0L;
+			return;
+		}
+		byte[] journal = Files.readAllBytes(journalFile);
+		int records = 0;
+		int start = 0;
+		while (start < journal.length) {
+			int end = indexOf(journal, (byte) '\n', start);
+			if (end < 0) {
+				if (!isBlank(journal, start, journal.length)) {
+					logger.warn("Ignoring a torn record at byte {} of {}", start, journalFile);
+					try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+						channel.truncate(start);
+						channel.force(true);
+					}
+				}
+				break;
+			}
+			if (!isBlank(journal, start, end)) {
+				try {
+					applyRecord(journal, start, end - start);
+					records++;
+				} catch (IOException e) {
+					logger.warn("Skipping an unreadable record at byte {} of {}", start, journalFile, e);
+				}
+			}
+			start = end + 1;
+		}
+		journalSize = Files.size(journalFile);
+		if (records > 0) {
+			logger.info("Replayed {} journaled preset change(s) from {}", records, journalFile.getFileName());
+		}
+	}
+
+	private void applyRecord(byte[] journal, int offset, int length) throws IOException {
+		String id = null;
+		IndexEntry stored = null;
+		boolean removal = false;
+		try (JsonParser parser = objectMapper.getFactory().createParser(journal, offset, length)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new IOException("Journal record is not a JSON object");
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.currentName();
+				JsonToken value = parser.nextToken();
+				if ("id".equals(field) && value == JsonToken.VALUE_STRING) {
+					id = parser.getText();
+				} else if ("preset".equals(field)) {
+					stored = scanPreset(parser, true, offset);
+				} else if ("removed".equals(field)) {
+					removal = value == JsonToken.VALUE_TRUE;
+				} else {
+					parser.skipChildren();
+				}
+			}
+			if (parser.currentToken() != JsonToken.END_OBJECT || parser.nextToken() != null
+					|| id == null || (stored == null && !removal)) {
+				throw new IOException("Incomplete journal record");
+			}
+		}
+		if (removal) {
+			index.remove(id);
+		} else {
+			int start = (int) stored.offset();
+			index.put(id, stored.withChecksum(checksum(journal, start, stored.length())));
+		}
+	}
+
+	private static long checksum(byte[] bytes, int offset, int length) {
+		CRC32C crc = new CRC32C();
+		crc.update(bytes, offset, length);
+		return crc.getValue();
+	}
+
+	private static int indexOf(byte[] bytes, byte value, int from) {
+		for (int i = from; i < bytes.length; i++) {
+			if (bytes[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean isBlank(byte[] bytes, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (!Character.isWhitespace(bytes[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param base file offset of the parser's input, added to the byte offsets it reports
+	 */
+	private IndexEntry scanPreset(JsonParser parser, boolean journaled, long base) throws IOException {
+		long start = parser.currentTokenLocation().getByteOffset();
+		String name = null;
+		String expression = null;
+		if (parser.currentToken() == JsonToken.START_OBJECT) {
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.currentName();
+				JsonToken value = parser.nextToken();
+				if ("name".equals(field) && value == JsonToken.VALUE_STRING) {
+					name = parser.getText();
+				} else if ("expression".equals(field) && value == JsonToken.VALUE_STRING) {
+					expression = parser.getText();
+				} else {
+					parser.skipChildren();
+				}
+			}
+		} else {
+			parser.skipChildren();
+		}
+		long end = parser.currentLocation().getByteOffset();
+		if (start < 0 || end <= start || end - start > Integer.MAX_VALUE) {
+			throw new IOException("Could not locate a preset body");
+		}
+		return new IndexEntry(name, RotationDslCodec.collectAbilityKeysInExpression(expression), journaled, base + start,
+				(int) (end - start), 0L);
+	}
+
+	private boolean readIndexFile(long size, long modified) {
+		if (indexFile == null || !Files.isRegularFile(indexFile)) {
+			return false;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+			if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION
+					|| in.readLong() != size || in.readLong() != modified) {
+				return false;
+			}
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String id = in.readUTF();
+				String name = in.readBoolean() ? in.readUTF() : null;
+				int keyCount = in.readInt();
+				Set<String> keys = new HashSet<>(keyCount * 2);
+				for (int k = 0; k < keyCount; k++) {
+					keys.add(in.readUTF());
+				}
+				long offset = in.readLong();
+				int length = in.readInt();
+				long checksum = in.readLong();
+				if (offset < 0 || length <= 0 || offset + length > size) {
+					throw new IOException("Corrupt preset index entry " + id);
+				}
+				index.put(id, new IndexEntry(name, Set.copyOf(keys), false, offset, length, checksum));
+			}
+			return true;
+		} catch (IOException | RuntimeException e) {
+			logger.warn("Preset index {} could not be read; rebuilding it", indexFile, e);
+			index.clear();
+			return false;
+		}
+	}
+
+	/**
+	 * Persist the source entries of the index; journaled and unsaved presets are left to the journal replay.
+	 */
+	private void writeIndexFile(long size, long modified) {
+		if (indexFile == null) {
+			return;
+		}
+		Path temp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				List<Map.Entry<String, IndexEntry>> stored = index.entrySet().stream()
+						.filter(entry -> entry.getValue() != IndexEntry.UNSAVED && !entry.getValue().journaled())
+						.toList();
+				out.writeInt(INDEX_MAGIC);
+				out.writeInt(INDEX_VERSION);
+				out.writeLong(size);
+				out.writeLong(modified);
+				out.writeInt(stored.size());
+				for (Map.Entry<String, IndexEntry> entry : stored) {
+					IndexEntry value = entry.getValue();
+					out.writeUTF(entry.getKey());
+					out.writeBoolean(value.name() != null);
+					if (value.name() != null) {
+						out.writeUTF(value.name());
+					}
+					out.writeInt(value.abilityKeys().size());
+					for (String key : value.abilityKeys()) {
+						out.writeUTF(key);
+					}
+					out.writeLong(value.offset());
+					out.writeInt(value.length());
+					out.writeLong(value.checksum());
+				}
+			}
+			Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException | RuntimeException e) {
+			// Only costs a rescan next start.
+			logger.warn("Failed to write preset index {}", indexFile, e);
+		}
+	}
+
+	/**
+	 * Where a committed preset lives (the source, or the journal when {@code journaled}), plus the fields listed
+	 * without loading it and a checksum of its stored body. {@link #UNSAVED} marks presets that only exist in
+	 * {@code edited}.
+	 */
+	private record IndexEntry(String name, Set<String> abilityKeys, boolean journaled, long offset, int length,
+	                          long checksum) {
+		private static final IndexEntry UNSAVED = new IndexEntry(null, Set.of(), false, -1, 0, 0L);
+
+		private IndexEntry withChecksum(long value) {
+			return new IndexEntry(name, abilityKeys, journaled, offset, length, value);
+		}
+
+		/**
+		 * Whether both entries store the same body, wherever it lives.
+		 */
+		private boolean sameBody(IndexEntry other) {
+			return length == other.length && checksum == other.checksum;
+		}
+	}
+
+	/**
+	 * A cached preset and the {@link #fingerprint} it had when it was bound or committed.
+	 */
+	private record Bound(RotationConfig.PresetData preset, long fingerprint) {
+	}
+
+	private final class LazyEntry implements Map.Entry<String, RotationConfig.PresetData> {
+		private final String id;
+
+		private LazyEntry(String id) {
+			this.id = id;
+		}
+
+		@Override
+		public String getKey() {
+			return id;
+		}
+
+		@Override
+		public RotationConfig.PresetData getValue() {
+			return get(id);
+		}
+
+		@Override
+		public RotationConfig.PresetData setValue(RotationConfig.PresetData value) {
+			return put(id, value);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Map.Entry<?, ?> other
+					&& id.equals(other.getKey())
+					&& Objects.equals(getValue(), other.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return id.hashCode() ^ Objects.hashCode(getValue());
+		}
+	}
+}
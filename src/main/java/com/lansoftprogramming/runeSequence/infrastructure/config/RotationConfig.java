@@ -19,6 +19,17 @@ public class RotationConfig {
 		this.presets = presets != null ? presets : new HashMap<>();
 	}
 
+	/**
+	 * Name of a preset without loading it, when the presets are a {@link PresetLibrary}.
+	 */
+	public String getPresetName(String id) {
+		if (presets instanceof PresetLibrary library) {
+			return library.nameOf(id);
+		}
+		PresetData preset = presets.get(id);
+		return preset != null ? preset.getName() : null;
+	}
+
 	public static class PresetData {
 		@JsonProperty("name")
 		private String name;
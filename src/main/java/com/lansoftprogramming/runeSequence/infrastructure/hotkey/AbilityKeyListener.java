@@ -0,0 +1,9 @@
+package com.lansoftprogramming.runeSequence.infrastructure.hotkey;
+
+/**
+ * Notified on the native hook thread when an in-game ability keybind goes down.
+ */
+@FunctionalInterface
+public interface AbilityKeyListener {
+    void onAbilityKeyPressed(String abilityKey);
+}
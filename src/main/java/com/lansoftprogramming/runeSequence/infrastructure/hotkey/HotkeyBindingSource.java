@@ -44,4 +44,35 @@ public class HotkeyBindingSource {
 
 		return Collections.unmodifiableMap(hotkeyBindings);
 	}
+
+	/**
+	 * In-game ability keybinds, keyed by chord (one chord may fire several abilities).
+	 * Empty unless the keypress latch is enabled.
+	 */
+	public Map<KeyChord, List<String>> loadAbilityBindings(AppSettings.HotkeySettings hotkeySettings) {
+		if (hotkeySettings == null || !hotkeySettings.isAbilityKeypressLatch()) {
+			return Collections.emptyMap();
+		}
+		Map<String, List<String>> keybinds = hotkeySettings.getAbilityKeybinds();
+		if (keybinds == null || keybinds.isEmpty()) {
+			return Collections.emptyMap();
+		}
+
+		Map<KeyChord, List<String>> abilityBindings = new HashMap<>();
+		for (Map.Entry<String, List<String>> entry : keybinds.entrySet()) {
+			String abilityKey = entry.getKey();
+			if (abilityKey == null || abilityKey.isBlank() || entry.getValue() == null) continue;
+			for (String binding : entry.getValue()) {
+				KeyChord chord = parser.parse(Collections.singletonList(binding));
+				if (chord == null) continue;
+				List<String> abilities = abilityBindings.computeIfAbsent(chord, k -> new ArrayList<>());
+				if (!abilities.contains(abilityKey)) {
+					abilities.add(abilityKey);
+				}
+			}
+		}
+
+		abilityBindings.replaceAll((chord, abilities) -> Collections.unmodifiableList(abilities));
+		return Collections.unmodifiableMap(abilityBindings);
+	}
 }
\ No newline at end of file
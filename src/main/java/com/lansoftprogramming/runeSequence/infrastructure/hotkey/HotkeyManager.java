@@ -15,11 +15,14 @@ public class HotkeyManager {
 
 	// listeners are per-instance; the native hook and listener are process-wide
 	private final List<HotkeyListener> listeners = new ArrayList<>();
+	private final List<AbilityKeyListener> abilityKeyListeners = new ArrayList<>();
 	private static volatile boolean nativeInitialized = false;
 	private static volatile NativeHotkeyListener nativeListener;
 	private static final Object HOOK_LOCK = new Object();
 
 	private final AtomicReference<Map<HotkeyEvent, List<KeyChord>>> hotkeyBindingsRef;
+	private final AtomicReference<Map<KeyChord, List<String>>> abilityBindingsRef =
+			new AtomicReference<>(Collections.emptyMap());
 
 	public HotkeyManager(Map<HotkeyEvent, List<KeyChord>> hotkeyBindings) {
 		this.hotkeyBindingsRef = new AtomicReference<>((hotkeyBindings != null)
@@ -33,6 +36,15 @@ public class HotkeyManager {
 				: Collections.emptyMap());
 	}
 
+	/**
+	 * Replace the in-game ability keybinds watched for the keypress latch; an empty map turns it off.
+	 */
+	public void refreshAbilityBindings(Map<KeyChord, List<String>> abilityBindings) {
+		abilityBindingsRef.set((abilityBindings != null)
+				? abilityBindings
+				: Collections.emptyMap());
+	}
+
 	public void initialize() {
 		if (nativeInitialized) return;
 		synchronized (HOOK_LOCK) {
@@ -44,7 +56,8 @@ public class HotkeyManager {
 					GlobalScreen.registerNativeHook();
 				}
 				if (nativeListener == null) {
-					nativeListener = new NativeHotkeyListener(this::notifyListeners, hotkeyBindingsRef);
+					nativeListener = new NativeHotkeyListener(this::notifyListeners, hotkeyBindingsRef,
+							this::notifyAbilityKeyListeners, abilityBindingsRef);
 					GlobalScreen.addNativeKeyListener(nativeListener);
 				}
 				nativeInitialized = true;
@@ -69,6 +82,14 @@ public class HotkeyManager {
 		listeners.remove(listener);
 	}
 
+	public void addAbilityKeyListener(AbilityKeyListener listener) {
+		abilityKeyListeners.add(listener);
+	}
+
+	public void removeAbilityKeyListener(AbilityKeyListener listener) {
+		abilityKeyListeners.remove(listener);
+	}
+
 	public void shutdown() {
 		if (!nativeInitialized) return;
 		synchronized (HOOK_LOCK) {
@@ -100,14 +121,29 @@ public class HotkeyManager {
 		}
 	}
 
+	private void notifyAbilityKeyListeners(String abilityKey) {
+		for (AbilityKeyListener listener : abilityKeyListeners) {
+			try {
+				listener.onAbilityKeyPressed(abilityKey);
+			} catch (Exception e) {
+				logger.warn("Ability key listener failed for {}", abilityKey, e);
+			}
+		}
+	}
+
 	private static final class NativeHotkeyListener implements NativeKeyListener {
 		private final EnumSet<ModifierKey> activeModifiers = EnumSet.noneOf(ModifierKey.class);
 		private final Notifier notifier;
 		private final AtomicReference<Map<HotkeyEvent, List<KeyChord>>> bindingsRef;
+		private final AbilityNotifier abilityNotifier;
+		private final AtomicReference<Map<KeyChord, List<String>>> abilityBindingsRef;
 
-		NativeHotkeyListener(Notifier notifier, AtomicReference<Map<HotkeyEvent, List<KeyChord>>> bindingsRef) {
+		NativeHotkeyListener(Notifier notifier, AtomicReference<Map<HotkeyEvent, List<KeyChord>>> bindingsRef,
+		                     AbilityNotifier abilityNotifier, AtomicReference<Map<KeyChord, List<String>>> abilityBindingsRef) {
 			this.notifier = notifier;
 			this.bindingsRef = bindingsRef;
+			this.abilityNotifier = abilityNotifier;
+			this.abilityBindingsRef = abilityBindingsRef;
 		}
 
 		@Override
@@ -118,6 +154,13 @@ public class HotkeyManager {
 				return;
 			}
 			KeyChord chord = new KeyChord(activeModifiers, e.getKeyCode());
+			// Ability keybinds first: the keypress latch wants the key-down as early as possible.
+			List<String> abilities = abilityBindingsRef.get().get(chord);
+			if (abilities != null) {
+				for (String abilityKey : abilities) {
+					abilityNotifier.notify(abilityKey);
+				}
+			}
 			Map<HotkeyEvent, List<KeyChord>> bindings = bindingsRef.get();
 			for (Map.Entry<HotkeyEvent, List<KeyChord>> en : bindings.entrySet()) {
 				List<KeyChord> chords = en.getValue();
@@ -151,4 +194,9 @@ public class HotkeyManager {
 	private interface Notifier {
 		void notify(HotkeyEvent event);
 	}
+
+	@FunctionalInterface
+	private interface AbilityNotifier {
+		void notify(String abilityKey);
+	}
 }
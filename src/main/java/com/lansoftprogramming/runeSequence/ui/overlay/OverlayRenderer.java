@@ -1,6 +1,9 @@
 package com.lansoftprogramming.runeSequence.ui.overlay;
 
 import com.lansoftprogramming.runeSequence.core.detection.DetectionResult;
+import com.lansoftprogramming.runeSequence.core.metrics.FrameLatencyTracker;
+import com.lansoftprogramming.runeSequence.core.metrics.MetricsRegistry;
+import com.lansoftprogramming.runeSequence.core.metrics.jfr.OverlayEvent;
 import com.lansoftprogramming.runeSequence.ui.theme.UiColorPalette;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +20,7 @@ import java.io.InputStream;
 import java.util.*;
 import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BooleanSupplier;
 import java.util.function.LongSupplier;
 
@@ -33,6 +37,8 @@ public class OverlayRenderer {
 	private static final String ABILITY_INDICATOR_RESOURCE_PREFIX = "animations/ability_indicator/";
 	private static final int ABILITY_INDICATOR_FRAME_COUNT = 24;
 	private static final int DEFAULT_DEBUG_BORDER_HIDE_MS = 5_000;
+	private static final MetricsRegistry.Counter OVERLAY_UPDATES = MetricsRegistry.shared().counter("overlay.updates");
+	private static final MetricsRegistry.Counter OVERLAY_REPAINTS = MetricsRegistry.shared().counter("overlay.repaints");
 
 	// Border types and colors - like piano key highlighting
 	public enum BorderType {
@@ -66,6 +72,8 @@ public class OverlayRenderer {
 	private final ThreadPoolExecutor renderExecutor;
 	private long overlayUpdateSeq = 0L;
 	private long overlayRepaintSeq = 0L;
+	private final FrameLatencyTracker latencyTracker = FrameLatencyTracker.shared();
+	private final AtomicReference<PendingPaint> pendingPaint = new AtomicReference<>();
 	private volatile boolean overlayVisible = false;
 	private volatile boolean blinkVisible = true;
 	private volatile boolean abilityIndicatorEnabled = true;
@@ -195,12 +203,21 @@ public class OverlayRenderer {
 	 * Borders persist until next update or clearOverlays() call
 	 */
 	public void updateOverlays(List<DetectionResult> currentAbilities, List<DetectionResult> nextAbilities) {
+		updateOverlays(currentAbilities, nextAbilities, FrameLatencyTracker.NO_CAPTURE);
+	}
+
+	/**
+	 * Same as {@link #updateOverlays(List, List)}, tagged with the {@link System#nanoTime()} capture stamp of the
+	 * frame the results came from so queueing, update and paint latency can be attributed to it.
+	 */
+	public void updateOverlays(List<DetectionResult> currentAbilities, List<DetectionResult> nextAbilities, long captureNanos) {
 		if (headless) {
 			return;
 		}
 		List<DetectionResult> currentSnapshot = safeCopy(currentAbilities);
 		List<DetectionResult> nextSnapshot = safeCopy(nextAbilities);
-		enqueueRenderTask(() -> processOverlayUpdate(currentSnapshot, nextSnapshot));
+		long enqueuedNanos = System.nanoTime();
+		enqueueRenderTask(() -> processOverlayUpdate(currentSnapshot, nextSnapshot, captureNanos, enqueuedNanos));
 	}
 
 	private List<DetectionResult> safeCopy(List<DetectionResult> source) {
@@ -223,9 +240,16 @@ public class OverlayRenderer {
 		}
 	}
 
-	private void processOverlayUpdate(List<DetectionResult> currentAbilities, List<DetectionResult> nextAbilities) {
+	private void processOverlayUpdate(List<DetectionResult> currentAbilities, List<DetectionResult> nextAbilities,
+	                                  long captureNanos, long enqueuedNanos) {
 		long updateSeq = ++overlayUpdateSeq;
+		OverlayEvent overlayEvent = beginOverlayEvent();
 		long startNanos = System.nanoTime();
+		OVERLAY_UPDATES.increment();
+		boolean fromFrame = captureNanos != FrameLatencyTracker.NO_CAPTURE;
+		if (fromFrame) {
+			latencyTracker.record(FrameLatencyTracker.Stage.OVERLAY_QUEUE, startNanos - enqueuedNanos);
+		}
 
 		try {
 			refreshAbilityIndicatorSettings();
@@ -286,13 +310,21 @@ public class OverlayRenderer {
 			lastCurrentFoundKeys = currentFoundKeys;
 			lastNextFoundKeys = nextFoundKeys;
 
+			long postedNanos = fromFrame
+					? latencyTracker.recordSince(FrameLatencyTracker.Stage.OVERLAY_UPDATE, startNanos)
+					: System.nanoTime();
 			if (bordersChanged || indicatorsChanged) {
 				long repaintSeq = ++overlayRepaintSeq;
 				if (logger.isDebugEnabled()) {
 					logger.debug("OverlayRenderer posting repaint #{} for update #{}", repaintSeq, updateSeq);
 				}
+				if (fromFrame) {
+					// Swing coalesces repaints; if an older frame is still pending, the newest stamp wins.
+					pendingPaint.set(new PendingPaint(updateSeq, captureNanos, postedNanos));
+				}
 				SwingUtilities.invokeLater(overlayPanel::repaint);
 			}
+			commitOverlayEvent(overlayEvent, OverlayEvent.PHASE_PUBLISH, updateSeq, captureNanos);
 
 		} catch (Exception e) {
 			logger.error("Error updating overlays", e);
@@ -678,6 +710,32 @@ public class OverlayRenderer {
 		}
 	}
 
+	/**
+	 * A started event, or {@code null} (and nothing allocated) while no recording takes overlay events.
+	 */
+	private static OverlayEvent beginOverlayEvent() {
+		if (!OverlayEvent.enabled()) {
+			return null;
+		}
+		OverlayEvent event = new OverlayEvent();
+		event.begin();
+		return event;
+	}
+
+	private void commitOverlayEvent(OverlayEvent event, String phase, long updateSeq, long captureNanos) {
+		if (event == null || !event.shouldCommit()) {
+			return;
+		}
+		event.phase = phase;
+		event.updateSeq = updateSeq;
+		event.borderCount = activeBorders.size();
+		event.frameAgeNanos = captureNanos != FrameLatencyTracker.NO_CAPTURE ? System.nanoTime() - captureNanos : 0L;
+		event.commit();
+	}
+
+	private record PendingPaint(long updateSeq, long captureNanos, long postedNanos) {
+	}
+
 	/**
 	 * Custom JPanel for rendering overlay borders
 	 */
@@ -690,7 +748,10 @@ public class OverlayRenderer {
 
 		@Override
 		protected void paintComponent(Graphics g) {
+			OverlayEvent paintEvent = beginOverlayEvent();
 			super.paintComponent(g);
+			OVERLAY_REPAINTS.increment();
+			PendingPaint pending = pendingPaint.getAndSet(null);
 
 			Graphics2D g2d = (Graphics2D) g.create();
 			try {
@@ -707,6 +768,13 @@ public class OverlayRenderer {
 
 			} finally {
 				g2d.dispose();
+				if (pending != null) {
+					latencyTracker.recordSince(FrameLatencyTracker.Stage.PAINT_DISPATCH, pending.postedNanos());
+					latencyTracker.recordSince(FrameLatencyTracker.Stage.CAPTURE_TO_PAINT, pending.captureNanos());
+				}
+				commitOverlayEvent(paintEvent, OverlayEvent.PHASE_PAINT,
+						pending != null ? pending.updateSeq() : 0L,
+						pending != null ? pending.captureNanos() : FrameLatencyTracker.NO_CAPTURE);
 			}
 		}
 
@@ -547,7 +547,15 @@ public class PresetManagerWindow extends JFrame {
                 return;
             }
 
-            configManager.saveRotations();
+            configManager.saveRotations().whenComplete((ignored, failure) -> {
+                if (failure != null) {
+                    SwingUtilities.invokeLater(() ->
+                            notifications.showError("Failed to delete preset: " + failure.getMessage()));
+                }
+            });
+            if (sequenceRunService != null) {
+                sequenceRunService.forgetPreset(entry.getId());
+            }
             sequenceListModel.loadFromConfig(rotations);
 
             String newSelectionId = null;
@@ -624,6 +632,9 @@ public class PresetManagerWindow extends JFrame {
         boolean changed = (rotationId != null && !rotationId.equals(currentId))
                 || (rotationId == null && currentId != null);
         rotationSettings.setSelectedId(rotationId);
+        if (changed && rotationId != null) {
+            rotationSettings.markUsed(rotationId);
+        }
 
         if (changed) {
             try {
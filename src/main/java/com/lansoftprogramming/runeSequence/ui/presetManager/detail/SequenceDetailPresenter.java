@@ -275,9 +275,16 @@ class SequenceDetailPresenter implements AbilityDragController.DragCallback {
 		notifySaveListeners(result);
 
 		String successMessage = outcome.getMessage() != null ? outcome.getMessage() : "Sequence saved successfully.";
-		if (notifications != null) {
-			notifications.showSuccess(successMessage);
-		}
+		outcome.getPersisted().whenComplete((ignored, failure) -> SwingUtilities.invokeLater(() -> {
+			if (notifications == null) {
+				return;
+			}
+			if (failure != null) {
+				notifications.showError("Failed to save sequence: " + failure.getMessage());
+			} else {
+				notifications.showSuccess(successMessage);
+			}
+		}));
 	}
 
 	void discardChanges() {
@@ -22,6 +22,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public class SequenceDetailService {
 	private static final Logger logger = LoggerFactory.getLogger(SequenceDetailService.class);
@@ -159,12 +160,14 @@ public class SequenceDetailService {
 			presetData.setName(sequenceName);
 			presetData.setExpression(expression);
 			presetData.setAbilitySettings(abilitySettings);
+			// Put back so a lazily loaded library lists the new name before it commits.
+			presets.put(targetId, presetData);
 
-			configManager.saveRotations();
+			CompletableFuture<Void> persisted = configManager.saveRotations();
 			logger.info("Saved sequence '{}' with id {}", sequenceName, targetId);
 
 			SaveResult result = new SaveResult(targetId, presetData, created);
-			return SaveOutcome.success(result, created ? "Sequence created." : "Sequence updated.");
+			return SaveOutcome.success(result, created ? "Sequence created." : "Sequence updated.", persisted);
 
 		} catch (IOException ioException) {
 			logger.error("Failed to persist sequence '{}'", sequenceName, ioException);
@@ -222,24 +225,35 @@ public class SequenceDetailService {
 		private final boolean validationFailure;
 		private final String message;
 		private final SaveResult result;
+		private final CompletableFuture<Void> persisted;
 
-		private SaveOutcome(boolean success, boolean validationFailure, String message, SaveResult result) {
+		private SaveOutcome(boolean success, boolean validationFailure, String message, SaveResult result,
+		                    CompletableFuture<Void> persisted) {
 			this.success = success;
 			this.validationFailure = validationFailure;
 			this.message = message;
 			this.result = result;
+			this.persisted = persisted;
 		}
 
 		public static SaveOutcome success(SaveResult result, String message) {
-			return new SaveOutcome(true, false, message, result);
+			return success(result, message, null);
+		}
+
+		/**
+		 * @param persisted completes once the saved sequence is on disk; the library serves it before then
+		 */
+		public static SaveOutcome success(SaveResult result, String message, CompletableFuture<Void> persisted) {
+			return new SaveOutcome(true, false, message, result,
+					persisted != null ? persisted : CompletableFuture.completedFuture(null));
 		}
 
 		public static SaveOutcome validationFailure(String message) {
-			return new SaveOutcome(false, true, message, null);
+			return new SaveOutcome(false, true, message, null, CompletableFuture.completedFuture(null));
 		}
 
 		public static SaveOutcome failure(String message) {
-			return new SaveOutcome(false, false, message, null);
+			return new SaveOutcome(false, false, message, null, CompletableFuture.completedFuture(null));
 		}
 
 		public boolean isSuccess() {
@@ -257,5 +271,9 @@ public class SequenceDetailService {
 		public SaveResult getResult() {
 			return result;
 		}
+
+		public CompletableFuture<Void> getPersisted() {
+			return persisted;
+		}
 	}
 }
@@ -1,32 +1,65 @@
 // File: gui/SequenceListModel.java
 package com.lansoftprogramming.runeSequence.ui.presetManager.masterRotations;
 
+import com.lansoftprogramming.runeSequence.infrastructure.config.PresetLibrary;
 import com.lansoftprogramming.runeSequence.infrastructure.config.RotationConfig;
 
 import javax.swing.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
+/**
+ * Lists the presets of a rotations config. A {@link PresetLibrary} is paged over its index, so only the entries of the
+ * rows being shown exist at a time; plain maps are listed in full.
+ */
 public class SequenceListModel extends AbstractListModel<SequenceListModel.SequenceEntry> {
+    static final int PAGE_SIZE = 64;
 
     private final List<SequenceEntry> sequences = new ArrayList<>();
+    private PresetLibrary library;
+    // Library mode: the size last announced to listeners, and the page of entries built around the last lookup.
+    private int librarySize;
+    private int pageStart = -1;
+    private final List<SequenceEntry> page = new ArrayList<>(PAGE_SIZE);
 
     public static class SequenceEntry {
         private final String id;
+        private final String name;
         private final RotationConfig.PresetData presetData;
+        private final Function<String, RotationConfig.PresetData> loader;
 
         public SequenceEntry(String id, RotationConfig.PresetData presetData) {
             this.id = id;
+            this.name = null;
             this.presetData = presetData;
+            this.loader = null;
+        }
+
+        /**
+         * An entry listed by name only; its preset is fetched through {@code loader} whenever it is needed.
+         */
+        public SequenceEntry(String id, String name, Function<String, RotationConfig.PresetData> loader) {
+            this.id = id;
+            this.name = name;
+            this.presetData = null;
+            this.loader = loader;
         }
 
         public String getId() {
             return id;
         }
 
+        public String getName() {
+            return presetData != null ? presetData.getName() : name;
+        }
+
         public RotationConfig.PresetData getPresetData() {
-            return presetData;
+            if (presetData != null || loader == null) {
+                return presetData;
+            }
+            return loader.apply(id);
         }
 
         public SequenceEntry withPresetData(RotationConfig.PresetData newPresetData) {
@@ -35,19 +68,28 @@ public class SequenceListModel extends AbstractListModel<SequenceListModel.Seque
     }
 
     public void loadFromConfig(RotationConfig rotations) {
-        int oldSize = sequences.size();
+        int oldSize = getSize();
+        sequences.clear();
+        library = null;
+        librarySize = 0;
+        pageStart = -1;
         if (oldSize > 0) {
-            sequences.clear();
             fireIntervalRemoved(this, 0, oldSize - 1);
         }
 
         if (rotations != null && rotations.getPresets() != null) {
-            for (Map.Entry<String, RotationConfig.PresetData> entry : rotations.getPresets().entrySet()) {
-                sequences.add(new SequenceEntry(entry.getKey(), entry.getValue()));
+            Map<String, RotationConfig.PresetData> presets = rotations.getPresets();
+            if (presets instanceof PresetLibrary presetLibrary) {
+                library = presetLibrary;
+                librarySize = presetLibrary.size();
+            } else {
+                for (String id : presets.keySet()) {
+                    sequences.add(new SequenceEntry(id, rotations.getPresetName(id), presets::get));
+                }
             }
         }
 
-        int newSize = sequences.size();
+        int newSize = getSize();
         if (newSize > 0) {
             fireIntervalAdded(this, 0, newSize - 1);
         }
@@ -55,15 +97,51 @@ public class SequenceListModel extends AbstractListModel<SequenceListModel.Seque
 
     @Override
     public int getSize() {
-        return sequences.size();
+        return library != null ? librarySize : sequences.size();
     }
 
     @Override
     public SequenceEntry getElementAt(int index) {
-        return sequences.get(index);
+        if (library == null) {
+            return sequences.get(index);
+        }
+        if (index < 0 || index >= librarySize) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + librarySize);
+        }
+        int start = index - index % PAGE_SIZE;
+        if (start != pageStart) {
+            loadPage(start);
+        }
+        return page.get(index - start);
+    }
+
+    /**
+     * Entries carry names from the index only, so listing never loads a preset.
+     */
+    private void loadPage(int start) {
+        page.clear();
+        int end = Math.min(start + PAGE_SIZE, librarySize);
+        for (int i = start; i < end; i++) {
+            String id = library.idAt(i);
+            page.add(new SequenceEntry(id, library.nameOf(id), library::get));
+        }
+        pageStart = start;
     }
 
     public void upsert(String id, RotationConfig.PresetData presetData) {
+        if (library != null) {
+            pageStart = -1;
+            int position = library.positionOf(id);
+            if (position >= 0 && position < librarySize) {
+                fireContentsChanged(this, position, position);
+            } else if (position >= 0) {
+                // Saved presets are put into the library first, so a new one is already at the end of its index.
+                int oldSize = librarySize;
+                librarySize = library.size();
+                fireIntervalAdded(this, oldSize, librarySize - 1);
+            }
+            return;
+        }
         for (int i = 0; i < sequences.size(); i++) {
             SequenceEntry entry = sequences.get(i);
             if (entry.getId().equals(id)) {
@@ -80,6 +158,10 @@ public class SequenceListModel extends AbstractListModel<SequenceListModel.Seque
     }
 
     public int indexOf(String id) {
+        if (library != null) {
+            int position = id != null ? library.positionOf(id) : -1;
+            return position < librarySize ? position : -1;
+        }
         for (int i = 0; i < sequences.size(); i++) {
             if (sequences.get(i).getId().equals(id)) {
                 return i;
@@ -92,15 +174,15 @@ public class SequenceListModel extends AbstractListModel<SequenceListModel.Seque
         if (id == null || id.isBlank()) {
             return null;
         }
+        if (library != null) {
+            String name = indexOf(id) >= 0 ? library.nameOf(id) : null;
+            return name != null && !name.isBlank() ? name : null;
+        }
         for (SequenceEntry sequence : sequences) {
             if (!id.equals(sequence.getId())) {
                 continue;
             }
-            RotationConfig.PresetData presetData = sequence.getPresetData();
-            if (presetData == null) {
-                return null;
-            }
-            String name = presetData.getName();
+            String name = sequence.getName();
             return name != null && !name.isBlank() ? name : null;
         }
         return null;
@@ -85,6 +85,8 @@ public class SequenceMasterPanel extends ThemedPanel implements SequenceRunPrese
 		sequenceList = new JList<>(sequenceListModel);
 		sequenceList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 		sequenceList.setCellRenderer(new SequenceListCellRenderer(this.selectedSequenceIndicator));
+		// Fixed cell size: otherwise the list renders every row to size itself, which defeats the model's paging.
+		sequenceList.setPrototypeCellValue(new SequenceListModel.SequenceEntry(null, "Prototype rotation", id -> null));
 		sequenceList.addListSelectionListener(new SequenceSelectionHandler());
 		sequenceList.setOpaque(false);
 		installHoverTracking(sequenceList);
@@ -545,7 +547,7 @@ public class SequenceMasterPanel extends ThemedPanel implements SequenceRunPrese
 				boolean isSelected,
 				boolean cellHasFocus) {
 
-			String name = value != null ? value.getPresetData().getName() : "";
+			String name = value != null ? value.getName() : "";
 			textLabel.setText(name != null ? name : "");
 			textLabel.setFont(list.getFont());
 
@@ -411,9 +411,11 @@ public class AbilityPalettePanel extends ThemedPanel {
 				.collect(Collectors.toList());
 
 		if (!uncategorized.isEmpty()) {
-			categoriesWithFallback
-					.computeIfAbsent("Items", k -> new ArrayList<>())
-					.addAll(uncategorized);
+			// Copied: the configured lists are immutable.
+			List<String> configuredItems = categoriesWithFallback.get("Items");
+			List<String> items = configuredItems != null ? new ArrayList<>(configuredItems) : new ArrayList<>();
+			items.addAll(uncategorized);
+			categoriesWithFallback.put("Items", items);
 			logger.info("Added {} uncategorized abilities to default 'Items' category", uncategorized.size());
 		} else if (categoriesWithFallback.isEmpty()) {
 			logger.warn("No ability categories to display");
@@ -2,6 +2,7 @@ package com.lansoftprogramming.runeSequence.ui.presetManager.service;
 
 import com.lansoftprogramming.runeSequence.core.sequence.model.*;
 import com.lansoftprogramming.runeSequence.core.sequence.modifier.AbilityModifierEngine;
+import com.lansoftprogramming.runeSequence.core.sequence.parser.IncrementalSequenceParser;
 import com.lansoftprogramming.runeSequence.core.sequence.parser.SequenceParser;
 import com.lansoftprogramming.runeSequence.core.sequence.parser.TooltipGrammar;
 import com.lansoftprogramming.runeSequence.core.sequence.parser.TooltipMarkupParser;
@@ -19,6 +20,8 @@ import java.util.*;
 public class SequenceVisualService {
 	private static final Logger logger = LoggerFactory.getLogger(SequenceVisualService.class);
 	private final TooltipMarkupParser tooltipMarkupParser;
+	// Successive expressions from one editor mostly differ in a few steps; only those are re-parsed.
+	private final IncrementalSequenceParser incrementalParser = new IncrementalSequenceParser();
 
 	public SequenceVisualService() {
 		this(new TooltipMarkupParser());
@@ -71,7 +74,10 @@ public class SequenceVisualService {
 			}
 
 			// Parse expression into AST without tooltip annotations
-			SequenceDefinition definition = SequenceParser.parse(cleanedExpression, overridesByLabel, null);
+			SequenceDefinition definition;
+			synchronized (incrementalParser) {
+				definition = incrementalParser.parse(cleanedExpression, overridesByLabel, null);
+			}
 			Map<String, AbilitySettingsOverrides> effectiveOverridesByLabel = collectOverridesByLabel(definition);
 
 			// Convert AST to visual elements
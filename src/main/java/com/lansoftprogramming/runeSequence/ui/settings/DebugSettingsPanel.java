@@ -1,5 +1,7 @@
 package com.lansoftprogramming.runeSequence.ui.settings;
 
+import com.lansoftprogramming.runeSequence.core.metrics.FrameLatencyTracker;
+import com.lansoftprogramming.runeSequence.core.metrics.LogDirectory;
 import com.lansoftprogramming.runeSequence.infrastructure.config.ConfigManager;
 import com.lansoftprogramming.runeSequence.infrastructure.config.AppSettings;
 import com.lansoftprogramming.runeSequence.ui.settings.debug.BackpackSaveDebugService;
@@ -17,6 +19,7 @@ import java.util.Locale;
 public class DebugSettingsPanel extends ThemedPanel implements IconDetectionDebugService.Listener {
 	private static final String DIALOG_TITLE = "RuneSequence - Debug";
 	private static final double DEFAULT_BACKPACK_TOLERANCE_PERCENT = 39.0d;
+	private static final int LATENCY_REFRESH_MS = 1_000;
 
 	private final ConfigManager configManager;
 	private final IconDetectionDebugService debugService;
@@ -25,6 +28,8 @@ public class DebugSettingsPanel extends ThemedPanel implements IconDetectionDebu
 	private final JButton openLogButton;
 	private final JCheckBox mouseTooltipTickDebugCheck;
 	private final JLabel mouseTooltipTickDebugStatusLabel;
+	private final JCheckBox flightRecordingCheck;
+	private final JLabel flightRecordingStatusLabel;
 	private final JLabel progressLabel;
 	private final JLabel totalGreenLabel;
 	private final JLabel totalYellowLabel;
@@ -32,6 +37,7 @@ public class DebugSettingsPanel extends ThemedPanel implements IconDetectionDebu
 	private final JLabel statusLabel;
 	private final JSpinner yellowToleranceSpinner;
 	private final JSpinner notFoundToleranceSpinner;
+	private final JCheckBox slotScanCheck;
 	private final JTextField manualTemplateField;
 	private final JButton manualTestButton;
 	private final JLabel manualResultLabel;
@@ -43,6 +49,10 @@ public class DebugSettingsPanel extends ThemedPanel implements IconDetectionDebu
 	private final JTextArea greenArea;
 	private final JTextArea yellowArea;
 	private final JTextArea notFoundArea;
+	private final JTextArea latencyArea;
+	private final JButton resetLatencyButton;
+	private final JButton dumpLatencyButton;
+	private final Timer latencyRefreshTimer;
 	private volatile File lastLogFile;
 
 	public DebugSettingsPanel(ConfigManager configManager, IconDetectionDebugService debugService) {
@@ -73,6 +83,16 @@ public class DebugSettingsPanel extends ThemedPanel implements IconDetectionDebu
 		mouseTooltipTickDebugStatusLabel.setOpaque(false);
 		mouseTooltipTickDebugStatusLabel.setForeground(UiColorPalette.TEXT_MUTED);
 
+		flightRecordingCheck = new JCheckBox("Record JFR session (bounded, for JMC)");
+		flightRecordingCheck.setSelected(resolveFlightRecordingPreference());
+		flightRecordingCheck.setOpaque(false);
+		flightRecordingCheck.setToolTipText("Writes runesequence-<time>.jfr to the logs folder when unchecked or on exit.");
+		flightRecordingCheck.addActionListener(e -> handleFlightRecordingToggled());
+
+		flightRecordingStatusLabel = new JLabel(" ");
+		flightRecordingStatusLabel.setOpaque(false);
+		flightRecordingStatusLabel.setForeground(UiColorPalette.TEXT_MUTED);
+
 		progressLabel = new JLabel(" ");
 		progressLabel.setOpaque(false);
 
@@ -87,6 +107,10 @@ public class DebugSettingsPanel extends ThemedPanel implements IconDetectionDebu
 		yellowToleranceSpinner = new JSpinner(new SpinnerNumberModel(10, 0, 99, 1));
 		notFoundToleranceSpinner = new JSpinner(new SpinnerNumberModel(20, 0, 99, 1));
 
+		slotScanCheck = new JCheckBox("Single-pass slot scan (fast)");
+		slotScanCheck.setOpaque(false);
+		slotScanCheck.setToolTipText("Classify every template against each frame in one pass instead of batches of full-frame searches.");
+
 		manualTemplateField = new JTextField();
 		manualTestButton = new JButton("Test");
 		ThemedButtons.apply(manualTestButton, ButtonStyle.DEFAULT);
@@ -113,6 +137,20 @@ public class DebugSettingsPanel extends ThemedPanel implements IconDetectionDebu
 		notFoundArea = createOutputArea();
 		notFoundArea.setRows(8);
 
+		latencyArea = createOutputArea();
+		latencyArea.setRows(8);
+
+		resetLatencyButton = new JButton("Reset");
+		ThemedButtons.apply(resetLatencyButton, ButtonStyle.DEFAULT);
+		resetLatencyButton.addActionListener(e -> handleResetLatency());
+
+		dumpLatencyButton = new JButton("Dump to file");
+		ThemedButtons.apply(dumpLatencyButton, ButtonStyle.DEFAULT);
+		dumpLatencyButton.addActionListener(e -> handleDumpLatency());
+
+		latencyRefreshTimer = new Timer(LATENCY_REFRESH_MS, e -> renderLatency());
+		latencyRefreshTimer.setRepeats(true);
+
 		add(createMainPanel(), BorderLayout.CENTER);
 		add(statusLabel, BorderLayout.SOUTH);
 
@@ -125,11 +163,14 @@ public class DebugSettingsPanel extends ThemedPanel implements IconDetectionDebu
 		if (debugService != null) {
 			debugService.addListener(this);
 		}
+		renderLatency();
+		latencyRefreshTimer.start();
 		refreshControls();
 	}
 
 	@Override
 	public void removeNotify() {
+		latencyRefreshTimer.stop();
 		if (debugService != null) {
 			debugService.removeListener(this);
 		}
@@ -248,6 +289,9 @@ public class DebugSettingsPanel extends ThemedPanel implements IconDetectionDebu
 		gbc.gridy++;
 		gbc.gridx = 0;
 		gbc.gridwidth = 4;
+		panel.add(slotScanCheck, gbc);
+
+		gbc.gridy++;
 		panel.add(openLogButton, gbc);
 
 		gbc.gridy++;
@@ -310,6 +354,40 @@ public class DebugSettingsPanel extends ThemedPanel implements IconDetectionDebu
 
 		gbc.gridy++;
 		gbc.insets = new Insets(12, 4, 2, 4);
+		JLabel recordingTitle = new JLabel("Flight Recorder");
+		recordingTitle.setFont(recordingTitle.getFont().deriveFont(Font.BOLD));
+		panel.add(recordingTitle, gbc);
+
+		gbc.gridy++;
+		gbc.insets = new Insets(2, 4, 2, 4);
+		panel.add(flightRecordingCheck, gbc);
+
+		gbc.gridy++;
+		panel.add(flightRecordingStatusLabel, gbc);
+
+		gbc.gridy++;
+		gbc.insets = new Insets(12, 4, 2, 4);
+		JLabel latencyTitle = new JLabel("Pipeline Latency");
+		latencyTitle.setFont(latencyTitle.getFont().deriveFont(Font.BOLD));
+		panel.add(latencyTitle, gbc);
+
+		gbc.gridy++;
+		gbc.insets = new Insets(2, 4, 2, 4);
+		JScrollPane latencyScroll = new JScrollPane(latencyArea);
+		latencyScroll.setBorder(UiColorPalette.CARD_BORDER);
+		panel.add(latencyScroll, gbc);
+
+		gbc.gridy++;
+		gbc.gridwidth = 2;
+		gbc.gridx = 0;
+		panel.add(resetLatencyButton, gbc);
+		gbc.gridx = 2;
+		panel.add(dumpLatencyButton, gbc);
+
+		gbc.gridy++;
+		gbc.gridx = 0;
+		gbc.gridwidth = 4;
+		gbc.insets = new Insets(12, 4, 2, 4);
 		panel.add(totalGreenLabel, gbc);
 		gbc.gridy++;
 		gbc.insets = new Insets(2, 4, 2, 4);
@@ -363,7 +441,8 @@ public class DebugSettingsPanel extends ThemedPanel implements IconDetectionDebu
 		statusLabel.setText("Running icon detection test...");
 		debugService.start(
 				((Number) yellowToleranceSpinner.getValue()).intValue(),
-				((Number) notFoundToleranceSpinner.getValue()).intValue()
+				((Number) notFoundToleranceSpinner.getValue()).intValue(),
+				slotScanCheck.isSelected()
 		);
 		refreshControls();
 	}
@@ -435,14 +514,19 @@ public class DebugSettingsPanel extends ThemedPanel implements IconDetectionDebu
 		String threshold = String.format(Locale.ROOT, "%.2f%%", result.requiredThreshold() * 100.0d);
 		String confidence = String.format(Locale.ROOT, "%.2f%%", result.bestConfidence() * 100.0d);
 
+		String lookalikes = result.lookalikes() != null && !result.lookalikes().isEmpty()
+				? " looks like=" + String.join(", ", result.lookalikes())
+				: "";
+
 		manualResultLabel.setForeground(result.found() ? UiColorPalette.TEXT_SUCCESS : UiColorPalette.TEXT_MUTED);
 		manualResultLabel.setText(String.format(
 				Locale.ROOT,
-				"%s required=%s best=%s at=%s",
+				"%s required=%s best=%s at=%s%s",
 				result.found() ? "FOUND" : "NOT FOUND",
 				threshold,
 				confidence,
-				location
+				location,
+				lookalikes
 		));
 	}
 
@@ -452,6 +536,7 @@ public class DebugSettingsPanel extends ThemedPanel implements IconDetectionDebu
 		stopButton.setEnabled(running);
 		yellowToleranceSpinner.setEnabled(!running);
 		notFoundToleranceSpinner.setEnabled(!running);
+		slotScanCheck.setEnabled(!running);
 		openLogButton.setEnabled(!running);
 		manualTemplateField.setEnabled(!running);
 		manualTestButton.setEnabled(!running);
@@ -571,17 +656,69 @@ public class DebugSettingsPanel extends ThemedPanel implements IconDetectionDebu
 		}
 		settings.getUi().setMouseTooltipStepTickDebugEnabled(mouseTooltipTickDebugCheck.isSelected());
 		try {
-			configManager.saveSettings();
-			mouseTooltipTickDebugStatusLabel.setForeground(UiColorPalette.TEXT_SUCCESS);
-			mouseTooltipTickDebugStatusLabel.setText(mouseTooltipTickDebugCheck.isSelected()
+			String message = mouseTooltipTickDebugCheck.isSelected()
 					? "Enabled step/tick tooltip debug."
-					: "Disabled step/tick tooltip debug.");
+					: "Disabled step/tick tooltip debug.";
+			configManager.saveSettings().whenComplete((ignored, failure) ->
+					SwingUtilities.invokeLater(() -> showSaveStatus(mouseTooltipTickDebugStatusLabel, message, failure)));
 		} catch (Exception ex) {
 			mouseTooltipTickDebugStatusLabel.setForeground(UiColorPalette.TEXT_DANGER);
 			mouseTooltipTickDebugStatusLabel.setText("Failed to save: " + ex.getMessage());
 		}
 	}
 
+	private boolean resolveFlightRecordingPreference() {
+		if (configManager == null) {
+			return false;
+		}
+		AppSettings settings = configManager.getSettings();
+		if (settings == null || settings.getUi() == null) {
+			return false;
+		}
+		return settings.getUi().isFlightRecordingEnabled();
+	}
+
+	private void handleFlightRecordingToggled() {
+		if (configManager == null) {
+			flightRecordingStatusLabel.setForeground(UiColorPalette.TEXT_DANGER);
+			flightRecordingStatusLabel.setText("Config manager unavailable.");
+			return;
+		}
+		AppSettings settings = configManager.getSettings();
+		if (settings == null) {
+			flightRecordingStatusLabel.setForeground(UiColorPalette.TEXT_DANGER);
+			flightRecordingStatusLabel.setText("Settings unavailable.");
+			return;
+		}
+		if (settings.getUi() == null) {
+			settings.setUi(new AppSettings.UiSettings());
+		}
+		settings.getUi().setFlightRecordingEnabled(flightRecordingCheck.isSelected());
+		try {
+			String message = flightRecordingCheck.isSelected()
+					? "Recording started."
+					: "Recording saved to the logs folder.";
+			configManager.saveSettings().whenComplete((ignored, failure) ->
+					SwingUtilities.invokeLater(() -> showSaveStatus(flightRecordingStatusLabel, message, failure)));
+		} catch (Exception ex) {
+			flightRecordingStatusLabel.setForeground(UiColorPalette.TEXT_DANGER);
+			flightRecordingStatusLabel.setText("Failed to save: " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Report a settings write once it has landed (or failed) on the writer thread.
+	 */
+	private static void showSaveStatus(JLabel label, String message, Throwable failure) {
+		if (failure != null) {
+			label.setForeground(UiColorPalette.TEXT_DANGER);
+			label.setText("Failed to save: " + failure.getMessage());
+			return;
+		}
+		label.setForeground(UiColorPalette.TEXT_SUCCESS);
+		label.setText(message);
+	}
+
 	private void handleOpenLog() {
 		File logFile = lastLogFile;
 		if (logFile == null && debugService != null && debugService.getLastLogFile() != null) {
@@ -602,6 +739,27 @@ public class DebugSettingsPanel extends ThemedPanel implements IconDetectionDebu
 		}
 	}
 
+	private void renderLatency() {
+		latencyArea.setText(FrameLatencyTracker.shared().formatReport());
+		latencyArea.setCaretPosition(0);
+	}
+
+	private void handleResetLatency() {
+		FrameLatencyTracker.shared().reset();
+		renderLatency();
+	}
+
+	private void handleDumpLatency() {
+		try {
+			Path written = FrameLatencyTracker.shared().dumpTo(LogDirectory.resolve());
+			statusLabel.setForeground(UiColorPalette.TEXT_MUTED);
+			statusLabel.setText("Latency histograms written to " + written);
+		} catch (Exception ex) {
+			statusLabel.setForeground(UiColorPalette.TEXT_DANGER);
+			statusLabel.setText("Failed to write latency histograms: " + ex.getMessage());
+		}
+	}
+
 	private void handleSaveBackpack() {
 		Path configDir = configManager != null ? configManager.getConfigDir() : null;
 		if (configDir == null) {
@@ -175,9 +175,15 @@ public class HotkeySettingsPanel extends ThemedPanel {
 		}
 
 		try {
-			configManager.saveSettings();
-			statusLabel.setForeground(UiColorPalette.TEXT_SUCCESS);
-			statusLabel.setText("Hotkey settings saved.");
+			configManager.saveSettings().whenComplete((ignored, failure) -> SwingUtilities.invokeLater(() -> {
+				if (failure != null) {
+					statusLabel.setForeground(UiColorPalette.TEXT_DANGER);
+					statusLabel.setText("Failed to save hotkeys: " + failure.getMessage());
+					return;
+				}
+				statusLabel.setForeground(UiColorPalette.TEXT_SUCCESS);
+				statusLabel.setText("Hotkey settings saved.");
+			}));
 		} catch (IOException ex) {
 			statusLabel.setForeground(UiColorPalette.TEXT_DANGER);
 			statusLabel.setText("Failed to save hotkeys: " + ex.getMessage());
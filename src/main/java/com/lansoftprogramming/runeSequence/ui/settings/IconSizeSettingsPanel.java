@@ -11,6 +11,7 @@ import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 
 public class IconSizeSettingsPanel extends ThemedPanel {
 	private final ConfigManager configManager;
@@ -195,8 +196,7 @@ public class IconSizeSettingsPanel extends ThemedPanel {
 		settings.getRotation().setAutoSaveOnSwitch(autoSaveCheck.isSelected());
 
 		try {
-			configManager.saveSettings();
-			statusLabel.setForeground(UiColorPalette.TEXT_SUCCESS);
+			CompletableFuture<Void> written = configManager.saveSettings();
 			String sizeMessage = adjusted
 					? "Saved icon size (adjusted to nearest): " + resolvedSize + " px"
 					: "Saved icon size: " + resolvedSize + " px";
@@ -208,7 +208,15 @@ public class IconSizeSettingsPanel extends ThemedPanel {
 					+ " (" + abilityIndicatorLoopMsLabel() + "ms)"
 					+ "; channel wait tooltips " + channeledWaitTooltipsStateLabel()
 					+ "; debug options " + showDebugOptionsStateLabel();
-			statusLabel.setText(message);
+			written.whenComplete((ignored, failure) -> SwingUtilities.invokeLater(() -> {
+				if (failure != null) {
+					statusLabel.setForeground(UiColorPalette.TEXT_DANGER);
+					statusLabel.setText("Failed to save settings: " + failure.getMessage());
+					return;
+				}
+				statusLabel.setForeground(UiColorPalette.TEXT_SUCCESS);
+				statusLabel.setText(message);
+			}));
 		} catch (IOException ex) {
 			statusLabel.setForeground(UiColorPalette.TEXT_DANGER);
 			statusLabel.setText("Failed to save settings: " + ex.getMessage());
@@ -3,12 +3,17 @@ package com.lansoftprogramming.runeSequence.ui.settings.debug;
 import com.lansoftprogramming.runeSequence.application.TemplateCache;
 import com.lansoftprogramming.runeSequence.core.detection.DetectionEngine;
 import com.lansoftprogramming.runeSequence.core.detection.DetectionResult;
+import com.lansoftprogramming.runeSequence.core.detection.IconDescriptor;
 import com.lansoftprogramming.runeSequence.core.detection.IconDetectionGrader;
+import com.lansoftprogramming.runeSequence.core.detection.SlotClassifier;
+import com.lansoftprogramming.runeSequence.core.detection.TemplateDescriptorIndex;
 import com.lansoftprogramming.runeSequence.core.detection.TemplateDetector;
+import com.lansoftprogramming.runeSequence.core.metrics.LogDirectory;
 import com.lansoftprogramming.runeSequence.infrastructure.capture.ScreenCapture;
 import com.lansoftprogramming.runeSequence.ui.overlay.OverlayRenderer;
 import com.lansoftprogramming.runeSequence.ui.theme.UiColorPalette;
 import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,7 +22,6 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.Instant;
@@ -33,6 +37,8 @@ public class IconDetectionDebugService {
 	private static final int DEFAULT_YELLOW_TOLERANCE_PERCENT = 10;
 	private static final int DEFAULT_NOT_FOUND_TOLERANCE_PERCENT = 20;
 	private static final int DEFAULT_PARALLEL_DETECTIONS = 5;
+	private static final int LOOKALIKE_LIMIT = 3;
+	private static final int LOOKALIKE_MAX_HASH_DISTANCE = 24;
 
 	public interface Listener {
 		void onProgress(ProgressSnapshot snapshot);
@@ -76,7 +82,8 @@ public class IconDetectionDebugService {
 	                               boolean found,
 	                               Point bestLocation,
 	                               Rectangle bestBounds,
-	                               String error) {
+	                               String error,
+	                               List<String> lookalikes) {
 	}
 
 	private record BestMatch(double confidence, Point location, Rectangle bounds) {
@@ -108,6 +115,8 @@ public class IconDetectionDebugService {
 	private final int batchSize = DEFAULT_PARALLEL_DETECTIONS;
 	private volatile java.util.concurrent.ExecutorService detectionPool;
 	private final Map<String, Double> requiredThresholdByTemplate = new ConcurrentHashMap<>();
+	private final SlotClassifier slotClassifier;
+	private volatile boolean slotClassificationMode = false;
 
 	public IconDetectionDebugService(DetectionEngine detectionEngine,
 	                                 ScreenCapture screenCapture,
@@ -121,6 +130,9 @@ public class IconDetectionDebugService {
 		this.templateCache = templateCache;
 		this.overlayRenderer = overlayRenderer;
 		this.tickMs = tickMs > 0 ? tickMs : DEFAULT_TICK_MS;
+		this.slotClassifier = templateCache != null && templateDetector != null
+				? new SlotClassifier(templateCache, templateDetector)
+				: null;
 	}
 
 	public void addListener(Listener listener) {
@@ -154,16 +166,16 @@ public class IconDetectionDebugService {
 	public ManualTestResult runManualTest(String templateName) {
 		String name = templateName != null ? templateName.trim() : "";
 		if (name.isBlank()) {
-			return new ManualTestResult(name, false, 0.0d, 0.0d, false, null, null, "Enter a template name.");
+			return new ManualTestResult(name, false, 0.0d, 0.0d, false, null, null, "Enter a template name.", List.of());
 		}
 		if (templateDetector == null) {
-			return new ManualTestResult(name, false, 0.0d, 0.0d, false, null, null, "Template detector unavailable.");
+			return new ManualTestResult(name, false, 0.0d, 0.0d, false, null, null, "Template detector unavailable.", List.of());
 		}
 		if (screenCapture == null) {
-			return new ManualTestResult(name, false, 0.0d, 0.0d, false, null, null, "Screen capture unavailable.");
+			return new ManualTestResult(name, false, 0.0d, 0.0d, false, null, null, "Screen capture unavailable.", List.of());
 		}
 		if (running.get()) {
-			return new ManualTestResult(name, false, 0.0d, 0.0d, false, null, null, "Debug scan is running.");
+			return new ManualTestResult(name, false, 0.0d, 0.0d, false, null, null, "Debug scan is running.", List.of());
 		}
 
 		boolean known = templateCache != null && templateCache.getTemplateNames().contains(name);
@@ -173,19 +185,19 @@ public class IconDetectionDebugService {
 		} catch (Exception e) {
 			logger.debug("Manual test failed resolving required threshold for {}", name, e);
 			return new ManualTestResult(name, known, 0.0d, 0.0d, false, null, null,
-					"Failed to resolve required threshold: " + e.getMessage());
+					"Failed to resolve required threshold: " + e.getMessage(), List.of());
 		}
 
 		Mat screenMat = null;
 		try {
 			screenMat = screenCapture.captureScreen();
 			if (screenMat == null || screenMat.empty()) {
-				return new ManualTestResult(name, known, requiredThreshold, 0.0d, false, null, null, "Capture returned no frame.");
+				return new ManualTestResult(name, known, requiredThreshold, 0.0d, false, null, null, "Capture returned no frame.", List.of());
 			}
 
 			DetectionResult result = templateDetector.detectTemplate(screenMat, name, false, null);
 			if (result == null) {
-				return new ManualTestResult(name, known, requiredThreshold, 0.0d, false, null, null, "Detection returned no result.");
+				return new ManualTestResult(name, known, requiredThreshold, 0.0d, false, null, null, "Detection returned no result.", List.of());
 			}
 
 			Rectangle captureRegion = screenCapture.getRegion();
@@ -206,11 +218,12 @@ public class IconDetectionDebugService {
 					result.found,
 					bestLocation,
 					bestBounds,
-					null
+					null,
+					result.found ? List.of() : lookalikesAt(screenMat, result.boundingBox, name)
 			);
 		} catch (Exception e) {
 			logger.debug("Manual template test failed for {}", name, e);
-			return new ManualTestResult(name, known, requiredThreshold, 0.0d, false, null, null, "Manual test failed: " + e.getMessage());
+			return new ManualTestResult(name, known, requiredThreshold, 0.0d, false, null, null, "Manual test failed: " + e.getMessage(), List.of());
 		} finally {
 			if (screenMat != null) {
 				screenMat.close();
@@ -218,15 +231,55 @@ public class IconDetectionDebugService {
 		}
 	}
 
+	/**
+	 * Diagnostics for a failed manual test: which indexed templates does the patch at the best match look like?
+	 * A hit usually means the icon on screen was saved under a different name (or a stale scaling folder).
+	 */
+	private List<String> lookalikesAt(Mat frame, Rectangle bounds, String excludeName) {
+		if (templateCache == null || frame == null || bounds == null || bounds.width <= 0 || bounds.height <= 0) {
+			return List.of();
+		}
+		Rectangle clamped = bounds.intersection(new Rectangle(0, 0, frame.cols(), frame.rows()));
+		if (clamped.width < bounds.width || clamped.height < bounds.height) {
+			return List.of();
+		}
+		Mat patch = new Mat(frame, new Rect(clamped.x, clamped.y, clamped.width, clamped.height));
+		try {
+			List<String> names = new ArrayList<>(LOOKALIKE_LIMIT);
+			for (TemplateDescriptorIndex.Match match : templateCache.getDescriptorIndex()
+					.nearest(IconDescriptor.of(patch), LOOKALIKE_LIMIT + 1, LOOKALIKE_MAX_HASH_DISTANCE, null)) {
+				if (!match.templateName().equals(excludeName) && names.size() < LOOKALIKE_LIMIT) {
+					names.add(match.templateName());
+				}
+			}
+			return List.copyOf(names);
+		} catch (Exception e) {
+			logger.debug("Failed computing lookalikes for {}", excludeName, e);
+			return List.of();
+		} finally {
+			patch.close();
+		}
+	}
+
 	public synchronized void start() {
 		start(DEFAULT_YELLOW_TOLERANCE_PERCENT, DEFAULT_NOT_FOUND_TOLERANCE_PERCENT);
 	}
 
 	public synchronized void start(int yellowTolerancePercent, int notFoundTolerancePercent) {
+		start(yellowTolerancePercent, notFoundTolerancePercent, false);
+	}
+
+	/**
+	 * Start a scan. When {@code slotClassification} is true each tick classifies every pending template in a single
+	 * pass over the frame (see {@link SlotClassifier}) instead of running batches of full-frame matches.
+	 */
+	public synchronized void start(int yellowTolerancePercent, int notFoundTolerancePercent, boolean slotClassification) {
 		if (!running.compareAndSet(false, true)) {
 			return;
 		}
 
+		this.slotClassificationMode = slotClassification && slotClassifier != null;
+
 		this.yellowTolerancePercent = sanitizeTolerancePercent(yellowTolerancePercent, DEFAULT_YELLOW_TOLERANCE_PERCENT);
 		this.notFoundTolerancePercent = sanitizeTolerancePercent(notFoundTolerancePercent, DEFAULT_NOT_FOUND_TOLERANCE_PERCENT);
 		if (this.notFoundTolerancePercent < this.yellowTolerancePercent) {
@@ -279,7 +332,8 @@ public class IconDetectionDebugService {
 		executor.scheduleAtFixedRate(this::tick, 0, tickMs, TimeUnit.MILLISECONDS);
 
 		notifyProgress();
-		logger.info("Icon detection debug started (templates={}, tickMs={}).", totalTemplates, tickMs);
+		logger.info("Icon detection debug started (templates={}, tickMs={}, slotClassification={}).",
+				totalTemplates, tickMs, slotClassificationMode);
 	}
 
 	public synchronized void stop() {
@@ -300,6 +354,11 @@ public class IconDetectionDebugService {
 				return;
 			}
 
+			if (slotClassificationMode) {
+				tickSlotClassification();
+				return;
+			}
+
 			String templateName = scanQueue.pollFirst();
 			if (templateName == null) {
 				finishAndPersist();
@@ -349,39 +408,13 @@ public class IconDetectionDebugService {
 				List<java.util.concurrent.Callable<Void>> tasks = batch.stream().map(name -> (java.util.concurrent.Callable<Void>) () -> {
 					try {
 						DetectionResult result = templateDetector.detectTemplate(frameMat, name, false, null);
-						double requiredThreshold = requiredThresholdByTemplate.computeIfAbsent(name, key -> templateDetector.resolveRequiredThreshold(key, null));
-
-						BestMatch existing = bestByTemplate.get(name);
-						BestMatch nextBest = bestOf(existing, result, captureRegion);
-						if (nextBest != null) {
-							bestByTemplate.put(name, nextBest);
-						}
-
-						double bestConfidence = nextBest != null ? nextBest.confidence : 0.0d;
-						IconDetectionGrader.Result gradeResult = IconDetectionGrader.grade(
-								requiredThreshold,
-								bestConfidence,
-								yellowTolerancePercent / 100.0d,
-								notFoundTolerancePercent / 100.0d
-						);
-
-						if (gradeResult.grade() == IconDetectionGrader.Grade.GREEN) {
-							greenTemplates.add(name);
-							greenEntriesByTemplate.put(name, new ResultEntry(
-									name,
-									requiredThreshold,
-									bestConfidence,
-									gradeResult.deltaRatio(),
-									nextBest != null && nextBest.location != null ? new Point(nextBest.location) : null,
-									nextBest != null && nextBest.bounds != null ? new Rectangle(nextBest.bounds) : null
-							));
-							bestByTemplate.remove(name);
-						} else {
+						OverlayHint recorded = recordDetection(name, result, captureRegion);
+						if (recorded.grade != IconDetectionGrader.Grade.GREEN) {
 							requeue.put(name, Boolean.TRUE);
 						}
 
 						if (name.equals(batch.getFirst())) {
-							overlayHint.set(new OverlayHint(nextBest, gradeResult.grade()));
+							overlayHint.set(recorded);
 						}
 						return null;
 					} catch (Exception e) {
@@ -423,6 +456,99 @@ public class IconDetectionDebugService {
 		}
 	}
 
+	/**
+	 * Single-pass tick: classify every pending template against one frame.
+	 * Templates that grade green leave the queue; the rest stay queued for the next frame.
+	 */
+	private void tickSlotClassification() {
+		List<String> pending = new ArrayList<>(scanQueue);
+		if (pending.isEmpty()) {
+			finishAndPersist();
+			return;
+		}
+
+		currentTemplate = String.format(Locale.ROOT, "%d templates (slot scan)", pending.size());
+
+		Mat screenMat = null;
+		try {
+			screenMat = screenCapture != null ? screenCapture.captureScreen() : null;
+			if (screenMat == null || screenMat.empty()) {
+				notifyProgress();
+				return;
+			}
+
+			Rectangle captureRegion = screenCapture.getRegion();
+			long startNanos = System.nanoTime();
+			SlotClassifier.Classification classification = slotClassifier.classify(screenMat, pending);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Slot scan classified {} templates over {} slots in {}ms ({} verified pairs).",
+						pending.size(), classification.slots().size(),
+						(System.nanoTime() - startNanos) / 1_000_000L, classification.verifiedPairs());
+			}
+
+			ArrayDeque<String> remaining = new ArrayDeque<>();
+			OverlayHint strongest = null;
+			for (String name : pending) {
+				DetectionResult result = classification.bestByTemplate().get(name);
+				OverlayHint recorded = recordDetection(name, result, captureRegion);
+				if (recorded.grade != IconDetectionGrader.Grade.GREEN) {
+					remaining.addLast(name);
+				} else if (strongest == null) {
+					strongest = recorded;
+				}
+			}
+			scanQueue = remaining;
+
+			if (strongest != null) {
+				showDebugBorderIfUseful(strongest.best, UiColorPalette.TEXT_SUCCESS);
+			}
+			notifyProgress();
+			if (remaining.isEmpty()) {
+				finishAndPersist();
+			}
+		} finally {
+			if (screenMat != null) {
+				screenMat.close();
+			}
+		}
+	}
+
+	/**
+	 * Fold a detection into the running best match for {@code name} and grade it.
+	 * Green templates are recorded and dropped from the best-match table.
+	 */
+	private OverlayHint recordDetection(String name, DetectionResult result, Rectangle captureRegion) {
+		double requiredThreshold = requiredThresholdByTemplate.computeIfAbsent(name, key -> templateDetector.resolveRequiredThreshold(key, null));
+
+		BestMatch existing = bestByTemplate.get(name);
+		BestMatch nextBest = bestOf(existing, result, captureRegion);
+		if (nextBest != null) {
+			bestByTemplate.put(name, nextBest);
+		}
+
+		double bestConfidence = nextBest != null ? nextBest.confidence : 0.0d;
+		IconDetectionGrader.Result gradeResult = IconDetectionGrader.grade(
+				requiredThreshold,
+				bestConfidence,
+				yellowTolerancePercent / 100.0d,
+				notFoundTolerancePercent / 100.0d
+		);
+
+		if (gradeResult.grade() == IconDetectionGrader.Grade.GREEN) {
+			greenTemplates.add(name);
+			greenEntriesByTemplate.put(name, new ResultEntry(
+					name,
+					requiredThreshold,
+					bestConfidence,
+					gradeResult.deltaRatio(),
+					nextBest != null && nextBest.location != null ? new Point(nextBest.location) : null,
+					nextBest != null && nextBest.bounds != null ? new Rectangle(nextBest.bounds) : null
+			));
+			bestByTemplate.remove(name);
+		}
+		return new OverlayHint(nextBest, gradeResult.grade());
+	}
+
 	private void showDebugBorderIfUseful(BestMatch match, Color color) {
 		if (match == null || match.bounds == null || overlayRenderer == null) {
 			return;
@@ -669,11 +795,7 @@ public class IconDetectionDebugService {
 	}
 
 	private Path resolveLogFilePath() {
-		String logsDir = System.getProperty("runeSequence.log.dir");
-		if (logsDir != null && !logsDir.isBlank()) {
-			return Paths.get(logsDir).resolve("icon_Detection.log");
-		}
-		return Paths.get(System.getProperty("user.home", ".")).resolve("RuneSequence").resolve("logs").resolve("icon_Detection.log");
+		return LogDirectory.resolve().resolve("icon_Detection.log");
 	}
 
 	private void notifyProgress() {
@@ -0,0 +1,61 @@
+package com.lansoftprogramming.runeSequence.ui.shared;
+
+import com.lansoftprogramming.runeSequence.core.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Measures Event Dispatch Thread queue lag: a background thread periodically posts a no-op to the EDT and records
+ * how long it waited before running. Only one probe is ever in flight, so a stalled EDT is not flooded.
+ */
+public final class EdtLagProbe {
+	private static final Logger logger = LoggerFactory.getLogger(EdtLagProbe.class);
+	private static final long PROBE_INTERVAL_MS = 250L;
+
+	private final MetricsRegistry.Timer lagTimer;
+	private final AtomicBoolean probeInFlight = new AtomicBoolean(false);
+	private volatile long lastLagNanos = 0L;
+	private ScheduledExecutorService scheduler;
+
+	public EdtLagProbe(MetricsRegistry registry) {
+		this.lagTimer = registry.timer("ui.edtLag");
+		registry.gauge("ui.edtLagLastMs", () -> lastLagNanos / 1_000_000.0d);
+	}
+
+	public synchronized void start() {
+		if (scheduler != null) {
+			return;
+		}
+		scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "EdtLagProbe");
+			t.setDaemon(true);
+			return t;
+		});
+		scheduler.scheduleAtFixedRate(this::probe, PROBE_INTERVAL_MS, PROBE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+		logger.debug("EDT lag probe started ({}ms interval)", PROBE_INTERVAL_MS);
+	}
+
+	public synchronized void shutdown() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+	}
+
+	private void probe() {
+		if (!probeInFlight.compareAndSet(false, true)) {
+			return;
+		}
+		long postedNanos = System.nanoTime();
+		SwingUtilities.invokeLater(() -> {
+			lastLagNanos = lagTimer.recordSince(postedNanos) - postedNanos;
+			probeInFlight.set(false);
+		});
+	}
+}
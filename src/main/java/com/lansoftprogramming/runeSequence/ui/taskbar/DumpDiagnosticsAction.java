@@ -0,0 +1,25 @@
+package com.lansoftprogramming.runeSequence.ui.taskbar;
+
+import com.lansoftprogramming.runeSequence.core.metrics.DiagnosticRecorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class DumpDiagnosticsAction implements MenuAction {
+	private static final Logger logger = LoggerFactory.getLogger(DumpDiagnosticsAction.class);
+
+	private final DiagnosticRecorder recorder;
+
+	public DumpDiagnosticsAction(DiagnosticRecorder recorder) {
+		this.recorder = recorder;
+	}
+
+	@Override
+	public void execute() {
+		if (recorder == null) {
+			logger.warn("Diagnostic recorder not available; skipping dump.");
+			return;
+		}
+		logger.info("Diagnostics dump requested from taskbar.");
+		recorder.dumpToLogsDir("taskbar request");
+	}
+}
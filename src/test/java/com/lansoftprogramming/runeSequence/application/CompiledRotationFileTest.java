@@ -0,0 +1,91 @@
+package com.lansoftprogramming.runeSequence.application;
+
+import com.lansoftprogramming.runeSequence.application.TooltipScheduleBuilder.BuildResult;
+import com.lansoftprogramming.runeSequence.core.sequence.model.AbilitySettingsOverrides;
+import com.lansoftprogramming.runeSequence.core.sequence.model.Alternative;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledRotationFileTest {
+
+	private static final String KEY_A = "a".repeat(64);
+	private static final String KEY_B = "0b".repeat(32);
+	private static final String KEY_MISSING = "c".repeat(64);
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void shouldRoundTripNestedGroupsOverridesAndTooltips() throws IOException {
+		Map<String, AbilitySettingsOverrides> overrides = Map.of(
+				"1", AbilitySettingsOverrides.builder().level(3).triggersGcd(true).castDuration((short) 2).detectionThreshold(0.85).build(),
+				"2", AbilitySettingsOverrides.builder().type("Basic").build()
+		);
+		BuildResult original = new TooltipScheduleBuilder().build(
+				"surge (Go) → a[*1] / (b → c / d[*2] + (e → f)) → gmaul eofspec → g (Done)", overrides, null);
+		Path file = tempDir.resolve("compiled.bin");
+		CompiledRotationFile.write(file, Map.of(KEY_A, original));
+
+		try (CompiledRotationFile opened = CompiledRotationFile.open(file)) {
+			assertNotNull(opened);
+			assertEquals(Set.of(KEY_A), opened.keys());
+			BuildResult restored = opened.read(KEY_A);
+			assertEquals(original.definition().toString(), restored.definition().toString());
+			assertEquals(original.schedule().getTooltipsByStep(), restored.schedule().getTooltipsByStep());
+
+			Alternative labelled = restored.definition().getStep(1).getTerms().get(0).getAlternatives().get(0);
+			assertEquals("1", labelled.getInstanceLabel());
+			assertEquals(overrides.get("1"), labelled.getAbilitySettingsOverrides());
+			Alternative group = restored.definition().getStep(1).getTerms().get(0).getAlternatives().get(1);
+			assertTrue(group.isGroup());
+			Alternative nestedLabelled = group.getSubgroup().getStep(1).getTerms().get(0).getAlternatives().get(1);
+			assertEquals(overrides.get("2"), nestedLabelled.getAbilitySettingsOverrides());
+			assertNull(opened.read(KEY_MISSING));
+		}
+	}
+
+	@Test
+	void shouldInternAbilityIdsAcrossPresets() throws IOException {
+		TooltipScheduleBuilder builder = new TooltipScheduleBuilder();
+		Path file = tempDir.resolve("compiled.bin");
+		CompiledRotationFile.write(file, Map.of(
+				KEY_A, builder.build("surge → dive", null, null),
+				KEY_B, builder.build("dive → surge", null, null)
+		));
+
+		try (CompiledRotationFile opened = CompiledRotationFile.open(file)) {
+			String fromA = opened.read(KEY_A).definition().getStep(0).getTerms().get(0).getAlternatives().get(0).getToken();
+			String fromB = opened.read(KEY_B).definition().getStep(1).getTerms().get(0).getAlternatives().get(0).getToken();
+			assertEquals("surge", fromA);
+			assertSame(fromA, fromB);
+		}
+	}
+
+	@Test
+	void shouldRejectForeignAndCorruptFiles() throws IOException {
+		Path foreign = tempDir.resolve("foreign.bin");
+		Files.write(foreign, new byte[]{'R', 'S', 'C', 'P', 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 0});
+		assertNull(CompiledRotationFile.open(foreign));
+
+		Path file = tempDir.resolve("compiled.bin");
+		CompiledRotationFile.write(file, Map.of(KEY_A, new TooltipScheduleBuilder().build("a → b", null, null)));
+		byte[] bytes = Files.readAllBytes(file);
+		Path truncated = tempDir.resolve("truncated.bin");
+		Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 6));
+		try (CompiledRotationFile opened = CompiledRotationFile.open(truncated)) {
+			assertThrows(IOException.class, () -> opened.read(KEY_A));
+		}
+
+		assertThrows(IllegalArgumentException.class,
+				() -> CompiledRotationFile.write(file, Map.of(KEY_A, new TooltipScheduleBuilder().build("a → → b", null, null))));
+	}
+}
@@ -0,0 +1,194 @@
+package com.lansoftprogramming.runeSequence.application;
+
+import com.lansoftprogramming.runeSequence.core.detection.TemplateDetector;
+import com.lansoftprogramming.runeSequence.core.sequence.model.AbilitySettingsOverrides;
+import com.lansoftprogramming.runeSequence.core.sequence.model.SequenceDefinition;
+import com.lansoftprogramming.runeSequence.infrastructure.config.ConfigManager;
+import com.lansoftprogramming.runeSequence.infrastructure.config.PresetLibrary;
+import com.lansoftprogramming.runeSequence.infrastructure.config.RotationConfig;
+import com.lansoftprogramming.runeSequence.ui.notification.NotificationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigReloaderTest {
+	private static final String ROTATIONS = """
+			{
+			  "presets" : {
+			    "p1" : { "name" : "Necro", "expression" : "surge → barricade" },
+			    "p2" : { "name" : "Melee", "expression" : "dive → wrack" }
+			  }
+			}
+			""";
+	private static final String ABILITIES = """
+			{
+			  "surge" : { "common_name" : "Surge", "type" : "Defensive", "detection_threshold" : 0.9 },
+			  "dive" : { "common_name" : "Dive", "type" : "Defensive", "detection_threshold" : 0.9 },
+			  "barricade" : { "common_name" : "Barricade", "type" : "Defensive" },
+			  "wrack" : { "common_name" : "Wrack", "type" : "Basic" }
+			}
+			""";
+	private static final Rectangle SURGE = new Rectangle(10, 20, 30, 30);
+	private static final Rectangle DIVE = new Rectangle(50, 20, 30, 30);
+
+	@TempDir
+	Path configDir;
+
+	private ConfigManager configManager;
+	private TemplateCache templateCache;
+	private TemplateDetector detector;
+	private CountingBuilder builder;
+	private ConfigReloader reloader;
+	private final Map<String, SequenceDefinition> pushed = new HashMap<>();
+
+	@BeforeEach
+	void setUp() throws Exception {
+		Files.writeString(configDir.resolve("rotations.json"), ROTATIONS);
+		Files.writeString(configDir.resolve("abilities.json"), ABILITIES);
+		// Any image skips extracting the bundled ones.
+		Path images = Files.createDirectories(configDir.resolve("Abilities"));
+		for (String name : new String[]{"surge", "dive"}) {
+			Files.write(images.resolve(name + ".png"), new byte[]{1});
+		}
+		configManager = new ConfigManager(configDir);
+		configManager.initialize();
+
+		templateCache = new TemplateCache(images);
+		detector = new TemplateDetector(templateCache, configManager.getAbilities());
+		detector.updateCachedLocation("surge", SURGE);
+		detector.updateCachedLocation("dive", DIVE);
+
+		builder = new CountingBuilder();
+		PresetCompiler compiler = new PresetCompiler(builder,
+				PresetCompiler.abilityConfigVersion(configManager.getAbilities().getAbilities().keySet()), null);
+		compiler.compileAll(configManager.getRotations().getPresets());
+		assertEquals(2, builder.builds.get());
+
+		SequenceManager sequenceManager = new SequenceManager(pushed, new HashMap<>(),
+				configManager.getAbilities(), new NoopNotificationService(), detector);
+		reloader = new ConfigReloader(configManager, compiler, sequenceManager, templateCache, detector);
+	}
+
+	@AfterEach
+	void tearDown() {
+		configManager.shutdown();
+		templateCache.shutdown();
+	}
+
+	@Test
+	void editedPresetShouldRecompileOnlyThatId() throws Exception {
+		editOutside(configManager.getRotationsPath(), ROTATIONS.replace("dive → wrack", "dive → surge"));
+
+		reloader.apply(Set.of(configManager.getRotationsPath()));
+
+		assertEquals(3, builder.builds.get(), "Only p2 changed");
+		assertEquals(Set.of("p2"), pushed.keySet());
+		assertEquals("dive → surge", configManager.getRotations().getPresets().get("p2").getExpression());
+	}
+
+	@Test
+	void editedThresholdShouldInvalidateOnlyThatAbilitysLocation() throws Exception {
+		editOutside(configManager.getAbilitiesPath(), ABILITIES.replace(
+				"\"Surge\", \"type\" : \"Defensive\", \"detection_threshold\" : 0.9",
+				"\"Surge\", \"type\" : \"Defensive\", \"detection_threshold\" : 0.8"));
+
+		reloader.apply(Set.of(configManager.getAbilitiesPath()));
+
+		assertNull(detector.getCachedLocation("surge"));
+		assertEquals(DIVE, detector.getCachedLocation("dive"));
+		assertEquals(0.8d, configManager.getAbilities().getAbility("surge").getDetectionThreshold(), 1e-9);
+		assertEquals(2, builder.builds.get(), "Ability names are unchanged, so no preset parses differently");
+	}
+
+	@Test
+	void replacedTemplateShouldInvalidateOnlyItsLocation() throws Exception {
+		Path dive = configManager.getAbilityImagePath().resolve("dive.png");
+		Files.write(dive, new byte[]{2, 3});
+
+		reloader.apply(Set.of(dive));
+
+		assertNull(detector.getCachedLocation("dive"));
+		assertEquals(SURGE, detector.getCachedLocation("surge"));
+		assertEquals(2, builder.builds.get());
+	}
+
+	@Test
+	void ownSavesShouldNotRecompile() throws Exception {
+		Map<String, RotationConfig.PresetData> presets = configManager.getRotations().getPresets();
+		PresetLibrary library = assertInstanceOf(PresetLibrary.class, presets);
+		RotationConfig.PresetData p1 = library.get("p1");
+		p1.setExpression("surge → dive");
+		library.put("p1", p1);
+		configManager.saveRotations().get(5, TimeUnit.SECONDS);
+		configManager.saveSettings().get(5, TimeUnit.SECONDS);
+		// Folding the journal rewrites rotations.json, which the watcher reports like an outside edit.
+		assertTrue(library.compact());
+
+		reloader.apply(Set.of(
+				configManager.getRotationsPath(),
+				configDir.resolve("rotations.journal"),
+				configDir.resolve("settings.json")
+		));
+
+		assertEquals(2, builder.builds.get());
+		assertTrue(pushed.isEmpty());
+		assertEquals(SURGE, detector.getCachedLocation("surge"));
+	}
+
+	/**
+	 * Replace {@code file} the way an editor would, with a timestamp the loaded state cannot already match.
+	 */
+	private static void editOutside(Path file, String content) throws Exception {
+		FileTime before = Files.getLastModifiedTime(file);
+		Files.writeString(file, content);
+		Files.setLastModifiedTime(file, FileTime.fromMillis(before.toMillis() + 5_000L));
+	}
+
+	private static final class CountingBuilder extends TooltipScheduleBuilder {
+		private final AtomicInteger builds = new AtomicInteger();
+
+		@Override
+		public BuildResult build(String expression,
+		                         Map<String, AbilitySettingsOverrides> perInstanceOverrides,
+		                         Map<String, AbilitySettingsOverrides> perAbilityOverrides) {
+			builds.incrementAndGet();
+			return super.build(expression, perInstanceOverrides, perAbilityOverrides);
+		}
+	}
+
+	private static final class NoopNotificationService implements NotificationService {
+		@Override
+		public void showInfo(String message) {
+		}
+
+		@Override
+		public void showSuccess(String message) {
+		}
+
+		@Override
+		public void showWarning(String message) {
+		}
+
+		@Override
+		public void showError(String message) {
+		}
+
+		@Override
+		public boolean showConfirmDialog(String title, String message) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package com.lansoftprogramming.runeSequence.application;
+
+import com.lansoftprogramming.runeSequence.core.sequence.model.AbilitySettingsOverrides;
+import com.lansoftprogramming.runeSequence.core.sequence.model.Alternative;
+import com.lansoftprogramming.runeSequence.infrastructure.config.RotationConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PresetCompilerTest {
+
+	private static final String EXPRESSION = "gmaul eofspec (Swap) → a[*1] / b + c → d (Done) → (e → f) + g";
+	private static final Map<String, AbilitySettingsOverrides> OVERRIDES = Map.of(
+			"1", AbilitySettingsOverrides.builder().cooldown((short) 12).triggersGcd(false).mask("m").build()
+	);
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void shouldMemoizeByExpressionAndOverrides() {
+		CountingBuilder builder = new CountingBuilder();
+		PresetCompiler compiler = new PresetCompiler(builder, "v1", null);
+
+		TooltipScheduleBuilder.BuildResult first = compiler.compile("p", EXPRESSION, OVERRIDES, null);
+		assertSame(first, compiler.compile("q", EXPRESSION, Map.copyOf(OVERRIDES), Map.of()));
+		assertEquals(1, builder.builds.get());
+
+		compiler.compile("p", EXPRESSION, null, null);
+		assertEquals(2, builder.builds.get(), "Different overrides must compile separately");
+	}
+
+	@Test
+	void savedCacheShouldRestoreWithoutParsing() {
+		Path cacheFile = tempDir.resolve("compiled_presets.bin");
+		PresetCompiler writer = new PresetCompiler(new TooltipScheduleBuilder(), "v1", cacheFile);
+		TooltipScheduleBuilder.BuildResult original = writer.compile("p", EXPRESSION, OVERRIDES, null);
+		writer.compile("broken", "a → → b", null, null);
+		writer.saveCache();
+
+		CountingBuilder builder = new CountingBuilder();
+		PresetCompiler reader = new PresetCompiler(builder, "v1", cacheFile);
+		reader.loadCache();
+		TooltipScheduleBuilder.BuildResult restored = reader.compile("p", EXPRESSION, OVERRIDES, null);
+
+		assertEquals(0, builder.builds.get());
+		assertEquals(original.definition().toString(), restored.definition().toString());
+		assertEquals(original.schedule().getTooltipsByStep(), restored.schedule().getTooltipsByStep());
+		Alternative labelled = restored.definition().getStep(1).getTerms().get(0).getAlternatives().get(0);
+		assertEquals("1", labelled.getInstanceLabel());
+		assertEquals(OVERRIDES.get("1"), labelled.getAbilitySettingsOverrides());
+		Alternative modified = restored.definition().getStep(0).getTerms().get(0).getAlternatives().get(0);
+		assertEquals(original.definition().getStep(0).getTerms().get(0).getAlternatives().get(0).getAbilityModifiers(),
+				modified.getAbilityModifiers());
+
+		assertNull(reader.compile("broken", "a → → b", null, null).definition());
+		assertEquals(1, builder.builds.get(), "Failed builds are not cached on disk");
+	}
+
+	@Test
+	void savingShouldKeepTheFileMappedForRestores() {
+		Path cacheFile = tempDir.resolve("compiled_presets.bin");
+		CountingBuilder builder = new CountingBuilder();
+		PresetCompiler compiler = new PresetCompiler(builder, "v1", cacheFile);
+		compiler.compile("p", EXPRESSION, OVERRIDES, null);
+		compiler.saveCache();
+		compiler.forget("p");
+
+		compiler.compile("q", EXPRESSION, OVERRIDES, null);
+		assertEquals(1, builder.builds.get(), "Restored from the file written by saveCache()");
+	}
+
+	@Test
+	void changedAbilityConfigShouldMissTheCache() {
+		Path cacheFile = tempDir.resolve("compiled_presets.bin");
+		PresetCompiler writer = new PresetCompiler(new TooltipScheduleBuilder(), "v1", cacheFile);
+		writer.compile("p", EXPRESSION, null, null);
+		writer.saveCache();
+
+		CountingBuilder builder = new CountingBuilder();
+		PresetCompiler reader = new PresetCompiler(builder, "v2", cacheFile);
+		reader.loadCache();
+		reader.compile("p", EXPRESSION, null, null);
+
+		assertEquals(1, builder.builds.get());
+	}
+
+	@Test
+	void shouldRecompileOnlyChangedPresets() {
+		CountingBuilder builder = new CountingBuilder();
+		PresetCompiler compiler = new PresetCompiler(builder, PresetCompiler.abilityConfigVersion(Set.of("a")), null);
+		compiler.compile("p", preset(EXPRESSION));
+		compiler.compile("q", preset("a → b"));
+
+		assertNull(compiler.recompileIfChanged("p", preset(EXPRESSION)));
+		TooltipScheduleBuilder.BuildResult edited = compiler.recompileIfChanged("q", preset("a → c"));
+		assertNotNull(edited);
+		assertEquals(3, builder.builds.get());
+		assertNull(compiler.recompileIfChanged("q", preset("a → c")));
+		assertEquals(Set.of("p", "q"), compiler.presetIds());
+
+		assertFalse(compiler.updateAbilityNames(Set.of("a")));
+		assertTrue(compiler.updateAbilityNames(Set.of("a", "Done")));
+		assertNotNull(compiler.recompileIfChanged("p", preset(EXPRESSION)), "New ability names change how every preset parses");
+	}
+
+	@Test
+	void shouldDropBuildsNoPresetMapsToAnyMore() {
+		CountingBuilder builder = new CountingBuilder();
+		PresetCompiler compiler = new PresetCompiler(builder, "v1", null);
+		compiler.compile("p", "a → b", null, null);
+		compiler.compile("q", "a → b", null, null);
+		compiler.compile("p", "a → c", null, null);
+		assertEquals(2, builder.builds.get());
+
+		compiler.compile("r", "a → b", null, null);
+		assertEquals(2, builder.builds.get(), "Still used by q");
+
+		compiler.forget("q");
+		compiler.forget("r");
+		compiler.compile("s", "a → b", null, null);
+		compiler.compile("p", "a → b", null, null);
+		assertEquals(3, builder.builds.get(), "Forgotten builds are compiled again");
+		compiler.compile("t", "a → c", null, null);
+		assertEquals(4, builder.builds.get(), "p's previous build was dropped");
+	}
+
+	private static RotationConfig.PresetData preset(String expression) {
+		RotationConfig.PresetData preset = new RotationConfig.PresetData();
+		preset.setExpression(expression);
+		return preset;
+	}
+
+	private static final class CountingBuilder extends TooltipScheduleBuilder {
+		private final AtomicInteger builds = new AtomicInteger();
+
+		@Override
+		public BuildResult build(String expression,
+		                         Map<String, AbilitySettingsOverrides> perInstanceOverrides,
+		                         Map<String, AbilitySettingsOverrides> perAbilityOverrides) {
+			builds.incrementAndGet();
+			return super.build(expression, perInstanceOverrides, perAbilityOverrides);
+		}
+	}
+}
@@ -0,0 +1,221 @@
+package com.lansoftprogramming.runeSequence.application;
+
+import com.lansoftprogramming.runeSequence.core.detection.TemplateDetector;
+import com.lansoftprogramming.runeSequence.core.sequence.model.Alternative;
+import com.lansoftprogramming.runeSequence.core.sequence.model.SequenceDefinition;
+import com.lansoftprogramming.runeSequence.core.sequence.model.Step;
+import com.lansoftprogramming.runeSequence.core.sequence.model.Term;
+import com.lansoftprogramming.runeSequence.core.sequence.runtime.ActiveSequence;
+import com.lansoftprogramming.runeSequence.core.sequence.runtime.TooltipSchedule;
+import com.lansoftprogramming.runeSequence.core.time.VirtualClock;
+import com.lansoftprogramming.runeSequence.infrastructure.config.AbilityConfig;
+import com.lansoftprogramming.runeSequence.ui.notification.NotificationService;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC3;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SequenceManagerKeypressLatchTest {
+	private final Deque<Double> brightnessSamples = new ArrayDeque<>();
+	private final VirtualClock clock = new VirtualClock(1_000L);
+	private SequenceManager manager;
+	private SequenceController controller;
+	private RecordingActiveSequence sequence;
+	private Mat frame;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		AbilityConfig abilityConfig = new AbilityConfig();
+		for (String key : List.of("A", "B", "C")) {
+			AbilityConfig.AbilityData data = new AbilityConfig.AbilityData();
+			data.setTriggersGcd(true);
+			abilityConfig.putAbility(key, data);
+		}
+		SequenceDefinition definition = new SequenceDefinition(List.of(
+				new Step(List.of(new Term(List.of(new Alternative("A"))))),
+				new Step(List.of(new Term(List.of(new Alternative("B"))))),
+				new Step(List.of(new Term(List.of(new Alternative("C")))))
+		));
+
+		manager = new SequenceManager(
+				Map.of("test", definition),
+				Map.of("test", TooltipSchedule.empty()),
+				abilityConfig,
+				new NoopNotificationService(),
+				new FakeTemplateDetector(new TestTemplateCache(), abilityConfig, brightnessSamples),
+				clock
+		);
+		assertTrue(manager.activateSequence("test"));
+		sequence = new RecordingActiveSequence(definition, abilityConfig);
+		Field activeSequenceField = SequenceManager.class.getDeclaredField("activeSequence");
+		activeSequenceField.setAccessible(true);
+		activeSequenceField.set(manager, sequence);
+
+		controller = new SequenceController(manager);
+		manager.setSequenceController(controller);
+		controller.onStartSequence();
+		frame = new Mat(20, 20, CV_8UC3);
+	}
+
+	@AfterEach
+	void tearDown() {
+		frame.close();
+	}
+
+	@Test
+	void keypressShouldStartAtKeyDownAndStayRunningOnceIconsDarken() {
+		// First armed frame: baselines for A and B, then their first samples.
+		frameAt(1_000L, 100.0, 100.0, 100.0, 100.0);
+
+		clock.setMillis(1_100L);
+		manager.onAbilityKeyPressed("A");
+
+		assertEquals(1_100L, sequence.latchTimeMs, "The key-down, not a later frame, starts the step timer");
+		assertEquals(SequenceController.State.RUNNING, controller.getState());
+		assertEquals(1, sequence.getCurrentStepIndex());
+
+		frameAt(1_300L, 70.0, 70.0);
+		frameAt(1_400L, 70.0, 70.0);
+		frameAt(1_500L, 70.0, 70.0);
+		assertTrue(brightnessSamples.isEmpty());
+
+		// Confirmed: later frames no longer sample brightness (an empty sample queue would throw).
+		frameAt(4_000L);
+		assertEquals(SequenceController.State.RUNNING, controller.getState());
+		assertEquals(1, sequence.getCurrentStepIndex());
+	}
+
+	@Test
+	void unconfirmedKeypressShouldRollBackToArmed() {
+		frameAt(1_000L, 100.0, 100.0, 100.0, 100.0);
+
+		clock.setMillis(1_100L);
+		manager.onAbilityKeyPressed("A");
+		assertEquals(SequenceController.State.RUNNING, controller.getState());
+
+		// Icons stay bright past the confirmation window: the press did not land (e.g. typed in chat).
+		for (long t = 1_400L; t <= 3_000L; t += 400L) {
+			frameAt(t, 100.0, 100.0);
+		}
+
+		assertEquals(SequenceController.State.ARMED, controller.getState());
+		assertEquals(0, sequence.getCurrentStepIndex());
+		assertTrue(brightnessSamples.isEmpty());
+	}
+
+	@Test
+	void keysOutsideTheCurrentStepShouldNotLatch() {
+		frameAt(1_000L, 100.0, 100.0, 100.0, 100.0);
+
+		manager.onAbilityKeyPressed("C");
+
+		assertEquals(SequenceController.State.ARMED, controller.getState());
+		assertEquals(0L, sequence.latchTimeMs);
+	}
+
+	private void frameAt(long timeMs, double... samples) {
+		clock.setMillis(timeMs);
+		for (double sample : samples) {
+			brightnessSamples.add(sample);
+		}
+		manager.processDetection(frame, List.of());
+	}
+
+	private static final class RecordingActiveSequence extends ActiveSequence {
+		private long latchTimeMs = 0L;
+
+		private RecordingActiveSequence(SequenceDefinition def, AbilityConfig abilityConfig) {
+			super(def, abilityConfig);
+		}
+
+		@Override
+		public void processDetections(List<com.lansoftprogramming.runeSequence.core.detection.DetectionResult> results) {
+			// No-op: only latch behaviour is under test; real timers must not advance steps.
+		}
+
+		@Override
+		public boolean onLatchStart(long latchTimeMs) {
+			this.latchTimeMs = latchTimeMs;
+			return super.onLatchStart(latchTimeMs);
+		}
+	}
+
+	private static final class FakeTemplateDetector extends TemplateDetector {
+		private final Deque<Double> brightnessSamples;
+		private final Rectangle roi = new Rectangle(0, 0, 10, 10);
+
+		private FakeTemplateDetector(TemplateCache templateCache, AbilityConfig abilityConfig, Deque<Double> brightnessSamples) {
+			super(templateCache, abilityConfig);
+			this.brightnessSamples = brightnessSamples;
+		}
+
+		@Override
+		public Rectangle resolveAbilityRoi(Mat frame, String abilityKey, Double detectionThreshold) {
+			return new Rectangle(roi);
+		}
+
+		@Override
+		public double measureBrightness(Mat frame, Rectangle roi) {
+			Double sample = brightnessSamples.pollFirst();
+			if (sample == null) {
+				throw new IllegalStateException("No more brightness samples");
+			}
+			return sample;
+		}
+	}
+
+	private static final class NoopNotificationService implements NotificationService {
+		@Override
+		public void showInfo(String message) {
+		}
+
+		@Override
+		public void showSuccess(String message) {
+		}
+
+		@Override
+		public void showWarning(String message) {
+		}
+
+		@Override
+		public void showError(String message) {
+		}
+
+		@Override
+		public boolean showConfirmDialog(String title, String message) {
+			return false;
+		}
+	}
+
+	private static final class TestTemplateCache extends TemplateCache {
+		TestTemplateCache() {
+			super(Path.of("."));
+		}
+
+		@Override
+		public int initialize() {
+			return 0;
+		}
+
+		@Override
+		public Mat getTemplate(String abilityName) {
+			return null;
+		}
+
+		@Override
+		public boolean hasTemplate(String abilityName) {
+			return false;
+		}
+	}
+}
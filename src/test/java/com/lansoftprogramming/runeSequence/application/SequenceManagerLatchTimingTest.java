@@ -7,6 +7,7 @@ import com.lansoftprogramming.runeSequence.core.sequence.model.Step;
 import com.lansoftprogramming.runeSequence.core.sequence.model.Term;
 import com.lansoftprogramming.runeSequence.core.sequence.runtime.ActiveSequence;
 import com.lansoftprogramming.runeSequence.core.sequence.runtime.TooltipSchedule;
+import com.lansoftprogramming.runeSequence.core.time.VirtualClock;
 import com.lansoftprogramming.runeSequence.infrastructure.config.AbilityConfig;
 import com.lansoftprogramming.runeSequence.ui.notification.NotificationService;
 import org.bytedeco.opencv.opencv_core.Mat;
@@ -19,7 +20,6 @@ import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.List;
 import java.util.Map;
-import java.util.function.LongSupplier;
 
 import static org.bytedeco.opencv.global.opencv_core.CV_8UC3;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -51,17 +51,7 @@ class SequenceManagerLatchTimingTest {
 		TemplateDetector detector = new FakeTemplateDetector(new TestTemplateCache(), abilityConfig, brightnessSamples);
 		NotificationService notifications = new NoopNotificationService();
 
-		long[] times = new long[]{1000L, 1600L, 2200L};
-		LongSupplier nowMs = new LongSupplier() {
-			private int index = 0;
-
-			@Override
-			public long getAsLong() {
-				int current = Math.min(index, times.length - 1);
-				index++;
-				return times[current];
-			}
-		};
+		VirtualClock clock = new VirtualClock(1000L);
 
 		SequenceManager manager = new SequenceManager(
 				Map.of("test", definition),
@@ -69,7 +59,7 @@ class SequenceManagerLatchTimingTest {
 				abilityConfig,
 				notifications,
 				detector,
-				nowMs
+				clock
 		);
 
 		assertTrue(manager.activateSequence("test"));
@@ -86,7 +76,9 @@ class SequenceManagerLatchTimingTest {
 		Mat frame = new Mat(20, 20, CV_8UC3);
 		try {
 			manager.processDetection(frame, List.of());
+			clock.setMillis(1600L);
 			manager.processDetection(frame, List.of());
+			clock.setMillis(2200L);
 			manager.processDetection(frame, List.of());
 		} finally {
 			frame.close();
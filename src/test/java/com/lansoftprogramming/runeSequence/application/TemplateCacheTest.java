@@ -0,0 +1,187 @@
+package com.lansoftprogramming.runeSequence.application;
+
+import com.lansoftprogramming.runeSequence.core.time.VirtualClock;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Scalar;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC4;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.imwrite;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemplateCacheTest {
+	private static final int ICON = 30;
+	private static final long ICON_BYTES = ICON * ICON * 4L;
+	private static final long IDLE_MILLIS = TimeUnit.NANOSECONDS.toMillis(TemplateCache.MIN_IDLE_NANOS) + 1_000L;
+	private static final long GRACE_MILLIS = TimeUnit.NANOSECONDS.toMillis(TemplateCache.RETIRE_GRACE_NANOS);
+
+	@TempDir
+	Path tempDir;
+
+	private final VirtualClock clock = new VirtualClock();
+
+	@Test
+	void initializeShouldIndexTheFolderWithoutDecoding() throws Exception {
+		writeIcon("surge.png", ICON, 40.0);
+		writeIcon("dive.PNG", ICON, 80.0);
+		Files.writeString(tempDir.resolve("notes.txt"), "ignored");
+		Files.createDirectory(tempDir.resolve("nested.png"));
+
+		TemplateCache cache = new TemplateCache(tempDir);
+		try {
+			assertEquals(2, cache.getCacheSize());
+			assertEquals(Set.of("surge", "dive"), cache.getTemplateNames());
+			assertTrue(cache.hasTemplate("surge"));
+			assertFalse(cache.hasTemplate("notes"));
+			assertEquals(0L, cache.getResidentBytes());
+		} finally {
+			cache.shutdown();
+		}
+	}
+
+	@Test
+	void lookupsShouldDecodeOnceAndAccountResidentBytes() throws Exception {
+		writeIcon("surge.png", ICON, 40.0);
+		writeIcon("dive.png", ICON, 80.0);
+		TemplateCache cache = new TemplateCache(tempDir);
+		try {
+			Mat surge = cache.getTemplate("surge");
+			assertNotNull(surge);
+			assertEquals(ICON, surge.cols());
+			assertEquals(ICON_BYTES, cache.getResidentBytes());
+			assertSame(surge, cache.getTemplate("surge"));
+			assertEquals(ICON_BYTES, cache.getResidentBytes(), "A second lookup does not decode again");
+
+			cache.preload(List.of("dive", "surge", "missing")).get(5, TimeUnit.SECONDS);
+			assertEquals(2 * ICON_BYTES, cache.getResidentBytes());
+			assertNull(cache.getTemplate("missing"));
+		} finally {
+			cache.shutdown();
+		}
+		assertEquals(0L, cache.getResidentBytes());
+	}
+
+	@Test
+	void overBudgetShouldEvictTheLeastRecentlyUsedIdleTemplate() throws Exception {
+		writeIcon("a.png", ICON, 20.0);
+		writeIcon("b.png", ICON, 60.0);
+		writeIcon("c.png", ICON, 100.0);
+		TemplateCache cache = new TemplateCache(tempDir, 2 * ICON_BYTES, clock);
+		try {
+			Mat a = cache.getTemplate("a");
+			clock.advanceMillis(1_000L);
+			Mat b = cache.getTemplate("b");
+			clock.advanceMillis(IDLE_MILLIS);
+
+			cache.getTemplate("c");
+			assertEquals(2 * ICON_BYTES, cache.getResidentBytes());
+			assertSame(b, cache.getTemplate("b"), "Used more recently than a");
+
+			Mat decodedAgain = cache.getTemplate("a");
+			assertNotSame(a, decodedAgain, "Evicted templates are decoded again on their next lookup");
+			assertEquals(ICON, decodedAgain.cols());
+			assertEquals(3 * ICON_BYTES, cache.getResidentBytes(), "b and c were used just now, so nothing is idle");
+		} finally {
+			cache.shutdown();
+		}
+	}
+
+	@Test
+	void recentlyUsedTemplatesShouldStayOverBudget() throws Exception {
+		writeIcon("a.png", ICON, 20.0);
+		writeIcon("b.png", ICON, 60.0);
+		TemplateCache cache = new TemplateCache(tempDir, ICON_BYTES, clock);
+		try {
+			Mat a = cache.getTemplate("a");
+			clock.advanceMillis(IDLE_MILLIS - 2_000L);
+			cache.getTemplate("b");
+
+			assertEquals(2 * ICON_BYTES, cache.getResidentBytes());
+			assertSame(a, cache.getTemplate("a"));
+		} finally {
+			cache.shutdown();
+		}
+	}
+
+	@Test
+	void evictedTemplatesShouldCloseOnlyAfterTheGracePeriod() throws Exception {
+		writeIcon("a.png", ICON, 20.0);
+		writeIcon("b.png", ICON, 60.0);
+		TemplateCache cache = new TemplateCache(tempDir, ICON_BYTES, clock);
+		Path outsideFolder = tempDir.resolveSibling("elsewhere.png");
+		try {
+			Mat a = cache.getTemplate("a");
+			clock.advanceMillis(IDLE_MILLIS);
+			cache.getTemplate("b");
+			assertEquals(ICON_BYTES, cache.getResidentBytes());
+
+			// A worker that looked a up before the eviction may still be matching against it.
+			clock.advanceMillis(GRACE_MILLIS - 1L);
+			cache.reloadTemplates(List.of(outsideFolder));
+			assertFalse(a.isNull());
+			assertEquals(ICON, a.cols());
+
+			clock.advanceMillis(1L);
+			cache.reloadTemplates(List.of(outsideFolder));
+			assertTrue(a.isNull());
+		} finally {
+			cache.shutdown();
+		}
+	}
+
+	@Test
+	void reloadShouldReplaceADecodedTemplate() throws Exception {
+		writeIcon("surge.png", ICON, 40.0);
+		TemplateCache cache = new TemplateCache(tempDir, TemplateCache.DEFAULT_NATIVE_BUDGET_BYTES, clock);
+		try {
+			Mat before = cache.getTemplate("surge");
+			writeIcon("surge.png", 20, 200.0);
+
+			assertEquals(Set.of("surge"), cache.reloadTemplates(List.of(tempDir.resolve("surge.png"))));
+			assertEquals(20L * 20L * 4L, cache.getResidentBytes(), "Decoded again right away, since it was in use");
+			Mat after = cache.getTemplate("surge");
+			assertNotSame(before, after);
+			assertEquals(20, after.cols());
+			assertFalse(before.isNull(), "The replaced template lives out its grace period");
+		} finally {
+			cache.shutdown();
+		}
+	}
+
+	@Test
+	void reloadShouldTrackAddedAndDeletedFilesWithoutDecodingThem() throws Exception {
+		TemplateCache cache = new TemplateCache(tempDir);
+		try {
+			Path added = writeIcon("wrack.png", ICON, 120.0);
+			assertEquals(Set.of("wrack"), cache.reloadTemplates(List.of(added, tempDir.resolve("readme.md"))));
+			assertTrue(cache.hasTemplate("wrack"));
+			assertEquals(0L, cache.getResidentBytes());
+
+			Files.delete(added);
+			assertEquals(Set.of("wrack"), cache.reloadTemplates(List.of(added)));
+			assertFalse(cache.hasTemplate("wrack"));
+			assertEquals(Set.of(), cache.reloadTemplates(List.of(added)), "Already gone");
+			assertNull(cache.getTemplate("wrack"));
+		} finally {
+			cache.shutdown();
+		}
+	}
+
+	/**
+	 * Solid BGRA icon, so every pixel decodes to the same four bytes.
+	 */
+	private Path writeIcon(String fileName, int size, double shade) {
+		Path file = tempDir.resolve(fileName);
+		try (Mat icon = new Mat(size, size, CV_8UC4, new Scalar(shade, shade / 2, 255.0 - shade, 255.0))) {
+			assertTrue(imwrite(file.toString(), icon), "Failed to write " + file);
+		}
+		return file;
+	}
+}
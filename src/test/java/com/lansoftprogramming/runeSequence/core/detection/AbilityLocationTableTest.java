@@ -0,0 +1,62 @@
+package com.lansoftprogramming.runeSequence.core.detection;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AbilityLocationTableTest {
+
+	@Test
+	void growingShouldKeepEveryWriteAndEveryClear() {
+		AbilityLocationTable table = new AbilityLocationTable(16);
+		Rectangle kept = new Rectangle(10, 10, 30, 30);
+		table.put(3, kept);
+		table.put(5, new Rectangle(50, 10, 30, 30));
+		table.put(5, null);
+
+		Rectangle far = new Rectangle(90, 10, 30, 30);
+		table.put(40, far);
+
+		assertTrue(table.capacity() > 40);
+		assertSame(kept, table.get(3));
+		assertNull(table.get(5), "A cleared slot stays cleared across a resize");
+		assertSame(far, table.get(40));
+		assertNull(table.get(-1));
+		assertNull(table.get(table.capacity()));
+	}
+
+	@Test
+	void concurrentWritesDuringResizesShouldNotBeLost() throws Exception {
+		AbilityLocationTable table = new AbilityLocationTable(16);
+		int perThread = 2_000;
+		Thread[] writers = new Thread[4];
+		for (int t = 0; t < writers.length; t++) {
+			int offset = t;
+			writers[t] = new Thread(() -> {
+				for (int i = 0; i < perThread; i++) {
+					int index = i * writers.length + offset;
+					table.put(index, new Rectangle(index, 0, 1, 1));
+					if (index % 3 == 0) {
+						table.put(index, null);
+					}
+				}
+			});
+			writers[t].start();
+		}
+		for (Thread writer : writers) {
+			writer.join();
+		}
+
+		for (int index = 0; index < perThread * writers.length; index++) {
+			Rectangle location = table.get(index);
+			if (index % 3 == 0) {
+				assertNull(location, "index " + index);
+			} else {
+				assertNotNull(location, "index " + index);
+				assertEquals(index, location.x);
+			}
+		}
+	}
+}
@@ -0,0 +1,164 @@
+package com.lansoftprogramming.runeSequence.core.detection;
+
+import com.lansoftprogramming.runeSequence.application.TemplateCache;
+import com.lansoftprogramming.runeSequence.infrastructure.config.AbilityConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.*;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CooldownStateTrackerTest {
+	private static final Rectangle SURGE_ROI = new Rectangle(10, 10, 30, 30);
+	private static final Rectangle DIVE_ROI = new Rectangle(50, 10, 30, 30);
+
+	@Test
+	void shouldEmitOneUseStampedWithFirstDarkFrame() {
+		CooldownStateTracker tracker = new CooldownStateTracker();
+		List<CooldownStateTracker.AbilityUsed> events = new ArrayList<>();
+		tracker.addListener(events::add);
+		tracker.track("surge", SURGE_ROI);
+		tracker.track("dive", DIVE_ROI);
+		FakeBrightness brightness = new FakeBrightness();
+
+		brightness.set(SURGE_ROI, 120.0).set(DIVE_ROI, 100.0);
+		tracker.update(brightness, 1_000L);
+		tracker.update(brightness, 1_100L);
+		assertEquals(CooldownStateTracker.State.READY, tracker.getState("surge"));
+
+		brightness.set(SURGE_ROI, 60.0);
+		for (int i = 0; i < CooldownStateTracker.DARK_FRAMES_REQUIRED; i++) {
+			assertTrue(events.isEmpty(), "A use needs " + CooldownStateTracker.DARK_FRAMES_REQUIRED + " dark frames");
+			tracker.update(brightness, 1_200L + i * 100L);
+		}
+		tracker.update(brightness, 1_600L);
+
+		assertEquals(List.of(new CooldownStateTracker.AbilityUsed("surge", 1_200L, 1_100L)), events);
+		assertEquals(CooldownStateTracker.State.COOLING, tracker.getState("surge"));
+		assertEquals(CooldownStateTracker.State.READY, tracker.getState("dive"));
+	}
+
+	@Test
+	void shouldRearmAfterRecoveryAndHoldStateWhenUnreadable() {
+		CooldownStateTracker tracker = new CooldownStateTracker();
+		List<CooldownStateTracker.AbilityUsed> events = new ArrayList<>();
+		tracker.addListener(events::add);
+		tracker.track("surge", SURGE_ROI);
+		FakeBrightness brightness = new FakeBrightness();
+
+		brightness.set(SURGE_ROI, 100.0);
+		tracker.update(brightness, 1_000L);
+		brightness.set(SURGE_ROI, 50.0);
+		tracker.update(brightness, 1_100L);
+		// Outside the captured window this frame: no sample, no change to the dark streak.
+		brightness.set(SURGE_ROI, -1.0);
+		tracker.update(brightness, 1_200L);
+		brightness.set(SURGE_ROI, 50.0);
+		tracker.update(brightness, 1_300L);
+		tracker.update(brightness, 1_400L);
+		assertEquals(1, events.size());
+		assertEquals(1_100L, events.get(0).usedAtMs());
+
+		brightness.set(SURGE_ROI, 95.0);
+		tracker.update(brightness, 5_000L);
+		assertEquals(CooldownStateTracker.State.READY, tracker.getState("surge"));
+
+		brightness.set(SURGE_ROI, 40.0);
+		tracker.update(brightness, 5_100L);
+		tracker.update(brightness, 5_200L);
+		tracker.update(brightness, 5_300L);
+		assertEquals(2, events.size());
+		assertEquals(new CooldownStateTracker.AbilityUsed("surge", 5_100L, 5_000L), events.get(1));
+	}
+
+	@Test
+	void movedSlotShouldRestartItsBaseline() {
+		CooldownStateTracker tracker = new CooldownStateTracker();
+		List<CooldownStateTracker.AbilityUsed> events = new ArrayList<>();
+		tracker.addListener(events::add);
+		FakeBrightness brightness = new FakeBrightness();
+		tracker.track("surge", SURGE_ROI);
+		brightness.set(SURGE_ROI, 120.0);
+		tracker.update(brightness, 1_000L);
+
+		// The bar moved onto a darker background; the new position is not a use.
+		Rectangle moved = new Rectangle(200, 10, 30, 30);
+		tracker.track("surge", moved);
+		assertEquals(CooldownStateTracker.State.UNKNOWN, tracker.getState("surge"));
+		brightness.set(moved, 40.0);
+		for (int i = 0; i < 5; i++) {
+			tracker.update(brightness, 1_100L + i * 100L);
+		}
+
+		assertTrue(events.isEmpty());
+		assertEquals(CooldownStateTracker.State.READY, tracker.getState("surge"));
+		assertEquals(1, tracker.trackedCount());
+	}
+
+	@Test
+	void restrictToShouldDropAndIgnoreOtherAbilities() {
+		CooldownStateTracker tracker = new CooldownStateTracker();
+		tracker.track("surge", SURGE_ROI);
+		tracker.track("dive", DIVE_ROI);
+
+		tracker.restrictTo(List.of("surge[*2]"));
+		assertEquals(1, tracker.trackedCount());
+		assertEquals(CooldownStateTracker.State.UNKNOWN, tracker.getState("dive"));
+		tracker.track("dive", DIVE_ROI);
+		assertEquals(1, tracker.trackedCount());
+
+		tracker.restrictTo(null);
+		tracker.track("dive", DIVE_ROI);
+		assertEquals(2, tracker.trackedCount());
+		tracker.reset();
+		assertEquals(0, tracker.trackedCount());
+	}
+
+	@Test
+	void trackCachedLocationsShouldFollowTheScopeAndReportItsBounds(@TempDir Path templates) {
+		TemplateDetector detector = new TemplateDetector(new TemplateCache(templates), new AbilityConfig());
+		CooldownStateTracker tracker = new CooldownStateTracker();
+		tracker.restrictTo(List.of("surge", "dive"));
+		Rectangle bounds = new Rectangle();
+
+		tracker.trackCachedLocations(detector);
+		assertEquals(0, tracker.trackedCount());
+		assertFalse(tracker.loadTrackedBounds(bounds));
+
+		// Cached after the scope was set up, without any invalidation in between.
+		detector.updateCachedLocation("surge", SURGE_ROI);
+		detector.updateCachedLocation("dive", DIVE_ROI);
+		detector.updateCachedLocation("barricade", new Rectangle(400, 10, 30, 30));
+		tracker.trackCachedLocations(detector);
+		assertEquals(2, tracker.trackedCount());
+		assertTrue(tracker.loadTrackedBounds(bounds));
+		assertEquals(new Rectangle(10, 10, 70, 30), bounds);
+
+		detector.invalidateCachedLocations(List.of("dive"));
+		tracker.trackCachedLocations(detector);
+		assertEquals(1, tracker.trackedCount());
+		assertEquals(CooldownStateTracker.State.UNKNOWN, tracker.getState("dive"));
+		assertTrue(tracker.loadTrackedBounds(bounds));
+		assertEquals(SURGE_ROI, bounds);
+	}
+
+	private static final class FakeBrightness implements BrightnessSampler {
+		private final Map<Rectangle, Double> samples = new HashMap<>();
+
+		FakeBrightness set(Rectangle roi, double brightness) {
+			samples.put(new Rectangle(roi), brightness);
+			return this;
+		}
+
+		@Override
+		public double meanBrightness(Rectangle roi) {
+			return samples.getOrDefault(roi, -1.0);
+		}
+	}
+}
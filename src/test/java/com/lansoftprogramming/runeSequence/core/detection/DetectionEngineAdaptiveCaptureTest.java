@@ -0,0 +1,147 @@
+package com.lansoftprogramming.runeSequence.core.detection;
+
+import com.lansoftprogramming.runeSequence.application.SequenceManager;
+import com.lansoftprogramming.runeSequence.application.TemplateCache;
+import com.lansoftprogramming.runeSequence.core.sequence.runtime.ActiveSequence;
+import com.lansoftprogramming.runeSequence.infrastructure.capture.ScreenCapture;
+import com.lansoftprogramming.runeSequence.infrastructure.config.AbilityConfig;
+import com.lansoftprogramming.runeSequence.ui.notification.NotificationService;
+import com.lansoftprogramming.runeSequence.ui.overlay.OverlayRenderer;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DetectionEngineAdaptiveCaptureTest {
+	private static final List<ActiveSequence.DetectionRequirement> REQUIREMENTS = List.of(
+			new ActiveSequence.DetectionRequirement("surge#0", "surge", false, null),
+			new ActiveSequence.DetectionRequirement("barricade#0", "barricade", false, null)
+	);
+
+	@Test
+	void cooldownFrameShouldStayWindowed() {
+		CooldownTemplateDetector detector = new CooldownTemplateDetector();
+		DetectionEngine engine = newEngine(detector);
+		engine.planRequests(REQUIREMENTS);
+
+		Rectangle window = engine.resolveAdaptiveCaptureWindow(1L);
+		assertNotNull(window);
+		assertTrue(engine.detectAtCachedLocations(new Mat(), window), "Barricade's ROI was searched; it is just cooling");
+		assertEquals(2, detector.roiSearches);
+
+		List<DetectionResult> results = engine.collectResults(1L, new Rectangle(0, 0, 800, 600));
+		assertTrue(results.get(0).found);
+		assertFalse(results.get(1).found);
+		assertNotNull(engine.resolveAdaptiveCaptureWindow(2L), "No backoff after a cooldown frame");
+	}
+
+	@Test
+	void missingOrMovedLocationShouldFallBackToAFullGrab() {
+		CooldownTemplateDetector detector = new CooldownTemplateDetector();
+		DetectionEngine engine = newEngine(detector);
+		engine.planRequests(REQUIREMENTS);
+		Rectangle window = new Rectangle(engine.resolveAdaptiveCaptureWindow(1L));
+
+		detector.updateCachedLocation("barricade", new Rectangle(400, 300, 30, 30));
+		assertFalse(engine.detectAtCachedLocations(new Mat(), window), "Barricade's ROI left the window");
+
+		detector.invalidateCachedLocations(List.of("barricade"));
+		engine.planRequests(REQUIREMENTS);
+		assertNull(engine.resolveAdaptiveCaptureWindow(2L));
+		assertFalse(engine.detectAtCachedLocations(new Mat(), window), "Barricade has no cached location");
+	}
+
+	private static DetectionEngine newEngine(TemplateDetector detector) {
+		NotificationService notifications = new NoopNotificationService();
+		SequenceManager sequenceManager = new SequenceManager(Collections.emptyMap(), Collections.emptyMap(),
+				new AbilityConfig(), notifications, detector);
+		return new DetectionEngine(
+				new ScreenCapture(),
+				detector,
+				sequenceManager,
+				new OverlayRenderer(() -> false),
+				null,
+				notifications,
+				50,
+				() -> false,
+				() -> false,
+				() -> true
+		);
+	}
+
+	/**
+	 * Surge is ready at its cached location; barricade is cooling down at its own, so its ROI search finds nothing.
+	 */
+	private static final class CooldownTemplateDetector extends TemplateDetector {
+		private int roiSearches = 0;
+
+		CooldownTemplateDetector() {
+			super(new TestTemplateCache(), new AbilityConfig());
+			updateCachedLocation("surge", new Rectangle(10, 20, 30, 30));
+			updateCachedLocation("barricade", new Rectangle(90, 20, 30, 30));
+		}
+
+		@Override
+		public DetectionResult detectTemplateAtCachedLocation(Mat screen, String templateName, boolean isAlternative,
+		                                                      Double detectionThreshold) {
+			Rectangle roi = getCachedSearchRoi(templateName);
+			if (roi == null) {
+				return null;
+			}
+			roiSearches++;
+			Rectangle box = new Rectangle(roi.x + 10, roi.y + 10, 30, 30);
+			return "surge".equals(templateName)
+					? DetectionResult.found(templateName, box.getLocation(), 0.99d, box, isAlternative)
+					: DetectionResult.notFound(templateName, box.getLocation(), 0.4d, box, isAlternative);
+		}
+	}
+
+	private static final class NoopNotificationService implements NotificationService {
+		@Override
+		public void showInfo(String message) {
+		}
+
+		@Override
+		public void showSuccess(String message) {
+		}
+
+		@Override
+		public void showWarning(String message) {
+		}
+
+		@Override
+		public void showError(String message) {
+		}
+
+		@Override
+		public boolean showConfirmDialog(String title, String message) {
+			return false;
+		}
+	}
+
+	private static final class TestTemplateCache extends TemplateCache {
+		TestTemplateCache() {
+			super(Path.of("."));
+		}
+
+		@Override
+		public int initialize() {
+			return 0;
+		}
+
+		@Override
+		public Mat getTemplate(String abilityName) {
+			return null;
+		}
+
+		@Override
+		public boolean hasTemplate(String abilityName) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,252 @@
+package com.lansoftprogramming.runeSequence.core.detection;
+
+import com.lansoftprogramming.runeSequence.application.SequenceManager;
+import com.lansoftprogramming.runeSequence.application.TemplateCache;
+import com.lansoftprogramming.runeSequence.core.sequence.runtime.ActiveSequence;
+import com.lansoftprogramming.runeSequence.infrastructure.capture.ScreenCapture;
+import com.lansoftprogramming.runeSequence.infrastructure.config.AbilityConfig;
+import com.lansoftprogramming.runeSequence.ui.notification.NotificationService;
+import com.lansoftprogramming.runeSequence.ui.overlay.OverlayRenderer;
+import org.bytedeco.javacpp.indexer.UByteIndexer;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC;
+import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_BGR2BGRA;
+import static org.bytedeco.opencv.global.opencv_imgproc.cvtColor;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Covers the detection stage of a frame only: {@code detectFrame} with the real {@link TemplateDetector} matching
+ * cached ROIs on a synthetic frame. Capture, {@code SequenceManager.processDetection} and the overlay hand-off are not
+ * part of the measured path and do allocate.
+ */
+class DetectionEngineAllocationTest {
+	private static final String[] ABILITY_KEYS = {"surge", "dive", "barricade"};
+	private static final int REPLAY_FRAMES = 64;
+	private static final int WARMUP_FRAMES = 2_000;
+	private static final int MEASURED_FRAMES = 5_000;
+	// Steady-state detection bookkeeping must stay allocation-free; raise only with a reason.
+	private static final long ALLOCATION_BUDGET_BYTES_PER_FRAME = 0L;
+
+	@Test
+	void steadyStateDetectFrameShouldNotAllocate() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+
+		Map<String, Mat> templates = new HashMap<>();
+		try (Mat screen = noise(800, 600, 3, 35L)) {
+			// Icons cut from the frame as BGRA with an opaque alpha, like the PNG templates, so the mask path runs.
+			for (int i = 0; i < ABILITY_KEYS.length; i++) {
+				try (Mat icon = new Mat(screen, new Rect(10 + 40 * i, 20, 30, 30))) {
+					Mat template = new Mat();
+					cvtColor(icon, template, COLOR_BGR2BGRA);
+					templates.put(ABILITY_KEYS[i], template);
+				}
+			}
+			TemplateDetector detector = new TemplateDetector(new TestTemplateCache(templates), new AbilityConfig());
+			for (int i = 0; i < ABILITY_KEYS.length; i++) {
+				// Seeded a few pixels off, as after the icon bar shifted slightly.
+				detector.updateCachedLocation(ABILITY_KEYS[i], new Rectangle(13 + 40 * i, 17, 30, 30));
+			}
+			DetectionEngine engine = newEngine(detector);
+			List<ActiveSequence.DetectionRequirement> requirements = List.of(
+					new ActiveSequence.DetectionRequirement("surge#0", "surge", false, null),
+					new ActiveSequence.DetectionRequirement("dive#0", "dive", true, null),
+					new ActiveSequence.DetectionRequirement("barricade#0", "barricade", true, null),
+					new ActiveSequence.DetectionRequirement("surge#1", "surge", false, null)
+			);
+			Rectangle captureRegion = new Rectangle(100, 50, 800, 600);
+
+			long frameId = 0L;
+			List<DetectionResult> results = null;
+			for (int i = 0; i < WARMUP_FRAMES; i++) {
+				results = engine.detectFrame(frameId++, screen, requirements, captureRegion);
+			}
+			for (int i = 0; i < requirements.size(); i++) {
+				assertTrue(results.get(i).found, requirements.get(i).instanceId());
+			}
+			assertEquals(new Rectangle(190, 70, 30, 30), results.get(2).boundingBox);
+
+			long before = threads.getCurrentThreadAllocatedBytes();
+			for (int i = 0; i < MEASURED_FRAMES; i++) {
+				engine.detectFrame(frameId++, screen, requirements, captureRegion);
+			}
+			long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+			long perFrame = allocated / MEASURED_FRAMES;
+			assertTrue(perFrame <= ALLOCATION_BUDGET_BYTES_PER_FRAME,
+					"Steady-state detectFrame allocated " + perFrame + " bytes/frame (" + allocated + " bytes over "
+							+ MEASURED_FRAMES + " frames)");
+		} finally {
+			templates.values().forEach(Mat::close);
+		}
+	}
+
+	@Test
+	void shouldAdaptResultsToScreenCoordinatesAndReuseUnchangedMatches() {
+		ReplayTemplateDetector detector = new ReplayTemplateDetector(buildReplay());
+		DetectionEngine engine = newEngine(detector);
+		List<ActiveSequence.DetectionRequirement> requirements = List.of(
+				new ActiveSequence.DetectionRequirement("surge#0", "surge", false, null),
+				new ActiveSequence.DetectionRequirement("barricade#0", "barricade", true, null)
+		);
+		Rectangle captureRegion = new Rectangle(100, 50, 800, 600);
+		Mat screen = new Mat();
+
+		detector.frame = 0;
+		List<DetectionResult> first = List.copyOf(engine.detectFrame(1L, screen, requirements, captureRegion));
+		detector.frame = 1;
+		List<DetectionResult> second = List.copyOf(engine.detectFrame(2L, screen, requirements, captureRegion));
+
+		DetectionResult surge = first.get(0);
+		assertEquals("surge#0", surge.templateName);
+		assertTrue(surge.found);
+		assertEquals(new Rectangle(110, 70, 30, 30), surge.boundingBox);
+		assertEquals(new Point(110, 70), surge.location);
+		assertSame(surge, second.get(0));
+
+		DetectionResult barricade = first.get(1);
+		assertEquals("barricade#0", barricade.templateName);
+		assertFalse(barricade.found);
+		assertTrue(barricade.isAlternative);
+		assertSame(barricade, second.get(1));
+	}
+
+	/**
+	 * Fresh detector results per frame (as the real detector returns), built up front so the replay itself does not
+	 * allocate: surge and dive are found at stable positions, barricade stays on cooldown.
+	 */
+	private static DetectionResult[][] buildReplay() {
+		DetectionResult[][] frames = new DetectionResult[REPLAY_FRAMES][ABILITY_KEYS.length];
+		for (int frame = 0; frame < REPLAY_FRAMES; frame++) {
+			frames[frame][0] = DetectionResult.found("surge", new Point(10, 20), 0.995d,
+					new Rectangle(10, 20, 30, 30), false);
+			frames[frame][1] = DetectionResult.found("dive", new Point(50, 20), 0.992d,
+					new Rectangle(50, 20, 30, 30), false);
+			frames[frame][2] = DetectionResult.notFound("barricade", new Point(90, 20), 0.41d,
+					new Rectangle(90, 20, 30, 30), false);
+		}
+		return frames;
+	}
+
+	private static DetectionEngine newEngine(TemplateDetector detector) {
+		NotificationService notifications = new NoopNotificationService();
+		SequenceManager sequenceManager = new SequenceManager(Collections.emptyMap(), Collections.emptyMap(),
+				new AbilityConfig(), notifications, detector);
+		return new DetectionEngine(
+				new ScreenCapture(),
+				detector,
+				sequenceManager,
+				new OverlayRenderer(() -> false),
+				null,
+				notifications,
+				50,
+				() -> false,
+				() -> false
+		);
+	}
+
+	private static final class ReplayTemplateDetector extends TemplateDetector {
+		private final DetectionResult[][] replay;
+		private int frame = 0;
+
+		ReplayTemplateDetector(DetectionResult[][] replay) {
+			super(new TestTemplateCache(), new AbilityConfig());
+			this.replay = replay;
+			for (String key : ABILITY_KEYS) {
+				updateCachedLocation(key, new Rectangle(0, 0, 30, 30));
+			}
+		}
+
+		@Override
+		public DetectionResult detectTemplate(Mat screen, String templateName, boolean isAlternative, Double detectionThreshold) {
+			for (int i = 0; i < ABILITY_KEYS.length; i++) {
+				if (ABILITY_KEYS[i].equals(templateName)) {
+					return replay[frame][i];
+				}
+			}
+			throw new IllegalArgumentException(templateName);
+		}
+	}
+
+	private static final class NoopNotificationService implements NotificationService {
+		@Override
+		public void showInfo(String message) {
+		}
+
+		@Override
+		public void showSuccess(String message) {
+		}
+
+		@Override
+		public void showWarning(String message) {
+		}
+
+		@Override
+		public void showError(String message) {
+		}
+
+		@Override
+		public boolean showConfirmDialog(String title, String message) {
+			return false;
+		}
+	}
+
+	private static Mat noise(int cols, int rows, int channels, long seed) {
+		Mat mat = new Mat(rows, cols, CV_8UC(channels));
+		Random random = new Random(seed);
+		try (UByteIndexer indexer = mat.createIndexer()) {
+			for (int y = 0; y < rows; y++) {
+				for (int x = 0; x < cols; x++) {
+					for (int c = 0; c < channels; c++) {
+						indexer.put(y, x, c, random.nextInt(256));
+					}
+				}
+			}
+		}
+		return mat;
+	}
+
+	private static final class TestTemplateCache extends TemplateCache {
+		private final Map<String, Mat> templates;
+
+		TestTemplateCache() {
+			this(Map.of());
+		}
+
+		TestTemplateCache(Map<String, Mat> templates) {
+			super(Path.of("."));
+			this.templates = templates;
+		}
+
+		@Override
+		public int initialize() {
+			return 0;
+		}
+
+		@Override
+		public Mat getTemplate(String abilityName) {
+			return templates.get(abilityName);
+		}
+
+		@Override
+		public boolean hasTemplate(String abilityName) {
+			return templates.containsKey(abilityName);
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package com.lansoftprogramming.runeSequence.core.detection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemplateDescriptorIndexTest {
+
+	@Test
+	void radiusQueryShouldMatchBruteForceScan() {
+		Random random = new Random(42L);
+		Map<String, IconDescriptor> descriptors = new HashMap<>();
+		long base = random.nextLong();
+		for (int i = 0; i < 300; i++) {
+			// Cluster around a shared hash so the radius query has real work to prune.
+			long hash = base;
+			int flips = random.nextInt(40);
+			for (int f = 0; f < flips; f++) {
+				hash ^= 1L << random.nextInt(64);
+			}
+			descriptors.put("icon" + i, new IconDescriptor(hash, randomHistogram(random)));
+		}
+		TemplateDescriptorIndex index = new TemplateDescriptorIndex(descriptors);
+
+		for (int q = 0; q < 25; q++) {
+			IconDescriptor query = new IconDescriptor(base ^ random.nextLong() & random.nextLong(), randomHistogram(random));
+			int radius = 6 + random.nextInt(20);
+
+			List<String> expected = descriptors.entrySet().stream()
+					.filter(e -> Long.bitCount(e.getValue().getPerceptualHash() ^ query.getPerceptualHash()) <= radius)
+					.sorted(Comparator.<Map.Entry<String, IconDescriptor>>comparingDouble(e -> query.distanceTo(e.getValue()))
+							.thenComparing(Map.Entry::getKey))
+					.map(Map.Entry::getKey)
+					.toList();
+			List<String> actual = index.nearest(query, Integer.MAX_VALUE, radius, null).stream()
+					.map(TemplateDescriptorIndex.Match::templateName)
+					.toList();
+
+			assertEquals(expected, actual, "radius=" + radius);
+		}
+	}
+
+	@Test
+	void shouldHonorLimitAndAllowedNames() {
+		float[] histogram = new float[IconDescriptor.HISTOGRAM_BINS];
+		histogram[0] = 1.0f;
+		Map<String, IconDescriptor> descriptors = Map.of(
+				"Exact", new IconDescriptor(0L, histogram),
+				"OneBit", new IconDescriptor(1L << 5, histogram),
+				"TwoBits", new IconDescriptor(3L << 5, histogram),
+				"Far", new IconDescriptor(-1L, histogram)
+		);
+		TemplateDescriptorIndex index = new TemplateDescriptorIndex(descriptors);
+		IconDescriptor query = new IconDescriptor(0L, histogram);
+
+		List<TemplateDescriptorIndex.Match> top2 = index.nearest(query, 2, 8, null);
+		assertEquals(List.of("Exact", "OneBit"), top2.stream().map(TemplateDescriptorIndex.Match::templateName).toList());
+		assertEquals(1, top2.get(1).hashDistance());
+
+		List<TemplateDescriptorIndex.Match> filtered = index.nearest(query, 5, 8, Set.of("TwoBits", "Far"));
+		assertEquals(1, filtered.size());
+		assertEquals("TwoBits", filtered.getFirst().templateName());
+
+		assertTrue(index.nearest(null, 5, 8, null).isEmpty());
+		assertTrue(TemplateDescriptorIndex.empty().nearest(query, 5, 64, null).isEmpty());
+	}
+
+	@Test
+	void perceptualHashShouldInvertWithLuminance() {
+		int side = IconDescriptor.SAMPLE_SIDE;
+		double[] luma = new double[side * side];
+		double[] inverted = new double[luma.length];
+		for (int y = 0; y < side; y++) {
+			for (int x = 0; x < side; x++) {
+				double value = 128.0d + 60.0d * Math.sin(x * 0.35d) + 40.0d * Math.cos(y * 0.2d + x * 0.1d);
+				luma[y * side + x] = value;
+				inverted[y * side + x] = 255.0d - value;
+			}
+		}
+
+		long hash = IconDescriptor.perceptualHash(luma);
+		assertEquals(hash, IconDescriptor.perceptualHash(luma.clone()));
+		// Negating every AC coefficient flips every bit except the DC bit and the median coefficient.
+		assertEquals(62, Long.bitCount(hash ^ IconDescriptor.perceptualHash(inverted)));
+	}
+
+	private static float[] randomHistogram(Random random) {
+		float[] histogram = new float[IconDescriptor.HISTOGRAM_BINS];
+		float total = 0.0f;
+		for (int i = 0; i < histogram.length; i++) {
+			histogram[i] = random.nextFloat();
+			total += histogram[i];
+		}
+		for (int i = 0; i < histogram.length; i++) {
+			histogram[i] /= total;
+		}
+		return histogram;
+	}
+}
@@ -2,12 +2,25 @@ package com.lansoftprogramming.runeSequence.core.detection;
 
 import com.lansoftprogramming.runeSequence.application.TemplateCache;
 import com.lansoftprogramming.runeSequence.infrastructure.config.AbilityConfig;
+import org.bytedeco.javacpp.indexer.UByteIndexer;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
+import org.bytedeco.opencv.opencv_core.Scalar;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.awt.*;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC;
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC1;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TemplateDetectorTest {
 	@Test
@@ -45,4 +58,147 @@ class TemplateDetectorTest {
 
 		assertEquals(0.99d, detector.getThresholdForTemplate("missing", null));
 	}
+
+	@Test
+	void planTileBounds_shouldCoverEveryResultRowExactlyOnce() {
+		assertArrayEquals(new int[]{0, 3, 6, 10}, TemplateDetector.planTileBounds(10, 3));
+		assertArrayEquals(new int[]{0, 2}, TemplateDetector.planTileBounds(2, 1));
+		// Never more tiles than rows.
+		assertArrayEquals(new int[]{0, 1, 2}, TemplateDetector.planTileBounds(2, 8));
+
+		int[] bounds = TemplateDetector.planTileBounds(1371, 7);
+		assertEquals(0, bounds[0]);
+		assertEquals(1371, bounds[bounds.length - 1]);
+		for (int i = 1; i < bounds.length; i++) {
+			int height = bounds[i] - bounds[i - 1];
+			assertTrue(height == 195 || height == 196, "tile " + i + " height " + height);
+		}
+	}
+
+	@Test
+	void reduceTileScores_shouldMatchRowMajorFirstMinimum() {
+		double[][] scores = {
+				{0.40, 0.30, 0.90},
+				{0.10, 0.50, 0.10},
+				{0.20, 0.10, 0.70},
+				{0.60, 0.80, 0.10}
+		};
+		TemplateDetector.MatchScore singlePass = null;
+		for (int y = 0; y < scores.length; y++) {
+			for (int x = 0; x < scores[y].length; x++) {
+				if (singlePass == null || scores[y][x] < singlePass.minValue()) {
+					singlePass = new TemplateDetector.MatchScore(scores[y][x], x, y);
+				}
+			}
+		}
+
+		for (int tiles = 1; tiles <= scores.length; tiles++) {
+			int[] bounds = TemplateDetector.planTileBounds(scores.length, tiles);
+			TemplateDetector.MatchScore[] perTile = new TemplateDetector.MatchScore[bounds.length - 1];
+			for (int t = 0; t < perTile.length; t++) {
+				for (int y = bounds[t]; y < bounds[t + 1]; y++) {
+					for (int x = 0; x < scores[y].length; x++) {
+						if (perTile[t] == null || scores[y][x] < perTile[t].minValue()) {
+							perTile[t] = new TemplateDetector.MatchScore(scores[y][x], x, y);
+						}
+					}
+				}
+			}
+			assertEquals(singlePass, TemplateDetector.reduceTileScores(Arrays.asList(perTile)), "tiles=" + tiles);
+		}
+		assertNull(TemplateDetector.reduceTileScores(List.of()));
+	}
+
+	@Test
+	void planTileBounds_shouldStartEveryBandOnTheBlockGrid() {
+		assertArrayEquals(new int[]{0, 233, 466, 777}, TemplateDetector.planTileBounds(777, 3, 233));
+		assertArrayEquals(new int[]{0, 100}, TemplateDetector.planTileBounds(100, 4, 233), "Shorter than one block");
+
+		for (int rows = 233; rows < 233 * 6; rows += 17) {
+			int[] bounds = TemplateDetector.planTileBounds(rows, 4, 233);
+			assertEquals(0, bounds[0]);
+			assertEquals(rows, bounds[bounds.length - 1]);
+			for (int i = 1; i < bounds.length; i++) {
+				assertTrue(bounds[i] - bounds[i - 1] >= 233, "rows=" + rows + " band " + i);
+				if (i < bounds.length - 1) {
+					assertEquals(0, bounds[i] % 233, "rows=" + rows + " bound " + i);
+				}
+			}
+		}
+	}
+
+	@Test
+	void matchTiled_shouldFindTheSameLocationAndScoreAsOneMatch() {
+		int templateSize = 24;
+		// Above TILED_SEARCH_MIN_PIXELS, so the bands are planned as in production.
+		try (Mat screen = noise(1280, 800, 3, 42L);
+		     Mat fullMask = new Mat(templateSize, templateSize, CV_8UC1, new Scalar(255.0))) {
+			int resultRows = screen.rows() - templateSize + 1;
+			int tiles = 3;
+			int[] bounds = TemplateDetector.planTileBounds(resultRows, tiles,
+					TemplateDetector.matchBlockRows(templateSize, resultRows));
+			assertEquals(tiles + 1, bounds.length);
+			int seam = bounds[1];
+			// Last row of the first band (its window reaches into the next band), first row of the next, and
+			// one clear of any seam.
+			for (int y : new int[]{seam - 1, seam, seam - templateSize / 2, 7}) {
+				try (Mat window = new Mat(screen, new Rect(53, y, templateSize, templateSize));
+				     Mat template = window.clone()) {
+					for (Mat mask : new Mat[]{null, fullMask}) {
+						TemplateDetector.MatchScore single = TemplateDetector.matchRows(screen, template, mask, 0, resultRows);
+						TemplateDetector.MatchScore tiled = TemplateDetector.matchTiled(screen, template, mask, resultRows, tiles);
+
+						String label = "y=" + y + (mask != null ? " masked" : "");
+						assertEquals(53, single.x(), label);
+						assertEquals(y, single.y(), label);
+						assertEquals(single, tiled, label);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void luminanceIntegral_shouldMatchMeasureBrightness(@TempDir Path tempDir) {
+		TemplateDetector detector = new TemplateDetector(new TemplateCache(tempDir), new AbilityConfig());
+		Rectangle[] rois = {
+				new Rectangle(0, 0, 200, 160),
+				new Rectangle(53, 41, 30, 30),
+				new Rectangle(190, 150, 30, 30), // clamped to the frame
+				new Rectangle(7, 120, 1, 1)
+		};
+		for (int channels : new int[]{3, 4}) {
+			try (Mat frame = noise(200, 160, channels, 7L + channels);
+			     LuminanceIntegral integral = new LuminanceIntegral()) {
+				assertTrue(integral.update(frame));
+				for (Rectangle roi : rois) {
+					assertEquals(detector.measureBrightness(frame, roi), integral.meanBrightness(roi), 1e-9,
+							"channels=" + channels + " roi=" + roi);
+				}
+
+				// Integrating only a window answers for ROIs inside it and refuses the rest.
+				assertTrue(integral.update(frame, new Rectangle(40, 30, 60, 60)));
+				assertEquals(detector.measureBrightness(frame, rois[1]), integral.meanBrightness(rois[1]), 1e-9);
+				assertEquals(-1, integral.meanBrightness(rois[0]));
+			}
+		}
+	}
+
+	/**
+	 * Seeded per-pixel noise, so every window of the frame differs and the best match is unique.
+	 */
+	private static Mat noise(int cols, int rows, int channels, long seed) {
+		Mat mat = new Mat(rows, cols, CV_8UC(channels));
+		Random random = new Random(seed);
+		try (UByteIndexer indexer = mat.createIndexer()) {
+			for (int y = 0; y < rows; y++) {
+				for (int x = 0; x < cols; x++) {
+					for (int c = 0; c < channels; c++) {
+						indexer.put(y, x, c, random.nextInt(256));
+					}
+				}
+			}
+		}
+		return mat;
+	}
 }
@@ -0,0 +1,43 @@
+package com.lansoftprogramming.runeSequence.core.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiagnosticRecorderTest {
+
+	@Test
+	void shouldAssignStableAbilityIds() {
+		DiagnosticRecorder recorder = new DiagnosticRecorder(16);
+		int surge = recorder.abilityId("surge");
+		int dive = recorder.abilityId("dive");
+
+		assertNotEquals(surge, dive);
+		assertEquals(surge, recorder.abilityId("surge"));
+		assertEquals(-1, recorder.abilityId(null));
+	}
+
+	@Test
+	void dumpShouldKeepOnlyTheNewestRecordsOldestFirst() {
+		DiagnosticRecorder recorder = new DiagnosticRecorder(4);
+		assertEquals(4, recorder.capacity());
+		int surge = recorder.abilityId("surge");
+		for (int frame = 1; frame <= 6; frame++) {
+			recorder.record(frame, surge, DiagnosticRecorder.Decision.MISSED, 0.5d, 0.9d, 10, 20, 30, 30);
+		}
+		recorder.record(7, -1, DiagnosticRecorder.Decision.CAPTURE_FAILED, 0.0d, 0.0d, null);
+
+		String dump = recorder.dump();
+		List<String> rows = dump.lines().filter(line -> !line.startsWith("#")).toList();
+		assertEquals(4, rows.size());
+		assertTrue(rows.get(0).contains(" 4 "), rows.get(0));
+		assertTrue(rows.get(0).contains("MISSED"));
+		assertTrue(rows.get(0).contains("surge"));
+		assertTrue(rows.get(0).contains("(10,20 30x30)"));
+		assertTrue(rows.get(3).contains("CAPTURE_FAILED"));
+		assertTrue(rows.get(3).contains("<unknown>"));
+		assertTrue(dump.startsWith("# 4 records (capacity 4, 7 total)"));
+	}
+}
@@ -0,0 +1,62 @@
+package com.lansoftprogramming.runeSequence.core.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+	@Test
+	void bucketsShouldCoverTheTrackableRangeContiguously() {
+		long previousUpper = -1L;
+		for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+			long upper = LatencyHistogram.bucketUpperBound(i);
+			assertEquals(i, LatencyHistogram.bucketIndex(previousUpper + 1), "lower bound of bucket " + i);
+			assertEquals(i, LatencyHistogram.bucketIndex(upper), "upper bound of bucket " + i);
+			previousUpper = upper;
+		}
+		assertEquals(LatencyHistogram.MAX_TRACKABLE_MICROS, previousUpper);
+	}
+
+	@Test
+	void percentilesShouldStayWithinBucketPrecision() {
+		Random random = new Random(7L);
+		long[] samples = new long[20_000];
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 0; i < samples.length; i++) {
+			// Log-uniform between 1µs and ~1s, like real frame latencies with a long tail.
+			samples[i] = (long) Math.exp(random.nextDouble() * Math.log(1_000_000.0d));
+			histogram.recordNanos(samples[i] * 1_000L);
+		}
+		Arrays.sort(samples);
+
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertEquals(samples.length, snapshot.count());
+		assertEquals(samples[samples.length - 1], snapshot.maxMicros());
+		assertWithinPrecision(samples[(int) Math.ceil(samples.length * 0.50d) - 1], snapshot.p50Micros());
+		assertWithinPrecision(samples[(int) Math.ceil(samples.length * 0.90d) - 1], snapshot.p90Micros());
+		assertWithinPrecision(samples[(int) Math.ceil(samples.length * 0.99d) - 1], snapshot.p99Micros());
+	}
+
+	@Test
+	void shouldIgnoreNegativeSamplesAndReset() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.recordNanos(-5L);
+		assertEquals(LatencyHistogram.Snapshot.EMPTY, histogram.snapshot());
+
+		histogram.recordMicros(Long.MAX_VALUE);
+		assertEquals(LatencyHistogram.MAX_TRACKABLE_MICROS, histogram.snapshot().maxMicros());
+
+		histogram.reset();
+		assertEquals(0L, histogram.snapshot().count());
+	}
+
+	private static void assertWithinPrecision(long expected, long actual) {
+		assertTrue(actual >= expected, "percentile must not under-report: expected>=" + expected + " got " + actual);
+		assertTrue(actual <= expected + Math.max(1L, expected / LatencyHistogram.SUB_BUCKETS),
+				"percentile outside bucket precision: expected~" + expected + " got " + actual);
+	}
+}
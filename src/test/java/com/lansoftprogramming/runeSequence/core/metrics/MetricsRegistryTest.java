@@ -0,0 +1,61 @@
+package com.lansoftprogramming.runeSequence.core.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+	@Test
+	void shouldReuseMetricsByNameAndRejectKindClashes() {
+		MetricsRegistry registry = new MetricsRegistry();
+		MetricsRegistry.Counter frames = registry.counter("detection.frames");
+		frames.increment();
+		frames.add(4L);
+
+		assertSame(frames, registry.counter("detection.frames"));
+		assertEquals(5L, registry.counter("detection.frames").getCount());
+		assertThrows(IllegalArgumentException.class, () -> registry.timer("detection.frames"));
+
+		registry.gauge("broken", () -> {
+			throw new IllegalStateException("boom");
+		});
+		assertTrue(Double.isNaN(((MetricsRegistry.Gauge) registry.metrics().get("broken")).getValue()));
+	}
+
+	@Test
+	void snapshotWriterShouldAppendJsonLinesAndRoll(@TempDir Path tempDir) throws Exception {
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.counter("overlay.repaints").add(3L);
+		registry.timer("detection.frame").recordNanos(2_000_000L);
+		registry.gauge("native.javacppBytes", () -> 1024.0d);
+
+		MetricsSnapshotWriter writer = new MetricsSnapshotWriter(registry, tempDir, 1L);
+		writer.writeSnapshot();
+		Path file = tempDir.resolve(MetricsSnapshotWriter.FILE_NAME);
+		List<String> lines = Files.readAllLines(file);
+		assertEquals(1, lines.size());
+
+		JsonNode json = new ObjectMapper().readTree(lines.getFirst());
+		assertEquals(3L, json.get("counters").get("overlay.repaints").get("count").asLong());
+		assertEquals(1L, json.get("timers").get("detection.frame").get("count").asLong());
+		assertEquals(1024.0d, json.get("gauges").get("native.javacppBytes").asDouble());
+
+		// A 1-byte limit forces a roll on every write; older snapshots shift down and the oldest is dropped.
+		for (int i = 0; i < MetricsSnapshotWriter.MAX_BACKUPS + 2; i++) {
+			writer.writeSnapshot();
+		}
+		assertEquals(1, Files.readAllLines(file).size());
+		for (int i = 1; i <= MetricsSnapshotWriter.MAX_BACKUPS; i++) {
+			assertTrue(Files.exists(tempDir.resolve(MetricsSnapshotWriter.FILE_NAME + "." + i)));
+		}
+		assertFalse(Files.exists(tempDir.resolve(MetricsSnapshotWriter.FILE_NAME + "." + (MetricsSnapshotWriter.MAX_BACKUPS + 1))));
+	}
+}
@@ -0,0 +1,51 @@
+package com.lansoftprogramming.runeSequence.core.metrics.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecordingControllerTest {
+
+	@Test
+	void shouldWriteCustomEventsWhenRecordingStops(@TempDir Path tempDir) throws Exception {
+		FlightRecordingController controller = new FlightRecordingController(tempDir);
+		controller.setEnabled(true);
+		assertTrue(controller.isRecording());
+		controller.setEnabled(true);
+
+		StepAdvanceEvent.emit(2, 3, 10, StepAdvanceEvent.REASON_LATCH);
+		LatchEvent.emit(LatchEvent.PHASE_LATCHED, "surge", "surge=180", 42L);
+
+		controller.setEnabled(false);
+		assertFalse(controller.isRecording());
+
+		Path recording;
+		try (Stream<Path> files = Files.list(tempDir)) {
+			List<Path> jfrFiles = files.filter(p -> p.getFileName().toString().endsWith(".jfr")).toList();
+			assertEquals(1, jfrFiles.size());
+			recording = jfrFiles.getFirst();
+		}
+
+		List<RecordedEvent> events = RecordingFile.readAllEvents(recording);
+		RecordedEvent step = events.stream()
+				.filter(e -> e.getEventType().getName().equals("com.lansoftprogramming.runeSequence.StepAdvance"))
+				.findFirst()
+				.orElseThrow();
+		assertEquals(3, step.getInt("toStep"));
+		assertEquals(StepAdvanceEvent.REASON_LATCH, step.getString("reason"));
+
+		RecordedEvent latch = events.stream()
+				.filter(e -> e.getEventType().getName().equals("com.lansoftprogramming.runeSequence.Latch"))
+				.findFirst()
+				.orElseThrow();
+		assertEquals("surge", latch.getString("abilities"));
+	}
+}
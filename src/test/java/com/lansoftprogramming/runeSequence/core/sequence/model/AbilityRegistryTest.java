@@ -0,0 +1,66 @@
+package com.lansoftprogramming.runeSequence.core.sequence.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AbilityRegistryTest {
+
+	@Test
+	void rawSpellingsShouldShareTheCanonicalIndex() {
+		AbilityRegistry registry = new AbilityRegistry();
+		registry.registerAbilities(List.of("limitless", "surge"));
+
+		int limitless = registry.abilityIndex("limitless");
+		assertEquals(0, limitless);
+		assertEquals(1, registry.abilityIndex("surge"));
+		assertEquals(limitless, registry.abilityIndex("limitless[*2]"));
+		assertEquals(limitless, registry.abilityIndex(" limitless "));
+		assertEquals(2, registry.abilityCount(), "Spellings of a known key must not take new indexes");
+
+		assertEquals("limitless", registry.canonicalKey("limitless[*3]"));
+		assertSame(registry.canonicalKey(limitless), registry.canonicalKey("limitless[*3]"));
+		assertEquals(AbilityRegistry.NO_INDEX, registry.abilityIndex(null));
+		assertNull(registry.canonicalKey(99));
+	}
+
+	@Test
+	void lookupsShouldNotRegisterKeys() {
+		AbilityRegistry registry = new AbilityRegistry();
+		registry.registerAbility("limitless");
+
+		assertEquals(AbilityRegistry.NO_INDEX, registry.abilityIndex("tooltip text"));
+		assertEquals("surge", registry.canonicalKey("surge[*2]"));
+		assertEquals(0, registry.abilityIndex("limitless[*4]"));
+		assertEquals(1, registry.abilityCount());
+
+		assertEquals(1, registry.registerAbility("surge[*2]"));
+		assertEquals(1, registry.abilityIndex("surge"));
+		assertSame(registry.canonicalKey(1), registry.canonicalKey("surge[*2]"));
+	}
+
+	@Test
+	void instanceIndexesShouldBeDenseAndSeparateFromAbilities() {
+		AbilityRegistry registry = new AbilityRegistry();
+		registry.registerAbility("limitless");
+
+		assertEquals(0, registry.instanceIndex("limitless#0"));
+		assertEquals(1, registry.instanceIndex("limitless#1"));
+		assertEquals(0, registry.instanceIndex("limitless#0"));
+		assertEquals("limitless#1", registry.instanceId(1));
+		assertEquals(2, registry.instanceCount());
+		assertEquals(1, registry.abilityCount());
+	}
+
+	@Test
+	void shouldGrowPastInitialCapacity() {
+		AbilityRegistry registry = new AbilityRegistry();
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i, registry.registerAbility("ability" + i));
+		}
+		assertEquals("ability73", registry.canonicalKey(73));
+		assertEquals(100, registry.abilityCount());
+	}
+}
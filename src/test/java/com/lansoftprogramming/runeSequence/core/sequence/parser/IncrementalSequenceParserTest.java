@@ -0,0 +1,90 @@
+package com.lansoftprogramming.runeSequence.core.sequence.parser;
+
+import com.lansoftprogramming.runeSequence.core.sequence.model.SequenceDefinition;
+import com.lansoftprogramming.runeSequence.core.sequence.model.Step;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalSequenceParserTest {
+
+	private static final String[] EDITS = {
+			"a", "surge", "gmaul", "spec", " eofspec", " → ", "→", " -> ", "\n", " + ", " / ", "(", ")", "(tip)",
+			" (b / c) ", " ", "\\(", "roarofawakening odetodeceit", "\u200B", "x[*2]", "-"
+	};
+
+	@Test
+	void shouldMatchFullParseAcrossRandomEdits() {
+		Random random = new Random(7);
+		for (int run = 0; run < 200; run++) {
+			IncrementalSequenceParser incremental = new IncrementalSequenceParser();
+			StringBuilder expression = new StringBuilder("a → b + c → (d / e) → f spec → g\nh → i");
+			for (int edit = 0; edit < 40; edit++) {
+				int at = random.nextInt(expression.length() + 1);
+				if (random.nextBoolean() && at < expression.length()) {
+					expression.delete(at, Math.min(expression.length(), at + 1 + random.nextInt(4)));
+				} else {
+					expression.insert(at, EDITS[random.nextInt(EDITS.length)]);
+				}
+				assertSameResult(expression.toString(), incremental);
+			}
+		}
+	}
+
+	@Test
+	void shouldReuseStepsOutsideTheEdit() {
+		StringBuilder expression = new StringBuilder();
+		for (int i = 0; i < 200; i++) {
+			if (i > 0) {
+				expression.append(" → ");
+			}
+			expression.append("ability").append(i);
+		}
+		IncrementalSequenceParser incremental = new IncrementalSequenceParser();
+		List<Step> before = incremental.parse(expression.toString()).getSteps();
+
+		String edited = expression.toString().replace("ability100 ", "ability100 + surge ");
+		List<Step> after = incremental.parse(edited).getSteps();
+
+		assertEquals(200, after.size());
+		assertEquals("ability100 + surge", after.get(100).toString());
+		for (int i = 0; i < 200; i++) {
+			if (i != 100) {
+				assertSame(before.get(i), after.get(i), "Step " + i + " should be reused");
+			}
+		}
+		assertEquals(SequenceParser.parse(edited).toString(), incremental.parse(edited).toString());
+	}
+
+	@Test
+	void shouldReportErrorsLikeAFullParse() {
+		IncrementalSequenceParser incremental = new IncrementalSequenceParser();
+		incremental.parse("a → b → c");
+
+		IllegalStateException full = assertThrows(IllegalStateException.class, () -> SequenceParser.parse("a → → c"));
+		IllegalStateException spliced = assertThrows(IllegalStateException.class, () -> incremental.parse("a → → c"));
+		assertEquals(full.getMessage(), spliced.getMessage());
+
+		assertEquals("a → b2 → c", incremental.parse("a → b2 → c").toString(), "A failed edit must not corrupt state");
+	}
+
+	private static void assertSameResult(String expression, IncrementalSequenceParser incremental) {
+		String expected;
+		try {
+			expected = SequenceParser.parse(expression).toString();
+		} catch (IllegalStateException | IllegalArgumentException e) {
+			expected = "error: " + e.getMessage();
+		}
+		String actual;
+		try {
+			SequenceDefinition definition = incremental.parse(expression);
+			actual = definition.toString();
+		} catch (IllegalStateException | IllegalArgumentException e) {
+			actual = "error: " + e.getMessage();
+		}
+		assertEquals(expected, actual, () -> "Mismatch for '" + expression + "'");
+	}
+}
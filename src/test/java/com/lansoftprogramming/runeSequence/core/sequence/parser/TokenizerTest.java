@@ -0,0 +1,258 @@
+package com.lansoftprogramming.runeSequence.core.sequence.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenizerTest {
+
+	private static final String[] FRAGMENTS = {
+			"a", "Bio", "limitless", "surge", "\u00E9", "e\u0301", "_x1", "spec", "SPEC", "eofspec", "Spec2", "specs",
+			"roarofawakening", "odetodeceit", "ROARofAwakening", "xroarofawakening",
+			" ", "  ", "\t", "\n", "\r\n", "\u2028", "\u000B", "\u0085", "\u00A0", "\u200B", "\u2060",
+			"→", "->", "-", ">", "+", "/", "(", ")", "(tip)", "(two words)", "( )", "\\(", "\\)", "\\",
+			"[*2]", "#", ".", "\uE000"
+	};
+
+	@Test
+	void shouldMatchLegacyRegexPipelineOnRandomExpressions() {
+		Tokenizer tokenizer = new Tokenizer();
+		Random random = new Random(42);
+		for (int round = 0; round < 20_000; round++) {
+			StringBuilder expression = new StringBuilder();
+			int parts = 1 + random.nextInt(12);
+			for (int p = 0; p < parts; p++) {
+				expression.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+			}
+			String input = expression.toString();
+			assertEquals(LegacyTokenizer.tokenize(input), stripOffsets(tokenizer.tokenize(input)),
+					() -> "Mismatch for '" + escape(input) + "'");
+		}
+	}
+
+	@Test
+	void shouldKeepBehaviourOfSuffixesTooltipsAndLineBreaks() {
+		Tokenizer tokenizer = new Tokenizer();
+		List<String> inputs = List.of(
+				"Bio spec -> Radiant / Shield spec",
+				"a → b\nc → d",
+				"a +\n b\r\n\r\nc",
+				"Ability (tooltip) Next",
+				"(Alpha → Beta + (Gamma / Delta)) + Epsilon",
+				"roarofawakening odetodeceit → x eofspec",
+				"a\u200B b \u00A0\nc",
+				"a (tip spec) b",
+				"a \\(literal\\) b"
+		);
+		for (String input : inputs) {
+			assertEquals(LegacyTokenizer.tokenize(input), stripOffsets(tokenizer.tokenize(input)), input);
+		}
+	}
+
+	@Test
+	void tokensShouldCarrySourceOffsets() {
+		List<Token> tokens = new Tokenizer().tokenize("Bio spec -> (Shield / Surge (tip))\nDive\nCess");
+
+		assertEquals(List.of(
+				new Token.Ability("Bio", 0),
+				new Token.Operator("+", 3),
+				new Token.Ability("spec", 4),
+				new Token.Operator("→", 9),
+				new Token.LeftParen(12),
+				new Token.Ability("Shield", 13),
+				new Token.Operator("/", 20),
+				new Token.Ability("Surge", 22),
+				new Token.RightParen(33),
+				new Token.Ability("Dive", 35),
+				new Token.Operator("→", 40),
+				new Token.Ability("Cess", 40)
+		), tokens);
+	}
+
+	@Test
+	void tokensWithoutSourceShouldUseNoOffset() {
+		assertEquals(Token.NO_OFFSET, new Token.Ability("a").offset());
+		assertEquals(new Token.Operator("+", Token.NO_OFFSET), new Token.Operator("+"));
+		assertThrows(IllegalArgumentException.class, () -> new Token.Operator("-", 0));
+	}
+
+	private static List<String> stripOffsets(List<Token> tokens) {
+		List<String> out = new ArrayList<>(tokens.size());
+		for (Token token : tokens) {
+			out.add(describe(token));
+		}
+		return out;
+	}
+
+	private static String describe(Token token) {
+		if (token instanceof Token.Ability ability) {
+			return "A:" + ability.name();
+		}
+		if (token instanceof Token.Operator operator) {
+			return "O:" + operator.symbol();
+		}
+		return token instanceof Token.LeftParen ? "(" : ")";
+	}
+
+	private static String escape(String s) {
+		StringBuilder out = new StringBuilder();
+		for (char c : s.toCharArray()) {
+			if (c < 0x20 || c > 0x7E) {
+				out.append(String.format("\\u%04X", (int) c));
+			} else {
+				out.append(c);
+			}
+		}
+		return out.toString();
+	}
+
+	/**
+	 * The regex pass pipeline the single-pass lexer replaced, kept as the reference behaviour.
+	 */
+	private static final class LegacyTokenizer {
+		private static final char TOOLTIP_MARKER = '\uE000';
+		private static final Pattern SPEC_SUFFIX = Pattern.compile("(?i)\\s+spec\\b");
+		private static final Pattern EOFSPEC_SUFFIX = Pattern.compile("(?i)\\s+eofspec\\b");
+		private static final Pattern ROAR_ODE_PAIR = Pattern.compile("(?i)\\b(roarofawakening)\\s+(odetodeceit)\\b");
+
+		static List<String> tokenize(String expression) {
+			String processed = SPEC_SUFFIX.matcher(expression).replaceAll(" + spec");
+			processed = EOFSPEC_SUFFIX.matcher(processed).replaceAll(" + eofspec");
+			processed = ROAR_ODE_PAIR.matcher(processed).replaceAll("$1 + $2");
+			processed = replaceTooltipMarkupWithMarker(processed);
+			processed = normalizeLineBreaks(processed);
+			String padded = processed.replace("->", "→").replaceAll("([→+/()])", " $1 ");
+
+			List<String> tokens = new ArrayList<>();
+			StringBuilder current = new StringBuilder();
+			for (String part : padded.trim().split("\\s+")) {
+				if (part.length() == 1 && part.charAt(0) == TOOLTIP_MARKER) {
+					flush(current, tokens);
+				} else if (part.length() == 1 && isOperatorOrParenChar(part.charAt(0))) {
+					flush(current, tokens);
+					tokens.add(part.equals("(") || part.equals(")") ? part : "O:" + part);
+				} else {
+					if (current.length() > 0) {
+						current.append(' ');
+					}
+					current.append(part);
+				}
+			}
+			flush(current, tokens);
+			return tokens;
+		}
+
+		private static void flush(StringBuilder current, List<String> tokens) {
+			if (current.length() > 0) {
+				tokens.add("A:" + current.toString().trim());
+				current.setLength(0);
+			}
+		}
+
+		private static String replaceTooltipMarkupWithMarker(String input) {
+			StringBuilder out = new StringBuilder(input.length());
+			int index = 0;
+			while (index < input.length()) {
+				char current = input.charAt(index);
+				if (current == '(' && !ParserEscapes.isEscaped(input, index)) {
+					int end = findTooltipCandidateEnd(input, index + 1);
+					if (end != -1) {
+						char prev = prevNonWhitespace(input, index - 1);
+						char next = nextNonWhitespace(input, end + 1);
+						if (isAttachable(prev) || isAttachable(next)) {
+							out.append(' ').append(TOOLTIP_MARKER).append(' ');
+							index = end + 1;
+							continue;
+						}
+					}
+				}
+				out.append(current);
+				index++;
+			}
+			return out.toString();
+		}
+
+		private static boolean isAttachable(char c) {
+			return c != 0 && !Character.isWhitespace(c) && !isOperatorOrParenChar(c) && c != TOOLTIP_MARKER;
+		}
+
+		private static char prevNonWhitespace(String s, int start) {
+			for (int i = Math.min(start, s.length() - 1); i >= 0; i--) {
+				if (!Character.isWhitespace(s.charAt(i))) {
+					return s.charAt(i);
+				}
+			}
+			return 0;
+		}
+
+		private static char nextNonWhitespace(String s, int start) {
+			for (int i = Math.max(0, start); i < s.length(); i++) {
+				if (!Character.isWhitespace(s.charAt(i))) {
+					return s.charAt(i);
+				}
+			}
+			return 0;
+		}
+
+		private static int findTooltipCandidateEnd(String s, int start) {
+			int cursor = start;
+			boolean hasContent = false;
+			while (cursor < s.length()) {
+				char current = s.charAt(cursor);
+				if (current == '\\' && cursor + 1 < s.length()) {
+					char next = s.charAt(cursor + 1);
+					if (next == '(' || next == ')') {
+						hasContent = true;
+						cursor += 2;
+						continue;
+					}
+				}
+				if (current == '(' && !ParserEscapes.isEscaped(s, cursor)) {
+					return -1;
+				}
+				if (current == ')' && !ParserEscapes.isEscaped(s, cursor)) {
+					return hasContent ? cursor : -1;
+				}
+				if (!Character.isWhitespace(current)) {
+					hasContent = true;
+				}
+				if (current == '→' || current == '+' || current == '/') {
+					return -1;
+				}
+				cursor++;
+			}
+			return -1;
+		}
+
+		private static String normalizeLineBreaks(String input) {
+			List<String> lines = new ArrayList<>();
+			for (String raw : input.split("\\R")) {
+				String cleaned = ExpressionSanitizer.removeInvisibles(raw).trim();
+				if (!cleaned.isEmpty()) {
+					lines.add(cleaned);
+				}
+			}
+			if (lines.isEmpty()) {
+				return "";
+			}
+			StringBuilder out = new StringBuilder(lines.get(0));
+			for (int i = 1; i < lines.size(); i++) {
+				String prev = lines.get(i - 1);
+				String current = lines.get(i);
+				boolean spacing = isOperatorOrParenChar(prev.charAt(prev.length() - 1))
+						|| isOperatorOrParenChar(current.charAt(0));
+				out.append(spacing ? ' ' : '→').append(current);
+			}
+			return out.toString();
+		}
+
+		private static boolean isOperatorOrParenChar(char c) {
+			return c == '→' || c == '+' || c == '/' || c == '(' || c == ')';
+		}
+	}
+}
@@ -4,10 +4,10 @@ import com.lansoftprogramming.runeSequence.core.sequence.model.Alternative;
 import com.lansoftprogramming.runeSequence.core.sequence.model.SequenceDefinition;
 import com.lansoftprogramming.runeSequence.core.sequence.model.Step;
 import com.lansoftprogramming.runeSequence.core.sequence.model.Term;
+import com.lansoftprogramming.runeSequence.core.time.VirtualClock;
 import com.lansoftprogramming.runeSequence.infrastructure.config.AbilityConfig;
 import org.junit.jupiter.api.Test;
 
-import java.lang.reflect.Field;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -16,7 +16,7 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 class ActiveSequenceLatchStartTest {
 
 	@Test
-	void latchStartShouldAdvanceToNextStepAndAdvanceAgainWhenReady() throws Exception {
+	void latchStartShouldAdvanceToNextStepAndAdvanceAgainWhenReady() {
 		AbilityConfig abilityConfig = new AbilityConfig();
 		AbilityConfig.AbilityData a = new AbilityConfig.AbilityData();
 		a.setTriggersGcd(true);
@@ -42,16 +42,16 @@ class ActiveSequenceLatchStartTest {
 				new Step(List.of(new Term(List.of(new Alternative("C")))))
 		));
 
-		ActiveSequence seq = new ActiveSequence(definition, abilityConfig);
+		VirtualClock clock = new VirtualClock();
+		ActiveSequence seq = new ActiveSequence(definition, abilityConfig, null, clock);
 
-		long now = System.currentTimeMillis();
-		seq.onLatchStart(now);
+		seq.onLatchStart(clock.millis());
 
 		assertEquals(1, seq.getCurrentStepIndex());
 		assertFalse(seq.isComplete());
 
-		// Force the delay window (for the just-used step) to complete.
-		setPrivateLongField(seq.stepTimer, "stepStartTimeMs", System.currentTimeMillis() - seq.stepTimer.getStepDurationMs() - 5);
+		// Let the delay window (for the just-used step) complete.
+		clock.advanceMillis(seq.stepTimer.getStepDurationMs() + 5);
 
 		seq.processDetections(List.of());
 
@@ -81,17 +81,12 @@ class ActiveSequenceLatchStartTest {
 				new Step(List.of(new Term(List.of(new Alternative("B")))))
 		));
 
-		ActiveSequence seq = new ActiveSequence(definition, abilityConfig);
+		VirtualClock clock = new VirtualClock();
+		ActiveSequence seq = new ActiveSequence(definition, abilityConfig, null, clock);
 
-		seq.onLatchStart(System.currentTimeMillis());
+		seq.onLatchStart(clock.millis());
 
 		assertEquals(1, seq.getCurrentStepIndex());
 		assertEquals(4 * StepTimer.TICK_MS, seq.stepTimer.getStepDurationMs());
 	}
-
-	private static void setPrivateLongField(Object target, String fieldName, long value) throws Exception {
-		Field field = target.getClass().getDeclaredField(fieldName);
-		field.setAccessible(true);
-		field.setLong(target, value);
-	}
 }
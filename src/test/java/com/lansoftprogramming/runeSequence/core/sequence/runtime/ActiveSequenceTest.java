@@ -2,6 +2,7 @@ package com.lansoftprogramming.runeSequence.core.sequence.runtime;
 
 import com.lansoftprogramming.runeSequence.core.detection.DetectionResult;
 import com.lansoftprogramming.runeSequence.core.sequence.model.*;
+import com.lansoftprogramming.runeSequence.core.time.VirtualClock;
 import com.lansoftprogramming.runeSequence.infrastructure.config.AbilityConfig;
 import org.junit.jupiter.api.Test;
 
@@ -135,13 +136,14 @@ class ActiveSequenceTest {
 		beta.setTriggersGcd(true);
 		abilityConfig.putAbility("Beta", beta);
 
-		ActiveSequence activeSequence = new ActiveSequence(definition, abilityConfig);
+		VirtualClock clock = new VirtualClock();
+		ActiveSequence activeSequence = new ActiveSequence(definition, abilityConfig, null, clock);
 		activeSequence.stepTimer.pause();
 
 		assertEquals(0, activeSequence.getCurrentStepIndex());
 		assertTrue(activeSequence.stepTimer.isPaused());
 
-		activeSequence.onLatchStart(System.currentTimeMillis());
+		activeSequence.onLatchStart(clock.millis());
 
 		assertEquals(1, activeSequence.getCurrentStepIndex(), "Latch start should advance to the next step to press");
 		assertFalse(activeSequence.stepTimer.isPaused(), "Latch start should begin step timing immediately");
@@ -0,0 +1,90 @@
+package com.lansoftprogramming.runeSequence.core.sequence.runtime;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RotationResyncTest {
+
+	@Test
+	void shouldReportStepOnceRecentUsesMatchOnePlace() {
+		RotationResync resync = new RotationResync(steps("a", "b", "c", "d", "e", "f"));
+
+		assertEquals(-1, resync.observe("c"));
+		assertEquals(-1, resync.observe("d"));
+		assertEquals(4, resync.observe("e"));
+		assertEquals(5, resync.observe("f"));
+		assertEquals(4, resync.matchLength());
+	}
+
+	@Test
+	void repeatedPatternShouldWaitUntilUnambiguous() {
+		// "a b c" occurs twice; only the step after it tells them apart.
+		RotationResync resync = new RotationResync(steps("a", "b", "c", "x", "a", "b", "c", "y"));
+
+		resync.observe("a");
+		resync.observe("b");
+		assertEquals(-1, resync.observe("c"));
+		assertEquals(7, resync.observe("y"));
+	}
+
+	@Test
+	void deviationShouldRestartRunAndUnknownAbilitiesShouldBeIgnored() {
+		RotationResync resync = new RotationResync(steps("a", "b", "c", "d", "e", "f"));
+
+		resync.observe("a");
+		resync.observe("b");
+		resync.observe("defensive");
+		assertEquals(2, resync.matchLength());
+		// "b e" never occurs: the run falls back to "e" alone.
+		assertEquals(-1, resync.observe("e"));
+		assertEquals(1, resync.matchLength());
+		assertEquals(-1, resync.observe("f"));
+		assertEquals(2, resync.matchLength());
+	}
+
+	@Test
+	void secondaryTermsAndAlternativesShouldCountAsTheirStep() {
+		List<List<String>> rotation = new ArrayList<>();
+		rotation.add(List.of("a"));
+		rotation.add(List.of("b", "sigil"));
+		rotation.add(List.of("c", "alt"));
+		rotation.add(List.of("d"));
+		RotationResync resync = new RotationResync(rotation);
+
+		resync.observe("a");
+		resync.observe("b");
+		// "b + sigil": the second key of the same step is not a new step.
+		assertEquals(-1, resync.observe("sigil"));
+		assertEquals(2, resync.observe("alt"));
+		assertEquals(3, resync.observe("d"));
+	}
+
+	@Test
+	void shouldFindPositionInLongRotation() {
+		List<List<String>> rotation = new ArrayList<>();
+		for (int i = 0; i < 600; i++) {
+			// Period-7 filler with a marker every 50 steps.
+			rotation.add(List.of(i % 50 == 0 ? "marker" + i : "f" + (i % 7)));
+		}
+		RotationResync resync = new RotationResync(rotation);
+
+		int found = -1;
+		for (int i = 296; i < 320 && found < 0; i++) {
+			found = resync.observe(rotation.get(i).get(0));
+		}
+		assertEquals(300, found, "The first unique window ends on the marker step");
+		assertEquals(301, resync.observe(rotation.get(301).get(0)));
+	}
+
+	private static List<List<String>> steps(String... keys) {
+		List<List<String>> rotation = new ArrayList<>();
+		for (String key : keys) {
+			rotation.add(List.of(key));
+		}
+		return rotation;
+	}
+}
@@ -0,0 +1,80 @@
+package com.lansoftprogramming.runeSequence.core.sequence.runtime;
+
+import com.lansoftprogramming.runeSequence.core.time.VirtualClock;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickPhaseEstimatorTest {
+	private static final long TRUE_PHASE_MS = 1_000_250L;
+
+	@Test
+	void shouldLockOntoTickPhaseFromJitteredTransitions() {
+		TickPhaseEstimator estimator = new TickPhaseEstimator();
+		assertEquals(-1L, estimator.millisSinceBoundary(TRUE_PHASE_MS));
+		assertEquals(TRUE_PHASE_MS + 123L, estimator.snapToTick(TRUE_PHASE_MS + 123L), "Unlocked estimates must not snap");
+
+		observeJittered(estimator, TRUE_PHASE_MS, 12, new Random(7L));
+
+		assertTrue(estimator.isLocked());
+		long boundary = TRUE_PHASE_MS + 40 * TickPhaseEstimator.TICK_MS;
+		long offset = estimator.millisSinceBoundary(boundary);
+		long error = offset > TickPhaseEstimator.TICK_MS / 2 ? offset - TickPhaseEstimator.TICK_MS : offset;
+		assertTrue(Math.abs(error) <= 30L, "phase error " + error + "ms");
+
+		// Seen late (typical) or slightly early, a step start lands on the boundary it belongs to.
+		long snappedLate = estimator.snapToTick(boundary + 250L);
+		long snappedEarly = estimator.snapToTick(boundary - 40L);
+		assertTrue(Math.abs(snappedLate - boundary) <= 30L, "late snap " + (snappedLate - boundary));
+		assertTrue(Math.abs(snappedEarly - boundary) <= 30L, "early snap " + (snappedEarly - boundary));
+	}
+
+	@Test
+	void shouldIgnoreIsolatedOutliersButRelockAfterPhaseShift() {
+		TickPhaseEstimator estimator = new TickPhaseEstimator();
+		Random random = new Random(11L);
+		observeJittered(estimator, TRUE_PHASE_MS, 10, random);
+		long lockedOffset = estimator.millisSinceBoundary(TRUE_PHASE_MS);
+
+		long shiftedPhase = TRUE_PHASE_MS + 300L;
+		estimator.observeTransition(0L, shiftedPhase + 100 * TickPhaseEstimator.TICK_MS);
+		assertEquals(lockedOffset, estimator.millisSinceBoundary(TRUE_PHASE_MS), "A single outlier must not move the phase");
+
+		// Transitions bracketing more than a tick carry no phase information.
+		estimator.observeTransition(shiftedPhase, shiftedPhase + 2 * TickPhaseEstimator.TICK_MS);
+		assertEquals(lockedOffset, estimator.millisSinceBoundary(TRUE_PHASE_MS));
+
+		observeJittered(estimator, shiftedPhase + 200 * TickPhaseEstimator.TICK_MS, 12, random);
+		assertTrue(estimator.isLocked());
+		long offset = estimator.millisSinceBoundary(shiftedPhase);
+		long error = offset > TickPhaseEstimator.TICK_MS / 2 ? offset - TickPhaseEstimator.TICK_MS : offset;
+		assertTrue(Math.abs(error) <= 30L, "phase error after shift " + error + "ms");
+	}
+
+	@Test
+	void stepTimerShouldStartStepsOnLockedTicks() {
+		TickPhaseEstimator estimator = new TickPhaseEstimator();
+		observeJittered(estimator, TRUE_PHASE_MS, 12, new Random(3L));
+		long boundary = TRUE_PHASE_MS + 10 * TickPhaseEstimator.TICK_MS;
+
+		StepTimer timer = new StepTimer(new VirtualClock(boundary + 280L), estimator);
+		timer.startCustomDurationMs(TickPhaseEstimator.TICK_MS, boundary + 80L);
+
+		long elapsed = timer.getEffectiveElapsedMs();
+		assertTrue(Math.abs(elapsed - 280L) <= 30L, "elapsed since snapped start " + elapsed);
+	}
+
+	/**
+	 * Icon flips render on the tick at {@code phaseMs + k * TICK_MS}; frames bracket each one by up to 100ms either side.
+	 */
+	private static void observeJittered(TickPhaseEstimator estimator, long phaseMs, int count, Random random) {
+		for (int i = 0; i < count; i++) {
+			long boundary = phaseMs + (long) (i * 3 + 1) * TickPhaseEstimator.TICK_MS;
+			long before = boundary - random.nextInt(100);
+			long after = boundary + 1 + random.nextInt(100);
+			estimator.observeTransition(before, after);
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package com.lansoftprogramming.runeSequence.core.time;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualClockTest {
+
+	@Test
+	void shouldOnlyMoveWhenAdvanced() {
+		VirtualClock clock = new VirtualClock(5_000L);
+		assertEquals(5_000L, clock.millis());
+		assertEquals(5_000L * MonotonicClock.NANOS_PER_MILLI, clock.nanoTime());
+		assertEquals(5_000L, clock.millis(), "Reading the clock must not move it");
+
+		clock.advanceMillis(600L);
+		clock.advance(Duration.ofMillis(1_200L));
+		clock.advanceNanos(999_999L);
+		assertEquals(6_800L, clock.millis());
+
+		clock.setMillis(10_000L);
+		assertEquals(10_000L, clock.millis());
+	}
+
+	@Test
+	void shouldRejectMovingBackwards() {
+		VirtualClock clock = new VirtualClock();
+		clock.setMillis(2_000L);
+
+		assertThrows(IllegalArgumentException.class, () -> clock.setMillis(1_999L));
+		assertThrows(IllegalArgumentException.class, () -> clock.advanceMillis(-1L));
+		assertThrows(IllegalArgumentException.class, () -> new VirtualClock(0L));
+		assertEquals(2_000L, clock.millis());
+	}
+
+	@Test
+	void systemClockShouldBePositiveAndMonotonic() {
+		MonotonicClock clock = MonotonicClock.system();
+		long previous = clock.nanoTime();
+		assertTrue(clock.millis() > 0L, "Readings must stay clear of the 0 \"not set\" sentinel");
+		for (int i = 0; i < 1_000; i++) {
+			long next = clock.nanoTime();
+			assertTrue(next >= previous);
+			previous = next;
+		}
+	}
+}
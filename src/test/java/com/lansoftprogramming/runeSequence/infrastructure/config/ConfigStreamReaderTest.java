@@ -0,0 +1,97 @@
+package com.lansoftprogramming.runeSequence.infrastructure.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigStreamReaderTest {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void shouldDecodeDefaultAbilitiesLikeDataBinding() throws Exception {
+		Path file = copyDefault("abilities.json");
+		AbilityConfig bound = MAPPER.readValue(file.toFile(), AbilityConfig.class);
+
+		AbilityConfig streamed = new ConfigStreamReader(MAPPER.getFactory()).readAbilities(file);
+
+		assertNotNull(streamed);
+		assertEquals(bound.getAbilities().keySet(), streamed.getAbilities().keySet());
+		for (String name : bound.getAbilities().keySet()) {
+			assertEquals(MAPPER.valueToTree(bound.getAbility(name)), MAPPER.valueToTree(streamed.getAbility(name)), name);
+		}
+	}
+
+	@Test
+	void shouldSkipUnknownFieldsAndShareRepeatedStrings() throws Exception {
+		Path file = write("abilities.json", """
+				{
+				  "a" : { "common_name" : "A", "type" : "Basic", "mask" : "mask", "icon" : { "x" : [1, 2] }, "level" : null },
+				  "b" : { "type" : "Basic", "mask" : "mask", "cooldown" : 20, "triggers_gcd" : false, "detection_threshold" : 0.9 }
+				}
+				""");
+
+		AbilityConfig streamed = new ConfigStreamReader(MAPPER.getFactory()).readAbilities(file);
+
+		AbilityConfig.AbilityData b = streamed.getAbility("b");
+		assertEquals(20, b.getCooldown());
+		assertFalse(b.isTriggersGcd());
+		assertEquals(0.9, b.getDetectionThreshold());
+		assertNull(streamed.getAbility("a").getLevel());
+		assertSame(streamed.getAbility("a").getMask(), b.getMask());
+		assertSame(streamed.getAbility("a").getType(), b.getType());
+	}
+
+	@Test
+	void shouldRejectAbilitiesFromBeforeTheSchemaAfterTheSample() throws Exception {
+		StringBuilder json = new StringBuilder("{");
+		for (int i = 0; i < ConfigStreamReader.SCHEMA_SAMPLE_SIZE; i++) {
+			json.append("\"old").append(i).append("\" : { \"cooldown\" : 1 },");
+		}
+		// Never reached: decoding stops once the sample shows an old file.
+		json.append("\"broken\" : ").append("}");
+		Path file = write("abilities.json", json.toString());
+
+		assertNull(new ConfigStreamReader(MAPPER.getFactory()).readAbilities(file));
+		assertNull(new ConfigStreamReader(MAPPER.getFactory()).readAbilities(write("small.json", "{ \"old\" : { \"cooldown\" : 1 } }")));
+	}
+
+	@Test
+	void shouldReadCategoriesInFileOrderAsImmutableLists() throws Exception {
+		Path file = write("ability_categories.json", """
+				{ "Melee" : ["Slice", "Backhand"], "Magic" : ["wrack"], "Empty" : [] }
+				""");
+
+		AbilityCategoryConfig categories = new ConfigStreamReader(MAPPER.getFactory()).readAbilityCategories(file);
+
+		assertEquals(List.of("Melee", "Magic", "Empty"), List.copyOf(categories.getCategories().keySet()));
+		assertEquals(List.of("Slice", "Backhand"), categories.getAbilitiesForCategory("Melee"));
+		assertThrows(UnsupportedOperationException.class, () -> categories.getAbilitiesForCategory("Magic").add("x"));
+		assertEquals(List.of(), categories.getAbilitiesForCategory("Empty"));
+	}
+
+	private Path copyDefault(String name) throws Exception {
+		Path target = tempDir.resolve(name);
+		try (InputStream in = getClass().getClassLoader().getResourceAsStream("defaults/" + name)) {
+			assertNotNull(in);
+			Files.copy(in, target);
+		}
+		return target;
+	}
+
+	private Path write(String name, String json) throws Exception {
+		Path file = tempDir.resolve(name);
+		Files.writeString(file, json);
+		return file;
+	}
+}
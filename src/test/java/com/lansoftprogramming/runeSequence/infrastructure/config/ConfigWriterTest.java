@@ -0,0 +1,81 @@
+package com.lansoftprogramming.runeSequence.infrastructure.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigWriterTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void burstOfSavesShouldCoalesceIntoTheLastWrite() {
+		List<String> written = new CopyOnWriteArrayList<>();
+		try (ConfigWriter writer = new ConfigWriter(60_000L, 60_000L)) {
+			writer.schedule("settings.json", () -> written.add("settings-1"));
+			writer.schedule("settings.json", () -> written.add("settings-2"));
+			writer.schedule("abilities.json", () -> written.add("abilities"));
+			writer.schedule("settings.json", () -> written.add("settings-3"));
+			assertTrue(written.isEmpty(), "Nothing is written during the quiet period");
+
+			writer.flush();
+			assertEquals(List.of("settings-3", "abilities"), written);
+			writer.flush();
+			assertEquals(2, written.size());
+		}
+	}
+
+	@Test
+	void futuresShouldCompleteWithTheWriteThatCoveredThem() {
+		try (ConfigWriter writer = new ConfigWriter(60_000L, 60_000L)) {
+			CompletableFuture<Void> first = writer.schedule("settings.json", () -> {
+			});
+			CompletableFuture<Void> second = writer.schedule("settings.json", () -> {
+				throw new IOException("disk full");
+			});
+			CompletableFuture<Void> other = writer.schedule("abilities.json", () -> {
+			});
+			assertSame(first, second, "A replaced request is covered by the write that replaced it");
+			assertFalse(first.isDone());
+
+			writer.flush();
+			ExecutionException failure = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+			assertEquals("disk full", failure.getCause().getMessage());
+			assertDoesNotThrow(() -> other.get(5, TimeUnit.SECONDS));
+		}
+	}
+
+	@Test
+	void writesAfterCloseShouldRunOnTheCaller() {
+		List<String> written = new CopyOnWriteArrayList<>();
+		ConfigWriter writer = new ConfigWriter(60_000L, 60_000L);
+		writer.close();
+		writer.schedule("settings.json", () -> written.add("late"));
+		assertEquals(List.of("late"), written);
+	}
+
+	@Test
+	void writeAtomicallyShouldReplaceTheTargetWithoutLeavingTempFiles() throws Exception {
+		Path target = tempDir.resolve("settings.json");
+		Files.writeString(target, "old");
+
+		ConfigWriter.writeAtomically(target, "new".getBytes(StandardCharsets.UTF_8));
+
+		assertEquals("new", Files.readString(target));
+		try (var files = Files.list(tempDir)) {
+			assertEquals(List.of(target), files.toList());
+		}
+	}
+}
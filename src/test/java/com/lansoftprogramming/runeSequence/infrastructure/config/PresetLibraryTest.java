@@ -0,0 +1,266 @@
+package com.lansoftprogramming.runeSequence.infrastructure.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PresetLibraryTest {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper().findAndRegisterModules()
+			.enable(SerializationFeature.INDENT_OUTPUT);
+	private static final String ROTATIONS = """
+			{
+			  "presets" : {
+			    "p1" : {
+			      "name" : "Necro - AoE",
+			      "expression" : "surge → a[*1] / dive (tip)"
+			    },
+			    "p2" : {
+			      "name" : "Melee",
+			      "expression" : "gmaul eofspec → b",
+			      "ability_settings" : { "per_instance" : { "1" : { "cooldown" : 12 } } }
+			    },
+			    "p3" : null
+			  }
+			}
+			""";
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void shouldListFromTheIndexAndLoadBodiesOnDemand() throws Exception {
+		Path source = writeSource(ROTATIONS);
+		try (PresetLibrary library = open(source, tempDir.resolve("rotations.index"), 8)) {
+			assertEquals(List.of("p1", "p2", "p3"), List.copyOf(library.keySet()));
+			assertEquals("Necro - AoE", library.nameOf("p1"));
+			assertEquals(Set.of("surge", "a", "dive"), library.abilityKeysOf("p1"));
+			assertEquals(Set.of("gmaul", "eofspec", "b"), library.abilityKeysOf("p2"));
+
+			RotationConfig.PresetData p2 = library.get("p2");
+			assertEquals("gmaul eofspec → b", p2.getExpression());
+			assertNotNull(p2.getAbilitySettings());
+			assertSame(p2, library.get("p2"));
+			assertNull(library.get("p3"));
+			assertTrue(library.containsKey("p3"));
+			assertNull(library.get("missing"));
+		}
+	}
+
+	@Test
+	void shouldReusePersistedIndexOnlyWhileTheSourceIsUnchanged() throws Exception {
+		Path source = writeSource(ROTATIONS);
+		Path indexFile = tempDir.resolve("rotations.index");
+		open(source, indexFile, 8).close();
+		assertTrue(Files.isRegularFile(indexFile));
+
+		// Same size, newer timestamp: the stale index must not be trusted.
+		Files.writeString(source, ROTATIONS.replace("Melee", "Range"));
+		Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 5_000));
+		try (PresetLibrary library = open(source, indexFile, 8)) {
+			assertEquals("Range", library.nameOf("p2"));
+			assertEquals("Range", library.get("p2").getName());
+		}
+		try (PresetLibrary library = open(source, indexFile, 8)) {
+			assertEquals("Range", library.nameOf("p2"));
+		}
+	}
+
+	@Test
+	void shouldEvictLeastRecentlyUsedPresets() throws Exception {
+		Path source = writeSource(ROTATIONS);
+		try (PresetLibrary library = open(source, null, 1)) {
+			RotationConfig.PresetData first = library.get("p1");
+			library.get("p2");
+			RotationConfig.PresetData reloaded = library.get("p1");
+			assertNotSame(first, reloaded);
+			assertEquals(first.getExpression(), reloaded.getExpression());
+		}
+	}
+
+	@Test
+	void presetsChangedInPlaceShouldStayPendingThroughEvictionAndCommit() throws Exception {
+		Path source = writeSource(ROTATIONS);
+		try (PresetLibrary library = open(source, null, 1)) {
+			RotationConfig.PresetData evicted = library.get("p1");
+			evicted.setExpression("surge → b");
+			library.get("p2");
+			assertSame(evicted, library.get("p1"), "Changed in place, so it was pinned rather than dropped");
+
+			library.get("p2").setName("Melee v2");
+			library.commit();
+			assertEquals("Melee v2", library.nameOf("p2"));
+		}
+
+		try (PresetLibrary library = open(source, null, 1)) {
+			assertEquals("surge → b", library.get("p1").getExpression());
+			assertEquals("Melee v2", library.get("p2").getName());
+		}
+	}
+
+	@Test
+	void positionsShouldFollowTheIndexWithoutLoadingPresets() throws Exception {
+		Path source = writeSource(ROTATIONS);
+		try (PresetLibrary library = open(source, null, 1)) {
+			assertEquals("p2", library.idAt(1));
+			assertEquals(2, library.positionOf("p3"));
+			assertEquals(-1, library.positionOf("missing"));
+
+			library.remove("p1");
+			library.put("p4", preset("New", "c"));
+			assertEquals(List.of("p2", "p3", "p4"), List.of(library.idAt(0), library.idAt(1), library.idAt(2)));
+			assertEquals(2, library.positionOf("p4"));
+			assertThrows(IndexOutOfBoundsException.class, () -> library.idAt(3));
+		}
+	}
+
+	@Test
+	void committedEditsShouldBeJournaledAndSurviveReopening() throws Exception {
+		Path source = writeSource(ROTATIONS);
+		Path indexFile = tempDir.resolve("rotations.index");
+		byte[] original = Files.readAllBytes(source);
+		try (PresetLibrary library = open(source, indexFile, 1)) {
+			RotationConfig.PresetData edited = library.get("p1");
+			edited.setName("Renamed");
+			library.put("p1", edited);
+			library.put("p4", preset("New", "c → d"));
+			library.remove("p3");
+			assertEquals("Renamed", library.nameOf("p1"));
+
+			assertFalse(library.commit(), "A few records stay below the compaction threshold");
+			assertArrayEquals(original, Files.readAllBytes(source), "Committing must not rewrite the library");
+			library.get("p2");
+			assertEquals("Renamed", library.get("p1").getName());
+		}
+
+		try (PresetLibrary library = open(source, indexFile, 1)) {
+			assertEquals(List.of("p1", "p2", "p4"), List.copyOf(library.keySet()));
+			assertEquals("Renamed", library.nameOf("p1"));
+			assertEquals("Renamed", library.get("p1").getName());
+			assertEquals(Set.of("c", "d"), library.abilityKeysOf("p4"));
+			assertEquals("c → d", library.get("p4").getExpression());
+		}
+	}
+
+	@Test
+	void compactionShouldFoldTheJournalIntoTheSource() throws Exception {
+		Path source = writeSource(ROTATIONS);
+		Path indexFile = tempDir.resolve("rotations.index");
+		try (PresetLibrary library = open(source, indexFile, 1)) {
+			library.put("p4", preset("New", "c → d"));
+			library.remove("p2");
+			library.commit();
+			library.put("p5", preset("Pending", "e"));
+
+			assertTrue(library.compact());
+
+			assertFalse(Files.exists(journal()));
+			assertEquals(List.of("p1", "p3", "p4", "p5"), List.copyOf(library.keySet()));
+			assertEquals("surge → a[*1] / dive (tip)", library.get("p1").getExpression());
+			assertEquals("Pending", library.get("p5").getName(), "Uncommitted edits stay pending");
+		}
+
+		RotationConfig reread = MAPPER.readValue(source.toFile(), RotationConfig.class);
+		assertEquals(Set.of("p1", "p3", "p4"), reread.getPresets().keySet());
+		assertEquals("c → d", reread.getPresets().get("p4").getExpression());
+		assertNull(reread.getPresets().get("p3"));
+		try (PresetLibrary library = open(source, indexFile, 1)) {
+			assertEquals("New", library.nameOf("p4"));
+			assertEquals("Necro - AoE", library.get("p1").getName());
+		}
+	}
+
+	@Test
+	void tornJournalRecordShouldBeDroppedOnReplay() throws Exception {
+		Path source = writeSource(ROTATIONS);
+		try (PresetLibrary library = open(source, null, 4)) {
+			library.put("p4", preset("Kept", "c"));
+			library.commit();
+		}
+		Files.writeString(journal(), Files.readString(journal()) + "{\"id\":\"p5\",\"preset\":{\"name\":\"Torn", StandardOpenOption.TRUNCATE_EXISTING);
+
+		try (PresetLibrary library = open(source, null, 4)) {
+			assertEquals("Kept", library.nameOf("p4"));
+			assertFalse(library.containsKey("p5"));
+			library.put("p6", preset("After", "d"));
+			library.commit();
+		}
+		try (PresetLibrary library = open(source, null, 4)) {
+			assertEquals("Kept", library.get("p4").getName());
+			assertEquals("After", library.get("p6").getName());
+		}
+	}
+
+	@Test
+	void corruptRecordBeforeTheTailShouldBeSkippedWithoutTruncating() throws Exception {
+		Path source = writeSource(ROTATIONS);
+		try (PresetLibrary library = open(source, null, 4)) {
+			library.put("p4", preset("First", "c"));
+			library.commit();
+			library.put("p5", preset("Second", "d"));
+			library.commit();
+		}
+		List<String> lines = Files.readAllLines(journal());
+		assertEquals(2, lines.size());
+		Files.writeString(journal(), lines.get(0) + "\n{\"id\":\"bad\",\"preset\":}\n" + lines.get(1) + "\n");
+
+		try (PresetLibrary library = open(source, null, 4)) {
+			assertEquals("First", library.get("p4").getName());
+			assertEquals("Second", library.get("p5").getName(), "Records after the corrupt one still apply");
+			assertFalse(library.containsKey("bad"));
+		}
+		assertEquals(3, Files.readAllLines(journal()).size(), "Only a torn tail is cut off");
+	}
+
+	@Test
+	void reloadShouldPickUpOutsideEditsAndKeepJournaledChanges() throws Exception {
+		Path source = writeSource(ROTATIONS);
+		try (PresetLibrary library = open(source, tempDir.resolve("rotations.index"), 4)) {
+			library.put("p4", preset("Journaled", "c"));
+			library.commit();
+			library.put("p5", preset("Pending", "d"));
+			assertEquals(Set.of(), library.reload(), "Nothing changed on disk");
+
+			Files.writeString(source, ROTATIONS.replace("Melee", "Hand edited").replace("\"p3\" : null", "\"p6\" : null"));
+			Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 5_000));
+			assertEquals(Set.of("p2", "p3", "p6"), library.reload(), "p1 moved but kept its body");
+
+			assertEquals(List.of("p1", "p2", "p6", "p4", "p5"), List.copyOf(library.keySet()));
+			assertEquals("Hand edited", library.get("p2").getName());
+			assertEquals("Journaled", library.get("p4").getName());
+			assertEquals("Pending", library.get("p5").getName());
+			assertEquals(Set.of(), library.reload());
+		}
+	}
+
+	private PresetLibrary open(Path source, Path indexFile, int cacheSize) throws Exception {
+		return PresetLibrary.open(source, indexFile, journal(), MAPPER, cacheSize);
+	}
+
+	private Path journal() {
+		return tempDir.resolve("rotations.journal");
+	}
+
+	private static RotationConfig.PresetData preset(String name, String expression) {
+		RotationConfig.PresetData preset = new RotationConfig.PresetData();
+		preset.setName(name);
+		preset.setExpression(expression);
+		return preset;
+	}
+
+	private Path writeSource(String json) throws Exception {
+		Path source = tempDir.resolve("rotations.json");
+		Files.writeString(source, json);
+		return source;
+	}
+}
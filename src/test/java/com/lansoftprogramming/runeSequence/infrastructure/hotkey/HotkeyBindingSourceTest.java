@@ -0,0 +1,37 @@
+package com.lansoftprogramming.runeSequence.infrastructure.hotkey;
+
+import com.lansoftprogramming.runeSequence.infrastructure.config.AppSettings;
+import org.jnativehook.keyboard.NativeKeyEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HotkeyBindingSourceTest {
+
+	private final HotkeyBindingSource source = new HotkeyBindingSource();
+
+	@Test
+	void abilityBindingsShouldMapChordsToAbilitiesWhenLatchEnabled() {
+		AppSettings.HotkeySettings settings = new AppSettings.HotkeySettings();
+		Map<String, List<String>> keybinds = new LinkedHashMap<>();
+		keybinds.put("surge", List.of("Shift+E", "F1"));
+		keybinds.put("dive", List.of("Shift + E"));
+		keybinds.put("broken", List.of("Shift"));
+		settings.setAbilityKeybinds(keybinds);
+
+		assertTrue(source.loadAbilityBindings(settings).isEmpty(), "Ability keybinds are ignored unless the keypress latch is on");
+
+		settings.setAbilityKeypressLatch(true);
+		Map<KeyChord, List<String>> bindings = source.loadAbilityBindings(settings);
+
+		assertEquals(2, bindings.size());
+		assertEquals(List.of("surge", "dive"), bindings.get(new KeyChord(EnumSet.of(ModifierKey.SHIFT), NativeKeyEvent.VC_E)));
+		assertEquals(List.of("surge"), bindings.get(new KeyChord(EnumSet.noneOf(ModifierKey.class), NativeKeyEvent.VC_F1)));
+	}
+}